@@ -62,8 +62,7 @@ public class GlobalExceptionHandler {
             InvalidCredentialsException.class,
             InvalidEntityDataException.class,
             HttpMessageConversionException.class,
-            TicketActionException.class,
-            AuctionStatusUpdateException.class
+            TicketActionException.class
     })
     public ResponseEntity<ErrorDTO> handleBadRequestException(Exception exception, WebRequest webRequest) {
         ErrorDTO errorDTO = buildErrorDTO(HttpStatus.BAD_REQUEST, exception.getMessage(), ((ServletWebRequest) webRequest).getRequest().getRequestURI());
@@ -0,0 +1,59 @@
+package org.elis.progettoing.config;
+
+import jakarta.annotation.PostConstruct;
+import org.elis.progettoing.models.IdGenerators;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Component that aligns the table-based id generators with the rows already stored.
+ * <p>
+ * The entities listed in {@link #GENERATED_TABLES} used to take their ids from auto-increment columns, and the
+ * initial data script inserts rows with explicit ids. Before the application starts serving requests, the next value
+ * of each generator is moved past the highest existing id, leaving room for a whole allocation block, so that the
+ * generated ids never collide with the existing ones.
+ * </p>
+ */
+@Component
+@DependsOnDatabaseInitialization
+public class IdGeneratorInitializer {
+    static final List<String> GENERATED_TABLES = List.of(
+            "orders", "order_product", "product_package", "package_attribute", "purchased_product");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs an instance of {@code IdGeneratorInitializer}.
+     *
+     * @param jdbcTemplate the template used to read the highest ids and update the generators.
+     */
+    public IdGeneratorInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Moves every generator past the highest id of its table.
+     */
+    @PostConstruct
+    public void alignGenerators() {
+        for (String table : GENERATED_TABLES) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            long nextValue = (maxId != null ? maxId : 0) + IdGenerators.ALLOCATION_SIZE + 1;
+
+            Integer rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + IdGenerators.TABLE + " WHERE " + IdGenerators.NAME_COLUMN + " = ?",
+                    Integer.class, table);
+
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", "
+                        + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)", table, nextValue);
+            } else {
+                jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = ? WHERE "
+                        + IdGenerators.NAME_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?", nextValue, table, nextValue);
+            }
+        }
+    }
+}
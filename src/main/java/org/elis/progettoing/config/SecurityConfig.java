@@ -1,5 +1,6 @@
 package org.elis.progettoing.config;
 
+import jakarta.servlet.DispatcherType;
 import org.elis.progettoing.enumeration.Role;
 import org.elis.progettoing.filter.JwtAuthFilter;
 import org.springframework.context.annotation.Bean;
@@ -115,6 +116,9 @@ public class SecurityConfig {
                 .cors(AbstractHttpConfigurer::disable)
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(req -> req
+                        // Async dispatches resume requests already authorized, such as event streams and exports
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public requests for static resources
                         .requestMatchers("/images/**").permitAll()
 
@@ -126,7 +130,7 @@ public class SecurityConfig {
                         .requestMatchers(GET, "/api/ticket/getTicketById", "/api/ticket/getAll", "/api/ticket/getResolvedTickets", "/api/ticket/getPendingTickets", "/api/ticket/getTakeOnTickets").hasRole(MODERATOR)
                         .requestMatchers(POST, "/api/ticket/sellerRequest").access(hasSpecificRole(Role.BUYER))
                         .requestMatchers(POST, "/api/ticket/reportReviews", "/api/ticket/reportUser", "/api/ticket/reportProduct").access(hasSpecificRole(Role.BUYER, Role.SELLER))
-                        .requestMatchers(POST, "/api/ticket/refuseTicket", "/api/ticket/acceptTicket", "/api/ticket/takeOnTicket", "/api/ticket/filter").hasRole(MODERATOR)
+                        .requestMatchers(POST, "/api/ticket/refuseTicket", "/api/ticket/acceptTicket", "/api/ticket/takeOnTicket", "/api/ticket/claimNextTicket", "/api/ticket/renewTicketLease", "/api/ticket/filter").hasRole(MODERATOR)
 
                         // User requests
                         .requestMatchers(GET, "/api/user/getById", "/api/user/getByEmail").hasRole(BUYER)
@@ -160,9 +164,9 @@ public class SecurityConfig {
                         .requestMatchers(DELETE, "/api/products/removeProduct").access(hasSpecificRole(Role.SELLER))
 
                         // Auction Requests
-                        .requestMatchers(GET, "/api/auction/details", "/api/auction/active", "/api/auction/closed", "/api/auction/pending", "/api/auction/auctionActiveSummary",
+                        .requestMatchers(GET, "/api/auction/details", "/api/auction/events", "/api/auction/active", "/api/auction/closed", "/api/auction/pending", "/api/auction/auctionActiveSummary",
                                 "/api/auction/auctionPendingSummary", "/api/auction/summaryByUserId", "/api/auction/getClosedAuctionsByUser", "/api/auction/getPendingAuctionsByUser",
-                                "/api/auction/getOpenAuctionsByUser").hasRole(BUYER)
+                                "/api/auction/getOpenAuctionsByUser", "/api/auction/dashboard").hasRole(BUYER)
                         .requestMatchers(GET, "/api/auction/subscribed").access(hasSpecificRole(Role.SELLER))
                         .requestMatchers(POST, "/api/auction/create", "/api/auction/assignWinner").access(hasSpecificRole(Role.BUYER, Role.SELLER))
                         .requestMatchers(POST, "/api/auction/subscribeUserNotification").access(hasSpecificRole(Role.SELLER))
@@ -170,8 +174,8 @@ public class SecurityConfig {
                         .requestMatchers(DELETE, "/api/auction/delete").access(hasSpecificRole(Role.BUYER, Role.SELLER))
 
                         // Offer requests
-                        .requestMatchers(GET, "/api/offer/getOfferByUser").hasRole(BUYER)
-                        .requestMatchers(GET, "/api/offer/getOfferById", "/api/offer/getOffersByAuctionId").hasRole(BUYER)
+                        .requestMatchers(GET, "/api/offer/getOfferByUser", "/api/offer/getOfferRankByUser").hasRole(BUYER)
+                        .requestMatchers(GET, "/api/offer/getOfferById", "/api/offer/getOffersByAuctionId", "/api/offer/getTopOffers").hasRole(BUYER)
                         .requestMatchers(POST, "/api/offer/create").access(hasSpecificRole(Role.SELLER))
                         .requestMatchers(PATCH, "/api/offer/update").access(hasSpecificRole(Role.SELLER))
                         .requestMatchers(DELETE, "/api/offer/delete").access(hasSpecificRole(Role.SELLER))
@@ -180,8 +184,10 @@ public class SecurityConfig {
                         .requestMatchers(GET, "/api/order/getOrderByUser").access(hasSpecificRole(Role.BUYER, Role.SELLER))
                         .requestMatchers(POST, "/api/order/create").access(hasSpecificRole(Role.BUYER, Role.SELLER))
                         .requestMatchers(POST, "/api/order/getFilteredOrders").access(hasSpecificRole(Role.BUYER, Role.SELLER))
-                        .requestMatchers(GET, "/api/order/getReceivedOrdersBySeller", "/api/order/getDelayedOrdersBySeller", "/api/order/getTakeOnOrdersBySeller", "/api/order/getRefusedOrdersBySeller", "/api/order/getDeliveredOrdersBySeller", "/api/order/getPendingOrdersBySeller", "/api/order/getOrderProductById").hasRole(SELLER)
-                        .requestMatchers(POST, "/api/order/acceptSingleOrderProduct", "/api/order/refuseSingleOrderProduct", "/api/order/getFilteredOrdersBySeller").hasRole(SELLER)
+                        .requestMatchers(GET, "/api/order/getReceivedOrdersBySeller", "/api/order/getDelayedOrdersBySeller", "/api/order/getTakeOnOrdersBySeller", "/api/order/getRefusedOrdersBySeller", "/api/order/getDeliveredOrdersBySeller", "/api/order/getPendingOrdersBySeller", "/api/order/getOrderProductById", "/api/order/getOrderStatusCountsBySeller", "/api/order/exportOrdersBySeller").hasRole(SELLER)
+                        .requestMatchers(GET, "/api/order/deadlineMetrics").hasRole(ADMIN)
+                        .requestMatchers(GET, "/api/auction/cacheMetrics").hasRole(ADMIN)
+                        .requestMatchers(POST, "/api/order/acceptSingleOrderProduct", "/api/order/refuseSingleOrderProduct", "/api/order/updateOrderProductsStatus", "/api/order/getFilteredOrdersBySeller", "/api/order/getFacetedOrdersBySeller").hasRole(SELLER)
 
                         // Review requests
                         .requestMatchers(GET, "/api/reviews/findByProductId", "/api/reviews/getReviewsReceivedByUserId", "/api/reviews/getReviewsByUserId", "/api/reviews/reviewSummaryByProductId", "/api/reviews/reviewSummaryByUserId").hasRole(BUYER)
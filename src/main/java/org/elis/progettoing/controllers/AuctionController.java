@@ -3,11 +3,15 @@ package org.elis.progettoing.controllers;
 import jakarta.validation.Valid;
 import org.elis.progettoing.dto.request.auction.AuctionRequestDTO;
 import org.elis.progettoing.dto.response.auction.AuctionDetailsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionListingCacheMetricsDTO;
 import org.elis.progettoing.dto.response.auction.AuctionSummaryDTO;
+import org.elis.progettoing.dto.response.auction.OwnerAuctionDashboardDTO;
 import org.elis.progettoing.service.definition.AuctionService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -114,6 +118,17 @@ public class AuctionController {
         return new ResponseEntity<>(auctionService.getAuctionDetails(auctionId), HttpStatus.OK);
     }
 
+    /**
+     * Opens a Server-Sent Events stream with the status changes, the offers and the winner of a specific auction.
+     *
+     * @param auctionId the ID of the auction to follow
+     * @return the emitter pushing the events of the auction
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAuctionEvents(@RequestParam("auctionId") long auctionId) {
+        return new ResponseEntity<>(auctionService.streamAuctionEvents(auctionId), HttpStatus.OK);
+    }
+
     /**
      * Retrieves a list of all active auctions.
      *
@@ -166,6 +181,26 @@ public class AuctionController {
         return new ResponseEntity<>(auctionService.assignWinner(auctionId, winnerId), HttpStatus.OK);
     }
 
+    /**
+     * Retrieves the auctions without a winner of logged user, grouped by status.
+     *
+     * @return the open, pending and closed auctions without a winner
+     */
+    @GetMapping("/dashboard")
+    public ResponseEntity<OwnerAuctionDashboardDTO> getOwnerAuctionDashboard() {
+        return new ResponseEntity<>(auctionService.getOwnerAuctionDashboard(), HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the metrics of the in-memory listings of the open and pending auctions.
+     *
+     * @return hit ratio and rebuild latency of the listings
+     */
+    @GetMapping("/cacheMetrics")
+    public ResponseEntity<AuctionListingCacheMetricsDTO> getListingCacheMetrics() {
+        return new ResponseEntity<>(auctionService.getListingCacheMetrics(), HttpStatus.OK);
+    }
+
     /**
      * Retrieves a list of closed auctions of logged user.
      *
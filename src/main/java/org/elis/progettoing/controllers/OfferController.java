@@ -2,6 +2,7 @@ package org.elis.progettoing.controllers;
 
 import jakarta.validation.Valid;
 import org.elis.progettoing.dto.request.auction.OfferRequestDTO;
+import org.elis.progettoing.dto.response.auction.OfferRankDTO;
 import org.elis.progettoing.dto.response.auction.OfferResponseDTO;
 import org.elis.progettoing.service.definition.OfferService;
 import org.springframework.http.HttpStatus;
@@ -74,14 +75,19 @@ public class OfferController {
     }
 
     /**
-     * Endpoint to retrieve all offers associated with a specific auction.
+     * Endpoint to retrieve the offers associated with a specific auction, from the best one.
      *
      * @param auctionId the ID of the auction for which offers are to be retrieved.
+     * @param offset    the number of offers to skip from the best one.
+     * @param limit     the maximum number of offers to retrieve, omitted to retrieve all the remaining offers.
      * @return a {@link ResponseEntity} containing a list of {@link OfferResponseDTO} and HTTP status 200 (OK).
      */
     @GetMapping("/getOffersByAuctionId")
-    public ResponseEntity<List<OfferResponseDTO>> getOffersByAuctionId(@RequestParam("auctionId") long auctionId) {
-        return new ResponseEntity<>(offerService.getAllOffersByAuction(auctionId), HttpStatus.OK);
+    public ResponseEntity<List<OfferResponseDTO>> getOffersByAuctionId(
+            @RequestParam("auctionId") long auctionId,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return new ResponseEntity<>(offerService.getAllOffersByAuction(auctionId, offset, limit), HttpStatus.OK);
     }
 
     /**
@@ -94,4 +100,28 @@ public class OfferController {
     public ResponseEntity<OfferResponseDTO> getOfferByUser(@RequestParam("auctionId") long auctionId) {
         return new ResponseEntity<>(offerService.getOfferByUser(auctionId), HttpStatus.OK);
     }
+
+    /**
+     * Endpoint to retrieve the best offers of a specific auction.
+     *
+     * @param auctionId the ID of the auction for which the best offers are to be retrieved.
+     * @param limit     the maximum number of offers to return.
+     * @return a {@link ResponseEntity} containing a list of {@link OfferRankDTO} and HTTP status 200 (OK).
+     */
+    @GetMapping("/getTopOffers")
+    public ResponseEntity<List<OfferRankDTO>> getTopOffers(@RequestParam("auctionId") long auctionId,
+                                                           @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return new ResponseEntity<>(offerService.getTopOffers(auctionId, limit), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to retrieve the position of the current user's offer in the ranking of a specific auction.
+     *
+     * @param auctionId the ID of the auction.
+     * @return a {@link ResponseEntity} containing the {@link OfferRankDTO} of the user's offer and HTTP status 200 (OK).
+     */
+    @GetMapping("/getOfferRankByUser")
+    public ResponseEntity<OfferRankDTO> getOfferRankByUser(@RequestParam("auctionId") long auctionId) {
+        return new ResponseEntity<>(offerService.getOfferRankByUser(auctionId), HttpStatus.OK);
+    }
 }
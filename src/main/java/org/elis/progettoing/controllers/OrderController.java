@@ -1,17 +1,29 @@
 package org.elis.progettoing.controllers;
 
 import jakarta.validation.Valid;
+import org.elis.progettoing.dto.request.order.OrderFacetRequest;
 import org.elis.progettoing.dto.request.order.OrderFilterRequest;
+import org.elis.progettoing.dto.request.order.OrderProductBulkStatusRequest;
 import org.elis.progettoing.dto.request.order.OrderRequestDTO;
+import org.elis.progettoing.dto.response.order.FacetedOrdersResponse;
 import org.elis.progettoing.dto.response.order.FilteredOrdersResponse;
+import org.elis.progettoing.dto.response.order.OrderDeadlineMetricsDTO;
 import org.elis.progettoing.dto.response.order.OrderProductResponseDTO;
+import org.elis.progettoing.dto.response.order.OrderProductTransitionResultDTO;
 import org.elis.progettoing.dto.response.order.OrderResponseDTO;
+import org.elis.progettoing.enumeration.ExportFormat;
+import org.elis.progettoing.enumeration.OrderProductStatus;
 import org.elis.progettoing.service.definition.OrderService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for managing orders.
@@ -43,13 +55,17 @@ public class OrderController {
     }
 
     /**
-     * Endpoint to retrieve orders by the current user.
+     * Endpoint to retrieve a page of orders made by the current user, newest first.
      *
+     * @param cursor the id of the last order of the previous page, omitted for the first page.
+     * @param size   the maximum number of orders to retrieve.
      * @return a {@link ResponseEntity} containing a list of {@link OrderResponseDTO} and HTTP status 200 (OK).
      */
     @GetMapping("/getOrderByUser")
-    public ResponseEntity<List<OrderResponseDTO>> getOrderByUser() {
-        return new ResponseEntity<>(orderService.getOrderByUser(), HttpStatus.OK);
+    public ResponseEntity<List<OrderResponseDTO>> getOrderByUser(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(orderService.getOrderByUser(cursor, size), HttpStatus.OK);
     }
 
     /**
@@ -64,63 +80,87 @@ public class OrderController {
     }
 
     /**
-     * Endpoint to retrieve received orders by the seller.
+     * Endpoint to retrieve a page of received orders by the seller, newest first.
      *
+     * @param cursor the id of the last order of the previous page, omitted for the first page.
+     * @param size   the maximum number of orders to retrieve.
      * @return a {@link ResponseEntity} containing a list of {@link OrderResponseDTO} and HTTP status 200 (OK).
      */
     @GetMapping("/getReceivedOrdersBySeller")
-    public ResponseEntity<List<OrderResponseDTO>> getReceivedOrdersBySeller() {
-        return new ResponseEntity<>(orderService.getReceivedOrdersBySeller(), HttpStatus.OK);
+    public ResponseEntity<List<OrderResponseDTO>> getReceivedOrdersBySeller(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(orderService.getReceivedOrdersBySeller(cursor, size), HttpStatus.OK);
     }
 
     /**
-     * Endpoint to retrieve delayed orders by the seller.
+     * Endpoint to retrieve a page of delayed orders by the seller, newest first.
      *
+     * @param cursor the id of the last order of the previous page, omitted for the first page.
+     * @param size   the maximum number of orders to retrieve.
      * @return a {@link ResponseEntity} containing a list of {@link OrderResponseDTO} and HTTP status 200 (OK).
      */
     @GetMapping("/getDelayedOrdersBySeller")
-    public ResponseEntity<List<OrderResponseDTO>> getDelayedOrdersBySeller() {
-        return new ResponseEntity<>(orderService.getDelayedOrdersBySeller(), HttpStatus.OK);
+    public ResponseEntity<List<OrderResponseDTO>> getDelayedOrdersBySeller(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(orderService.getDelayedOrdersBySeller(cursor, size), HttpStatus.OK);
     }
 
     /**
-     * Endpoint to retrieve delivered orders by the seller.
+     * Endpoint to retrieve a page of delivered orders by the seller, newest first.
      *
+     * @param cursor the id of the last order of the previous page, omitted for the first page.
+     * @param size   the maximum number of orders to retrieve.
      * @return a {@link ResponseEntity} containing a list of {@link OrderResponseDTO} and HTTP status 200 (OK).
      */
     @GetMapping("/getDeliveredOrdersBySeller")
-    public ResponseEntity<List<OrderResponseDTO>> getDeliveredOrdersBySeller() {
-        return new ResponseEntity<>(orderService.getDeliveredOrdersBySeller(), HttpStatus.OK);
+    public ResponseEntity<List<OrderResponseDTO>> getDeliveredOrdersBySeller(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(orderService.getDeliveredOrdersBySeller(cursor, size), HttpStatus.OK);
     }
 
     /**
-     * Endpoint to retrieve refused orders by the seller.
+     * Endpoint to retrieve a page of refused orders by the seller, newest first.
      *
+     * @param cursor the id of the last order of the previous page, omitted for the first page.
+     * @param size   the maximum number of orders to retrieve.
      * @return a {@link ResponseEntity} containing a list of {@link OrderResponseDTO} and HTTP status 200 (OK).
      */
     @GetMapping("/getRefusedOrdersBySeller")
-    public ResponseEntity<List<OrderResponseDTO>> getRefusedOrdersBySeller() {
-        return new ResponseEntity<>(orderService.getRefusedOrdersBySeller(), HttpStatus.OK);
+    public ResponseEntity<List<OrderResponseDTO>> getRefusedOrdersBySeller(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(orderService.getRefusedOrdersBySeller(cursor, size), HttpStatus.OK);
     }
 
     /**
-     * Endpoint to retrieve take-on orders by the seller.
+     * Endpoint to retrieve a page of take-on orders by the seller, newest first.
      *
+     * @param cursor the id of the last order of the previous page, omitted for the first page.
+     * @param size   the maximum number of orders to retrieve.
      * @return a {@link ResponseEntity} containing a list of {@link OrderResponseDTO} and HTTP status 200 (OK).
      */
     @GetMapping("/getTakeOnOrdersBySeller")
-    public ResponseEntity<List<OrderResponseDTO>> getTakeOnOrdersBySeller() {
-        return new ResponseEntity<>(orderService.getTakeOnOrdersBySeller(), HttpStatus.OK);
+    public ResponseEntity<List<OrderResponseDTO>> getTakeOnOrdersBySeller(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(orderService.getTakeOnOrdersBySeller(cursor, size), HttpStatus.OK);
     }
 
     /**
-     * Endpoint to retrieve pending orders by the seller.
+     * Endpoint to retrieve a page of pending orders by the seller, newest first.
      *
+     * @param cursor the id of the last order of the previous page, omitted for the first page.
+     * @param size   the maximum number of orders to retrieve.
      * @return a {@link ResponseEntity} containing a list of {@link OrderResponseDTO} and HTTP status 200 (OK).
      */
     @GetMapping("/getPendingOrdersBySeller")
-    public ResponseEntity<List<OrderResponseDTO>> getPendingOrdersBySeller() {
-        return new ResponseEntity<>(orderService.getPendingOrdersBySeller(), HttpStatus.OK);
+    public ResponseEntity<List<OrderResponseDTO>> getPendingOrdersBySeller(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return new ResponseEntity<>(orderService.getPendingOrdersBySeller(cursor, size), HttpStatus.OK);
     }
 
     /**
@@ -145,6 +185,17 @@ public class OrderController {
         return new ResponseEntity<>(orderService.refuseSingleOrderProduct(orderProductId), HttpStatus.OK);
     }
 
+    /**
+     * Endpoint to accept or refuse many order products of the seller at once.
+     *
+     * @param request the request containing the IDs of the order products and the target status.
+     * @return a {@link ResponseEntity} containing the outcome for each order product and HTTP status 200 (OK).
+     */
+    @PostMapping("/updateOrderProductsStatus")
+    public ResponseEntity<List<OrderProductTransitionResultDTO>> updateOrderProductsStatus(@RequestBody OrderProductBulkStatusRequest request) {
+        return new ResponseEntity<>(orderService.updateOrderProductsStatus(request), HttpStatus.OK);
+    }
+
     /**
      * Endpoint to retrieve an order product by its ID.
      *
@@ -167,6 +218,52 @@ public class OrderController {
         return new ResponseEntity<>(orderService.getFilteredOrdersBySeller(orderFilterRequest), HttpStatus.OK);
     }
 
+    /**
+     * Endpoint to retrieve the orders of the seller grouped by status, with an independent page for each status.
+     *
+     * @param orderFacetRequest the request data containing filter criteria, bucket size and cursors.
+     * @return a {@link ResponseEntity} containing the {@link FacetedOrdersResponse} and HTTP status 200 (OK).
+     */
+    @PostMapping("/getFacetedOrdersBySeller")
+    public ResponseEntity<FacetedOrdersResponse> getFacetedOrdersBySeller(@RequestBody OrderFacetRequest orderFacetRequest) {
+        return new ResponseEntity<>(orderService.getFacetedOrdersBySeller(orderFacetRequest), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to retrieve the number of order products received by the seller for every status.
+     *
+     * @return a {@link ResponseEntity} containing the counts by {@link OrderProductStatus} and HTTP status 200 (OK).
+     */
+    @GetMapping("/getOrderStatusCountsBySeller")
+    public ResponseEntity<Map<OrderProductStatus, Long>> getOrderStatusCountsBySeller() {
+        return new ResponseEntity<>(orderService.getOrderStatusCountsBySeller(), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to retrieve the backlog and lag of the transitions of overdue order products to late delivery.
+     *
+     * @return a {@link ResponseEntity} containing the {@link OrderDeadlineMetricsDTO} and HTTP status 200 (OK).
+     */
+    @GetMapping("/deadlineMetrics")
+    public ResponseEntity<OrderDeadlineMetricsDTO> getDeadlineMetrics() {
+        return new ResponseEntity<>(orderService.getDeadlineMetrics(), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to export all the orders received by the seller as a file, one order product per row. The rows are
+     * written to the response while they are read from the database.
+     *
+     * @param format the format of the export, {@code CSV} or {@code NDJSON}.
+     * @return a {@link ResponseEntity} containing the {@link StreamingResponseBody} and HTTP status 200 (OK).
+     */
+    @GetMapping("/exportOrdersBySeller")
+    public ResponseEntity<StreamingResponseBody> exportOrdersBySeller(@RequestParam(value = "format", defaultValue = "CSV") ExportFormat format) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment().filename("orders." + format.getExtension()).build());
+        return new ResponseEntity<>(orderService.exportOrdersBySeller(format), headers, HttpStatus.OK);
+    }
+
     /**
      * Endpoint to deliver a product.
      *
@@ -145,6 +145,35 @@ public class TicketController {
         return new ResponseEntity<>(ticketService.takeOnTicket(id), HttpStatus.OK);
     }
 
+    /**
+     * Endpoint to claim the next pending ticket, the one with the highest priority and the oldest creation date. The
+     * ticket is leased to the authenticated moderator and goes back to the queue if the lease expires.
+     *
+     * @return a {@link ResponseEntity} containing the claimed {@link TicketResponseDTO} and HTTP status 200 (OK), or
+     * HTTP status 204 (No Content) if there are no pending tickets.
+     */
+    @PostMapping("/claimNextTicket")
+    public ResponseEntity<TicketResponseDTO> claimNextTicket() {
+        TicketResponseDTO claimed = ticketService.claimNextTicket();
+        if (claimed == null) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+
+        return new ResponseEntity<>(claimed, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to renew the lease of a ticket claimed by the authenticated moderator.
+     *
+     * @param id the ID of the ticket.
+     * @return a {@link ResponseEntity} containing the updated {@link TicketResponseDTO}
+     * and HTTP status 200 (OK).
+     */
+    @PostMapping("/renewTicketLease")
+    public ResponseEntity<TicketResponseDTO> renewTicketLease(@RequestParam("id") long id) {
+        return new ResponseEntity<>(ticketService.renewTicketLease(id), HttpStatus.OK);
+    }
+
     /**
      * Endpoint to filter tickets based on specific criteria.
      *
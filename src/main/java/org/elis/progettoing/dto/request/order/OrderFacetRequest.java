@@ -0,0 +1,19 @@
+package org.elis.progettoing.dto.request.order;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) representing the request to retrieve the orders of a seller grouped by status.
+ * In addition to the filters of {@link OrderFilterRequest}, it contains the size of each bucket and the cursor
+ * of each bucket, keyed by order product status or {@code ALL} for the bucket containing every order.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class OrderFacetRequest extends OrderFilterRequest {
+    private int size = 10;
+    private Map<String, Long> cursors = new HashMap<>();
+}
@@ -0,0 +1,18 @@
+package org.elis.progettoing.dto.request.order;
+
+import lombok.Data;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) representing the request of a seller to accept or refuse many order products at once.
+ * It contains the IDs of the order products and the target status, which can be {@code IN_PROGRESS} to accept them
+ * or {@code REFUSED} to refuse them.
+ */
+@Data
+public class OrderProductBulkStatusRequest {
+    private List<Long> orderProductIds = new ArrayList<>();
+    private OrderProductStatus status;
+}
@@ -0,0 +1,19 @@
+package org.elis.progettoing.dto.response.auction;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) representing an auction in the dashboard of its owner.
+ * Unlike {@link AuctionSummaryDTO} it does not contain the owner, who is the user reading the dashboard.
+ */
+@Data
+public class AuctionDashboardItemDTO {
+    private long id;
+    private String title;
+    private String description;
+    private String state;
+    private LocalDateTime startAuctionDate;
+    private LocalDateTime endAuctionDate;
+}
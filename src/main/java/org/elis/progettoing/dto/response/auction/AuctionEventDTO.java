@@ -0,0 +1,26 @@
+package org.elis.progettoing.dto.response.auction;
+
+import lombok.Data;
+import org.elis.progettoing.enumeration.AuctionEventType;
+import org.elis.progettoing.enumeration.AuctionStatus;
+
+/**
+ * Data Transfer Object (DTO) representing an event of an auction pushed to the clients following it.
+ * Only the fields related to the type of the event are set: the status for a status change, the offer for a created
+ * or updated offer, the offer ID for a deleted offer and the winner ID for the assignment of the winner.
+ */
+@Data
+public class AuctionEventDTO {
+
+    private AuctionEventType type;
+
+    private long auctionId;
+
+    private AuctionStatus status;
+
+    private Long offerId;
+
+    private OfferResponseDTO offer;
+
+    private Long winnerId;
+}
@@ -0,0 +1,26 @@
+package org.elis.progettoing.dto.response.auction;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) representing the state of the in-memory snapshot of the open and pending auctions. It
+ * contains the number of reads served from the snapshot and from a rebuild with their ratio, the number of rebuilds
+ * with the duration of the last one, the worst one and the average, the size of the current snapshot and when it was
+ * built.
+ */
+@Data
+public class AuctionListingCacheMetricsDTO {
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long rebuilds;
+    private long lastRebuildMillis;
+    private long maxRebuildMillis;
+    private double averageRebuildMillis;
+    private int openAuctions;
+    private int pendingAuctions;
+    private boolean stale;
+    private LocalDateTime builtAt;
+}
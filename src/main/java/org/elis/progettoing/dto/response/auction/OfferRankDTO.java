@@ -0,0 +1,22 @@
+package org.elis.progettoing.dto.response.auction;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) representing the position of an offer in the ranking of its auction.
+ * It contains the ID of the offer and of its seller, the price and delivery time proposed, the score computed from
+ * them and the rank of the offer, starting from 1 for the best offer.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfferRankDTO {
+    private long offerId;
+    private long sellerId;
+    private double price;
+    private long deliveryTimeProposed;
+    private double score;
+    private int rank;
+}
@@ -0,0 +1,16 @@
+package org.elis.progettoing.dto.response.auction;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) representing the auctions without a winner of the authenticated user, grouped by status.
+ * Each list is ordered by end date, the auctions ending first at the top.
+ */
+@Data
+public class OwnerAuctionDashboardDTO {
+    private List<AuctionDashboardItemDTO> openAuctions;
+    private List<AuctionDashboardItemDTO> pendingAuctions;
+    private List<AuctionDashboardItemDTO> closedAuctions;
+}
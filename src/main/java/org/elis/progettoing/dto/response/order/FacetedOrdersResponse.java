@@ -0,0 +1,19 @@
+package org.elis.progettoing.dto.response.order;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) representing a response containing the orders of a seller grouped by status.
+ * Each bucket is paginated independently, so the size of the response does not depend on the number of orders.
+ *
+ * <p>This DTO is the bounded counterpart of {@link FilteredOrdersResponse}.</p>
+ */
+@Data
+public class FacetedOrdersResponse {
+    private OrderFacetDTO allOrders;
+    private OrderFacetDTO refusedOrders;
+    private OrderFacetDTO delayedOrders;
+    private OrderFacetDTO deliveredOrders;
+    private OrderFacetDTO pendingOrders;
+    private OrderFacetDTO takeOnOrders;
+}
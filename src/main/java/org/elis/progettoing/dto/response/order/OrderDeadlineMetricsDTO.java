@@ -0,0 +1,23 @@
+package org.elis.progettoing.dto.response.order;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) representing the state of the scheduler that moves overdue order products to late
+ * delivery. It contains the number of deadlines waiting in memory and how many of them are already due, the delay
+ * between the deadline and the transition for the last batch and the worst one, the total number of transitions, the
+ * number of deadlines abandoned after repeated failures and the end of the loaded lookahead window.
+ */
+@Data
+public class OrderDeadlineMetricsDTO {
+    private int queuedDeadlines;
+    private int overdueDeadlines;
+    private long lastLagMillis;
+    private long maxLagMillis;
+    private long lateTransitions;
+    private long abandonedDeadlines;
+    private LocalDateTime loadedUntil;
+    private LocalDateTime lastRefill;
+}
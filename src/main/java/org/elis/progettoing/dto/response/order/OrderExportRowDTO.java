@@ -0,0 +1,29 @@
+package org.elis.progettoing.dto.response.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+import org.elis.progettoing.enumeration.PackageType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) representing a row of the export of the orders received by a seller. Each row describes
+ * one order product together with the order it belongs to and its buyer.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportRowDTO {
+    private long orderId;
+    private LocalDateTime orderDate;
+    private String buyerNickname;
+    private long orderProductId;
+    private long productId;
+    private String productTitle;
+    private PackageType packageType;
+    private double packagePrice;
+    private OrderProductStatus status;
+    private LocalDateTime estimatedDeliveryDate;
+}
@@ -0,0 +1,17 @@
+package org.elis.progettoing.dto.response.order;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) representing a single status bucket of the orders of a seller.
+ * It contains the total number of orders in the bucket, the orders of the requested page and
+ * the cursor to request the next page, or {@code null} if there are no more orders.
+ */
+@Data
+public class OrderFacetDTO {
+    private long count;
+    private List<OrderResponseDTO> orders;
+    private Long nextCursor;
+}
@@ -0,0 +1,21 @@
+package org.elis.progettoing.dto.response.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+
+/**
+ * Data Transfer Object (DTO) representing the outcome of a bulk status change for a single order product.
+ * It contains the ID of the order product, whether it was updated, its current status, or {@code null} if it was not
+ * found among the order products of the seller, and the reason why it was not updated.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderProductTransitionResultDTO {
+    private long orderProductId;
+    private boolean updated;
+    private OrderProductStatus status;
+    private String message;
+}
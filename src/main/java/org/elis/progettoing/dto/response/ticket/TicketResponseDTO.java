@@ -37,4 +37,8 @@ public class TicketResponseDTO {
     private String creationDate;
 
     private String priorityFlag;
+
+    private Long moderatorId;
+
+    private String leaseExpiresAt;
 }
@@ -0,0 +1,26 @@
+package org.elis.progettoing.enumeration;
+
+/**
+ * Enumeration representing the events pushed to the clients following an auction.
+ * <p>
+ * The possible types are:
+ * <ul>
+ *     <li><strong>STATUS_CHANGED</strong> - The auction is pending, open or closed.</li>
+ *     <li><strong>OFFER_CREATED</strong> - A new offer has been submitted.</li>
+ *     <li><strong>OFFER_UPDATED</strong> - An offer has been changed by its seller.</li>
+ *     <li><strong>OFFER_DELETED</strong> - An offer has been withdrawn.</li>
+ *     <li><strong>WINNER_ASSIGNED</strong> - The owner has chosen the winner.</li>
+ * </ul>
+ * </p>
+ */
+public enum AuctionEventType {
+    STATUS_CHANGED,
+
+    OFFER_CREATED,
+
+    OFFER_UPDATED,
+
+    OFFER_DELETED,
+
+    WINNER_ASSIGNED
+}
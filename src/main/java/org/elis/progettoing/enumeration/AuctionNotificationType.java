@@ -0,0 +1,23 @@
+package org.elis.progettoing.enumeration;
+
+/**
+ * Enumeration representing the notifications sent to the subscribers of an auction.
+ * <p>
+ * The possible types are:
+ * <ul>
+ *     <li><strong>OPENED</strong> - The auction has been opened.</li>
+ *     <li><strong>ENDING_SOON</strong> - The auction ends within the next hour.</li>
+ *     <li><strong>CLOSED</strong> - The auction has been closed.</li>
+ *     <li><strong>RESULT</strong> - The winner of the auction has been chosen.</li>
+ * </ul>
+ * </p>
+ */
+public enum AuctionNotificationType {
+    OPENED,
+
+    ENDING_SOON,
+
+    CLOSED,
+
+    RESULT
+}
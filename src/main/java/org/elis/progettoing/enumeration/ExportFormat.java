@@ -0,0 +1,33 @@
+package org.elis.progettoing.enumeration;
+
+/**
+ * Enumeration representing the formats in which the orders can be exported.
+ * <p>
+ * The possible formats are:
+ * <ul>
+ *     <li><strong>CSV</strong> - Comma-separated values, with a header row.</li>
+ *     <li><strong>NDJSON</strong> - Newline-delimited JSON, one object per row.</li>
+ * </ul>
+ * </p>
+ */
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
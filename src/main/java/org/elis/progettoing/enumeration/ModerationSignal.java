@@ -0,0 +1,26 @@
+package org.elis.progettoing.enumeration;
+
+/**
+ * Enumeration representing the signals counted to assign a priority to the report tickets.
+ * <p>
+ * The possible signals are:
+ * <ul>
+ *     <li><strong>PRODUCT_REPORTS</strong> - The number of tickets reporting a product.</li>
+ *     <li><strong>USER_REPORTS</strong> - The number of tickets reporting a user.</li>
+ *     <li><strong>REVIEW_REPORTS</strong> - The number of tickets reporting a review.</li>
+ *     <li><strong>PRODUCT_PURCHASES</strong> - The number of purchased products of a product.</li>
+ *     <li><strong>BUYER_PURCHASES</strong> - The number of purchased products of a buyer.</li>
+ * </ul>
+ * </p>
+ */
+public enum ModerationSignal {
+    PRODUCT_REPORTS,
+
+    USER_REPORTS,
+
+    REVIEW_REPORTS,
+
+    PRODUCT_PURCHASES,
+
+    BUYER_PURCHASES
+}
@@ -0,0 +1,56 @@
+package org.elis.progettoing.enumeration;
+
+/**
+ * Enumeration representing the different states of a ticket.
+ * <p>
+ * The possible states are:
+ * <ul>
+ *     <li><strong>PENDING</strong> - The ticket is waiting to be taken on by a moderator.</li>
+ *     <li><strong>TAKEN_ON</strong> - The ticket has been taken on by a moderator.</li>
+ *     <li><strong>ACCEPTED</strong> - The ticket has been accepted.</li>
+ *     <li><strong>REFUSED</strong> - The ticket has been refused.</li>
+ * </ul>
+ * Each state keeps the status message shown to the users, which is also the value stored in the database.
+ * </p>
+ */
+public enum TicketState {
+    PENDING("In attesa"),
+
+    TAKEN_ON("In lavorazione"),
+
+    ACCEPTED("Accettato"),
+
+    REFUSED("Rifiutato");
+
+    private final String statusMessage;
+
+    TicketState(String statusMessage) {
+        this.statusMessage = statusMessage;
+    }
+
+    /**
+     * Returns the status message of the state.
+     *
+     * @return the status message.
+     */
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    /**
+     * Returns the state with the given status message.
+     *
+     * @param statusMessage the status message.
+     * @return the state with the given status message.
+     * @throws IllegalArgumentException if no state has the given status message.
+     */
+    public static TicketState fromStatusMessage(String statusMessage) {
+        for (TicketState state : values()) {
+            if (state.statusMessage.equals(statusMessage)) {
+                return state;
+            }
+        }
+
+        throw new IllegalArgumentException("Stato del ticket sconosciuto: " + statusMessage);
+    }
+}
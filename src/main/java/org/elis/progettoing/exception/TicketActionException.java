@@ -9,4 +9,12 @@ public class TicketActionException extends RuntimeException {
     public TicketActionException(long ticketId, String action, String currentState) {
         super(String.format("Errore nell'esecuzione dell'azione '%s' per il ticket con ID: %d. Stato attuale: '%s'.", action, ticketId, currentState));
     }
+
+    public TicketActionException(long ticketId, String action) {
+        super(String.format("Errore nell'esecuzione dell'azione '%s' per il ticket con ID: %d. Lo stato del ticket è stato cambiato da un altro moderatore.", action, ticketId));
+    }
+
+    public TicketActionException(long ticketId, String action, long moderatorId) {
+        super(String.format("Errore nell'esecuzione dell'azione '%s' per il ticket con ID: %d. Il ticket non è in carico al moderatore con ID: %d o la presa in carico è scaduta.", action, ticketId, moderatorId));
+    }
 }
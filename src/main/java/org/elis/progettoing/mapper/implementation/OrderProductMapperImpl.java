@@ -60,6 +60,7 @@ public class OrderProductMapperImpl implements OrderProductMapper {
         responseDTO.setEstimatedDeliveryDate(orderProduct.getEstimatedDeliveryDate());
         responseDTO.setProductImagePhoto(orderProduct.getProduct().getUrlProductPhotos().getFirst());
         responseDTO.setDescriptionForSeller(orderProduct.getDescription());
+        responseDTO.setHasReview(orderProduct.isReviewExist());
 
         return responseDTO;
     }
@@ -80,7 +80,9 @@ public class TicketMapperImpl implements TicketMapper {
         ticketResponseDTO.setId(ticket.getId());
         ticketResponseDTO.setTitle(ticket.getTitle());
         ticketResponseDTO.setDescription(ticket.getDescription());
-        ticketResponseDTO.setState(ticket.getState());
+        if (ticket.getState() != null) {
+            ticketResponseDTO.setState(ticket.getState().getStatusMessage());
+        }
         ticketResponseDTO.setPriorityFlag(String.valueOf(ticket.getPriorityFlag()));
         if (ticket.getCreationDate() != null) {
             ticketResponseDTO.setCreationDate(DateTimeFormatter.ISO_LOCAL_DATE.format(ticket.getCreationDate()));
@@ -88,6 +90,13 @@ public class TicketMapperImpl implements TicketMapper {
 
         ticketResponseDTO.setType(ticket.getType().name());
 
+        if (ticket.getModerator() != null) {
+            ticketResponseDTO.setModeratorId(ticket.getModerator().getId());
+        }
+        if (ticket.getLeaseExpiresAt() != null) {
+            ticketResponseDTO.setLeaseExpiresAt(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(ticket.getLeaseExpiresAt()));
+        }
+
         return ticketResponseDTO;
     }
 
@@ -0,0 +1,18 @@
+package org.elis.progettoing.models;
+
+/**
+ * Names shared by the table-based id generators of the entities written in bulk.
+ * <p>
+ * Each generator keeps its next value in a row of the {@value #TABLE} table, identified by the name of the entity
+ * table, and reserves {@value #ALLOCATION_SIZE} ids per round trip so that inserts can be batched.
+ * </p>
+ */
+public final class IdGenerators {
+    public static final String TABLE = "id_generator";
+    public static final String NAME_COLUMN = "entity_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
@@ -0,0 +1,38 @@
+package org.elis.progettoing.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elis.progettoing.enumeration.ModerationSignal;
+
+/**
+ * Represents the value of a moderation signal for a product, user or review.
+ * <p>
+ * Counters are kept in step with the tickets and the purchased products by atomic increments in the same transaction
+ * that changes them, and are periodically rebuilt to correct any drift.
+ * </p>
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "moderation_counter")
+public class ModerationCounter {
+
+    @EmbeddedId
+    private ModerationCounterId id;
+
+    @Column(name = "signal_count", nullable = false)
+    private long count;
+
+    /**
+     * Constructs a new ModerationCounter for the specified signal and target.
+     *
+     * @param signal   the signal being counted
+     * @param targetId the ID of the product, user or review the signal refers to
+     * @param count    the value of the signal
+     */
+    public ModerationCounter(ModerationSignal signal, long targetId, long count) {
+        this.id = new ModerationCounterId(signal, targetId);
+        this.count = count;
+    }
+}
@@ -0,0 +1,29 @@
+package org.elis.progettoing.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elis.progettoing.enumeration.ModerationSignal;
+
+import java.io.Serializable;
+
+/**
+ * Composite primary key of a {@link ModerationCounter}.
+ */
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModerationCounterId implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "moderation_signal", nullable = false, length = 20)
+    private ModerationSignal signal;
+
+    @Column(name = "target_id", nullable = false)
+    private long targetId;
+}
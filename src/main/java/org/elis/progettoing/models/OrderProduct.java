@@ -16,11 +16,16 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "order_product")
+@Table(name = "order_product", indexes = {
+        @Index(name = "idx_order_product_seller_status_order", columnList = "seller_id, status, order_id"),
+        @Index(name = "idx_order_product_status_deadline", columnList = "status, estimated_delivery_date")
+})
 public class OrderProduct {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_product_id")
+    @TableGenerator(name = "order_product_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "order_product", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private long id;
 
     @ManyToOne
@@ -35,6 +40,10 @@ public class OrderProduct {
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "seller_id")
+    private User seller;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
     private OrderProductStatus status;
@@ -45,7 +54,7 @@ public class OrderProduct {
     @Column(name = "estimated_delivery_date")
     private LocalDateTime estimatedDeliveryDate;
 
-    @Transient
+    @Column(name = "review_exist", nullable = false)
     private boolean reviewExist;
 
     /**
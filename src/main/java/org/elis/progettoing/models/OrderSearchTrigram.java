@@ -0,0 +1,34 @@
+package org.elis.progettoing.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a posting of the order search index: the presence of a trigram in the searchable text of an order.
+ * <p>
+ * The searchable text of an order is made of its id, the name, surname and email of the buyer and the titles of the
+ * ordered products. Postings are written when the order is created and rewritten when one of those fields changes.
+ * </p>
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "order_search_trigram", indexes = {
+        @Index(name = "idx_order_search_trigram_order", columnList = "order_id")
+})
+public class OrderSearchTrigram {
+
+    @EmbeddedId
+    private OrderSearchTrigramId id;
+
+    /**
+     * Constructs a new OrderSearchTrigram for the specified trigram and order.
+     *
+     * @param trigram the trigram found in the searchable text of the order
+     * @param orderId the ID of the order
+     */
+    public OrderSearchTrigram(String trigram, long orderId) {
+        this.id = new OrderSearchTrigramId(trigram, orderId);
+    }
+}
@@ -0,0 +1,29 @@
+package org.elis.progettoing.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Composite primary key of an {@link OrderSearchTrigram}.
+ * <p>
+ * The trigram comes first so that the posting list of a trigram, sorted by order id, is a single range of the primary
+ * key index.
+ * </p>
+ */
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchTrigramId implements Serializable {
+
+    @Column(name = "trigram", nullable = false, length = 12)
+    private String trigram;
+
+    @Column(name = "order_id", nullable = false)
+    private long orderId;
+}
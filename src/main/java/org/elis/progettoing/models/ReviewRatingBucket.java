@@ -0,0 +1,44 @@
+package org.elis.progettoing.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the sum and the number of the ratings of the reviews written by a user in a day.
+ * <p>
+ * The buckets of the last days give the rolling average rating of a user without reading the reviews. They are kept
+ * in step with the reviews in the same transaction that changes them, and are periodically rebuilt.
+ * </p>
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "review_rating_bucket")
+public class ReviewRatingBucket {
+
+    @EmbeddedId
+    private ReviewRatingBucketId id;
+
+    @Column(name = "rating_sum", nullable = false)
+    private double ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    /**
+     * Constructs a new ReviewRatingBucket for the specified user and day.
+     *
+     * @param userId      the ID of the author of the reviews
+     * @param day         the day the reviews were written
+     * @param ratingSum   the sum of the total ratings of the reviews
+     * @param ratingCount the number of reviews
+     */
+    public ReviewRatingBucket(long userId, LocalDate day, double ratingSum, long ratingCount) {
+        this.id = new ReviewRatingBucketId(userId, day);
+        this.ratingSum = ratingSum;
+        this.ratingCount = ratingCount;
+    }
+}
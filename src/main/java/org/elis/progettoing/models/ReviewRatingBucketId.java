@@ -0,0 +1,29 @@
+package org.elis.progettoing.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Composite primary key of a {@link ReviewRatingBucket}.
+ * <p>
+ * The user comes first so that the buckets of a user are adjacent in the primary key index.
+ * </p>
+ */
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewRatingBucketId implements Serializable {
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Column(name = "rating_day", nullable = false)
+    private LocalDate day;
+}
@@ -0,0 +1,38 @@
+package org.elis.progettoing.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+
+/**
+ * Represents the number of order products of a seller in a given status.
+ * <p>
+ * Counters are kept in step with the order products by atomic increments in the same transaction that changes the
+ * status, and are periodically rebuilt from the order products to correct any drift.
+ * </p>
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "seller_order_counter")
+public class SellerOrderCounter {
+
+    @EmbeddedId
+    private SellerOrderCounterId id;
+
+    @Column(name = "order_count", nullable = false)
+    private long count;
+
+    /**
+     * Constructs a new SellerOrderCounter for the specified seller and status.
+     *
+     * @param sellerId the ID of the seller
+     * @param status the status being counted
+     * @param count the number of order products of the seller in the status
+     */
+    public SellerOrderCounter(long sellerId, OrderProductStatus status, long count) {
+        this.id = new SellerOrderCounterId(sellerId, status);
+        this.count = count;
+    }
+}
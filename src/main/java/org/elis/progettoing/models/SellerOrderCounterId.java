@@ -0,0 +1,32 @@
+package org.elis.progettoing.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+
+import java.io.Serializable;
+
+/**
+ * Composite primary key of a {@link SellerOrderCounter}.
+ * <p>
+ * The seller comes first so that all the counters of a seller are adjacent in the primary key index.
+ * </p>
+ */
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerOrderCounterId implements Serializable {
+
+    @Column(name = "seller_id", nullable = false)
+    private long sellerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OrderProductStatus status;
+}
@@ -3,9 +3,11 @@ package org.elis.progettoing.models;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.elis.progettoing.enumeration.PriorityFlag;
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.enumeration.TicketType;
 import org.elis.progettoing.models.product.Product;
 import org.elis.progettoing.pattern.stateTicketPattern.StateTicket;
+import org.elis.progettoing.utils.customConverter.TicketStateConverter;
 
 import java.time.LocalDateTime;
 
@@ -17,7 +19,11 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "ticket")
+@Table(name = "ticket", indexes = {
+        @Index(name = "idx_ticket_date", columnList = "date"),
+        @Index(name = "idx_ticket_state_priority_date", columnList = "state, priority_flag, date"),
+        @Index(name = "idx_ticket_state_lease", columnList = "state, lease_expires_at")
+})
 public class Ticket {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,6 +40,7 @@ public class Ticket {
     private String description;
 
     @Enumerated(EnumType.STRING)
+    @Column(name = "priority_flag")
     private PriorityFlag priorityFlag;
 
     @Column(name = "date")
@@ -42,8 +49,9 @@ public class Ticket {
     @Enumerated(EnumType.STRING)
     private TicketType type;
 
+    @Convert(converter = TicketStateConverter.class)
     @Column(name = "state", length = 50)
-    private String state;
+    private TicketState state;
 
     @ManyToOne
     @JoinColumn(name = "review_id")
@@ -57,6 +65,13 @@ public class Ticket {
     @JoinColumn(name = "reported_user_id")
     private User reportedUser;
 
+    @ManyToOne
+    @JoinColumn(name = "moderator_id")
+    private User moderator;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
     @Transient
     private StateTicket stateTicket;
 
@@ -71,7 +86,8 @@ public class Ticket {
                 ", description='" + description + '\'' +
                 ", creationDate=" + creationDate +
                 ", type=" + type +
-                ", state='" + state + '\'' +
+                ", state=" + state +
+                ", leaseExpiresAt=" + leaseExpiresAt +
                 ", stateTicket=" + stateTicket +
                 '}';
     }
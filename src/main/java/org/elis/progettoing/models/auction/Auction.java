@@ -20,7 +20,11 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "auction")
+@Table(name = "auction", indexes = {
+        @Index(name = "idx_auction_status_start", columnList = "status, start_date"),
+        @Index(name = "idx_auction_status_end", columnList = "status, end_date"),
+        @Index(name = "idx_auction_owner_winner", columnList = "owner_id, winner_id")
+})
 public class Auction {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,43 @@
+package org.elis.progettoing.models.auction;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a notification of an auction that has been sent to a subscriber.
+ * <p>
+ * The primary key makes each type of notification unique for an auction and a subscriber: the rows are inserted
+ * before the emails are sent, skipping the existing ones, and only the subscribers whose row has been inserted by
+ * the current dispatch, recognized by its dispatch ID, receive the email. Until its email has been sent, a row
+ * carries the instant of its next attempt, which works as a lease on the claim: a row whose email failed, or was
+ * never sent because the dispatching node stopped, is retried with the same notification once that instant has
+ * passed, instead of being claimed again by a later dispatch. The number of attempts counts the claims of the row.
+ * </p>
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "auction_notification", indexes = {
+        @Index(name = "idx_auction_notification_dispatch", columnList = "dispatch_id"),
+        @Index(name = "idx_auction_notification_retry", columnList = "type, retry_at")
+})
+public class AuctionNotification {
+
+    @EmbeddedId
+    private AuctionNotificationId id;
+
+    @Column(name = "dispatch_id", nullable = false, length = 36)
+    private String dispatchId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "retry_at")
+    private LocalDateTime retryAt;
+}
@@ -0,0 +1,35 @@
+package org.elis.progettoing.models.auction;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elis.progettoing.enumeration.AuctionNotificationType;
+
+import java.io.Serializable;
+
+/**
+ * Composite primary key of an {@link AuctionNotification}.
+ * <p>
+ * The auction comes first so that all the notifications of an auction are adjacent in the primary key index.
+ * </p>
+ */
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuctionNotificationId implements Serializable {
+
+    @Column(name = "auction_id", nullable = false)
+    private long auctionId;
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private AuctionNotificationType type;
+}
@@ -2,6 +2,7 @@ package org.elis.progettoing.models.product;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.elis.progettoing.models.IdGenerators;
 import org.elis.progettoing.utils.customConverter.ObjectConverter;
 
 /**
@@ -15,7 +16,9 @@ import org.elis.progettoing.utils.customConverter.ObjectConverter;
 @Table(name = "package_attribute")
 public class PackageAttribute {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "package_attribute_id")
+    @TableGenerator(name = "package_attribute_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "package_attribute", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private long id;
 
     @Column(name = "attribute_key", nullable = false)
@@ -3,6 +3,7 @@ package org.elis.progettoing.models.product;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.elis.progettoing.enumeration.PackageType;
+import org.elis.progettoing.models.IdGenerators;
 import org.elis.progettoing.models.OrderProduct;
 
 import java.util.ArrayList;
@@ -19,7 +20,9 @@ import java.util.List;
 @Table(name = "product_package")
 public class ProductPackage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_package_id")
+    @TableGenerator(name = "product_package_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "product_package", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private long id;
 
     @Enumerated(EnumType.STRING)
@@ -3,6 +3,7 @@ package org.elis.progettoing.models.product;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.elis.progettoing.models.Cart;
+import org.elis.progettoing.models.IdGenerators;
 import org.elis.progettoing.models.User;
 
 import java.time.LocalDate;
@@ -18,7 +19,9 @@ import java.time.LocalDate;
 @Table(name = "purchased_product")
 public class PurchasedProduct {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "purchased_product_id")
+    @TableGenerator(name = "purchased_product_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "purchased_product", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private long id;
 
     @ManyToOne
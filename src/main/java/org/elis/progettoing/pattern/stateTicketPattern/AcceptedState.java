@@ -1,5 +1,6 @@
 package org.elis.progettoing.pattern.stateTicketPattern;
 
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.models.Ticket;
 import org.elis.progettoing.service.definition.EmailService;
 import org.elis.progettoing.service.definition.ProductService;
@@ -99,6 +100,6 @@ public class AcceptedState implements StateTicket {
      */
     @Override
     public String getStatusMessage() {
-        return "Accettato";
+        return TicketState.ACCEPTED.getStatusMessage();
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.elis.progettoing.pattern.stateTicketPattern;
 
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.models.Ticket;
 import org.elis.progettoing.service.definition.EmailService;
 
@@ -47,6 +48,6 @@ public class PendingState implements StateTicket {
      */
     @Override
     public String getStatusMessage() {
-        return "In attesa";
+        return TicketState.PENDING.getStatusMessage();
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.elis.progettoing.pattern.stateTicketPattern;
 
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.models.Ticket;
 import org.elis.progettoing.service.definition.EmailService;
 
@@ -43,6 +44,6 @@ public class RefuseState implements StateTicket {
      */
     @Override
     public String getStatusMessage() {
-        return "Rifiutato";
+        return TicketState.REFUSED.getStatusMessage();
     }
 }
\ No newline at end of file
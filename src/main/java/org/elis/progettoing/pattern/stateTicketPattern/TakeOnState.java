@@ -1,5 +1,6 @@
 package org.elis.progettoing.pattern.stateTicketPattern;
 
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.models.Ticket;
 import org.elis.progettoing.service.definition.EmailService;
 
@@ -38,6 +39,6 @@ public class TakeOnState implements StateTicket {
      */
     @Override
     public String getStatusMessage() {
-        return "In lavorazione";
+        return TicketState.TAKEN_ON.getStatusMessage();
     }
 }
\ No newline at end of file
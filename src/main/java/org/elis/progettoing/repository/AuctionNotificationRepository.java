@@ -0,0 +1,73 @@
+package org.elis.progettoing.repository;
+
+import org.elis.progettoing.enumeration.AuctionNotificationType;
+import org.elis.progettoing.models.auction.AuctionNotification;
+import org.elis.progettoing.models.auction.AuctionNotificationId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the {@link AuctionNotification} entity.
+ */
+public interface AuctionNotificationRepository extends JpaRepository<AuctionNotification, AuctionNotificationId> {
+
+    @Modifying
+    @Query("INSERT INTO AuctionNotification (id.auctionId, id.userId, id.type, dispatchId, createdAt, attempts, retryAt) " +
+            "SELECT s.auction.id, s.user.id, :type, :dispatchId, :now, 1, :leaseUntil FROM AuctionSubscription s " +
+            "WHERE s.auction.id IN :auctionIds AND NOT EXISTS (" +
+            "SELECT 1 FROM AuctionNotification n " +
+            "WHERE n.id.auctionId = s.auction.id AND n.id.userId = s.user.id AND n.id.type = :type)")
+    int claimForSubscribers(@Param("auctionIds") Collection<Long> auctionIds,
+                            @Param("type") AuctionNotificationType type,
+                            @Param("dispatchId") String dispatchId,
+                            @Param("now") LocalDateTime now,
+                            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Query("SELECT n.id.auctionId, u.id, u.email, u.name, u.surname FROM AuctionNotification n " +
+            "JOIN User u ON u.id = n.id.userId " +
+            "WHERE n.dispatchId = :dispatchId AND (n.id.auctionId > :lastAuctionId " +
+            "OR (n.id.auctionId = :lastAuctionId AND n.id.userId > :lastUserId)) " +
+            "ORDER BY n.id.auctionId, n.id.userId")
+    List<Object[]> findRecipientsAfter(@Param("dispatchId") String dispatchId,
+                                       @Param("lastAuctionId") long lastAuctionId,
+                                       @Param("lastUserId") long lastUserId,
+                                       Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE AuctionNotification n SET n.retryAt = NULL " +
+            "WHERE n.dispatchId = :dispatchId AND (n.id.auctionId > :fromAuctionId " +
+            "OR (n.id.auctionId = :fromAuctionId AND n.id.userId > :fromUserId)) " +
+            "AND (n.id.auctionId < :toAuctionId OR (n.id.auctionId = :toAuctionId AND n.id.userId <= :toUserId))")
+    int markSent(@Param("dispatchId") String dispatchId,
+                 @Param("fromAuctionId") long fromAuctionId,
+                 @Param("fromUserId") long fromUserId,
+                 @Param("toAuctionId") long toAuctionId,
+                 @Param("toUserId") long toUserId);
+
+    @Modifying
+    @Query("UPDATE AuctionNotification n SET n.retryAt = :retryAt " +
+            "WHERE n.dispatchId = :dispatchId AND n.id.auctionId = :auctionId AND n.id.userId IN :userIds")
+    int markFailed(@Param("dispatchId") String dispatchId,
+                   @Param("auctionId") long auctionId,
+                   @Param("userIds") Collection<Long> userIds,
+                   @Param("retryAt") LocalDateTime retryAt);
+
+    @Modifying
+    @Query("UPDATE AuctionNotification n SET n.dispatchId = :dispatchId, n.retryAt = :leaseUntil, n.attempts = n.attempts + 1 " +
+            "WHERE n.id.type = :type AND n.retryAt <= :now AND n.attempts < :maxAttempts")
+    int claimRetries(@Param("type") AuctionNotificationType type,
+                     @Param("dispatchId") String dispatchId,
+                     @Param("now") LocalDateTime now,
+                     @Param("leaseUntil") LocalDateTime leaseUntil,
+                     @Param("maxAttempts") int maxAttempts);
+
+    @Query("SELECT DISTINCT n.id.auctionId FROM AuctionNotification n WHERE n.dispatchId = :dispatchId")
+    List<Long> findAuctionIdsByDispatchId(@Param("dispatchId") String dispatchId);
+}
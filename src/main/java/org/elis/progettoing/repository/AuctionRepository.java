@@ -1,14 +1,20 @@
 package org.elis.progettoing.repository;
 
+import jakarta.persistence.LockModeType;
 import org.elis.progettoing.enumeration.AuctionStatus;
 import org.elis.progettoing.models.User;
 import org.elis.progettoing.models.auction.Auction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for the {@link Auction} entity.
@@ -16,13 +22,58 @@ import java.util.List;
 public interface AuctionRepository extends JpaRepository<Auction, Long> {
     List<Auction> findByStatus(AuctionStatus status);
 
-    @Query("SELECT a FROM Auction a WHERE (a.status = 'PENDING' AND a.startAuctionDate <= :now) " +
-            "OR (a.status = 'OPEN' AND a.endAuctionDate <= :now)")
-    List<Auction> findAllActiveAndPendingAuctions(LocalDateTime now);
-
     @Query("SELECT a FROM Auction a WHERE a.owner.id = :userId AND " +
             "(a.status = 'PENDING' OR a.status = 'OPEN')")
     List<Auction> findByOwnerIdAndStatus(@Param("userId") long userId);
 
     List<Auction> findByStatusAndWinnerIsNullAndOwner(AuctionStatus status, User owner);
+
+    @Query("SELECT a.id, a.title, a.descriptionProduct, a.status, a.startAuctionDate, a.endAuctionDate FROM Auction a " +
+            "WHERE a.owner.id = :ownerId AND a.winner IS NULL " +
+            "ORDER BY a.endAuctionDate, a.id")
+    List<Object[]> findDashboardRowsByOwnerId(@Param("ownerId") long ownerId);
+
+    @Query("SELECT a.id, a.status, a.startAuctionDate, a.endAuctionDate FROM Auction a " +
+            "WHERE (a.status = 'PENDING' OR a.status = 'OPEN') AND a.id > :lastId " +
+            "ORDER BY a.id")
+    List<Object[]> findLifecycleDatesAfter(@Param("lastId") long lastId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT a FROM Auction a WHERE a.id = :id")
+    Optional<Auction> findByIdForOffer(@Param("id") long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id, a.endAuctionDate FROM Auction a " +
+            "WHERE a.status = 'PENDING' AND a.startAuctionDate <= :now " +
+            "ORDER BY a.id")
+    List<Object[]> lockDueToOpen(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id FROM Auction a " +
+            "WHERE a.status = 'OPEN' AND a.endAuctionDate <= :now " +
+            "ORDER BY a.id")
+    List<Long> lockDueToClose(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT a.id FROM Auction a " +
+            "WHERE a.status = 'OPEN' AND a.endAuctionDate > :from AND a.endAuctionDate <= :to AND a.id > :lastId " +
+            "ORDER BY a.id")
+    List<Long> findOpenEndingBetween(@Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     @Param("lastId") long lastId,
+                                     Pageable pageable);
+
+    @Query("SELECT a.deliveryDate FROM Auction a WHERE a.id = :id")
+    Optional<Long> findDeliveryDateById(@Param("id") long id);
+
+    @Query("SELECT a.id, a.title FROM Auction a WHERE a.id IN :ids")
+    List<Object[]> findTitlesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id, a.winner.id FROM Auction a WHERE a.id IN :ids AND a.winner IS NOT NULL")
+    List<Object[]> findWinnerIdsByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Auction a SET a.status = :to WHERE a.id IN :ids AND a.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("from") AuctionStatus from,
+                     @Param("to") AuctionStatus to);
 }
@@ -0,0 +1,28 @@
+package org.elis.progettoing.repository;
+
+import jakarta.persistence.LockModeType;
+import org.elis.progettoing.enumeration.ModerationSignal;
+import org.elis.progettoing.models.ModerationCounter;
+import org.elis.progettoing.models.ModerationCounterId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repository for the {@link ModerationCounter} entity.
+ */
+public interface ModerationCounterRepository extends JpaRepository<ModerationCounter, ModerationCounterId> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ModerationCounter c WHERE c.id.signal = :signal")
+    List<ModerationCounter> lockBySignal(@Param("signal") ModerationSignal signal);
+
+    @Modifying
+    @Query("UPDATE ModerationCounter c SET c.count = c.count + :delta " +
+            "WHERE c.id.signal = :signal AND c.id.targetId = :targetId")
+    int increment(@Param("signal") ModerationSignal signal, @Param("targetId") long targetId, @Param("delta") long delta);
+}
@@ -3,6 +3,8 @@ package org.elis.progettoing.repository;
 import org.elis.progettoing.models.Offer;
 import org.elis.progettoing.models.auction.Auction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -15,4 +17,8 @@ public interface OfferRepository extends JpaRepository<Offer, Long> {
     Offer findBySellerIdAndAuctionId(long sellerId, long auctionId);
 
     List<Offer> auction(Auction auction);
+
+    @Query("SELECT o.id, o.seller.id, o.price, o.deliveryTimeProposed, o.seller.ranking, o.offerDate, o.score " +
+            "FROM Offer o WHERE o.auction.id = :auctionId")
+    List<Object[]> findRankingFieldsByAuctionId(@Param("auctionId") long auctionId);
 }
@@ -1,10 +1,153 @@
 package org.elis.progettoing.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.elis.progettoing.dto.response.order.OrderExportRowDTO;
+import org.elis.progettoing.enumeration.OrderProductStatus;
 import org.elis.progettoing.models.OrderProduct;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository for the {@link OrderProduct} entity.
  */
 public interface OrderProductRepository extends JpaRepository<OrderProduct, Long> {
+
+    @Query("SELECT DISTINCT o.id FROM OrderProduct op " +
+            "JOIN op.order o " +
+            "WHERE op.seller.id = :sellerId " +
+            "AND op.status IN :statuses " +
+            "AND (:cursor IS NULL OR o.id < :cursor) " +
+            "ORDER BY o.id DESC")
+    List<Long> findSellerInboxOrderIds(@Param("sellerId") long sellerId,
+                                       @Param("statuses") Collection<OrderProductStatus> statuses,
+                                       @Param("cursor") Long cursor,
+                                       Pageable pageable);
+
+    @Query("SELECT op FROM OrderProduct op " +
+            "JOIN FETCH op.order o " +
+            "JOIN FETCH o.buyer " +
+            "JOIN FETCH op.product " +
+            "JOIN FETCH op.selectedPackage " +
+            "WHERE o.id IN :orderIds " +
+            "AND op.seller.id = :sellerId " +
+            "AND op.status IN :statuses " +
+            "ORDER BY o.id DESC, op.id ASC")
+    List<OrderProduct> findSellerInboxLines(@Param("sellerId") long sellerId,
+                                            @Param("statuses") Collection<OrderProductStatus> statuses,
+                                            @Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT op.id FROM OrderProduct op " +
+            "WHERE op.seller IS NULL " +
+            "AND op.product.user IS NOT NULL " +
+            "AND op.id > :lastId " +
+            "ORDER BY op.id ASC")
+    List<Long> findIdsWithoutSeller(@Param("lastId") long lastId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OrderProduct op " +
+            "SET op.seller = (SELECT p.user FROM Product p WHERE p.id = op.product.id) " +
+            "WHERE op.id IN :ids AND op.seller IS NULL")
+    int backfillSeller(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OrderProduct op SET op.seller = NULL WHERE op.seller.id = :userId")
+    void unsetSeller(@Param("userId") long userId);
+
+    @Query("SELECT DISTINCT op.seller.id FROM OrderProduct op " +
+            "WHERE op.seller.id > :lastId " +
+            "ORDER BY op.seller.id ASC")
+    List<Long> findSellerIdsAfter(@Param("lastId") long lastId, Pageable pageable);
+
+    @Query("SELECT op.seller.id, op.status, COUNT(op) " +
+            "FROM OrderProduct op " +
+            "WHERE op.seller.id IN :sellerIds " +
+            "GROUP BY op.seller.id, op.status")
+    List<Object[]> countBySellerAndStatus(@Param("sellerIds") Collection<Long> sellerIds);
+
+    @Query("SELECT op.id, op.estimatedDeliveryDate FROM OrderProduct op " +
+            "WHERE op.status = :status " +
+            "AND op.estimatedDeliveryDate <= :until " +
+            "AND (op.estimatedDeliveryDate > :afterDate " +
+            "OR (op.estimatedDeliveryDate = :afterDate AND op.id > :afterId)) " +
+            "ORDER BY op.estimatedDeliveryDate ASC, op.id ASC")
+    List<Object[]> findDeadlinesAfter(@Param("status") OrderProductStatus status,
+                                      @Param("afterDate") LocalDateTime afterDate,
+                                      @Param("afterId") long afterId,
+                                      @Param("until") LocalDateTime until,
+                                      Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT op.id, op.seller.id FROM OrderProduct op " +
+            "WHERE op.id IN :ids " +
+            "AND op.status = :status " +
+            "AND op.estimatedDeliveryDate <= :now")
+    List<Object[]> lockOverdueLines(@Param("ids") Collection<Long> ids,
+                                    @Param("status") OrderProductStatus status,
+                                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderProduct op SET op.status = :to WHERE op.id IN :ids AND op.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("from") OrderProductStatus from,
+                     @Param("to") OrderProductStatus to);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT op.id, op.status, op.estimatedDeliveryDate FROM OrderProduct op " +
+            "WHERE op.id IN :ids " +
+            "AND op.seller.id = :sellerId")
+    List<Object[]> lockSellerLines(@Param("ids") Collection<Long> ids, @Param("sellerId") long sellerId);
+
+    @Modifying
+    @Query("UPDATE OrderProduct op SET op.status = :to " +
+            "WHERE op.id IN :ids AND op.status = :from AND op.seller.id = :sellerId")
+    int updateSellerLinesStatus(@Param("ids") Collection<Long> ids,
+                                @Param("sellerId") long sellerId,
+                                @Param("from") OrderProductStatus from,
+                                @Param("to") OrderProductStatus to);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new org.elis.progettoing.dto.response.order.OrderExportRowDTO(" +
+            "o.id, o.orderDate, b.nickname, op.id, p.id, p.title, pp.type, pp.price, op.status, op.estimatedDeliveryDate) " +
+            "FROM OrderProduct op " +
+            "JOIN op.order o " +
+            "LEFT JOIN o.buyer b " +
+            "JOIN op.product p " +
+            "JOIN op.selectedPackage pp " +
+            "WHERE op.seller.id = :sellerId " +
+            "ORDER BY o.id ASC, op.id ASC")
+    Stream<OrderExportRowDTO> streamSellerExportRows(@Param("sellerId") long sellerId);
+
+    @Modifying
+    @Query("UPDATE OrderProduct op SET op.reviewExist = :reviewExist " +
+            "WHERE op.product.id = :productId " +
+            "AND op.order.id IN (SELECT o.id FROM Order o WHERE o.buyer.id = :buyerId)")
+    int updateReviewExist(@Param("buyerId") long buyerId,
+                          @Param("productId") long productId,
+                          @Param("reviewExist") boolean reviewExist);
+
+    @Query("SELECT op.id FROM OrderProduct op " +
+            "WHERE op.reviewExist = false " +
+            "AND op.id > :lastId " +
+            "AND EXISTS (SELECT r.id FROM Review r WHERE r.user = op.order.buyer AND r.product = op.product) " +
+            "ORDER BY op.id ASC")
+    List<Long> findIdsWithUnflaggedReview(@Param("lastId") long lastId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OrderProduct op SET op.reviewExist = true WHERE op.id IN :ids")
+    int flagReviewed(@Param("ids") Collection<Long> ids);
 }
@@ -3,26 +3,51 @@ package org.elis.progettoing.repository;
 import org.elis.progettoing.enumeration.OrderProductStatus;
 import org.elis.progettoing.models.Order;
 import org.elis.progettoing.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Repository for the {@link Order} entity.
  */
 public interface OrderRepository  extends JpaRepository<Order, Long> {
-    List<Order> findByBuyer(User buyer);
+    @Query("SELECT o.id FROM Order o " +
+            "WHERE o.buyer.id = :buyerId " +
+            "AND (:cursor IS NULL OR o.id < :cursor) " +
+            "ORDER BY o.id DESC")
+    List<Long> findBuyerOrderIds(@Param("buyerId") long buyerId, @Param("cursor") Long cursor, Pageable pageable);
 
-    @Query("SELECT o FROM Order o JOIN o.orderProducts pp JOIN pp.product p WHERE p.user = :seller")
+    @Query("SELECT DISTINCT o FROM Order o " +
+            "LEFT JOIN FETCH o.orderProducts op " +
+            "LEFT JOIN FETCH op.product " +
+            "LEFT JOIN FETCH op.selectedPackage " +
+            "WHERE o.id IN :orderIds " +
+            "ORDER BY o.id DESC")
+    List<Order> findWithProductsByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT o FROM Order o JOIN o.orderProducts op WHERE op.seller = :seller")
     List<Order> findAllBySeller(@Param("seller") User seller);
 
     @Query("SELECT o FROM Order o " +
             "JOIN o.orderProducts op " +
-            "JOIN op.product p " +
-            "WHERE p.user = :seller " +
+            "WHERE op.seller = :seller " +
             "AND op.status = :status")
     List<Order> findAllBySellerAndProductStatus(User seller, OrderProductStatus status);
 
+    @Query("SELECT o.id FROM Order o " +
+            "WHERE o.id > :lastId " +
+            "AND NOT EXISTS (SELECT t.id.orderId FROM OrderSearchTrigram t WHERE t.id.orderId = o.id) " +
+            "ORDER BY o.id ASC")
+    List<Long> findIdsWithoutSearchTrigrams(@Param("lastId") long lastId, Pageable pageable);
+
+    @Query("SELECT o.id, b.name, b.surname, b.email, p.title FROM Order o " +
+            "LEFT JOIN o.buyer b " +
+            "LEFT JOIN o.orderProducts op " +
+            "LEFT JOIN op.product p " +
+            "WHERE o.id IN :orderIds")
+    List<Object[]> findSearchFields(@Param("orderIds") Collection<Long> orderIds);
 }
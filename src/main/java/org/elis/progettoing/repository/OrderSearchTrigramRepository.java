@@ -0,0 +1,34 @@
+package org.elis.progettoing.repository;
+
+import org.elis.progettoing.models.OrderSearchTrigram;
+import org.elis.progettoing.models.OrderSearchTrigramId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the {@link OrderSearchTrigram} entity.
+ */
+public interface OrderSearchTrigramRepository extends JpaRepository<OrderSearchTrigram, OrderSearchTrigramId> {
+
+    @Query("SELECT t.id.orderId FROM OrderSearchTrigram t " +
+            "WHERE t.id.trigram IN :trigrams " +
+            "GROUP BY t.id.orderId " +
+            "HAVING COUNT(t) = :trigramCount")
+    List<Long> findOrderIdsContainingAll(@Param("trigrams") Collection<String> trigrams,
+                                         @Param("trigramCount") long trigramCount,
+                                         Pageable pageable);
+
+    @Query("SELECT DISTINCT t.id.orderId FROM OrderSearchTrigram t " +
+            "WHERE t.id.trigram LIKE :prefix ESCAPE '!'")
+    List<Long> findOrderIdsByTrigramPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OrderSearchTrigram t WHERE t.id.orderId IN :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
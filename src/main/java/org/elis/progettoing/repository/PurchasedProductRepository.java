@@ -23,6 +23,26 @@ public interface PurchasedProductRepository extends JpaRepository<PurchasedProdu
 
     long countByBuyer(User buyer);
 
+    long countByBuyerId(long buyerId);
+
+    long countByProductId(long productId);
+
+    @Query("SELECT pp.product.id, COUNT(pp) FROM PurchasedProduct pp GROUP BY pp.product.id")
+    List<Object[]> countPurchasesByProduct();
+
+    @Query("SELECT pp.buyer.id, COUNT(pp) FROM PurchasedProduct pp GROUP BY pp.buyer.id")
+    List<Object[]> countPurchasesByBuyer();
+
+    @Query("SELECT pp.product.id, COUNT(pp) FROM PurchasedProduct pp " +
+            "WHERE pp.product.id IN (SELECT t.reportedProduct.id FROM Ticket t WHERE t.state NOT IN (ACCEPTED, REFUSED)) " +
+            "GROUP BY pp.product.id ORDER BY pp.product.id")
+    List<Object[]> countPurchasesOfProductsReportedInOpenTickets();
+
+    @Query("SELECT pp.buyer.id, COUNT(pp) FROM PurchasedProduct pp " +
+            "WHERE pp.buyer.id IN (SELECT t.reportedUser.id FROM Ticket t WHERE t.state NOT IN (ACCEPTED, REFUSED)) " +
+            "GROUP BY pp.buyer.id ORDER BY pp.buyer.id")
+    List<Object[]> countPurchasesOfBuyersReportedInOpenTickets();
+
     @Modifying
     @Query("DELETE FROM PurchasedProduct p WHERE p.buyer.id = :buyerId")
     void deletePurchasedProductsByBuyerId(@Param("buyerId") Long buyerId);
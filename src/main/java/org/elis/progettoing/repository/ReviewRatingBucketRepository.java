@@ -0,0 +1,35 @@
+package org.elis.progettoing.repository;
+
+import jakarta.persistence.LockModeType;
+import org.elis.progettoing.models.ReviewRatingBucket;
+import org.elis.progettoing.models.ReviewRatingBucketId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository for the {@link ReviewRatingBucket} entity.
+ */
+public interface ReviewRatingBucketRepository extends JpaRepository<ReviewRatingBucket, ReviewRatingBucketId> {
+
+    @Query("SELECT b FROM ReviewRatingBucket b WHERE b.id.userId = :userId AND b.id.day >= :from ORDER BY b.id.day")
+    List<ReviewRatingBucket> findByUserIdSince(@Param("userId") long userId, @Param("from") LocalDate from);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ReviewRatingBucket b WHERE b.id.day >= :from")
+    List<ReviewRatingBucket> lockSince(@Param("from") LocalDate from);
+
+    @Modifying
+    @Query("UPDATE ReviewRatingBucket b SET b.ratingSum = b.ratingSum + :ratingDelta, b.ratingCount = b.ratingCount + :countDelta " +
+            "WHERE b.id.userId = :userId AND b.id.day = :day")
+    int add(@Param("userId") long userId, @Param("day") LocalDate day, @Param("ratingDelta") double ratingDelta, @Param("countDelta") long countDelta);
+
+    @Modifying
+    @Query("DELETE FROM ReviewRatingBucket b WHERE b.id.day < :before")
+    int deleteBefore(@Param("before") LocalDate before);
+}
@@ -31,6 +31,24 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
             "WHERE r.user.id = :userId AND r.dateCreation > :startDate")
     double getAverageRatingForSeller(@Param("userId") long userId, @Param("startDate") LocalDateTime startDate);
 
+    @Query("SELECT r.user.id, AVG(r.totalRating) " +
+            "FROM Review r " +
+            "WHERE r.dateCreation > :startDate " +
+            "AND r.user.id IN (SELECT rv.user.id FROM Ticket t JOIN t.reportedReview rv WHERE t.state NOT IN (ACCEPTED, REFUSED)) " +
+            "GROUP BY r.user.id ORDER BY r.user.id")
+    List<Object[]> getAverageRatingsOfAuthorsReportedInOpenTickets(@Param("startDate") LocalDateTime startDate);
+
+    @Query("SELECT COALESCE(SUM(r.totalRating), 0), COUNT(r) " +
+            "FROM Review r " +
+            "WHERE r.user.id = :userId AND r.dateCreation >= :from AND r.dateCreation < :to")
+    List<Object[]> sumRatingsOfUserBetween(@Param("userId") long userId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT r.user.id, CAST(r.dateCreation AS LocalDate), SUM(r.totalRating), COUNT(r) " +
+            "FROM Review r " +
+            "WHERE r.user IS NOT NULL AND r.dateCreation >= :from " +
+            "GROUP BY r.user.id, CAST(r.dateCreation AS LocalDate)")
+    List<Object[]> sumRatingsByUserAndDaySince(@Param("from") LocalDateTime from);
+
 
     @Query("SELECT r.totalRating, COUNT(r) " +
             "FROM Review r " +
@@ -0,0 +1,39 @@
+package org.elis.progettoing.repository;
+
+import jakarta.persistence.LockModeType;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+import org.elis.progettoing.models.SellerOrderCounter;
+import org.elis.progettoing.models.SellerOrderCounterId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the {@link SellerOrderCounter} entity.
+ */
+public interface SellerOrderCounterRepository extends JpaRepository<SellerOrderCounter, SellerOrderCounterId> {
+
+    List<SellerOrderCounter> findByIdSellerId(long sellerId);
+
+    boolean existsByIdSellerId(long sellerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM SellerOrderCounter c WHERE c.id.sellerId IN :sellerIds")
+    List<SellerOrderCounter> lockBySellerIds(@Param("sellerIds") Collection<Long> sellerIds);
+
+    @Modifying
+    @Query("UPDATE SellerOrderCounter c SET c.count = c.count + :delta " +
+            "WHERE c.id.sellerId = :sellerId AND c.id.status = :status")
+    int increment(@Param("sellerId") long sellerId, @Param("status") OrderProductStatus status, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE SellerOrderCounter c " +
+            "SET c.count = CASE WHEN c.id.status = :to THEN c.count + :delta ELSE c.count - :delta END " +
+            "WHERE c.id.sellerId = :sellerId AND c.id.status IN (:from, :to)")
+    int transition(@Param("sellerId") long sellerId, @Param("from") OrderProductStatus from, @Param("to") OrderProductStatus to, @Param("delta") long delta);
+}
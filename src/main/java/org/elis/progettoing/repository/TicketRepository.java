@@ -1,14 +1,22 @@
 package org.elis.progettoing.repository;
 
+import org.elis.progettoing.enumeration.PriorityFlag;
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.models.Review;
 import org.elis.progettoing.models.Ticket;
 import org.elis.progettoing.models.User;
 import org.elis.progettoing.models.product.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +36,21 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
     long countByReportedProduct(Product product);
 
+    long countByReportedUserId(long userId);
+
+    long countByReportedReviewId(long reviewId);
+
+    long countByReportedProductId(long productId);
+
+    @Query("SELECT t.reportedProduct.id, COUNT(t) FROM Ticket t WHERE t.reportedProduct IS NOT NULL GROUP BY t.reportedProduct.id")
+    List<Object[]> countTicketsByReportedProduct();
+
+    @Query("SELECT t.reportedUser.id, COUNT(t) FROM Ticket t WHERE t.reportedUser IS NOT NULL GROUP BY t.reportedUser.id")
+    List<Object[]> countTicketsByReportedUser();
+
+    @Query("SELECT t.reportedReview.id, COUNT(t) FROM Ticket t WHERE t.reportedReview IS NOT NULL GROUP BY t.reportedReview.id")
+    List<Object[]> countTicketsByReportedReview();
+
     @Modifying
     @Query("UPDATE Ticket t SET t.reportedProduct = NULL WHERE t.reportedProduct.id = :productId")
     void unsetProduct(@Param("productId") Long productId);
@@ -36,17 +59,87 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     @Query("UPDATE Ticket t SET t.reportedUser = NULL WHERE t.reportedUser.id = :userId")
     void unsetReportedUser(@Param("userId") Long userId);
 
-    @Query("SELECT t FROM Ticket t WHERE t.state IN ('Accettato', 'Rifiutato')")
+    @Query("SELECT t FROM Ticket t WHERE t.state IN (ACCEPTED, REFUSED)")
     List<Ticket> findByStateAcceptedOrRefused();
 
-    @Query("SELECT t FROM Ticket t WHERE t.state = 'In attesa'")
+    @Query("SELECT t FROM Ticket t WHERE t.state = PENDING")
     List<Ticket> findByStatePending();
 
-    @Query("SELECT t FROM Ticket t WHERE t.state = 'In lavorazione'")
+    @Query("SELECT t FROM Ticket t WHERE t.state = TAKEN_ON")
     List<Ticket> findByStateTakeOn();
 
-    @Query("SELECT t FROM Ticket t WHERE t.state IN ('Accettato', 'Rifiutato', 'In attesa', 'In lavorazione')")
-    List<Ticket> findAllOpenTickets();
+    @Query("SELECT t.id, t.type, t.state, t.creationDate, t.priorityFlag, " +
+            "p.id, pu.ranking, ru.id, ru.ranking, rv.id, rvu.id, rvu.ranking " +
+            "FROM Ticket t " +
+            "LEFT JOIN t.reportedProduct p LEFT JOIN p.user pu " +
+            "LEFT JOIN t.reportedUser ru " +
+            "LEFT JOIN t.reportedReview rv LEFT JOIN rv.user rvu " +
+            "WHERE t.state NOT IN (ACCEPTED, REFUSED)")
+    List<Object[]> findOpenTicketPriorityRows();
+
+    @Query("SELECT t.id, t.type, t.state, t.creationDate, t.priorityFlag, " +
+            "p.id, pu.ranking, ru.id, ru.ranking, rv.id, rvu.id, rvu.ranking " +
+            "FROM Ticket t " +
+            "LEFT JOIN t.reportedProduct p LEFT JOIN p.user pu " +
+            "LEFT JOIN t.reportedUser ru " +
+            "LEFT JOIN t.reportedReview rv LEFT JOIN rv.user rvu " +
+            "WHERE t.state NOT IN (ACCEPTED, REFUSED) AND t.creationDate > :from AND t.creationDate <= :to")
+    List<Object[]> findOpenTicketPriorityRowsCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(t.creationDate) FROM Ticket t WHERE t.state NOT IN (ACCEPTED, REFUSED) AND t.creationDate > :after")
+    LocalDateTime findFirstOpenTicketCreationDateAfter(@Param("after") LocalDateTime after);
+
+    @Query("SELECT t.reportedProduct.id, COUNT(t) FROM Ticket t " +
+            "WHERE t.reportedProduct.id IN (SELECT o.reportedProduct.id FROM Ticket o WHERE o.state NOT IN (ACCEPTED, REFUSED)) " +
+            "GROUP BY t.reportedProduct.id ORDER BY t.reportedProduct.id")
+    List<Object[]> countTicketsByReportedProductOfOpenTickets();
+
+    @Query("SELECT t.reportedUser.id, COUNT(t) FROM Ticket t " +
+            "WHERE t.reportedUser.id IN (SELECT o.reportedUser.id FROM Ticket o WHERE o.state NOT IN (ACCEPTED, REFUSED)) " +
+            "GROUP BY t.reportedUser.id ORDER BY t.reportedUser.id")
+    List<Object[]> countTicketsByReportedUserOfOpenTickets();
+
+    @Query("SELECT t.reportedReview.id, COUNT(t) FROM Ticket t " +
+            "WHERE t.reportedReview.id IN (SELECT o.reportedReview.id FROM Ticket o WHERE o.state NOT IN (ACCEPTED, REFUSED)) " +
+            "GROUP BY t.reportedReview.id ORDER BY t.reportedReview.id")
+    List<Object[]> countTicketsByReportedReviewOfOpenTickets();
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.state = :to, t.priorityFlag = :priorityFlag, t.leaseExpiresAt = NULL " +
+            "WHERE t.id = :ticketId AND t.state = TAKEN_ON AND t.moderator.id = :moderatorId " +
+            "AND (t.leaseExpiresAt IS NULL OR t.leaseExpiresAt > :now)")
+    int resolve(@Param("ticketId") long ticketId, @Param("moderatorId") long moderatorId, @Param("now") LocalDateTime now, @Param("to") TicketState to, @Param("priorityFlag") PriorityFlag priorityFlag);
+
+    @Query("SELECT t FROM Ticket t WHERE t.state = PENDING AND t.priorityFlag = :priorityFlag ORDER BY t.creationDate, t.id")
+    List<Ticket> findNextPendingTickets(@Param("priorityFlag") PriorityFlag priorityFlag, Pageable pageable);
+
+    // Il timeout -2 corrisponde a SKIP LOCKED: le righe bloccate da altri moderatori vengono saltate
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT t FROM Ticket t WHERE t.state = PENDING AND t.priorityFlag = :priorityFlag ORDER BY t.creationDate, t.id")
+    List<Ticket> lockNextPendingTickets(@Param("priorityFlag") PriorityFlag priorityFlag, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.state = TAKEN_ON, t.priorityFlag = :priorityFlag, t.moderator = :moderator, t.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE t.id = :ticketId AND t.state = PENDING")
+    int claim(@Param("ticketId") long ticketId, @Param("moderator") User moderator, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt, @Param("priorityFlag") PriorityFlag priorityFlag);
+
+    @Query("SELECT t FROM Ticket t WHERE t.state = TAKEN_ON AND (t.leaseExpiresAt <= :now OR t.moderator IS NULL)")
+    List<Ticket> findExpiredLeases(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.state = PENDING, t.priorityFlag = :priorityFlag, t.moderator = NULL, t.leaseExpiresAt = NULL " +
+            "WHERE t.id = :ticketId AND t.state = TAKEN_ON AND (t.moderator IS NULL OR t.leaseExpiresAt = :leaseExpiresAt)")
+    int releaseLease(@Param("ticketId") long ticketId, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt, @Param("priorityFlag") PriorityFlag priorityFlag);
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE t.id = :ticketId AND t.state = TAKEN_ON AND t.moderator.id = :moderatorId AND t.leaseExpiresAt > :now")
+    int renewLease(@Param("ticketId") long ticketId, @Param("moderatorId") long moderatorId, @Param("now") LocalDateTime now, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.priorityFlag = :priorityFlag WHERE t.id IN :ticketIds AND t.state IN (PENDING, TAKEN_ON)")
+    int updatePriorityFlag(@Param("priorityFlag") PriorityFlag priorityFlag, @Param("ticketIds") List<Long> ticketIds);
 
     @Modifying
     @Query("UPDATE Ticket t SET t.reportedReview = NULL WHERE t.reportedReview.id = :reviewId")
@@ -55,4 +148,8 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     @Modifying
     @Query("UPDATE Ticket t SET t.ticketRequester = NULL WHERE t.ticketRequester.id = :userId")
     void unsetRequesterId(long userId);
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.moderator = NULL WHERE t.moderator.id = :userId")
+    void unsetModerator(@Param("userId") long userId);
 }
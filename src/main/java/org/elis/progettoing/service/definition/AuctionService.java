@@ -2,7 +2,10 @@ package org.elis.progettoing.service.definition;
 
 import org.elis.progettoing.dto.request.auction.AuctionRequestDTO;
 import org.elis.progettoing.dto.response.auction.AuctionDetailsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionListingCacheMetricsDTO;
 import org.elis.progettoing.dto.response.auction.AuctionSummaryDTO;
+import org.elis.progettoing.dto.response.auction.OwnerAuctionDashboardDTO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -20,6 +23,8 @@ public interface AuctionService {
 
     AuctionDetailsDTO getAuctionDetails(long auctionId);
 
+    SseEmitter streamAuctionEvents(long auctionId);
+
     List<AuctionDetailsDTO> listActiveAuctions();
 
     List<AuctionDetailsDTO> listClosedAuctions();
@@ -44,5 +49,9 @@ public interface AuctionService {
 
     List<AuctionSummaryDTO> getOpenAndWithoutWinnerAuctionSummary();
 
+    OwnerAuctionDashboardDTO getOwnerAuctionDashboard();
+
+    AuctionListingCacheMetricsDTO getListingCacheMetrics();
+
     Boolean getAuctionSubscriptionByAuctionId(long auctionId);
 }
@@ -1,6 +1,7 @@
 package org.elis.progettoing.service.definition;
 
 import org.elis.progettoing.dto.request.auction.OfferRequestDTO;
+import org.elis.progettoing.dto.response.auction.OfferRankDTO;
 import org.elis.progettoing.dto.response.auction.OfferResponseDTO;
 
 import java.util.List;
@@ -21,5 +22,9 @@ public interface OfferService {
 
     boolean deleteOffer(long auctionId);
 
-    List<OfferResponseDTO> getAllOffersByAuction(long auctionId);
+    List<OfferResponseDTO> getAllOffersByAuction(long auctionId, int offset, Integer limit);
+
+    List<OfferRankDTO> getTopOffers(long auctionId, int limit);
+
+    OfferRankDTO getOfferRankByUser(long auctionId);
 }
@@ -1,12 +1,21 @@
 package org.elis.progettoing.service.definition;
 
+import org.elis.progettoing.dto.request.order.OrderFacetRequest;
 import org.elis.progettoing.dto.request.order.OrderFilterRequest;
+import org.elis.progettoing.dto.request.order.OrderProductBulkStatusRequest;
 import org.elis.progettoing.dto.request.order.OrderRequestDTO;
+import org.elis.progettoing.dto.response.order.FacetedOrdersResponse;
 import org.elis.progettoing.dto.response.order.FilteredOrdersResponse;
+import org.elis.progettoing.dto.response.order.OrderDeadlineMetricsDTO;
 import org.elis.progettoing.dto.response.order.OrderProductResponseDTO;
+import org.elis.progettoing.dto.response.order.OrderProductTransitionResultDTO;
 import org.elis.progettoing.dto.response.order.OrderResponseDTO;
+import org.elis.progettoing.enumeration.ExportFormat;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for the OrderService class. Provides methods for creating, updating, and deleting orders, as well as
@@ -15,29 +24,39 @@ import java.util.List;
 public interface OrderService {
     OrderResponseDTO createOrder(OrderRequestDTO orderRequestDTO);
 
-    List<OrderResponseDTO> getOrderByUser();
+    List<OrderResponseDTO> getOrderByUser(Long cursor, int size);
 
     List<OrderResponseDTO> getOrderFiltered(OrderFilterRequest orderFilterRequest);
 
-    List<OrderResponseDTO> getReceivedOrdersBySeller();
+    List<OrderResponseDTO> getReceivedOrdersBySeller(Long cursor, int size);
 
-    List<OrderResponseDTO> getPendingOrdersBySeller();
+    List<OrderResponseDTO> getPendingOrdersBySeller(Long cursor, int size);
 
-    List<OrderResponseDTO> getDeliveredOrdersBySeller();
+    List<OrderResponseDTO> getDeliveredOrdersBySeller(Long cursor, int size);
 
-    List<OrderResponseDTO> getTakeOnOrdersBySeller();
+    List<OrderResponseDTO> getTakeOnOrdersBySeller(Long cursor, int size);
 
-    List<OrderResponseDTO> getRefusedOrdersBySeller();
+    List<OrderResponseDTO> getRefusedOrdersBySeller(Long cursor, int size);
 
-    List<OrderResponseDTO> getDelayedOrdersBySeller();
+    List<OrderResponseDTO> getDelayedOrdersBySeller(Long cursor, int size);
 
     OrderResponseDTO acceptSingleOrderProduct(long orderProductId);
 
     OrderResponseDTO refuseSingleOrderProduct(long orderProductId);
 
+    List<OrderProductTransitionResultDTO> updateOrderProductsStatus(OrderProductBulkStatusRequest request);
+
     OrderProductResponseDTO getOrderProductById(long orderProductId);
 
     FilteredOrdersResponse getFilteredOrdersBySeller(OrderFilterRequest orderFilterRequest);
 
+    FacetedOrdersResponse getFacetedOrdersBySeller(OrderFacetRequest orderFacetRequest);
+
+    Map<OrderProductStatus, Long> getOrderStatusCountsBySeller();
+
+    OrderDeadlineMetricsDTO getDeadlineMetrics();
+
+    StreamingResponseBody exportOrdersBySeller(ExportFormat format);
+
     OrderResponseDTO deliveryResponse(long orderProductId, String response);
 }
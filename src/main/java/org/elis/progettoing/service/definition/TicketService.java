@@ -32,6 +32,10 @@ public interface TicketService {
 
     TicketResponseDTO takeOnTicket(long id);
 
+    TicketResponseDTO claimNextTicket();
+
+    TicketResponseDTO renewTicketLease(long id);
+
     FilteredTicketsResponse getTicketFiltered(TicketFilterRequest ticketFilterRequest);
 
     List<TicketResponseDTO> getResolvedTickets();
@@ -0,0 +1,403 @@
+package org.elis.progettoing.service.implementation;
+
+import jakarta.annotation.PreDestroy;
+import org.elis.progettoing.dto.response.auction.AuctionEventDTO;
+import org.elis.progettoing.dto.response.auction.OfferResponseDTO;
+import org.elis.progettoing.enumeration.AuctionEventType;
+import org.elis.progettoing.enumeration.AuctionStatus;
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service class that pushes the events of the auctions to the clients following them with Server-Sent Events.
+ * <p>
+ * Each client holds an {@link SseEmitter} on an asynchronous request, so an idle connection keeps no thread busy.
+ * The events are published after the commit of the transaction that caused them and are not sent at once: the
+ * events of an auction are collected for a short delay and then sent together, keeping only the latest state of
+ * each offer and of the auction, so that a burst of offers costs one write per client. Events of auctions that
+ * nobody is following are discarded immediately. A periodic heartbeat finds the connections closed by the clients,
+ * which are removed together with those completed, timed out or failed.
+ * </p>
+ * <p>
+ * The shared scheduler only decides when a burst or a heartbeat is due: the writes to the connections run on a
+ * small dedicated pool, so a slow client never holds a thread of the scheduler that also runs the timers of the
+ * auctions and the other periodic jobs. Each client has its own queue, written by one thread at a time so that its
+ * events keep their order, and a client that falls more than {@link #MAX_QUEUED_BATCHES} batches behind, or that
+ * cannot be queued because the pool is saturated, is disconnected and can reconnect to get the current status.
+ * </p>
+ */
+@Service
+public class AuctionEventPublisher {
+    static final long EMITTER_TIMEOUT = 1_800_000L;
+    static final long COALESCE_DELAY_MILLIS = 250L;
+    static final int MAX_QUEUED_BATCHES = 16;
+
+    private static final List<AuctionEventDTO> HEARTBEAT = List.of();
+
+    private final TaskScheduler taskScheduler;
+    private final Executor senderExecutor;
+    private final ThreadPoolTaskExecutor ownedExecutor;
+
+    private final Map<Long, Set<Client>> emitters = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, AuctionEventDTO>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an instance of {@code AuctionEventPublisher} that writes to the connections on its own bounded pool.
+     *
+     * @param taskScheduler the scheduler that decides when the collected events are sent.
+     */
+    @Autowired
+    public AuctionEventPublisher(TaskScheduler taskScheduler) {
+        this(taskScheduler, senderPool());
+    }
+
+    /**
+     * Constructs an instance of {@code AuctionEventPublisher} that writes to the connections on the given executor.
+     *
+     * @param taskScheduler  the scheduler that decides when the collected events are sent.
+     * @param senderExecutor the executor that writes the events to the connections.
+     */
+    public AuctionEventPublisher(TaskScheduler taskScheduler, Executor senderExecutor) {
+        this.taskScheduler = taskScheduler;
+        this.senderExecutor = senderExecutor;
+        this.ownedExecutor = senderExecutor instanceof ThreadPoolTaskExecutor pool ? pool : null;
+    }
+
+    /**
+     * Stops the pool writing to the connections.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Opens a stream of the events of an auction, starting with its current status.
+     *
+     * @param auctionId the ID of the auction.
+     * @param status    the current status of the auction.
+     * @return the emitter bound to the client request.
+     */
+    public SseEmitter subscribe(long auctionId, AuctionStatus status) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+        Client client = new Client(auctionId, emitter);
+
+        emitters.compute(auctionId, (id, clients) -> {
+            Set<Client> result = clients != null ? clients : ConcurrentHashMap.newKeySet();
+            result.add(client);
+            return result;
+        });
+
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(() -> remove(client));
+        emitter.onError(e -> remove(client));
+
+        client.offer(List.of(statusChangedEvent(auctionId, status)));
+        return emitter;
+    }
+
+    /**
+     * Publishes the creation of an offer.
+     *
+     * @param offer the created offer.
+     */
+    public void offerCreated(OfferResponseDTO offer) {
+        publish(offerEvent(AuctionEventType.OFFER_CREATED, offer));
+    }
+
+    /**
+     * Publishes the update of an offer.
+     *
+     * @param offer the updated offer.
+     */
+    public void offerUpdated(OfferResponseDTO offer) {
+        publish(offerEvent(AuctionEventType.OFFER_UPDATED, offer));
+    }
+
+    /**
+     * Publishes the deletion of an offer.
+     *
+     * @param auctionId the ID of the auction of the offer.
+     * @param offerId   the ID of the deleted offer.
+     */
+    public void offerDeleted(long auctionId, long offerId) {
+        AuctionEventDTO event = new AuctionEventDTO();
+        event.setType(AuctionEventType.OFFER_DELETED);
+        event.setAuctionId(auctionId);
+        event.setOfferId(offerId);
+        publish(event);
+    }
+
+    /**
+     * Publishes the new status of an auction.
+     *
+     * @param auctionId the ID of the auction.
+     * @param status    the new status.
+     */
+    public void statusChanged(long auctionId, AuctionStatus status) {
+        publish(statusChangedEvent(auctionId, status));
+    }
+
+    /**
+     * Publishes the winner of an auction.
+     *
+     * @param auctionId the ID of the auction.
+     * @param winnerId  the ID of the winner.
+     */
+    public void winnerAssigned(long auctionId, long winnerId) {
+        AuctionEventDTO event = new AuctionEventDTO();
+        event.setType(AuctionEventType.WINNER_ASSIGNED);
+        event.setAuctionId(auctionId);
+        event.setWinnerId(winnerId);
+        publish(event);
+    }
+
+    /**
+     * Closes the streams of an auction that has been deleted. When called inside a transaction the streams are
+     * closed only after the commit.
+     *
+     * @param auctionId the ID of the auction.
+     */
+    public void close(long auctionId) {
+        AfterCommit.run(() -> {
+            Set<Client> clients = emitters.remove(auctionId);
+            pending.remove(auctionId);
+
+            if (clients != null) {
+                clients.forEach(Client::close);
+            }
+        });
+    }
+
+    /**
+     * Queues a comment to every open stream every thirty seconds, removing the ones whose client has disconnected.
+     */
+    @Scheduled(fixedDelay = 30000, initialDelay = 30000)
+    public void heartbeat() {
+        emitters.values().forEach(clients -> clients.forEach(client -> client.offer(HEARTBEAT)));
+    }
+
+    /**
+     * Returns the number of open streams.
+     *
+     * @return the number of clients following an auction.
+     */
+    public int getOpenStreams() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void publish(AuctionEventDTO event) {
+        AfterCommit.run(() -> enqueue(event));
+    }
+
+    private void enqueue(AuctionEventDTO event) {
+        long auctionId = event.getAuctionId();
+        if (!emitters.containsKey(auctionId)) {
+            return;
+        }
+
+        boolean[] firstOfBurst = {false};
+        pending.compute(auctionId, (id, events) -> {
+            Map<String, AuctionEventDTO> result = events;
+            if (result == null) {
+                result = new LinkedHashMap<>();
+                firstOfBurst[0] = true;
+            }
+            merge(result, event);
+            return result;
+        });
+
+        // Solo il primo evento di una raffica programma l'invio, gli altri vengono accodati
+        if (firstOfBurst[0]) {
+            taskScheduler.schedule(() -> flush(auctionId), Instant.now().plusMillis(COALESCE_DELAY_MILLIS));
+        }
+    }
+
+    private void flush(long auctionId) {
+        Map<String, AuctionEventDTO> events = pending.remove(auctionId);
+        Set<Client> clients = emitters.get(auctionId);
+
+        if (events == null || events.isEmpty() || clients == null) {
+            return;
+        }
+
+        // Lo scheduler si limita ad accodare il lotto, le scritture avvengono sul pool dedicato
+        List<AuctionEventDTO> batch = List.copyOf(events.values());
+        clients.forEach(client -> client.offer(batch));
+    }
+
+    private void remove(Client client) {
+        emitters.computeIfPresent(client.auctionId, (id, clients) -> {
+            clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    private static ThreadPoolTaskExecutor senderPool() {
+        // Una coda per client in attesa al massimo: se il pool è saturo i nuovi invii vengono rifiutati
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("auction-events-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Adds an event to the ones waiting to be sent, keeping one event for each offer and one for the status and the
+     * winner of the auction.
+     *
+     * @param events the events waiting to be sent, by key.
+     * @param event  the new event.
+     */
+    private static void merge(Map<String, AuctionEventDTO> events, AuctionEventDTO event) {
+        String key = event.getOfferId() != null ? "offer-" + event.getOfferId() : event.getType().name();
+        AuctionEventDTO previous = events.get(key);
+
+        if (previous != null && previous.getType() == AuctionEventType.OFFER_CREATED) {
+            // Un'offerta creata e poi modificata resta una creazione, una creata e poi eliminata non viene inviata
+            if (event.getType() == AuctionEventType.OFFER_UPDATED) {
+                event.setType(AuctionEventType.OFFER_CREATED);
+            } else if (event.getType() == AuctionEventType.OFFER_DELETED) {
+                events.remove(key);
+                return;
+            }
+        }
+
+        events.put(key, event);
+    }
+
+    private static AuctionEventDTO offerEvent(AuctionEventType type, OfferResponseDTO offer) {
+        AuctionEventDTO event = new AuctionEventDTO();
+        event.setType(type);
+        event.setAuctionId(offer.getAuctionId());
+        event.setOfferId(offer.getId());
+        event.setOffer(offer);
+        return event;
+    }
+
+    private static AuctionEventDTO statusChangedEvent(long auctionId, AuctionStatus status) {
+        AuctionEventDTO event = new AuctionEventDTO();
+        event.setType(AuctionEventType.STATUS_CHANGED);
+        event.setAuctionId(auctionId);
+        event.setStatus(status);
+        return event;
+    }
+
+    /**
+     * A client following an auction, with the batches of events waiting to be written to its connection.
+     */
+    private final class Client {
+        private final long auctionId;
+        private final SseEmitter emitter;
+        private final Queue<List<AuctionEventDTO>> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Client(long auctionId, SseEmitter emitter) {
+            this.auctionId = auctionId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues a batch of events, an empty batch being a heartbeat, and starts writing them if no thread is
+         * already doing it.
+         */
+        private void offer(List<AuctionEventDTO> batch) {
+            if (closed) {
+                return;
+            }
+
+            if (queued.incrementAndGet() > MAX_QUEUED_BATCHES) {
+                // Client troppo lento: viene disconnesso invece di accumulare eventi
+                close();
+                return;
+            }
+
+            outbox.add(batch);
+            schedule();
+        }
+
+        /**
+         * Disconnects the client. The connection is completed by the thread writing to it, if any, so that the
+         * caller never waits for a write in progress.
+         */
+        private void close() {
+            closed = true;
+            remove(this);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                senderExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                closed = true;
+                remove(this);
+                outbox.clear();
+                emitter.complete();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                if (closed) {
+                    outbox.clear();
+                    emitter.complete();
+                    return;
+                }
+
+                List<AuctionEventDTO> batch = outbox.poll();
+                if (batch == null) {
+                    draining.set(false);
+                    // Un lotto accodato dopo il controllo va scritto da questo thread se nessun altro lo ha preso
+                    if ((outbox.isEmpty() && !closed) || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+
+                queued.decrementAndGet();
+                write(batch);
+            }
+        }
+
+        private void write(List<AuctionEventDTO> batch) {
+            try {
+                if (batch.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+                for (AuctionEventDTO event : batch) {
+                    emitter.send(SseEmitter.event().name(event.getType().name()).data(event));
+                }
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                remove(this);
+            }
+        }
+    }
+}
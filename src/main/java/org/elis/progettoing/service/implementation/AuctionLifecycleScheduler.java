@@ -0,0 +1,300 @@
+package org.elis.progettoing.service.implementation;
+
+import jakarta.annotation.PreDestroy;
+import org.elis.progettoing.enumeration.AuctionNotificationType;
+import org.elis.progettoing.enumeration.AuctionStatus;
+import org.elis.progettoing.models.auction.Auction;
+import org.elis.progettoing.repository.AuctionRepository;
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
+import org.elis.progettoing.utils.customConcurrency.CoalescingPass;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Service class that opens and closes the auctions at the exact instant of their start and end dates.
+ * <p>
+ * Every pending or open auction has a timer for its next transition: the start date for a pending auction, the end
+ * date for an open one. The timers are loaded at startup and kept up to date when an auction is created, updated or
+ * deleted. A timer does not change its auction alone: it triggers a pass that moves all the due auctions at once.
+ * Each pass locks the due auctions with one query, capturing their ids, and changes their status with one guarded
+ * UPDATE per batch, so that many auctions ending in the same instant cost a few statements and each transition is
+ * applied and notified once even when several nodes run the same pass. The subscribers are notified by a small
+ * bounded executor, in batches of auctions, after the transitions are committed, through the dispatcher that sends
+ * each notification once, and the new statuses are pushed to the clients following the auctions. A slow sweep runs
+ * the same pass in case a timer was lost, loads the auctions created on other nodes, warns the subscribers of the
+ * auctions ending within the hour and sends again the notifications whose email failed.
+ * </p>
+ */
+@Service
+public class AuctionLifecycleScheduler {
+    private static final int BATCH_SIZE = 1000;
+    private static final int NOTIFICATION_BATCH_SIZE = 100;
+
+    private final AuctionRepository auctionRepository;
+    private final AuctionNotificationDispatcher auctionNotificationDispatcher;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor notificationExecutor;
+    private final AuctionEventPublisher auctionEventPublisher;
+    private final AuctionListingCache auctionListingCache;
+
+    private final Map<Long, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
+    private final CoalescingPass advancePass = new CoalescingPass(this::advance);
+
+    /**
+     * Constructs an instance of {@code AuctionLifecycleScheduler}.
+     *
+     * @param auctionRepository             the repository for managing auction entities.
+     * @param auctionNotificationDispatcher the dispatcher that notifies the subscribers of the auctions.
+     * @param taskScheduler                 the scheduler that runs the timers.
+     * @param transactionManager            the transaction manager used to apply each batch of transitions.
+     * @param auctionEventPublisher         the publisher that pushes the new statuses to the clients.
+     * @param auctionListingCache           the cache of the listings of the open and pending auctions.
+     */
+    public AuctionLifecycleScheduler(AuctionRepository auctionRepository, AuctionNotificationDispatcher auctionNotificationDispatcher, TaskScheduler taskScheduler, PlatformTransactionManager transactionManager, AuctionEventPublisher auctionEventPublisher, AuctionListingCache auctionListingCache) {
+        this.auctionRepository = auctionRepository;
+        this.auctionNotificationDispatcher = auctionNotificationDispatcher;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auctionEventPublisher = auctionEventPublisher;
+        this.auctionListingCache = auctionListingCache;
+
+        // Pool dedicato e limitato: se la coda è piena le notifiche rallentano il passaggio invece di accumularsi
+        this.notificationExecutor = new ThreadPoolTaskExecutor();
+        this.notificationExecutor.setCorePoolSize(2);
+        this.notificationExecutor.setMaxPoolSize(2);
+        this.notificationExecutor.setQueueCapacity(100);
+        this.notificationExecutor.setThreadNamePrefix("auction-notification-");
+        this.notificationExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.notificationExecutor.initialize();
+    }
+
+    /**
+     * Loads the timers of the pending and open auctions once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        load();
+    }
+
+    /**
+     * Stops the notification executor, letting the queued notifications complete.
+     */
+    @PreDestroy
+    public void shutdown() {
+        notificationExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        notificationExecutor.shutdown();
+    }
+
+    /**
+     * Starts tracking an auction that has just been created or updated, replacing its previous timer. When called
+     * inside a transaction the timer is scheduled only after the commit.
+     *
+     * @param auction the auction to track.
+     */
+    public void track(Auction auction) {
+        long auctionId = auction.getId();
+        AuctionStatus status = auction.getStatus();
+        LocalDateTime next = status == AuctionStatus.PENDING ? auction.getStartAuctionDate() : auction.getEndAuctionDate();
+
+        AfterCommit.run(() -> {
+            if (status == AuctionStatus.PENDING || status == AuctionStatus.OPEN) {
+                schedule(auctionId, next);
+            } else {
+                cancel(auctionId);
+            }
+        });
+    }
+
+    /**
+     * Stops tracking an auction that has been deleted. When called inside a transaction the timer is cancelled only
+     * after the commit.
+     *
+     * @param auctionId the ID of the auction.
+     */
+    public void untrack(long auctionId) {
+        AfterCommit.run(() -> cancel(auctionId));
+    }
+
+    /**
+     * Applies every five minutes the transitions that are already due, in case a timer was lost or failed, schedules
+     * the auctions that are not tracked yet, notifies the auctions ending within the next hour and retries the
+     * notifications that could not be sent.
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public void sweep() {
+        advanceDue();
+        load();
+        notifyEndingSoon(LocalDateTime.now());
+        notificationExecutor.execute(auctionNotificationDispatcher::retryFailed);
+    }
+
+    /**
+     * Returns the number of auctions that currently have a timer.
+     *
+     * @return the number of tracked auctions.
+     */
+    public int getTrackedAuctions() {
+        return timers.size();
+    }
+
+    /**
+     * Opens and closes every auction whose date has passed. Requests arriving while a pass is running are merged into
+     * a single following pass.
+     */
+    public void advanceDue() {
+        advancePass.request();
+    }
+
+    private void advance() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Apre prima le aste in attesa, così quelle già terminate vengono chiuse nello stesso passaggio
+        int opened;
+        do {
+            opened = openDue(now);
+        } while (opened == BATCH_SIZE);
+
+        int closed;
+        do {
+            closed = closeDue(now);
+        } while (closed == BATCH_SIZE);
+    }
+
+    private int openDue(LocalDateTime now) {
+        List<Object[]> rows = transactionTemplate.execute(status -> {
+            List<Object[]> due = auctionRepository.lockDueToOpen(now, PageRequest.of(0, BATCH_SIZE));
+            if (!due.isEmpty()) {
+                auctionRepository.updateStatus(idsOf(due), AuctionStatus.PENDING, AuctionStatus.OPEN);
+            }
+            return due;
+        });
+
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+
+        auctionListingCache.invalidate();
+        for (Object[] row : rows) {
+            schedule((Long) row[0], (LocalDateTime) row[1]);
+            auctionEventPublisher.statusChanged((Long) row[0], AuctionStatus.OPEN);
+        }
+
+        notifyInBatches(idsOf(rows), AuctionNotificationType.OPENED);
+        return rows.size();
+    }
+
+    private int closeDue(LocalDateTime now) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> due = auctionRepository.lockDueToClose(now, PageRequest.of(0, BATCH_SIZE));
+            if (!due.isEmpty()) {
+                auctionRepository.updateStatus(due, AuctionStatus.OPEN, AuctionStatus.CLOSED);
+            }
+            return due;
+        });
+
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+
+        auctionListingCache.invalidate();
+        for (Long id : ids) {
+            cancel(id);
+            auctionEventPublisher.statusChanged(id, AuctionStatus.CLOSED);
+        }
+
+        notifyInBatches(ids, AuctionNotificationType.CLOSED);
+        return ids.size();
+    }
+
+    private void notifyEndingSoon(LocalDateTime now) {
+        long lastId = 0;
+
+        while (true) {
+            List<Long> ids = auctionRepository.findOpenEndingBetween(now, now.plusHours(1), lastId, PageRequest.of(0, BATCH_SIZE));
+
+            // Le aste già avvisate nei passaggi precedenti vengono scartate dal registro delle notifiche
+            notifyInBatches(ids, AuctionNotificationType.ENDING_SOON);
+
+            if (ids.size() < BATCH_SIZE) {
+                return;
+            }
+
+            lastId = ids.getLast();
+        }
+    }
+
+    private void notifyInBatches(List<Long> ids, AuctionNotificationType type) {
+        for (int from = 0; from < ids.size(); from += NOTIFICATION_BATCH_SIZE) {
+            List<Long> batch = List.copyOf(ids.subList(from, Math.min(from + NOTIFICATION_BATCH_SIZE, ids.size())));
+            notificationExecutor.execute(() -> auctionNotificationDispatcher.dispatch(batch, type));
+        }
+    }
+
+    private void load() {
+        long lastId = 0;
+
+        while (true) {
+            List<Object[]> rows = auctionRepository.findLifecycleDatesAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+
+            for (Object[] row : rows) {
+                long auctionId = (Long) row[0];
+                ScheduledFuture<?> timer = timers.get(auctionId);
+                if (timer == null || timer.isDone()) {
+                    schedule(auctionId, row[1] == AuctionStatus.PENDING ? (LocalDateTime) row[2] : (LocalDateTime) row[3]);
+                }
+            }
+
+            if (rows.size() < BATCH_SIZE) {
+                return;
+            }
+
+            lastId = (Long) rows.getLast()[0];
+        }
+    }
+
+    private void schedule(long auctionId, LocalDateTime next) {
+        ScheduledFuture<?> timer = taskScheduler.schedule(this::advanceDue, toInstant(next));
+
+        ScheduledFuture<?> previous = timers.put(auctionId, timer);
+        if (previous != null && previous != timer) {
+            previous.cancel(false);
+        }
+    }
+
+    private void cancel(long auctionId) {
+        ScheduledFuture<?> timer = timers.remove(auctionId);
+        if (timer != null) {
+            timer.cancel(false);
+        }
+    }
+
+    private static List<Long> idsOf(List<Object[]> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+        }
+        return ids;
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
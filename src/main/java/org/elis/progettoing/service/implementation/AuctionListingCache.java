@@ -0,0 +1,226 @@
+package org.elis.progettoing.service.implementation;
+
+import org.elis.progettoing.dto.response.auction.AuctionDetailsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionListingCacheMetricsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionSummaryDTO;
+import org.elis.progettoing.enumeration.AuctionStatus;
+import org.elis.progettoing.mapper.definition.AuctionMapper;
+import org.elis.progettoing.models.auction.Auction;
+import org.elis.progettoing.repository.AuctionRepository;
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service class that keeps in memory the listings of the open and pending auctions.
+ * <p>
+ * The listings change only when an auction is created, edited or deleted and when it opens or closes, so they are
+ * mapped once into an immutable snapshot that every reader shares without locking. Each of those events moves the
+ * cache to a new generation after the commit of its transaction and schedules a rebuild: a snapshot of an older
+ * generation is never served, and a new one replaces it as a whole once built. A reader that finds no valid snapshot
+ * rebuilds it itself, while the other readers wait for that single rebuild. Because the listings also embed the
+ * owners of the auctions, a snapshot is rebuilt anyway after one minute.
+ * </p>
+ */
+@Service
+public class AuctionListingCache {
+    static final long MAX_AGE_MILLIS = 60_000L;
+
+    private final AuctionRepository auctionRepository;
+    private final AuctionMapper auctionMapper;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Object rebuildLock = new Object();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong totalRebuildMillis = new AtomicLong();
+    private final AtomicLong maxRebuildMillis = new AtomicLong();
+    private volatile long lastRebuildMillis;
+
+    /**
+     * Constructs an instance of {@code AuctionListingCache}.
+     *
+     * @param auctionRepository  the repository used to load the open and pending auctions.
+     * @param auctionMapper      the mapper used to build the listings.
+     * @param taskScheduler      the scheduler that rebuilds the snapshot after a change.
+     * @param transactionManager the transaction manager used to load the auctions with their owners.
+     */
+    public AuctionListingCache(AuctionRepository auctionRepository, AuctionMapper auctionMapper, TaskScheduler taskScheduler, PlatformTransactionManager transactionManager) {
+        this.auctionRepository = auctionRepository;
+        this.auctionMapper = auctionMapper;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Returns the summaries of the open auctions.
+     *
+     * @return the unmodifiable list of the summaries.
+     */
+    public List<AuctionSummaryDTO> getOpenSummaries() {
+        return read().openSummaries();
+    }
+
+    /**
+     * Returns the summaries of the pending auctions.
+     *
+     * @return the unmodifiable list of the summaries.
+     */
+    public List<AuctionSummaryDTO> getPendingSummaries() {
+        return read().pendingSummaries();
+    }
+
+    /**
+     * Returns the details of the open auctions.
+     *
+     * @return the unmodifiable list of the details.
+     */
+    public List<AuctionDetailsDTO> getOpenDetails() {
+        return read().openDetails();
+    }
+
+    /**
+     * Returns the details of the pending auctions.
+     *
+     * @return the unmodifiable list of the details.
+     */
+    public List<AuctionDetailsDTO> getPendingDetails() {
+        return read().pendingDetails();
+    }
+
+    /**
+     * Marks the listings as changed. When called inside a transaction the listings are changed only after the
+     * commit. A burst of changes schedules a single rebuild.
+     */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+
+            if (rebuildScheduled.compareAndSet(false, true)) {
+                taskScheduler.schedule(this::scheduledRebuild, Instant.now());
+            }
+        });
+    }
+
+    /**
+     * Returns the metrics of the cache.
+     *
+     * @return the {@link AuctionListingCacheMetricsDTO} describing hits, misses and rebuilds of the snapshot.
+     */
+    public AuctionListingCacheMetricsDTO getMetrics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long rebuildCount = rebuilds.get();
+        Snapshot current = snapshot;
+
+        AuctionListingCacheMetricsDTO metrics = new AuctionListingCacheMetricsDTO();
+        metrics.setHits(hitCount);
+        metrics.setMisses(missCount);
+        metrics.setHitRatio(hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount));
+        metrics.setRebuilds(rebuildCount);
+        metrics.setLastRebuildMillis(lastRebuildMillis);
+        metrics.setMaxRebuildMillis(maxRebuildMillis.get());
+        metrics.setAverageRebuildMillis(rebuildCount == 0 ? 0 : (double) totalRebuildMillis.get() / rebuildCount);
+        metrics.setStale(!isValid(current, System.currentTimeMillis()));
+
+        if (current != null) {
+            metrics.setOpenAuctions(current.openSummaries().size());
+            metrics.setPendingAuctions(current.pendingSummaries().size());
+            metrics.setBuiltAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(current.builtAt()), ZoneId.systemDefault()));
+        }
+
+        return metrics;
+    }
+
+    private Snapshot read() {
+        Snapshot current = snapshot;
+        if (isValid(current, System.currentTimeMillis())) {
+            hits.increment();
+            return current;
+        }
+
+        misses.increment();
+        return rebuild();
+    }
+
+    private void scheduledRebuild() {
+        rebuildScheduled.set(false);
+
+        if (!isValid(snapshot, System.currentTimeMillis())) {
+            rebuild();
+        }
+    }
+
+    private Snapshot rebuild() {
+        synchronized (rebuildLock) {
+            // Un altro lettore potrebbe aver ricostruito lo snapshot mentre questo attendeva
+            Snapshot current = snapshot;
+            if (isValid(current, System.currentTimeMillis())) {
+                return current;
+            }
+
+            long buildGeneration = generation.get();
+            long start = System.nanoTime();
+
+            Snapshot built = transactionTemplate.execute(status -> load(buildGeneration));
+
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            rebuilds.incrementAndGet();
+            totalRebuildMillis.addAndGet(elapsed);
+            maxRebuildMillis.accumulateAndGet(elapsed, Math::max);
+            lastRebuildMillis = elapsed;
+
+            // Se nel frattempo è arrivata una modifica lo snapshot resta di una generazione vecchia e non verrà servito
+            snapshot = built;
+            return built;
+        }
+    }
+
+    private Snapshot load(long buildGeneration) {
+        List<Auction> open = auctionRepository.findByStatus(AuctionStatus.OPEN);
+        List<Auction> pending = auctionRepository.findByStatus(AuctionStatus.PENDING);
+
+        return new Snapshot(
+                buildGeneration,
+                System.currentTimeMillis(),
+                open.stream().map(auctionMapper::auctionToAuctionSummaryDTO).toList(),
+                pending.stream().map(auctionMapper::auctionToAuctionSummaryDTO).toList(),
+                open.stream().map(auctionMapper::auctionToAuctionResponseDTO).toList(),
+                pending.stream().map(auctionMapper::auctionToAuctionResponseDTO).toList());
+    }
+
+    private boolean isValid(Snapshot current, long now) {
+        return current != null
+                && current.generation() == generation.get()
+                && now - current.builtAt() < MAX_AGE_MILLIS;
+    }
+
+    /**
+     * The listings of the open and pending auctions of a generation of the cache.
+     */
+    private record Snapshot(long generation,
+                            long builtAt,
+                            List<AuctionSummaryDTO> openSummaries,
+                            List<AuctionSummaryDTO> pendingSummaries,
+                            List<AuctionDetailsDTO> openDetails,
+                            List<AuctionDetailsDTO> pendingDetails) {
+    }
+}
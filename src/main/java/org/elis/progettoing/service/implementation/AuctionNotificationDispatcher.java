@@ -0,0 +1,314 @@
+package org.elis.progettoing.service.implementation;
+
+import jakarta.annotation.PreDestroy;
+import org.elis.progettoing.enumeration.AuctionNotificationType;
+import org.elis.progettoing.repository.AuctionNotificationRepository;
+import org.elis.progettoing.repository.AuctionRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Service class that sends the notifications of the auctions to their subscribers exactly once.
+ * <p>
+ * Before any email is sent, a dispatch inserts with a single statement one ledger row for each subscriber of the
+ * given auctions that has not received the notification yet, tagging the rows with its own dispatch ID. Only the
+ * subscribers whose rows carry that ID receive the email, so a notification repeated by a retry, by the periodic
+ * sweep or by another node finds the rows already there and sends nothing. The rows are committed in their own
+ * transaction before the emails are sent.
+ * </p>
+ * <p>
+ * The recipients are then read page by page, as plain email and name columns instead of entities, and each page is
+ * sent as one batch by a small pool of workers. When every worker is busy and the queue is full, the dispatching
+ * thread sends the next batch itself, so that reading the recipients never gets far ahead of sending them. The outcome
+ * of every batch is returned in a {@link DispatchReport}.
+ * </p>
+ * <p>
+ * A claimed row carries the instant of its next attempt, {@link #RETRY_DELAY} after the claim, which works as a
+ * lease: once the email of a batch has been sent, the instant is cleared for the recipients of the batch with a single
+ * update, while the recipients whose email failed get a new instant counted from the failure. The opening, the
+ * closing and the result of an auction are dispatched only once, so the unsent rows are not left to a later dispatch:
+ * {@link #retryFailed()} claims the due ones with a new dispatch ID and sends them the same notification, up to
+ * {@link #MAX_ATTEMPTS} claims in all. This recovers both the failed emails and the rows left unsent by a node that
+ * stopped in the middle of a dispatch.
+ * </p>
+ */
+@Service
+public class AuctionNotificationDispatcher {
+    static final int MAX_ATTEMPTS = 5;
+    static final Duration RETRY_DELAY = Duration.ofMinutes(10);
+
+    private static final int PAGE_SIZE = 200;
+
+    private final AuctionNotificationRepository auctionNotificationRepository;
+    private final AuctionRepository auctionRepository;
+    private final MailSenderServiceImpl mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor senderExecutor;
+
+    /**
+     * Constructs an instance of {@code AuctionNotificationDispatcher}.
+     *
+     * @param auctionNotificationRepository the repository of the notifications already sent.
+     * @param auctionRepository             the repository for managing auction entities.
+     * @param mailSender                    the service that delivers the emails.
+     * @param transactionManager            the transaction manager used to record each dispatch.
+     */
+    public AuctionNotificationDispatcher(AuctionNotificationRepository auctionNotificationRepository, AuctionRepository auctionRepository, MailSenderServiceImpl mailSender, PlatformTransactionManager transactionManager) {
+        this.auctionNotificationRepository = auctionNotificationRepository;
+        this.auctionRepository = auctionRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // Coda corta: con tutti i lavoratori occupati il lotto viene inviato dal thread che legge i destinatari
+        this.senderExecutor = new ThreadPoolTaskExecutor();
+        this.senderExecutor.setCorePoolSize(4);
+        this.senderExecutor.setMaxPoolSize(4);
+        this.senderExecutor.setQueueCapacity(8);
+        this.senderExecutor.setThreadNamePrefix("auction-email-");
+        this.senderExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.senderExecutor.initialize();
+    }
+
+    /**
+     * Stops the workers, letting the queued batches complete.
+     */
+    @PreDestroy
+    public void shutdown() {
+        senderExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        senderExecutor.shutdown();
+    }
+
+    /**
+     * Notifies the subscribers of the given auctions that have not received this type of notification yet, returning
+     * once every batch has been sent.
+     *
+     * @param auctionIds the IDs of the auctions.
+     * @param type       the type of notification, other than {@link AuctionNotificationType#RESULT}.
+     * @return the outcome of every batch.
+     * @throws IllegalArgumentException if the type is {@link AuctionNotificationType#RESULT}.
+     */
+    public DispatchReport dispatch(Collection<Long> auctionIds, AuctionNotificationType type) {
+        String notifyType = notifyTypeOf(type);
+
+        return fanOut(auctionIds, type, (auctionId, userId) -> notifyType);
+    }
+
+    /**
+     * Notifies the result of an auction to the subscribers that have not received it yet: the winner is congratulated,
+     * the others are told that they have not won.
+     *
+     * @param auctionId the ID of the auction.
+     * @param winnerId  the ID of the winner.
+     * @return the outcome of every batch.
+     */
+    public DispatchReport dispatchResult(long auctionId, long winnerId) {
+        return fanOut(List.of(auctionId), AuctionNotificationType.RESULT,
+                (id, userId) -> userId == winnerId ? "auctionWinner" : "auctionNotWinner");
+    }
+
+    /**
+     * Sends again the notifications whose email failed, or was never sent by the dispatch that claimed them, and whose
+     * next attempt is due, returning once every batch has been sent.
+     *
+     * @return the outcome of every batch.
+     */
+    public DispatchReport retryFailed() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BatchReport> batches = new ArrayList<>();
+
+        for (AuctionNotificationType type : AuctionNotificationType.values()) {
+            String dispatchId = UUID.randomUUID().toString();
+
+            // Ogni nodo reclama righe diverse: quelle già reclamate hanno il tentativo successivo spostato in avanti
+            Integer claimed = transactionTemplate.execute(status ->
+                    auctionNotificationRepository.claimRetries(type, dispatchId, now, now.plus(RETRY_DELAY), MAX_ATTEMPTS));
+            if (claimed == null || claimed == 0) {
+                continue;
+            }
+
+            List<Long> auctionIds = auctionNotificationRepository.findAuctionIdsByDispatchId(dispatchId);
+            batches.addAll(send(dispatchId, auctionIds, retryNotifyTypeOf(type, auctionIds)).batches());
+        }
+
+        return new DispatchReport(batches);
+    }
+
+    private NotifyTypeResolver retryNotifyTypeOf(AuctionNotificationType type, Collection<Long> auctionIds) {
+        if (type != AuctionNotificationType.RESULT) {
+            String notifyType = notifyTypeOf(type);
+            return (auctionId, userId) -> notifyType;
+        }
+
+        Map<Long, Long> winners = new HashMap<>();
+        for (Object[] row : auctionRepository.findWinnerIdsByIds(auctionIds)) {
+            winners.put((Long) row[0], (Long) row[1]);
+        }
+
+        return (auctionId, userId) -> {
+            Long winnerId = winners.get(auctionId);
+            return winnerId != null && winnerId == userId ? "auctionWinner" : "auctionNotWinner";
+        };
+    }
+
+    private DispatchReport fanOut(Collection<Long> auctionIds, AuctionNotificationType type, NotifyTypeResolver notifyTypeOf) {
+        if (auctionIds.isEmpty()) {
+            return new DispatchReport(Collections.emptyList());
+        }
+
+        String dispatchId = claim(auctionIds, type);
+        if (dispatchId == null) {
+            return new DispatchReport(Collections.emptyList());
+        }
+
+        return send(dispatchId, auctionIds, notifyTypeOf);
+    }
+
+    private DispatchReport send(String dispatchId, Collection<Long> auctionIds, NotifyTypeResolver notifyTypeOf) {
+        Map<Long, String> titles = new HashMap<>();
+        for (Object[] row : auctionRepository.findTitlesByIds(auctionIds)) {
+            titles.put((Long) row[0], (String) row[1]);
+        }
+
+        List<CompletableFuture<BatchReport>> batches = new ArrayList<>();
+        long lastAuctionId = 0;
+        long lastUserId = 0;
+
+        while (true) {
+            List<Object[]> page = auctionNotificationRepository.findRecipientsAfter(dispatchId, lastAuctionId, lastUserId, PageRequest.of(0, PAGE_SIZE));
+
+            if (!page.isEmpty()) {
+                int batch = batches.size() + 1;
+                long fromAuctionId = lastAuctionId;
+                long fromUserId = lastUserId;
+                batches.add(CompletableFuture
+                        .supplyAsync(() -> send(dispatchId, batch, fromAuctionId, fromUserId, page, titles, notifyTypeOf), senderExecutor)
+                        .exceptionally(e -> new BatchReport(batch, 0, page.size())));
+
+                Object[] last = page.getLast();
+                lastAuctionId = (Long) last[0];
+                lastUserId = (Long) last[1];
+            }
+
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+
+        return new DispatchReport(batches.stream().map(CompletableFuture::join).toList());
+    }
+
+    private BatchReport send(String dispatchId, int batch, long fromAuctionId, long fromUserId, List<Object[]> recipients,
+                             Map<Long, String> titles, NotifyTypeResolver notifyTypeOf) {
+        Map<Long, List<Long>> failures = new HashMap<>();
+        int sent = 0;
+
+        for (Object[] recipient : recipients) {
+            long auctionId = (Long) recipient[0];
+            long userId = (Long) recipient[1];
+
+            try {
+                mailSender.send(EmailServiceImpl.auctionEmail(notifyTypeOf.notifyTypeOf(auctionId, userId), titles.get(auctionId),
+                        (String) recipient[2], (String) recipient[3], (String) recipient[4]));
+                sent++;
+            } catch (RuntimeException e) {
+                failures.computeIfAbsent(auctionId, id -> new ArrayList<>()).add(userId);
+            }
+        }
+
+        // Il lotto è un intervallo di chiavi della spedizione: un solo aggiornamento lo segna come inviato, poi le
+        // notifiche non inviate tornano ad avere l'istante del tentativo successivo, contato dal fallimento
+        Object[] last = recipients.getLast();
+        LocalDateTime retryAt = LocalDateTime.now().plus(RETRY_DELAY);
+        transactionTemplate.executeWithoutResult(status -> {
+            auctionNotificationRepository.markSent(dispatchId, fromAuctionId, fromUserId, (Long) last[0], (Long) last[1]);
+            failures.forEach((auctionId, userIds) -> auctionNotificationRepository.markFailed(dispatchId, auctionId, userIds, retryAt));
+        });
+
+        return new BatchReport(batch, sent, recipients.size() - sent);
+    }
+
+    private static String notifyTypeOf(AuctionNotificationType type) {
+        return switch (type) {
+            case OPENED -> "auctionOpened";
+            case ENDING_SOON -> "auctionEndingSoon";
+            case CLOSED -> "auctionClosed";
+            case RESULT -> throw new IllegalArgumentException("Il risultato dell'asta richiede il vincitore");
+        };
+    }
+
+    private String claim(Collection<Long> auctionIds, AuctionNotificationType type) {
+        try {
+            return claimOnce(auctionIds, type);
+        } catch (DataIntegrityViolationException e) {
+            // Un altro nodo ha registrato le stesse notifiche nel frattempo: il secondo tentativo le esclude
+            return claimOnce(auctionIds, type);
+        }
+    }
+
+    private String claimOnce(Collection<Long> auctionIds, AuctionNotificationType type) {
+        String dispatchId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+
+        // L'istante del tentativo successivo fa da lease: se il nodo si ferma, retryFailed riprende le righe non inviate
+        Integer claimed = transactionTemplate.execute(status ->
+                auctionNotificationRepository.claimForSubscribers(auctionIds, type, dispatchId, now, now.plus(RETRY_DELAY)));
+
+        return claimed != null && claimed > 0 ? dispatchId : null;
+    }
+
+    /**
+     * Chooses the email sent to a subscriber of an auction.
+     */
+    @FunctionalInterface
+    private interface NotifyTypeResolver {
+        String notifyTypeOf(long auctionId, long userId);
+    }
+
+    /**
+     * The outcome of a dispatch.
+     *
+     * @param batches the outcome of every batch, in the order the batches were read.
+     */
+    public record DispatchReport(List<BatchReport> batches) {
+
+        /**
+         * Returns the number of emails sent.
+         *
+         * @return the emails sent by all the batches.
+         */
+        public int sent() {
+            return batches.stream().mapToInt(BatchReport::sent).sum();
+        }
+
+        /**
+         * Returns the number of emails that could not be sent.
+         *
+         * @return the emails failed in all the batches.
+         */
+        public int failed() {
+            return batches.stream().mapToInt(BatchReport::failed).sum();
+        }
+    }
+
+    /**
+     * The outcome of a batch of recipients.
+     *
+     * @param batch  the position of the batch in the dispatch, starting from 1.
+     * @param sent   the number of emails sent.
+     * @param failed the number of emails that could not be sent.
+     */
+    public record BatchReport(int batch, int sent, int failed) {
+    }
+}
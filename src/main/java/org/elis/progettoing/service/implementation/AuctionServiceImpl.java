@@ -2,7 +2,10 @@ package org.elis.progettoing.service.implementation;
 
 import org.elis.progettoing.dto.request.auction.AuctionRequestDTO;
 import org.elis.progettoing.dto.response.auction.AuctionDetailsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionListingCacheMetricsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionDashboardItemDTO;
 import org.elis.progettoing.dto.response.auction.AuctionSummaryDTO;
+import org.elis.progettoing.dto.response.auction.OwnerAuctionDashboardDTO;
 import org.elis.progettoing.enumeration.AuctionStatus;
 import org.elis.progettoing.exception.auction.*;
 import org.elis.progettoing.exception.entity.EntityDeletionException;
@@ -18,14 +21,17 @@ import org.elis.progettoing.repository.AuctionSubscriptionRepository;
 import org.elis.progettoing.repository.UserRepository;
 import org.elis.progettoing.service.definition.AuctionService;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of the AuctionService that manages the auction lifecycle,
@@ -40,6 +46,9 @@ public class AuctionServiceImpl implements AuctionService {
     private final AuctionSubscriptionRepository auctionSubscriptionRepository;
     private final AuctionMapper auctionMapper;
     private final UserRepository userRepository;
+    private final AuctionLifecycleScheduler auctionLifecycleScheduler;
+    private final AuctionEventPublisher auctionEventPublisher;
+    private final AuctionListingCache auctionListingCache;
 
     /**
      * Costruttore per AuctionServiceImpl.
@@ -48,13 +57,20 @@ public class AuctionServiceImpl implements AuctionService {
      * @param auctionManager                Il gestore per la gestione degli eventi del ciclo di vita delle aste.
      * @param auctionSubscriptionRepository Il repository per la gestione delle sottoscrizioni alle aste.
      * @param auctionMapper                 Il mapper per la conversione tra DTO ed entità.
+     * @param userRepository                Il repository per la gestione degli utenti.
+     * @param auctionLifecycleScheduler     Lo scheduler che apre e chiude le aste alle loro date.
+     * @param auctionEventPublisher         Il publisher degli eventi delle aste verso i client.
+     * @param auctionListingCache           La cache degli elenchi delle aste aperte e in attesa.
      */
-    public AuctionServiceImpl(AuctionRepository auctionRepository, AuctionManager auctionManager, AuctionSubscriptionRepository auctionSubscriptionRepository, AuctionMapper auctionMapper, UserRepository userRepository) {
+    public AuctionServiceImpl(AuctionRepository auctionRepository, AuctionManager auctionManager, AuctionSubscriptionRepository auctionSubscriptionRepository, AuctionMapper auctionMapper, UserRepository userRepository, AuctionLifecycleScheduler auctionLifecycleScheduler, AuctionEventPublisher auctionEventPublisher, AuctionListingCache auctionListingCache) {
         this.auctionRepository = auctionRepository;
         this.auctionManager = auctionManager;
         this.auctionSubscriptionRepository = auctionSubscriptionRepository;
         this.auctionMapper = auctionMapper;
         this.userRepository = userRepository;
+        this.auctionLifecycleScheduler = auctionLifecycleScheduler;
+        this.auctionEventPublisher = auctionEventPublisher;
+        this.auctionListingCache = auctionListingCache;
     }
 
     /**
@@ -84,6 +100,9 @@ public class AuctionServiceImpl implements AuctionService {
             throw new AuctionException("Errore durante il salvataggio dell'asta.", e);
         }
 
+        auctionLifecycleScheduler.track(auction);
+        auctionListingCache.invalidate();
+
         return auctionMapper.auctionToAuctionResponseDTO(auction);
     }
 
@@ -121,6 +140,10 @@ public class AuctionServiceImpl implements AuctionService {
             throw new EntityDeletionException("asta", "ID", auctionId);
         }
 
+        auctionLifecycleScheduler.untrack(auctionId);
+        auctionListingCache.invalidate();
+        auctionEventPublisher.close(auctionId);
+
         return true;
     }
 
@@ -161,6 +184,10 @@ public class AuctionServiceImpl implements AuctionService {
                 throw new EntityEditException("asta", "ID", auctionRequestDTO.getId());
         }
 
+        auctionLifecycleScheduler.track(auction);
+        auctionListingCache.invalidate();
+        auctionEventPublisher.statusChanged(auction.getId(), auction.getStatus());
+
         return auctionMapper.auctionToAuctionResponseDTO(auction);
     }
 
@@ -171,11 +198,7 @@ public class AuctionServiceImpl implements AuctionService {
      */
     @Override
     public List<AuctionSummaryDTO> getActiveAuctionSummary() {
-        List<Auction> auctions = auctionRepository.findByStatus(AuctionStatus.OPEN);
-
-        return auctions.stream()
-                .map(auctionMapper::auctionToAuctionSummaryDTO)
-                .toList();
+        return auctionListingCache.getOpenSummaries();
     }
 
     /**
@@ -200,11 +223,7 @@ public class AuctionServiceImpl implements AuctionService {
      */
     @Override
     public List<AuctionSummaryDTO> getPendingAuctionSummary() {
-        List<Auction> auctions = auctionRepository.findByStatus(AuctionStatus.PENDING);
-
-        return auctions.stream()
-                .map(auctionMapper::auctionToAuctionSummaryDTO)
-                .toList();
+        return auctionListingCache.getPendingSummaries();
     }
 
     /**
@@ -245,6 +264,7 @@ public class AuctionServiceImpl implements AuctionService {
             throw new AuctionException("Errore durante l'assegnazione del vincitore all'asta con ID: " + auctionId);
         }
 
+        auctionEventPublisher.winnerAssigned(auctionId, winnerId);
         auctionManager.notifyAuctionWinner(auction, userWinner);
 
         return true;
@@ -302,6 +322,22 @@ public class AuctionServiceImpl implements AuctionService {
         return auctionMapper.auctionToAuctionResponseDTO(auction);
     }
 
+    /**
+     * Opens a stream of the events of an auction: its status changes, the offers created, updated and deleted and
+     * the assignment of the winner. The stream starts with the current status of the auction.
+     *
+     * @param auctionId The ID of the auction to follow.
+     * @return the emitter that pushes the events to the client.
+     * @throws EntityNotFoundException if the auction with the specified ID does not exist in the system.
+     */
+    @Override
+    public SseEmitter streamAuctionEvents(long auctionId) {
+        Auction auction = auctionRepository.findById(auctionId)
+                .orElseThrow(() -> new EntityNotFoundException("Asta", "ID", auctionId));
+
+        return auctionEventPublisher.subscribe(auctionId, auction.getStatus());
+    }
+
     /**
      * Retrieves all active and open auctions.
      *
@@ -311,15 +347,13 @@ public class AuctionServiceImpl implements AuctionService {
     @Transactional(readOnly = true)
     @Override
     public List<AuctionDetailsDTO> listActiveAuctions() {
-        List<Auction> activeAuctions = auctionRepository.findByStatus(AuctionStatus.OPEN);
+        List<AuctionDetailsDTO> activeAuctions = auctionListingCache.getOpenDetails();
 
         if (activeAuctions.isEmpty()) {
             throw new EntityNotFoundException("asta", "stato", AuctionStatus.OPEN.name());
         }
 
-        return activeAuctions.stream()
-                .map(auctionMapper::auctionToAuctionResponseDTO)
-                .toList();
+        return activeAuctions;
     }
 
     /**
@@ -351,15 +385,13 @@ public class AuctionServiceImpl implements AuctionService {
     @Transactional(readOnly = true)
     @Override
     public List<AuctionDetailsDTO> listPendingAuctions() {
-        List<Auction> pendingAuctions = auctionRepository.findByStatus(AuctionStatus.PENDING);
+        List<AuctionDetailsDTO> pendingAuctions = auctionListingCache.getPendingDetails();
 
         if (pendingAuctions.isEmpty()) {
             throw new EntityNotFoundException("asta", "stato", AuctionStatus.PENDING.name());
         }
 
-        return pendingAuctions.stream()
-                .map(auctionMapper::auctionToAuctionResponseDTO)
-                .toList();
+        return pendingAuctions;
     }
 
     /**
@@ -432,70 +464,68 @@ public class AuctionServiceImpl implements AuctionService {
     }
 
     /**
-     * Retrieves a summary of all auctions the user is subscribed to.
+     * Retrieves the auctions without a winner of the authenticated user, grouped by status, with a single query that
+     * reads only the fields shown in the dashboard.
      *
-     * @return List of DTOs representing the auctions the user is subscribed to.
+     * @return DTO containing the open, pending and closed auctions without a winner.
      */
+    @Transactional(readOnly = true)
     @Override
-    public Boolean getAuctionSubscriptionByAuctionId(long auctionId) {
+    public OwnerAuctionDashboardDTO getOwnerAuctionDashboard() {
         UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
         User user = (User) authentication.getPrincipal();
 
-        Auction auction = auctionRepository.findById(auctionId)
-                .orElseThrow(() -> new EntityNotFoundException("asta", "ID", auctionId));
+        Map<AuctionStatus, List<AuctionDashboardItemDTO>> auctionsByStatus = new EnumMap<>(AuctionStatus.class);
+        for (AuctionStatus status : AuctionStatus.values()) {
+            auctionsByStatus.put(status, new ArrayList<>());
+        }
 
-        return auctionSubscriptionRepository.existsByAuctionAndUser(auction, user);
+        // Le righe arrivano già ordinate per data di fine e vengono solo distribuite per stato
+        for (Object[] row : auctionRepository.findDashboardRowsByOwnerId(user.getId())) {
+            AuctionStatus status = (AuctionStatus) row[3];
+
+            AuctionDashboardItemDTO item = new AuctionDashboardItemDTO();
+            item.setId((Long) row[0]);
+            item.setTitle((String) row[1]);
+            item.setDescription((String) row[2]);
+            item.setState(status.toString());
+            item.setStartAuctionDate((LocalDateTime) row[4]);
+            item.setEndAuctionDate((LocalDateTime) row[5]);
+
+            auctionsByStatus.get(status).add(item);
+        }
+
+        OwnerAuctionDashboardDTO dashboard = new OwnerAuctionDashboardDTO();
+        dashboard.setOpenAuctions(auctionsByStatus.get(AuctionStatus.OPEN));
+        dashboard.setPendingAuctions(auctionsByStatus.get(AuctionStatus.PENDING));
+        dashboard.setClosedAuctions(auctionsByStatus.get(AuctionStatus.CLOSED));
+
+        return dashboard;
     }
 
     /**
-     * Updates auction status periodically.
-     * @throws AuctionStatusUpdateException if an error occurs while updating the auction status.
+     * Retrieves the metrics of the in-memory listings of the open and pending auctions.
+     *
+     * @return the {@link AuctionListingCacheMetricsDTO} describing hits, misses and rebuilds of the listings.
      */
-    @Scheduled(fixedRate = 30000)
-    public void updateAuctionStatus() {
-        try {
-            List<Auction> auctionsToUpdate = auctionRepository.findAllActiveAndPendingAuctions(LocalDateTime.now());
-            auctionsToUpdate.parallelStream().forEach(this::updateSingleAuctionStatus);
-        } catch (Exception e) {
-            throw new AuctionStatusUpdateException("Errore globale durante l'aggiornamento dello stato delle aste.", e);
-        }
+    @Override
+    public AuctionListingCacheMetricsDTO getListingCacheMetrics() {
+        return auctionListingCache.getMetrics();
     }
 
     /**
-     * Updates the status of a single auction based on the current date.
+     * Retrieves a summary of all auctions the user is subscribed to.
      *
-     * @param auction The auction to update.
-     * @throws AuctionException if an error occurs while updating the auction status.
+     * @return List of DTOs representing the auctions the user is subscribed to.
      */
-    public void updateSingleAuctionStatus(Auction auction) {
-        try {
-            boolean updated = false;
-
-            if (auction.getStatus() == AuctionStatus.PENDING && auction.getStartAuctionDate().isBefore(LocalDateTime.now())) {
-                auction.setStatus(AuctionStatus.OPEN);
-                auctionRepository.save(auction);
-                updated = true;
-
-                // Invia notifica di apertura
-                auctionManager.notifyAuctionOpening(auction);
-            }
-
-            if (auction.getStatus() == AuctionStatus.OPEN && auction.getEndAuctionDate().isBefore(LocalDateTime.now())) {
-                auction.setStatus(AuctionStatus.CLOSED);
-                auctionRepository.save(auction);
-                updated = true;
-
-                // Invia notifica di chiusura
-                auctionManager.notifyAuctionClosed(auction);
-            }
-
-            if (!updated && auction.getStatus() == AuctionStatus.OPEN
-                    && auction.getEndAuctionDate().minusHours(1).isBefore(LocalDateTime.now())) {
-                // Invia notifica che l'asta sta per terminare
-                auctionManager.notifyAuctionEndingSoon(auction);
-            }
-        } catch (Exception e) {
-            throw new AuctionException("Errore durante l'aggiornamento dell'asta con ID: " + auction.getId(), e);
-        }
+    @Override
+    public Boolean getAuctionSubscriptionByAuctionId(long auctionId) {
+        UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) authentication.getPrincipal();
+
+        Auction auction = auctionRepository.findById(auctionId)
+                .orElseThrow(() -> new EntityNotFoundException("asta", "ID", auctionId));
+
+        return auctionSubscriptionRepository.existsByAuctionAndUser(auction, user);
     }
 }
@@ -3,6 +3,7 @@ package org.elis.progettoing.service.implementation;
 import org.elis.progettoing.dto.request.product.PurchasedProductRequestDTO;
 import org.elis.progettoing.dto.response.cart.CartResponseDTO;
 import org.elis.progettoing.dto.response.cart.PurchasedProductResponseDTO;
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.exception.PurchasedProductException;
 import org.elis.progettoing.exception.entity.EntityAlreadyExistsException;
 import org.elis.progettoing.exception.entity.EntityCreationException;
@@ -42,6 +43,7 @@ public class CartServiceImpl implements CartService {
 
     private static final String CART = "carrello";
     private final PurchasedProductRepository purchasedProductRepository;
+    private final ModerationSignalStore moderationSignalStore;
 
     /**
      * CartServiceImpl constructor
@@ -52,14 +54,16 @@ public class CartServiceImpl implements CartService {
      * @param cartMapper                 Mapper for conversion between Cart and DTO objects.
      * @param purchasedProductMapper     Mapper for conversion between PurchasedProduct objects and DTOs
      * @param purchasedProductRepository Repository of purchased products.
+     * @param moderationSignalStore      Store of the purchase counters used by the ticket priorities.
      */
-    public CartServiceImpl(CartRepository cartRepository, ProductRepository productRepository, ProductPackageRepository productPackageRepository, CartMapper cartMapper, PurchasedProductMapper purchasedProductMapper, PurchasedProductRepository purchasedProductRepository) {
+    public CartServiceImpl(CartRepository cartRepository, ProductRepository productRepository, ProductPackageRepository productPackageRepository, CartMapper cartMapper, PurchasedProductMapper purchasedProductMapper, PurchasedProductRepository purchasedProductRepository, ModerationSignalStore moderationSignalStore) {
         this.cartRepository = cartRepository;
         this.productRepository = productRepository;
         this.productPackageRepository = productPackageRepository;
         this.cartMapper = cartMapper;
         this.purchasedProductMapper = purchasedProductMapper;
         this.purchasedProductRepository = purchasedProductRepository;
+        this.moderationSignalStore = moderationSignalStore;
     }
 
     /**
@@ -162,6 +166,9 @@ public class CartServiceImpl implements CartService {
             throw new EntityCreationException("prodotto acquistato", "ID prodotto", product.getId());
         }
 
+        moderationSignalStore.increment(ModerationSignal.PRODUCT_PURCHASES, product.getId(), 1);
+        moderationSignalStore.increment(ModerationSignal.BUYER_PURCHASES, buyer.getId(), 1);
+
         return purchasedProductMapper.purchasedProductToResponseDTO(purchasedProduct);
     }
 
@@ -200,9 +207,12 @@ public class CartServiceImpl implements CartService {
 
         try {
             cartRepository.save(cart);
-            return true;
         } catch (Exception e) {
             throw new EntityDeletionException("utente", "ID", buyer.getId());
         }
+
+        moderationSignalStore.increment(ModerationSignal.PRODUCT_PURCHASES, purchasedProduct.getProduct().getId(), -1);
+        moderationSignalStore.increment(ModerationSignal.BUYER_PURCHASES, buyer.getId(), -1);
+        return true;
     }
 }
@@ -157,18 +157,7 @@ public class EmailServiceImpl implements EmailService {
     @Override
     @Async
     public void sendAuctionOpenedEmail(Auction auction, User user) {
-        Email email = new Email();
-        email.setRecipient(user.getEmail());
-        email.setSubject("L'asta \"" + auction.getTitle() + "\" è ora aperta!");
-        email.setBody(
-                "Gentile " + user.getName() + ",\n\n" +
-                        "L'asta \"" + auction.getTitle() + "\" è ora aperta per le offerte!\n\n" +
-                        "Ti aspettiamo!\n\n" +
-                        "Cordiali saluti,\n" +
-                        "Il team di FreeWork"
-        );
-
-        emailService.sendEmail(email);
+        emailService.sendEmail(auctionEmail("auctionOpened", auction.getTitle(), user.getEmail(), user.getName(), user.getSurname()));
     }
 
     /**
@@ -180,17 +169,7 @@ public class EmailServiceImpl implements EmailService {
     @Override
     @Async
     public void sendAuctionEndingSoonEmail(Auction auction, User user) {
-        Email email = new Email();
-        email.setRecipient(user.getEmail());
-        email.setSubject("L'asta \"" + auction.getTitle() + "\" sta per chiudere!");
-        email.setBody(
-                "Gentile " + user.getName() + ",\n\n" +
-                        "Questa è un'ultima occasione per fare la tua offerta nell'asta \"" + auction.getTitle() + "\".\n\n" +
-                        "Cordiali saluti,\n" +
-                        "Il team di FreeWork"
-        );
-
-        emailService.sendEmail(email);
+        emailService.sendEmail(auctionEmail("auctionEndingSoon", auction.getTitle(), user.getEmail(), user.getName(), user.getSurname()));
     }
 
     /**
@@ -202,18 +181,7 @@ public class EmailServiceImpl implements EmailService {
     @Override
     @Async
     public void sendAuctionWinnerEmail(Auction auction, User user) {
-        Email email = new Email();
-        email.setRecipient(user.getEmail());
-        email.setSubject("Congratulazioni! Hai vinto l'asta \"" + auction.getTitle() + "\"!");
-        email.setBody(
-                "Gentile " + user.getName() + " " + user.getSurname() + ",\n\n" +
-                        "Congratulazioni! Hai vinto l'asta \"" + auction.getTitle() + "\"!\n\n" +
-                        "Per ulteriori informazioni, contatta il venditore.\n\n" +
-                        "Cordiali saluti,\n" +
-                        "Il team di FreeWork"
-        );
-
-        emailService.sendEmail(email);
+        emailService.sendEmail(auctionEmail("auctionWinner", auction.getTitle(), user.getEmail(), user.getName(), user.getSurname()));
     }
 
     /**
@@ -225,18 +193,7 @@ public class EmailServiceImpl implements EmailService {
     @Override
     @Async
     public void sendAuctionNotWinnerEmail(Auction auction, User user) {
-        Email email = new Email();
-        email.setRecipient(user.getEmail());
-        email.setSubject("L'asta \"" + auction.getTitle() + "\" è stata chiusa!");
-        email.setBody(
-                "Gentile " + user.getName() + " " + user.getSurname() + ",\n\n" +
-                        "Ti informiamo che l'asta \"" + auction.getTitle() + "\" è stata chiusa.\n\n" +
-                        "Purtroppo, non hai vinto l'asta. Continua a partecipare per avere altre possibilità!\n\n" +
-                        "Cordiali saluti,\n" +
-                        "Il team di FreeWork"
-        );
-
-        emailService.sendEmail(email);
+        emailService.sendEmail(auctionEmail("auctionNotWinner", auction.getTitle(), user.getEmail(), user.getName(), user.getSurname()));
     }
 
     /**
@@ -273,19 +230,7 @@ public class EmailServiceImpl implements EmailService {
     @Override
     @Async
     public void sendAuctionClosedEmail(Auction auction, User user) {
-        Email email = new Email();
-        email.setRecipient(user.getEmail());
-        email.setSubject("L'asta \"" + auction.getTitle() + "\" è stata chiusa!");
-        email.setBody(
-                "Gentile " + user.getName() + " " + user.getSurname() + ",\n\n" +
-                        "ti informiamo che l'asta \"" + auction.getTitle() + "\" è stata chiusa! \n" +
-                        "Corri a vedere se hai vinto!.\n\n" +
-                        "Ti ringraziamo per il tuo interesse e ti invitiamo a partecipare alle prossime occasioni!\n\n" +
-                        "Cordiali saluti,\n" +
-                        "Il team di FreeWork"
-        );
-
-        emailService.sendEmail(email);
+        emailService.sendEmail(auctionEmail("auctionClosed", auction.getTitle(), user.getEmail(), user.getName(), user.getSurname()));
     }
 
     /**
@@ -359,4 +304,66 @@ public class EmailServiceImpl implements EmailService {
 
         emailService.sendEmail(email);
     }
-}
\ No newline at end of file
+
+    /**
+     * Composes the email of an auction notification, with the same content sent by the methods of this service.
+     *
+     * @param notifyType   the type of notification, as accepted by the auction listeners.
+     * @param auctionTitle the title of the auction.
+     * @param recipient    the email address of the subscriber.
+     * @param name         the name of the subscriber.
+     * @param surname      the surname of the subscriber.
+     * @return the email to send.
+     * @throws IllegalArgumentException if the notification type is invalid.
+     */
+    public static Email auctionEmail(String notifyType, String auctionTitle, String recipient, String name, String surname) {
+        String subject;
+        String body;
+
+        switch (notifyType) {
+            case "auctionOpened" -> {
+                subject = "L'asta \"" + auctionTitle + "\" è ora aperta!";
+                body = "Gentile " + name + ",\n\n" +
+                        "L'asta \"" + auctionTitle + "\" è ora aperta per le offerte!\n\n" +
+                        "Ti aspettiamo!\n\n" +
+                        "Cordiali saluti,\n" +
+                        "Il team di FreeWork";
+            }
+            case "auctionEndingSoon" -> {
+                subject = "L'asta \"" + auctionTitle + "\" sta per chiudere!";
+                body = "Gentile " + name + ",\n\n" +
+                        "Questa è un'ultima occasione per fare la tua offerta nell'asta \"" + auctionTitle + "\".\n\n" +
+                        "Cordiali saluti,\n" +
+                        "Il team di FreeWork";
+            }
+            case "auctionClosed" -> {
+                subject = "L'asta \"" + auctionTitle + "\" è stata chiusa!";
+                body = "Gentile " + name + " " + surname + ",\n\n" +
+                        "ti informiamo che l'asta \"" + auctionTitle + "\" è stata chiusa! \n" +
+                        "Corri a vedere se hai vinto!.\n\n" +
+                        "Ti ringraziamo per il tuo interesse e ti invitiamo a partecipare alle prossime occasioni!\n\n" +
+                        "Cordiali saluti,\n" +
+                        "Il team di FreeWork";
+            }
+            case "auctionWinner" -> {
+                subject = "Congratulazioni! Hai vinto l'asta \"" + auctionTitle + "\"!";
+                body = "Gentile " + name + " " + surname + ",\n\n" +
+                        "Congratulazioni! Hai vinto l'asta \"" + auctionTitle + "\"!\n\n" +
+                        "Per ulteriori informazioni, contatta il venditore.\n\n" +
+                        "Cordiali saluti,\n" +
+                        "Il team di FreeWork";
+            }
+            case "auctionNotWinner" -> {
+                subject = "L'asta \"" + auctionTitle + "\" è stata chiusa!";
+                body = "Gentile " + name + " " + surname + ",\n\n" +
+                        "Ti informiamo che l'asta \"" + auctionTitle + "\" è stata chiusa.\n\n" +
+                        "Purtroppo, non hai vinto l'asta. Continua a partecipare per avere altre possibilità!\n\n" +
+                        "Cordiali saluti,\n" +
+                        "Il team di FreeWork";
+            }
+            default -> throw new IllegalArgumentException("Tipo di notifica non valido");
+        }
+
+        return new Email(recipient, subject, body);
+    }
+}
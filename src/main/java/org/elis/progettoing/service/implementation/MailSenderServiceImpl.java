@@ -38,6 +38,16 @@ public class MailSenderServiceImpl {
      */
     @Async
     public void sendEmail(Email email) {
+        send(email);
+    }
+
+    /**
+     * Send an email using the provided {@link Email} object, waiting for the mail server to accept it.
+     *
+     * @param email the email object containing recipient, subject, and body.
+     * @throws EmailSendingException if an error occurs while sending the email.
+     */
+    public void send(Email email) {
         try {
             MimeMessagePreparator mailMessage = mimeMessage -> {
                 MimeMessageHelper message = new MimeMessageHelper(mimeMessage, true, "UTF-8");
@@ -0,0 +1,423 @@
+package org.elis.progettoing.service.implementation;
+
+import org.elis.progettoing.enumeration.ModerationSignal;
+import org.elis.progettoing.models.ModerationCounter;
+import org.elis.progettoing.models.ModerationCounterId;
+import org.elis.progettoing.models.ReviewRatingBucket;
+import org.elis.progettoing.models.ReviewRatingBucketId;
+import org.elis.progettoing.repository.ModerationCounterRepository;
+import org.elis.progettoing.repository.PurchasedProductRepository;
+import org.elis.progettoing.repository.ReviewRatingBucketRepository;
+import org.elis.progettoing.repository.ReviewRepository;
+import org.elis.progettoing.repository.TicketRepository;
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class that stores the signals used to assign a priority to the report tickets.
+ * <p>
+ * The number of tickets reporting each product, user and review, the number of purchased products of each product and
+ * buyer and the daily sums of the ratings of the reviews written by each user are kept in dedicated tables, so that
+ * the priority of a ticket is assigned without counting the tickets, the purchased products and the reviews.
+ * </p>
+ * <p>
+ * Changes are applied with single UPDATE statements in the caller's transaction. A counter is created on first use in
+ * a separate transaction, seeded from the committed rows, so that the changes of the caller's transaction are counted
+ * exactly once. Reads are served from an in-memory cache holding only committed values: a value missing from the
+ * cache is read in the caller's transaction and cached only after its commit, the entries touched by a transaction
+ * are evicted after its commit, and a value loaded while a change was being committed is not cached. A nightly job,
+ * also run at startup while the tables are empty, rebuilds all the signals.
+ * </p>
+ * <p>
+ * Seeding is the only work done in a separate transaction, once for each counter and each day of ratings, and it
+ * borrows a second connection while the caller's one stays open. The connection pool must therefore be larger than
+ * the number of threads that can create tickets, purchases and reviews at the same time: if every connection is held
+ * by a caller waiting to seed, the seeding fails after the connection timeout of the pool and so does the caller.
+ * </p>
+ */
+@Service
+public class ModerationSignalStore {
+    static final int RATING_WINDOW_DAYS = 30;
+
+    private final ModerationCounterRepository moderationCounterRepository;
+    private final ReviewRatingBucketRepository reviewRatingBucketRepository;
+    private final TicketRepository ticketRepository;
+    private final PurchasedProductRepository purchasedProductRepository;
+    private final ReviewRepository reviewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate seedTransactionTemplate;
+
+    private final Map<ModerationCounterId, Long> counters = new ConcurrentHashMap<>();
+    private final Map<Long, RatingWindow> ratings = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructs an instance of {@code ModerationSignalStore}.
+     *
+     * @param moderationCounterRepository  the repository for managing moderation counter entities.
+     * @param reviewRatingBucketRepository the repository for managing review rating bucket entities.
+     * @param ticketRepository             the repository used to count the tickets reporting a target.
+     * @param purchasedProductRepository   the repository used to count the purchased products.
+     * @param reviewRepository             the repository used to sum the ratings of the reviews.
+     * @param transactionManager           the transaction manager used for seeding and reconciliation.
+     */
+    public ModerationSignalStore(ModerationCounterRepository moderationCounterRepository, ReviewRatingBucketRepository reviewRatingBucketRepository,
+                                 TicketRepository ticketRepository, PurchasedProductRepository purchasedProductRepository,
+                                 ReviewRepository reviewRepository, PlatformTransactionManager transactionManager) {
+        this.moderationCounterRepository = moderationCounterRepository;
+        this.reviewRatingBucketRepository = reviewRatingBucketRepository;
+        this.ticketRepository = ticketRepository;
+        this.purchasedProductRepository = purchasedProductRepository;
+        this.reviewRepository = reviewRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.seedTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.seedTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Adds a delta to the value of a signal of a product, user or review.
+     *
+     * @param signal   the signal to change.
+     * @param targetId the ID of the product, user or review the signal refers to.
+     * @param delta    the value to add, negative to subtract.
+     */
+    public void increment(ModerationSignal signal, long targetId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        ensureCounter(signal, targetId);
+        moderationCounterRepository.increment(signal, targetId, delta);
+
+        ModerationCounterId id = new ModerationCounterId(signal, targetId);
+        AfterCommit.run(() -> evict(() -> counters.remove(id)));
+    }
+
+    /**
+     * Adds a delta to the ratings of the reviews written by a user in the day of the given date. Changes to the days
+     * that are no longer part of the rolling window are ignored.
+     *
+     * @param userId      the ID of the author of the reviews.
+     * @param date        the creation date of the reviews.
+     * @param ratingDelta the value to add to the sum of the total ratings.
+     * @param countDelta  the value to add to the number of reviews.
+     */
+    public void addRating(long userId, LocalDateTime date, double ratingDelta, long countDelta) {
+        LocalDate day = date.toLocalDate();
+        if ((ratingDelta == 0 && countDelta == 0) || day.isBefore(windowStart(LocalDate.now()))) {
+            return;
+        }
+
+        ensureBucket(userId, day);
+        reviewRatingBucketRepository.add(userId, day, ratingDelta, countDelta);
+
+        AfterCommit.run(() -> evict(() -> ratings.remove(userId)));
+    }
+
+    /**
+     * Retrieves the value of a signal of a product, user or review.
+     *
+     * @param signal   the signal to read.
+     * @param targetId the ID of the product, user or review the signal refers to.
+     * @return the value of the signal, including the changes of the caller's transaction when it is not cached.
+     */
+    public long getCount(ModerationSignal signal, long targetId) {
+        ModerationCounterId id = new ModerationCounterId(signal, targetId);
+        Long cached = counters.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration = generation.get();
+        long count = loadCount(signal, targetId);
+
+        cacheAfterCommit(counters, id, count, loadGeneration);
+        return count;
+    }
+
+    /**
+     * Retrieves the average total rating of the reviews written by a user in the last {@value #RATING_WINDOW_DAYS}
+     * days, today included.
+     *
+     * @param userId the ID of the author of the reviews.
+     * @return the average rating, or 0 if the user wrote no review in the period.
+     */
+    public double getAverageRating(long userId) {
+        LocalDate from = windowStart(LocalDate.now());
+
+        RatingWindow window = ratings.get(userId);
+        if (window == null) {
+            long loadGeneration = generation.get();
+            window = RatingWindow.of(reviewRatingBucketRepository.findByUserIdSince(userId, from));
+
+            cacheAfterCommit(ratings, userId, window, loadGeneration);
+        }
+
+        return window.average(from.toEpochDay());
+    }
+
+    /**
+     * Rebuilds the signals at startup if they were never built.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (moderationCounterRepository.count() == 0 && reviewRatingBucketRepository.count() == 0) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Rebuilds every night all the signals.
+     */
+    @Scheduled(cron = "0 0 4 * * *")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Rebuilds all the signals from the tickets, the purchased products and the reviews, one signal per transaction,
+     * and drops the ratings of the days no longer part of the rolling window.
+     */
+    public void reconcile() {
+        for (ModerationSignal signal : ModerationSignal.values()) {
+            transactionTemplate.executeWithoutResult(status -> rebuild(signal));
+        }
+        transactionTemplate.executeWithoutResult(status -> rebuildRatings(LocalDate.now()));
+
+        evict(() -> {
+            counters.clear();
+            ratings.clear();
+        });
+    }
+
+    /**
+     * Creates the counter of a signal in a separate transaction if it does not exist yet. The check is a plain read,
+     * so that the caller's transaction holds no lock that the separate transaction would wait for. If another
+     * transaction created the counter first the existing one is kept.
+     *
+     * @param signal   the signal of the counter.
+     * @param targetId the ID of the product, user or review the signal refers to.
+     */
+    private void ensureCounter(ModerationSignal signal, long targetId) {
+        if (moderationCounterRepository.existsById(new ModerationCounterId(signal, targetId))) {
+            return;
+        }
+
+        try {
+            seedTransactionTemplate.executeWithoutResult(status ->
+                    moderationCounterRepository.saveAndFlush(new ModerationCounter(signal, targetId, countRows(signal, targetId))));
+        } catch (DataIntegrityViolationException e) {
+            // Il contatore è stato creato da un'altra transazione
+        }
+    }
+
+    /**
+     * Creates the rating bucket of a user and a day in a separate transaction if it does not exist yet, like
+     * {@link #ensureCounter(ModerationSignal, long)} does for the counters.
+     *
+     * @param userId the ID of the author of the reviews.
+     * @param day    the day of the bucket.
+     */
+    private void ensureBucket(long userId, LocalDate day) {
+        if (reviewRatingBucketRepository.existsById(new ReviewRatingBucketId(userId, day))) {
+            return;
+        }
+
+        try {
+            seedTransactionTemplate.executeWithoutResult(status -> {
+                Object[] sums = reviewRepository.sumRatingsOfUserBetween(userId, day.atStartOfDay(), day.plusDays(1).atStartOfDay()).getFirst();
+                reviewRatingBucketRepository.saveAndFlush(new ReviewRatingBucket(userId, day, ((Number) sums[0]).doubleValue(), ((Number) sums[1]).longValue()));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Il contatore è stato creato da un'altra transazione
+        }
+    }
+
+    private long loadCount(ModerationSignal signal, long targetId) {
+        return moderationCounterRepository.findById(new ModerationCounterId(signal, targetId))
+                .map(ModerationCounter::getCount)
+                .orElseGet(() -> countRows(signal, targetId));
+    }
+
+    /**
+     * Counts the rows behind the value of a signal.
+     *
+     * @param signal   the signal to count.
+     * @param targetId the ID of the product, user or review the signal refers to.
+     * @return the value of the signal.
+     */
+    private long countRows(ModerationSignal signal, long targetId) {
+        return switch (signal) {
+            case PRODUCT_REPORTS -> ticketRepository.countByReportedProductId(targetId);
+            case USER_REPORTS -> ticketRepository.countByReportedUserId(targetId);
+            case REVIEW_REPORTS -> ticketRepository.countByReportedReviewId(targetId);
+            case PRODUCT_PURCHASES -> purchasedProductRepository.countByProductId(targetId);
+            case BUYER_PURCHASES -> purchasedProductRepository.countByBuyerId(targetId);
+        };
+    }
+
+    /**
+     * Counts the rows behind the values of a signal for all the targets.
+     *
+     * @param signal the signal to count.
+     * @return the rows holding the ID of each target and its value.
+     */
+    private List<Object[]> countAllRows(ModerationSignal signal) {
+        return switch (signal) {
+            case PRODUCT_REPORTS -> ticketRepository.countTicketsByReportedProduct();
+            case USER_REPORTS -> ticketRepository.countTicketsByReportedUser();
+            case REVIEW_REPORTS -> ticketRepository.countTicketsByReportedReview();
+            case PRODUCT_PURCHASES -> purchasedProductRepository.countPurchasesByProduct();
+            case BUYER_PURCHASES -> purchasedProductRepository.countPurchasesByBuyer();
+        };
+    }
+
+    /**
+     * Overwrites the counters of a signal with the counts of their rows. The existing counters are locked first, so
+     * that concurrent increments wait for the rebuilt values instead of being lost.
+     *
+     * @param signal the signal to rebuild.
+     */
+    private void rebuild(ModerationSignal signal) {
+        Map<Long, ModerationCounter> existing = new HashMap<>();
+        for (ModerationCounter counter : moderationCounterRepository.lockBySignal(signal)) {
+            existing.put(counter.getId().getTargetId(), counter);
+            counter.setCount(0);
+        }
+
+        for (Object[] row : countAllRows(signal)) {
+            long targetId = ((Number) row[0]).longValue();
+            long count = ((Number) row[1]).longValue();
+
+            ModerationCounter counter = existing.get(targetId);
+            if (counter == null) {
+                existing.put(targetId, new ModerationCounter(signal, targetId, count));
+            } else {
+                counter.setCount(count);
+            }
+        }
+
+        moderationCounterRepository.saveAll(existing.values());
+        moderationCounterRepository.flush();
+    }
+
+    /**
+     * Overwrites the rating buckets of the rolling window with the sums of the reviews, locking them first like
+     * {@link #rebuild(ModerationSignal)} does, and deletes the older ones.
+     *
+     * @param today the current day.
+     */
+    private void rebuildRatings(LocalDate today) {
+        LocalDate from = windowStart(today);
+        reviewRatingBucketRepository.deleteBefore(from);
+
+        Map<ReviewRatingBucketId, ReviewRatingBucket> existing = new HashMap<>();
+        for (ReviewRatingBucket bucket : reviewRatingBucketRepository.lockSince(from)) {
+            existing.put(bucket.getId(), bucket);
+            bucket.setRatingSum(0);
+            bucket.setRatingCount(0);
+        }
+
+        for (Object[] row : reviewRepository.sumRatingsByUserAndDaySince(from.atStartOfDay())) {
+            long userId = ((Number) row[0]).longValue();
+            LocalDate day = (LocalDate) row[1];
+            double ratingSum = ((Number) row[2]).doubleValue();
+            long ratingCount = ((Number) row[3]).longValue();
+
+            ReviewRatingBucket bucket = existing.get(new ReviewRatingBucketId(userId, day));
+            if (bucket == null) {
+                existing.put(new ReviewRatingBucketId(userId, day), new ReviewRatingBucket(userId, day, ratingSum, ratingCount));
+            } else {
+                bucket.setRatingSum(ratingSum);
+                bucket.setRatingCount(ratingCount);
+            }
+        }
+
+        reviewRatingBucketRepository.saveAll(existing.values());
+        reviewRatingBucketRepository.flush();
+    }
+
+    /**
+     * Caches a value read in the caller's transaction once it commits, or at once when no transaction is active. The
+     * value is dropped if the transaction is rolled back, since it may contain its changes, and if a change was
+     * committed after the value was read.
+     *
+     * @param cache          the cache receiving the value.
+     * @param key            the key of the value.
+     * @param value          the value read.
+     * @param loadGeneration the generation of the cache when the value was read.
+     */
+    private <K, V> void cacheAfterCommit(Map<K, V> cache, K key, V value, long loadGeneration) {
+        AfterCommit.run(() -> {
+            // Se nel frattempo è stata confermata una modifica il valore potrebbe essere già vecchio
+            if (generation.get() == loadGeneration) {
+                cache.putIfAbsent(key, value);
+            }
+        });
+    }
+
+    /**
+     * Removes values from the cache, moving it to a new generation so that the values being loaded are not cached.
+     *
+     * @param eviction the removal of the values.
+     */
+    private void evict(Runnable eviction) {
+        generation.incrementAndGet();
+        eviction.run();
+    }
+
+    private static LocalDate windowStart(LocalDate today) {
+        return today.minusDays(RATING_WINDOW_DAYS - 1L);
+    }
+
+    /**
+     * The rating buckets of a user, ordered by day.
+     */
+    private record RatingWindow(long[] days, double[] ratingSums, long[] ratingCounts) {
+
+        static RatingWindow of(List<ReviewRatingBucket> buckets) {
+            long[] days = new long[buckets.size()];
+            double[] ratingSums = new double[buckets.size()];
+            long[] ratingCounts = new long[buckets.size()];
+
+            for (int i = 0; i < days.length; i++) {
+                ReviewRatingBucket bucket = buckets.get(i);
+                days[i] = bucket.getId().getDay().toEpochDay();
+                ratingSums[i] = bucket.getRatingSum();
+                ratingCounts[i] = bucket.getRatingCount();
+            }
+
+            return new RatingWindow(days, ratingSums, ratingCounts);
+        }
+
+        /**
+         * Returns the average rating of the buckets from the given day on.
+         */
+        double average(long fromDay) {
+            double ratingSum = 0;
+            long ratingCount = 0;
+
+            for (int i = 0; i < days.length; i++) {
+                if (days[i] >= fromDay) {
+                    ratingSum += ratingSums[i];
+                    ratingCount += ratingCounts[i];
+                }
+            }
+
+            return ratingCount == 0 ? 0 : ratingSum / ratingCount;
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package org.elis.progettoing.service.implementation;
+
+import jakarta.annotation.PreDestroy;
+import org.elis.progettoing.dto.response.auction.OfferRankDTO;
+import org.elis.progettoing.exception.entity.EntityNotFoundException;
+import org.elis.progettoing.models.Offer;
+import org.elis.progettoing.repository.AuctionRepository;
+import org.elis.progettoing.repository.OfferRepository;
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service class that keeps the ranking of the offers of each auction in memory.
+ * <p>
+ * The score of an offer depends on the average price of all the offers of its auction, so the ranking of an auction
+ * is loaded once with a single query and then kept up to date when an offer is created, updated or deleted. Each
+ * ranking stores the offers in parallel primitive arrays together with the running sum of their prices: a change
+ * re-scores every offer only when it moves the average price, otherwise just the changed offer, and the order is
+ * rebuilt only when it is read. The best offers and the rank of a seller are then served without touching the
+ * database.
+ * </p>
+ * <p>
+ * The scores that changed are written back to the offers in batches every ten seconds. A ranking is reloaded when it
+ * is older than five minutes, so that the changes made by other nodes and the new rankings of the sellers are picked
+ * up, and it is dropped when it has not been read for half an hour.
+ * </p>
+ */
+@Service
+public class OfferLeaderboard {
+    static final long REFRESH_MILLIS = 300_000L;
+    static final long IDLE_MILLIS = 1_800_000L;
+    private static final int PERSIST_BATCH_SIZE = 500;
+
+    private final OfferRepository offerRepository;
+    private final AuctionRepository auctionRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an instance of {@code OfferLeaderboard}.
+     *
+     * @param offerRepository   the repository used to load the offers of an auction.
+     * @param auctionRepository the repository used to read the delivery time requested by an auction.
+     * @param jdbcTemplate      the template used to write the scores back in batches.
+     */
+    public OfferLeaderboard(OfferRepository offerRepository, AuctionRepository auctionRepository, JdbcTemplate jdbcTemplate) {
+        this.offerRepository = offerRepository;
+        this.auctionRepository = auctionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds or replaces an offer in the ranking of its auction. When called inside a transaction the ranking is
+     * changed only after the commit.
+     *
+     * @param auctionId the ID of the auction of the offer.
+     * @param offer     the offer that has been created or updated.
+     */
+    public void offerSaved(long auctionId, Offer offer) {
+        long offerId = offer.getId();
+        long sellerId = offer.getSeller().getId();
+        double price = offer.getPrice();
+        long deliveryTime = offer.getDeliveryTimeProposed();
+        double ranking = offer.getSeller().getRanking();
+        long offerDate = toNanos(offer.getOfferDate());
+
+        // Una classifica non ancora caricata leggerà l'offerta dal database
+        AfterCommit.run(() -> boards.computeIfPresent(auctionId, (id, board) -> {
+            board.put(offerId, sellerId, price, deliveryTime, ranking, offerDate);
+            return board;
+        }));
+    }
+
+    /**
+     * Removes an offer from the ranking of its auction. When called inside a transaction the ranking is changed only
+     * after the commit.
+     *
+     * @param auctionId the ID of the auction of the offer.
+     * @param offerId   the ID of the deleted offer.
+     */
+    public void offerDeleted(long auctionId, long offerId) {
+        AfterCommit.run(() -> boards.computeIfPresent(auctionId, (id, board) -> {
+            board.remove(offerId);
+            return board;
+        }));
+    }
+
+    /**
+     * Returns the whole ranking of an auction, from the best offer.
+     *
+     * @param auctionId the ID of the auction.
+     * @return the offers of the auction in ranking order.
+     * @throws EntityNotFoundException if the auction does not exist.
+     */
+    public List<OfferRankDTO> getRanking(long auctionId) {
+        return getPage(auctionId, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the best offers of an auction.
+     *
+     * @param auctionId the ID of the auction.
+     * @param limit     the maximum number of offers to return.
+     * @return the best offers of the auction in ranking order.
+     * @throws EntityNotFoundException if the auction does not exist.
+     */
+    public List<OfferRankDTO> getTop(long auctionId, int limit) {
+        return getPage(auctionId, 0, limit);
+    }
+
+    /**
+     * Returns a page of the ranking of an auction. Only the offers up to the end of the page are selected, so a page
+     * near the top of the ranking does not require sorting all the offers.
+     *
+     * @param auctionId the ID of the auction.
+     * @param offset    the number of offers to skip from the best one.
+     * @param limit     the maximum number of offers to return.
+     * @return the offers of the page in ranking order.
+     * @throws EntityNotFoundException if the auction does not exist.
+     */
+    public List<OfferRankDTO> getPage(long auctionId, int offset, int limit) {
+        return board(auctionId).page(offset, limit);
+    }
+
+    /**
+     * Returns the position of the offer of a seller in the ranking of an auction.
+     *
+     * @param auctionId the ID of the auction.
+     * @param sellerId  the ID of the seller.
+     * @return the rank of the offer of the seller, or {@code null} if the seller has not submitted an offer.
+     * @throws EntityNotFoundException if the auction does not exist.
+     */
+    public OfferRankDTO getRankOfSeller(long auctionId, long sellerId) {
+        return board(auctionId).rankOfSeller(sellerId);
+    }
+
+    /**
+     * Writes back the scores changed since the last run and drops the rankings that are no longer read.
+     */
+    @Scheduled(fixedDelay = 10000, initialDelay = 10000)
+    public void persistScores() {
+        long now = System.currentTimeMillis();
+        List<Object[]> changes = new ArrayList<>();
+
+        boards.forEach((auctionId, board) -> {
+            board.drainChangedScores(changes);
+            if (board.isIdle(now)) {
+                boards.remove(auctionId, board);
+            }
+        });
+
+        for (int from = 0; from < changes.size(); from += PERSIST_BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("UPDATE offer SET score = ? WHERE id = ?",
+                    changes.subList(from, Math.min(from + PERSIST_BATCH_SIZE, changes.size())));
+        }
+    }
+
+    /**
+     * Writes back the pending scores before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        persistScores();
+    }
+
+    private Board board(long auctionId) {
+        long now = System.currentTimeMillis();
+
+        // Il caricamento avviene dentro compute: le modifiche arrivate nel frattempo attendono la nuova classifica
+        Board board = boards.compute(auctionId, (id, current) ->
+                current == null || current.isStale(now) ? load(id, current) : current);
+
+        board.touch(now);
+        return board;
+    }
+
+    private Board load(long auctionId, Board previous) {
+        long deliveryDate = auctionRepository.findDeliveryDateById(auctionId)
+                .orElseThrow(() -> new EntityNotFoundException("asta", "ID", auctionId));
+
+        List<Object[]> rows = offerRepository.findRankingFieldsByAuctionId(auctionId);
+        Board board = new Board(deliveryDate, rows.size(), System.currentTimeMillis());
+
+        for (Object[] row : rows) {
+            board.add((Long) row[0], (Long) row[1], (Double) row[2], (Long) row[3], (Double) row[4],
+                    toNanos((LocalDateTime) row[5]), (Double) row[6]);
+        }
+        board.scoreAll();
+
+        if (previous != null) {
+            // I punteggi non ancora salvati della classifica precedente sono stati ricalcolati
+            previous.drainChangedScores(new ArrayList<>());
+        }
+
+        return board;
+    }
+
+    private static long toNanos(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return Long.MIN_VALUE;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    /**
+     * The ranking of the offers of an auction, stored in parallel arrays indexed by slot. The slots are not ordered:
+     * {@code order} holds the slots from the best offer and is rebuilt lazily after a change.
+     */
+    private static final class Board {
+        private final long deliveryDate;
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        private long[] offerIds;
+        private long[] sellerIds;
+        private double[] prices;
+        private long[] deliveryTimes;
+        private double[] rankings;
+        private long[] offerDates;
+        private double[] scores;
+        private double[] rescored;
+        private boolean[] changed;
+        private int[] order;
+
+        private int size;
+        private double priceSum;
+        private double averagePrice;
+        private boolean sorted;
+
+        private Board(long deliveryDate, int capacity, long loadedAt) {
+            this.deliveryDate = deliveryDate;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+
+            int initialCapacity = Math.max(capacity, 8);
+            offerIds = new long[initialCapacity];
+            sellerIds = new long[initialCapacity];
+            prices = new double[initialCapacity];
+            deliveryTimes = new long[initialCapacity];
+            rankings = new double[initialCapacity];
+            offerDates = new long[initialCapacity];
+            scores = new double[initialCapacity];
+            rescored = new double[initialCapacity];
+            changed = new boolean[initialCapacity];
+            order = new int[initialCapacity];
+        }
+
+        private synchronized void add(long offerId, long sellerId, double price, long deliveryTime, double ranking, long offerDate, double storedScore) {
+            ensureCapacity();
+            int slot = size++;
+            offerIds[slot] = offerId;
+            sellerIds[slot] = sellerId;
+            prices[slot] = price;
+            deliveryTimes[slot] = deliveryTime;
+            rankings[slot] = ranking;
+            offerDates[slot] = offerDate;
+            scores[slot] = storedScore;
+            changed[slot] = false;
+            priceSum += price;
+            sorted = false;
+        }
+
+        private synchronized void put(long offerId, long sellerId, double price, long deliveryTime, double ranking, long offerDate) {
+            int slot = indexOf(offerIds, offerId);
+
+            if (slot < 0) {
+                // Una nuova offerta ha punteggio 0 nel database finché non viene salvato quello calcolato
+                add(offerId, sellerId, price, deliveryTime, ranking, offerDate, 0);
+                slot = size - 1;
+            } else {
+                priceSum += price - prices[slot];
+                prices[slot] = price;
+                deliveryTimes[slot] = deliveryTime;
+                rankings[slot] = ranking;
+                offerDates[slot] = offerDate;
+                sorted = false;
+            }
+
+            rescore(slot);
+        }
+
+        private synchronized void remove(long offerId) {
+            int slot = indexOf(offerIds, offerId);
+            if (slot < 0) {
+                return;
+            }
+
+            priceSum -= prices[slot];
+            int last = --size;
+
+            if (slot != last) {
+                offerIds[slot] = offerIds[last];
+                sellerIds[slot] = sellerIds[last];
+                prices[slot] = prices[last];
+                deliveryTimes[slot] = deliveryTimes[last];
+                rankings[slot] = rankings[last];
+                offerDates[slot] = offerDates[last];
+                scores[slot] = scores[last];
+                changed[slot] = changed[last];
+            }
+
+            sorted = false;
+            rescore(-1);
+        }
+
+        private synchronized void scoreAll() {
+            averagePrice = size == 0 ? 0 : priceSum / size;
+            rescoreAll();
+        }
+
+        private synchronized List<OfferRankDTO> page(int offset, int limit) {
+            int end = (int) Math.min((long) offset + limit, size);
+            if (offset >= end) {
+                return List.of();
+            }
+
+            // Se l'ordine è già calcolato o la pagina copre buona parte della classifica conviene ordinare tutto
+            int[] slots;
+            if (sorted || end * 2L >= size) {
+                sort();
+                slots = order;
+            } else {
+                slots = selectBest(end);
+            }
+
+            List<OfferRankDTO> result = new ArrayList<>(end - offset);
+            for (int position = offset; position < end; position++) {
+                result.add(rankAt(slots[position], position));
+            }
+            return result;
+        }
+
+        private synchronized OfferRankDTO rankOfSeller(long sellerId) {
+            int slot = indexOf(sellerIds, sellerId);
+            if (slot < 0) {
+                return null;
+            }
+
+            sort();
+
+            int position = 0;
+            while (order[position] != slot) {
+                position++;
+            }
+            return rankAt(slot, position);
+        }
+
+        private synchronized void drainChangedScores(List<Object[]> changes) {
+            for (int slot = 0; slot < size; slot++) {
+                if (changed[slot]) {
+                    changes.add(new Object[]{scores[slot], offerIds[slot]});
+                    changed[slot] = false;
+                }
+            }
+        }
+
+        private void touch(long now) {
+            lastAccess = now;
+        }
+
+        private boolean isStale(long now) {
+            return now - loadedAt >= REFRESH_MILLIS;
+        }
+
+        private boolean isIdle(long now) {
+            return now - lastAccess >= IDLE_MILLIS;
+        }
+
+        /**
+         * Re-scores every offer when the average price has moved, otherwise only the given slot.
+         *
+         * @param slot the slot that has changed, or -1 if it has been removed.
+         */
+        private void rescore(int slot) {
+            double newAverage = size == 0 ? 0 : priceSum / size;
+
+            if (newAverage != averagePrice) {
+                averagePrice = newAverage;
+                rescoreAll();
+            } else if (slot >= 0) {
+                update(slot, OfferScoringEngine.calculateTotalScore(prices[slot], deliveryTimes[slot], rankings[slot], averagePrice, deliveryDate));
+            }
+        }
+
+        private void rescoreAll() {
+            OfferScoringEngine.scoreAll(prices, deliveryTimes, rankings, size, averagePrice, deliveryDate, rescored);
+            for (int slot = 0; slot < size; slot++) {
+                update(slot, rescored[slot]);
+            }
+            sorted = false;
+        }
+
+        private void update(int slot, double score) {
+            if (score != scores[slot]) {
+                scores[slot] = score;
+                changed[slot] = true;
+                sorted = false;
+            }
+        }
+
+        private OfferRankDTO rankAt(int slot, int position) {
+            return new OfferRankDTO(offerIds[slot], sellerIds[slot], prices[slot], deliveryTimes[slot], scores[slot], position + 1);
+        }
+
+        /**
+         * Sorts the slots by descending score and then by offer date, with a merge sort on the primitive slots.
+         */
+        private void sort() {
+            if (sorted) {
+                return;
+            }
+
+            for (int slot = 0; slot < size; slot++) {
+                order[slot] = slot;
+            }
+            mergeSort(order, new int[size], 0, size);
+            sorted = true;
+        }
+
+        private void mergeSort(int[] slots, int[] buffer, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            mergeSort(slots, buffer, from, middle);
+            mergeSort(slots, buffer, middle, to);
+
+            if (!precedes(slots[middle], slots[middle - 1])) {
+                return;
+            }
+
+            System.arraycopy(slots, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && !precedes(buffer[right], buffer[left]))) {
+                    slots[i] = buffer[left++];
+                } else {
+                    slots[i] = buffer[right++];
+                }
+            }
+        }
+
+        /**
+         * Selects the best {@code count} slots in ranking order with a bounded heap whose root is the worst slot
+         * kept, in O(n log count) without sorting the whole ranking.
+         */
+        private int[] selectBest(int count) {
+            int[] heap = new int[count];
+            int kept = 0;
+
+            for (int slot = 0; slot < size; slot++) {
+                if (kept < count) {
+                    heap[kept] = slot;
+                    siftUp(heap, kept++);
+                } else if (precedes(slot, heap[0])) {
+                    heap[0] = slot;
+                    siftDown(heap, 0, count);
+                }
+            }
+
+            // Sposta ogni volta il peggiore in fondo, lasciando i migliori in testa
+            for (int last = count - 1; last > 0; last--) {
+                int worst = heap[0];
+                heap[0] = heap[last];
+                heap[last] = worst;
+                siftDown(heap, 0, last);
+            }
+            return heap;
+        }
+
+        private void siftUp(int[] heap, int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!precedes(heap[parent], heap[index])) {
+                    return;
+                }
+                swap(heap, parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int index, int length) {
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= length) {
+                    return;
+                }
+                if (child + 1 < length && precedes(heap[child], heap[child + 1])) {
+                    child++;
+                }
+                if (!precedes(heap[index], heap[child])) {
+                    return;
+                }
+                swap(heap, index, child);
+                index = child;
+            }
+        }
+
+        private static void swap(int[] values, int first, int second) {
+            int value = values[first];
+            values[first] = values[second];
+            values[second] = value;
+        }
+
+        /**
+         * Orders the slots by descending score, then by offer date and finally by slot, so that the full sort and the
+         * heap selection always agree.
+         */
+        private boolean precedes(int first, int second) {
+            int byScore = Double.compare(scores[second], scores[first]);
+            if (byScore != 0) {
+                return byScore < 0;
+            }
+            if (offerDates[first] != offerDates[second]) {
+                return offerDates[first] < offerDates[second];
+            }
+            return first < second;
+        }
+
+        private void ensureCapacity() {
+            if (size < offerIds.length) {
+                return;
+            }
+
+            int capacity = offerIds.length * 2;
+            offerIds = Arrays.copyOf(offerIds, capacity);
+            sellerIds = Arrays.copyOf(sellerIds, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            deliveryTimes = Arrays.copyOf(deliveryTimes, capacity);
+            rankings = Arrays.copyOf(rankings, capacity);
+            offerDates = Arrays.copyOf(offerDates, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            rescored = new double[capacity];
+            changed = Arrays.copyOf(changed, capacity);
+            order = Arrays.copyOf(order, capacity);
+        }
+
+        private int indexOf(long[] values, long value) {
+            for (int slot = 0; slot < size; slot++) {
+                if (values[slot] == value) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.elis.progettoing.service.implementation;
+
+/**
+ * Scoring of the offers of an auction, used to draw up their ranking.
+ * <p>
+ * The score of an offer weighs its price against the average price of the auction, its proposed delivery time
+ * against the one requested by the auction and the ranking of its seller. Besides the score of a single offer, the
+ * engine scores whole auctions stored in primitive arrays, one term of the score at a time: each pass is a short loop
+ * without calls, and the check on the delivery period of the auction is made once instead of once per offer. The
+ * delivery score only depends on the number of days between the proposed and the requested delivery, so it is read
+ * from a table computed once for the first year of difference, which saves two divisions per offer. The squares are
+ * plain multiplications, which give the same bits as the former {@code Math.pow(x, 2)}. The price is still divided
+ * by the average rather than multiplied by its inverse, which would change the last bit of about a quarter of the
+ * ratios. Both paths return the same scores bit for bit as the former formula.
+ * </p>
+ */
+public final class OfferScoringEngine {
+    static final double PRICE_WEIGHT = 0.4;
+    static final double DELIVERY_WEIGHT = 0.4;
+    static final double RANKING_WEIGHT = 0.2;
+    static final double MAX_RANKING = 5.0;
+    static final double DELIVERY_SCALE = 15.0;
+    static final double MINIMUM_DELIVERY_SCORE = 0.1;
+    static final int DELIVERY_TABLE_SIZE = 366;
+
+    private static final double[] DELIVERY_SCORES = deliveryScoreTable();
+
+    private OfferScoringEngine() {
+    }
+
+    /**
+     * Calculate the total score of an offer based on price, delivery time and user ranking.
+     *
+     * @param price               Price of the offer.
+     * @param deliveryTime        Delivery time proposed by the offer.
+     * @param sellerRanking       Ranking of the seller of the offer.
+     * @param averagePrice        Average price of offers.
+     * @param auctionDeliveryTime Auction delivery period.
+     * @return Total score assigned to the offer in order to draw up the ranking.
+     */
+    public static double calculateTotalScore(double price, long deliveryTime, double sellerRanking, double averagePrice, long auctionDeliveryTime) {
+        double priceScore = calculatePriceScore(price, averagePrice);
+
+        double deliveryTimeScore = calculateDeliveryTimeScore(deliveryTime, auctionDeliveryTime);
+
+        double userRankingScore = sellerRanking / MAX_RANKING;
+
+        return (priceScore * PRICE_WEIGHT) + (deliveryTimeScore * DELIVERY_WEIGHT) + (userRankingScore * RANKING_WEIGHT);
+    }
+
+    /**
+     * Scores the first {@code size} offers stored in parallel arrays.
+     *
+     * @param prices              the prices of the offers.
+     * @param deliveryTimes       the delivery times proposed by the offers.
+     * @param sellerRankings      the rankings of the sellers of the offers.
+     * @param size                the number of offers to score.
+     * @param averagePrice        the average price of the offers.
+     * @param auctionDeliveryTime the delivery period of the auction.
+     * @param scores              the array receiving the score of each offer.
+     */
+    public static void scoreAll(double[] prices, long[] deliveryTimes, double[] sellerRankings, int size,
+                                double averagePrice, long auctionDeliveryTime, double[] scores) {
+        // Rapporto tra il prezzo e la media: un solo passaggio senza salti, che il JIT può vettorizzare
+        for (int i = 0; i < size; i++) {
+            scores[i] = prices[i] / averagePrice;
+        }
+
+        for (int i = 0; i < size; i++) {
+            double priceRatio = scores[i];
+            double priceScore;
+            if (prices[i] <= 0) {
+                priceScore = 0;
+            } else if (priceRatio < 1) {
+                priceScore = 1 - priceRatio * priceRatio;
+            } else {
+                priceScore = 1 / (1 + (priceRatio - 1) * (priceRatio - 1));
+            }
+            scores[i] = priceScore * PRICE_WEIGHT;
+        }
+
+        // Se l'asta non indica un tempo di consegna, nessuna offerta riceve punteggio per la consegna
+        if (auctionDeliveryTime > 0) {
+            for (int i = 0; i < size; i++) {
+                long offerDeliveryDays = deliveryTimes[i];
+                double deliveryTimeScore = offerDeliveryDays > 0 ? deliveryScore(Math.abs(auctionDeliveryTime - offerDeliveryDays)) : 0;
+                scores[i] += deliveryTimeScore * DELIVERY_WEIGHT;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            scores[i] += (sellerRankings[i] / MAX_RANKING) * RANKING_WEIGHT;
+        }
+    }
+
+    /**
+     * Calculate an offer's price score based on the average price of offers.
+     *
+     * @param offerPrice   Offer price.
+     * @param averagePrice Average price of offers.
+     * @return Score assigned to the offer price.
+     */
+    private static double calculatePriceScore(double offerPrice, double averagePrice) {
+        if (offerPrice <= 0) return 0; // Evita divisioni per 0 o prezzi invalidi
+
+        double priceRatio = offerPrice / averagePrice;
+
+        if (priceRatio < 1) {
+            // Premi maggiormente per prezzi inferiori al medio (differenza più marcata)
+            return 1 - priceRatio * priceRatio; // Penalizzazione meno severa per offerte più basse
+        } else {
+            // Penalizza per prezzi superiori al medio, con una penalità meno esponenziale
+            return 1 / (1 + (priceRatio - 1) * (priceRatio - 1)); // Penalità graduale per prezzi più alti
+        }
+    }
+
+    /**
+     * Calculates the proposed lead time score of an offer based on the requested lead time of the auction.
+     *
+     * @param offerDeliveryDays   Days proposed by the offer.
+     * @param auctionDeliveryDays Days required for auction delivery.
+     * @return Score assigned to the proposed delivery time of the offer.
+     */
+    private static double calculateDeliveryTimeScore(long offerDeliveryDays, long auctionDeliveryDays) {
+        long daysToDeliver = Math.abs(auctionDeliveryDays - offerDeliveryDays);
+
+        if (auctionDeliveryDays <= 0 || offerDeliveryDays <= 0) {
+            return 0;
+        }
+
+        return deliveryScore(daysToDeliver);
+    }
+
+    private static double deliveryScore(long daysToDeliver) {
+        // Lo scarto dai giorni richiesti è quasi sempre piccolo: il punteggio viene letto dalla tabella
+        if (daysToDeliver >= 0 && daysToDeliver < DELIVERY_SCORES.length) {
+            return DELIVERY_SCORES[(int) daysToDeliver];
+        }
+
+        return computeDeliveryScore(daysToDeliver);
+    }
+
+    private static double computeDeliveryScore(long daysToDeliver) {
+        double days = daysToDeliver / DELIVERY_SCALE;
+
+        return 1 / (1 + days * days) + MINIMUM_DELIVERY_SCORE;
+    }
+
+    private static double[] deliveryScoreTable() {
+        double[] table = new double[DELIVERY_TABLE_SIZE];
+        for (int days = 0; days < table.length; days++) {
+            table[days] = computeDeliveryScore(days);
+        }
+        return table;
+    }
+}
@@ -1,6 +1,7 @@
 package org.elis.progettoing.service.implementation;
 
 import org.elis.progettoing.dto.request.auction.OfferRequestDTO;
+import org.elis.progettoing.dto.response.auction.OfferRankDTO;
 import org.elis.progettoing.dto.response.auction.OfferResponseDTO;
 import org.elis.progettoing.enumeration.AuctionStatus;
 import org.elis.progettoing.exception.auction.AuctionException;
@@ -9,6 +10,7 @@ import org.elis.progettoing.exception.entity.EntityAlreadyExistsException;
 import org.elis.progettoing.exception.entity.EntityCreationException;
 import org.elis.progettoing.exception.entity.EntityDeletionException;
 import org.elis.progettoing.exception.entity.EntityNotFoundException;
+import org.elis.progettoing.exception.entity.InvalidEntityDataException;
 import org.elis.progettoing.mapper.definition.OfferMapper;
 import org.elis.progettoing.models.Offer;
 import org.elis.progettoing.models.User;
@@ -23,8 +25,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service implementation for bid management in an auction system.
@@ -35,20 +38,26 @@ public class OfferServiceImpl implements OfferService {
     private final AuctionRepository auctionRepository;
     private final OfferMapper offerMapper;
     private final AuctionManager auctionManager;
+    private final AuctionEventPublisher auctionEventPublisher;
+    private final OfferLeaderboard offerLeaderboard;
 
     /**
      * Constructor for OfferServiceImpl.
      *
-     * @param offerRepository   the repository for accessing offers.
-     * @param auctionRepository the repository for accessing auctions.
-     * @param offerMapper       the mapper for conversion between entities and DTOs.
-     * @param auctionManager    the manager for auction operations.
+     * @param offerRepository       the repository for accessing offers.
+     * @param auctionRepository     the repository for accessing auctions.
+     * @param offerMapper           the mapper for conversion between entities and DTOs.
+     * @param auctionManager        the manager for auction operations.
+     * @param auctionEventPublisher the publisher of the events of the auctions.
+     * @param offerLeaderboard      the in-memory ranking of the offers of each auction.
      */
-    public OfferServiceImpl(OfferRepository offerRepository, AuctionRepository auctionRepository, OfferMapper offerMapper, AuctionManager auctionManager) {
+    public OfferServiceImpl(OfferRepository offerRepository, AuctionRepository auctionRepository, OfferMapper offerMapper, AuctionManager auctionManager, AuctionEventPublisher auctionEventPublisher, OfferLeaderboard offerLeaderboard) {
         this.offerRepository = offerRepository;
         this.auctionRepository = auctionRepository;
         this.offerMapper = offerMapper;
         this.auctionManager = auctionManager;
+        this.auctionEventPublisher = auctionEventPublisher;
+        this.offerLeaderboard = offerLeaderboard;
     }
 
     /**
@@ -67,15 +76,14 @@ public class OfferServiceImpl implements OfferService {
         UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
         User user = (User) authentication.getPrincipal();
 
-        Auction auction = auctionRepository.findById(offerRequestDTO.getAuctionId())
+        // Il lock condiviso sull'asta attende la chiusura in corso e la blocca fino al commit dell'offerta
+        Auction auction = auctionRepository.findByIdForOffer(offerRequestDTO.getAuctionId())
                 .orElseThrow(() -> new EntityNotFoundException("asta", "ID", offerRequestDTO.getAuctionId()));
 
         Offer existingOffer = offerRepository.findBySellerIdAndAuctionId(user.getId(), auction.getId());
 
         // Verifica che l'asta sia aperta.
-        if (auction.getStatus() == AuctionStatus.PENDING || auction.getStatus() == AuctionStatus.CLOSED) {
-            throw new AuctionException(user.getId());
-        }
+        checkAuctionAcceptsOffers(auction, user);
 
         // Lancia un'eccezione se l'utente ha già presentato un'offerta.
         if (existingOffer != null) {
@@ -100,8 +108,13 @@ public class OfferServiceImpl implements OfferService {
             throw new EntityCreationException("offerta", "ID venditore", user.getId());
         }
 
+        offerLeaderboard.offerSaved(auction.getId(), offer);
+
         // Restituisce l'offerta creata come DTO.
-        return offerMapper.offerToOfferResponseDTO(offer);
+        OfferResponseDTO offerResponseDTO = offerMapper.offerToOfferResponseDTO(offer);
+        auctionEventPublisher.offerCreated(offerResponseDTO);
+
+        return offerResponseDTO;
     }
 
     /**
@@ -133,6 +146,9 @@ public class OfferServiceImpl implements OfferService {
             throw new EntityDeletionException("offerta", "ID utente", user.getId());
         }
 
+        offerLeaderboard.offerDeleted(auctionId, offer.getId());
+        auctionEventPublisher.offerDeleted(auctionId, offer.getId());
+
         return true;
     }
 
@@ -141,7 +157,9 @@ public class OfferServiceImpl implements OfferService {
      *
      * @param offerRequestDTO DTO containing the updated offer data.
      * @return Response DTO with updated offer details.
+     * @throws AuctionException        if the auction is not open.
      * @throws EntityDeletionException if an error occurs while updating the offer.
+     * @throws EntityNotFoundException if the auction does not exist.
      */
     @Transactional(rollbackFor = Exception.class)
     @Override
@@ -150,8 +168,15 @@ public class OfferServiceImpl implements OfferService {
         UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
         User user = (User) authentication.getPrincipal();
 
+        // L'asta viene bloccata prima di leggere l'offerta, che altrimenti la caricherebbe senza lock
+        Auction auction = auctionRepository.findByIdForOffer(offerRequestDTO.getAuctionId())
+                .orElseThrow(() -> new EntityNotFoundException("asta", "ID", offerRequestDTO.getAuctionId()));
+
         Offer offer = offerRepository.findBySellerIdAndAuctionId(user.getId(), offerRequestDTO.getAuctionId());
 
+        // Un'offerta non può essere modificata dopo la chiusura dell'asta.
+        checkAuctionAcceptsOffers(auction, user);
+
         // Aggiorna i dati dell'offerta.
         offer.setPrice(offerRequestDTO.getPrice());
         offer.setDeliveryTimeProposed(offerRequestDTO.getDeliveryTimeProposed());
@@ -164,7 +189,12 @@ public class OfferServiceImpl implements OfferService {
             throw new EntityDeletionException("offerta", "ID utente", user.getId());
         }
 
-        return offerMapper.offerToOfferResponseDTO(offer);
+        offerLeaderboard.offerSaved(offer.getAuction().getId(), offer);
+
+        OfferResponseDTO offerResponseDTO = offerMapper.offerToOfferResponseDTO(offer);
+        auctionEventPublisher.offerUpdated(offerResponseDTO);
+
+        return offerResponseDTO;
     }
 
     /**
@@ -197,105 +227,91 @@ public class OfferServiceImpl implements OfferService {
     }
 
     /**
-     * Retrieve all bids relating to a specific auction.
+     * Retrieve a page of the bids relating to a specific auction, from the best one.
      *
      * @param auctionId ID of the auction.
+     * @param offset    number of offers to skip from the best one.
+     * @param limit     maximum number of offers to return, or {@code null} to return all the remaining offers.
      * @return List of DTO offers sorted by score and creation date.
-     * @throws EntityNotFoundException if the auction does not exist.
+     * @throws EntityNotFoundException    if the auction does not exist.
+     * @throws InvalidEntityDataException if the offset is negative or the limit is not greater than zero.
      */
     @Transactional(readOnly = true)
     @Override
-    public List<OfferResponseDTO> getAllOffersByAuction(long auctionId) {
-        List<Offer> offers = offerRepository.findAllByAuctionId(auctionId);
-
-        // Calcola il prezzo medio delle offerte.
-        double averagePrice = offers.stream()
-                .mapToDouble(Offer::getPrice)
-                .average()
-                .orElse(0.0);
-
-        // Trova l'asta corrispondente.
-        Auction auction = auctionRepository.findById(auctionId)
-                .orElse(null);
-
-        if (auction == null) {
-            throw new EntityNotFoundException("asta", "ID", auctionId);
+    public List<OfferResponseDTO> getAllOffersByAuction(long auctionId, int offset, Integer limit) {
+        if (offset < 0 || (limit != null && limit <= 0)) {
+            throw new InvalidEntityDataException("L'offset non può essere negativo e il limite deve essere maggiore di zero");
         }
 
-        // Calcola e assegna il punteggio a ciascuna offerta.
-        offers.forEach(offer -> {
-            double score = calculateTotalScore(offer, offer.getSeller(), averagePrice, auction.getDeliveryDate());
-            offer.setScore(score);
-        });
-
-
-        // Ordina le offerte per punteggio e data.
-        return offers.stream()
-                .sorted(Comparator.comparingDouble(Offer::getScore).reversed()
-                        .thenComparing(Offer::getOfferDate))
-                .map(offerMapper::offerToOfferResponseDTO)
+        // La classifica è mantenuta in memoria: dal database vengono lette solo le offerte della pagina.
+        List<OfferRankDTO> ranking = offerLeaderboard.getPage(auctionId, offset, limit != null ? limit : Integer.MAX_VALUE);
+
+        Map<Long, Offer> offers = new HashMap<>();
+        offerRepository.findAllById(ranking.stream().map(OfferRankDTO::getOfferId).toList())
+                .forEach(offer -> offers.put(offer.getId(), offer));
+
+        // Restituisce le offerte nell'ordine della classifica con il punteggio calcolato.
+        return ranking.stream()
+                .filter(rank -> offers.containsKey(rank.getOfferId()))
+                .map(rank -> {
+                    Offer offer = offers.get(rank.getOfferId());
+                    offer.setScore(rank.getScore());
+                    return offerMapper.offerToOfferResponseDTO(offer);
+                })
                 .toList();
     }
 
     /**
-     * Calculate the total score of an offer based on price, delivery time and user ranking.
+     * Retrieves the best offers of an auction, with their position in the ranking.
      *
-     * @param offer               Offer to be evaluated.
-     * @param seller              Seller user of the offer.
-     * @param averagePrice        Average price of offers.
-     * @param auctionDeliveryTime Auction delivery period.
-     * @return Total score assigned to the offer in order to draw up the ranking.
+     * @param auctionId ID of the auction.
+     * @param limit     maximum number of offers to return.
+     * @return List of the best offers sorted by score and creation date.
+     * @throws EntityNotFoundException    if the auction does not exist.
+     * @throws InvalidEntityDataException if the limit is not greater than zero.
      */
-    private double calculateTotalScore(Offer offer, User seller, double averagePrice, long auctionDeliveryTime) {
-        double priceScore = calculatePriceScore(offer.getPrice(), averagePrice);
-
-        double deliveryTimeScore = calculateDeliveryTimeScore(offer, auctionDeliveryTime);
-
-        double userRankingScore = seller.getRanking() / 5.0;
+    @Override
+    public List<OfferRankDTO> getTopOffers(long auctionId, int limit) {
+        if (limit <= 0) {
+            throw new InvalidEntityDataException("Il limite deve essere maggiore di zero");
+        }
 
-        return (priceScore * 0.4) + (deliveryTimeScore * 0.4) + (userRankingScore * 0.2);
+        return offerLeaderboard.getTop(auctionId, limit);
     }
 
     /**
-     * Calculate an offer's price score based on the average price of offers.
+     * Retrieves the position of the offer of the authenticated user in the ranking of an auction.
      *
-     * @param offerPrice   Offer price.
-     * @param averagePrice Average price of offers.
-     * @return Score assigned to the offer price.
+     * @param auctionId ID of the auction.
+     * @return the rank of the offer of the user, or {@code null} if the user has not submitted an offer.
+     * @throws EntityNotFoundException if the auction does not exist.
      */
-    private double calculatePriceScore(double offerPrice, double averagePrice) {
-        if (offerPrice <= 0) return 0; // Evita divisioni per 0 o prezzi invalidi
-
-        double priceRatio = offerPrice / averagePrice;
+    @Override
+    public OfferRankDTO getOfferRankByUser(long auctionId) {
+        UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) authentication.getPrincipal();
 
-        if (priceRatio < 1) {
-            // Premi maggiormente per prezzi inferiori al medio (differenza più marcata)
-            return 1 - Math.pow(priceRatio, 2); // Penalizzazione meno severa per offerte più basse
-        } else {
-            // Penalizza per prezzi superiori al medio, con una penalità meno esponenziale
-            return 1 / (1 + Math.pow(priceRatio - 1, 2)); // Penalità graduale per prezzi più alti
-        }
+        return offerLeaderboard.getRankOfSeller(auctionId, user.getId());
     }
 
     /**
-     * Calculates the proposed lead time score of an offer based on the requested lead time of the auction.
+     * Checks that an auction is accepting offers. Besides the status, the current time must be within the start and
+     * end dates of the auction, so that offers are rejected from the instant the auction ends even if its status has
+     * not been updated yet. The auction must have been loaded with {@link AuctionRepository#findByIdForOffer}: its
+     * shared lock makes the check wait for a closing in progress, and keeps the auction from being closed until the
+     * offer is committed.
      *
-     * @param offer               Offer to evaluate.
-     * @param auctionDeliveryDays Days required for auction delivery.
-     * @return Score assigned to the proposed delivery time of the offer.
+     * @param auction the auction receiving the offer.
+     * @param user    the user submitting the offer.
+     * @throws AuctionException if the auction is not open.
      */
-    private double calculateDeliveryTimeScore(Offer offer, long auctionDeliveryDays) {
-        long offerDeliveryDays = offer.getDeliveryTimeProposed();
+    private void checkAuctionAcceptsOffers(Auction auction, User user) {
+        LocalDateTime now = LocalDateTime.now();
 
-        long daysToDeliver = Math.abs(auctionDeliveryDays - offerDeliveryDays);
-
-        if (auctionDeliveryDays <= 0 || offerDeliveryDays <= 0) {
-            return 0;
+        if (auction.getStatus() != AuctionStatus.OPEN
+                || now.isBefore(auction.getStartAuctionDate())
+                || !now.isBefore(auction.getEndAuctionDate())) {
+            throw new AuctionException(user.getId());
         }
-
-        double c = 15.0;
-        double minimumScore = 0.1;
-
-        return 1 / (1 + Math.pow(daysToDeliver / c, 2)) + minimumScore;
     }
 }
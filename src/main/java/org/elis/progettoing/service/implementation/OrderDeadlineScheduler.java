@@ -0,0 +1,284 @@
+package org.elis.progettoing.service.implementation;
+
+import org.elis.progettoing.dto.response.order.OrderDeadlineMetricsDTO;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+import org.elis.progettoing.repository.OrderProductRepository;
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class that moves the order products in progress to {@link OrderProductStatus#LATE_DELIVERY} when their
+ * estimated delivery date passes.
+ * <p>
+ * Only the deadlines falling within a short lookahead window are kept in memory, in a {@link DelayQueue}. The window
+ * is advanced periodically and each refill reads from the database only the deadlines between the previous end of the
+ * window and the new one, so the table is never rescanned. Order products accepted after their slice was loaded are
+ * added by {@link #track(long, LocalDateTime)}. Due deadlines are drained every second and applied in batches, each
+ * with a single guarded UPDATE, so that order products delivered in the meantime are left untouched.
+ * </p>
+ * <p>
+ * When a batch fails, its deadlines go back in the queue one by one with a delay that doubles at each attempt, up to
+ * {@link #MAX_RETRY_DELAY_MILLIS}, and are then applied one at a time, so that a single order product that cannot be
+ * updated does not hold back the others of its batch, and an unavailable database is not hit every second. After
+ * {@link #MAX_ATTEMPTS} attempts a deadline is abandoned and counted in the metrics; the order product stays in
+ * progress until the window is loaded again from the start, at the next restart.
+ * </p>
+ */
+@Service
+public class OrderDeadlineScheduler {
+    private static final long LOOKAHEAD_MINUTES = 10;
+    private static final int BATCH_SIZE = 500;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    static final int MAX_ATTEMPTS = 8;
+    static final long FIRST_RETRY_DELAY_MILLIS = 1000;
+    static final long MAX_RETRY_DELAY_MILLIS = 300_000;
+
+    private final OrderProductRepository orderProductRepository;
+    private final SellerOrderCounterManager sellerOrderCounterManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+    private final AtomicLong lateTransitions = new AtomicLong();
+    private final AtomicLong abandonedDeadlines = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile LocalDateTime loadedUntil;
+    private volatile LocalDateTime loadingUntil;
+    private volatile LocalDateTime lastRefill;
+
+    /**
+     * Constructs an instance of {@code OrderDeadlineScheduler}.
+     *
+     * @param orderProductRepository    the repository for managing order product entities.
+     * @param sellerOrderCounterManager the manager of the per-seller order status counters.
+     * @param transactionManager        the transaction manager used to apply each batch of transitions.
+     */
+    public OrderDeadlineScheduler(OrderProductRepository orderProductRepository, SellerOrderCounterManager sellerOrderCounterManager, PlatformTransactionManager transactionManager) {
+        this.orderProductRepository = orderProductRepository;
+        this.sellerOrderCounterManager = sellerOrderCounterManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Starts tracking the deadline of an order product that has just been put in progress. If the deadline is beyond
+     * the loaded window it is ignored, since the next refill will load it. When called inside a transaction the
+     * deadline is tracked only after the commit.
+     *
+     * @param orderProductId the ID of the order product.
+     * @param deadline       the estimated delivery date of the order product.
+     */
+    public void track(long orderProductId, LocalDateTime deadline) {
+        if (deadline == null) {
+            return;
+        }
+
+        AfterCommit.run(() -> enqueueIfLoaded(orderProductId, deadline));
+    }
+
+    /**
+     * Advances the lookahead window every minute, loading the deadlines that entered it.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void refill() {
+        LocalDateTime until = LocalDateTime.now().plusMinutes(LOOKAHEAD_MINUTES);
+        loadingUntil = until;
+
+        LocalDateTime afterDate = loadedUntil != null ? loadedUntil : EPOCH;
+        long afterId = loadedUntil != null ? Long.MAX_VALUE : 0;
+
+        while (true) {
+            List<Object[]> rows = orderProductRepository.findDeadlinesAfter(OrderProductStatus.IN_PROGRESS,
+                    afterDate, afterId, until, PageRequest.of(0, BATCH_SIZE));
+
+            for (Object[] row : rows) {
+                deadlines.add(Deadline.of((Long) row[0], toMillis((LocalDateTime) row[1])));
+            }
+
+            if (rows.size() < BATCH_SIZE) {
+                break;
+            }
+
+            Object[] last = rows.getLast();
+            afterDate = (LocalDateTime) last[1];
+            afterId = (Long) last[0];
+        }
+
+        loadedUntil = until;
+        lastRefill = LocalDateTime.now();
+    }
+
+    /**
+     * Applies every second the transitions whose deadline has passed. The deadlines retried after a failure are
+     * applied one at a time, the others in batches.
+     *
+     * @throws RuntimeException the last failure, once every due deadline has been handled.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void fireDueDeadlines() {
+        RuntimeException failure = null;
+        List<Deadline> due = new ArrayList<>();
+        List<Deadline> batch = new ArrayList<>();
+
+        while (deadlines.drainTo(due, BATCH_SIZE) > 0) {
+            for (Deadline deadline : due) {
+                if (deadline.attempts() == 0) {
+                    batch.add(deadline);
+                } else {
+                    failure = applyTransitions(List.of(deadline), failure);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                failure = applyTransitions(batch, failure);
+                batch.clear();
+            }
+            due.clear();
+        }
+
+        // L'errore viene rilanciato solo alla fine, perché lo scheduler lo registri senza fermare gli altri lotti
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Retrieves the current metrics of the scheduler.
+     *
+     * @return the {@link OrderDeadlineMetricsDTO} describing backlog and lag of the transitions.
+     */
+    public OrderDeadlineMetricsDTO getMetrics() {
+        OrderDeadlineMetricsDTO metrics = new OrderDeadlineMetricsDTO();
+        metrics.setQueuedDeadlines(deadlines.size());
+        metrics.setOverdueDeadlines(countOverdue());
+        metrics.setLastLagMillis(lastLagMillis);
+        metrics.setMaxLagMillis(maxLagMillis.get());
+        metrics.setLateTransitions(lateTransitions.get());
+        metrics.setAbandonedDeadlines(abandonedDeadlines.get());
+        metrics.setLoadedUntil(loadedUntil);
+        metrics.setLastRefill(lastRefill);
+        return metrics;
+    }
+
+    /**
+     * Moves the due order products that are still in progress to late delivery. The rows are locked before the
+     * update, so that the counters are moved exactly for the order products actually changed.
+     *
+     * @param due     the due deadlines.
+     * @param failure the failure of a previous batch, if any.
+     * @return the failure of this batch, or the given one if this batch succeeded.
+     */
+    private RuntimeException applyTransitions(List<Deadline> due, RuntimeException failure) {
+        long now = System.currentTimeMillis();
+        long lag = 0;
+        Set<Long> ids = new HashSet<>();
+        for (Deadline deadline : due) {
+            ids.add(deadline.orderProductId());
+            lag = Math.max(lag, now - deadline.deadlineMillis());
+        }
+
+        Integer updated;
+        try {
+            updated = transactionTemplate.execute(status -> moveToLateDelivery(ids));
+        } catch (RuntimeException e) {
+            // Ogni scadenza torna in coda da sola, con un ritardo crescente, fino al numero massimo di tentativi
+            for (Deadline deadline : due) {
+                if (deadline.attempts() + 1 < MAX_ATTEMPTS) {
+                    deadlines.add(deadline.retry(now));
+                } else {
+                    abandonedDeadlines.incrementAndGet();
+                }
+            }
+            return e;
+        }
+
+        lateTransitions.addAndGet(updated != null ? updated : 0);
+        lastLagMillis = lag;
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+        return failure;
+    }
+
+    private int moveToLateDelivery(Set<Long> ids) {
+        List<Object[]> rows = orderProductRepository.lockOverdueLines(ids, OrderProductStatus.IN_PROGRESS, LocalDateTime.now());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> lockedIds = new ArrayList<>();
+        Map<Long, Long> lateBySeller = new HashMap<>();
+        for (Object[] row : rows) {
+            lockedIds.add((Long) row[0]);
+            if (row[1] != null) {
+                lateBySeller.merge((Long) row[1], 1L, Long::sum);
+            }
+        }
+
+        int count = orderProductRepository.updateStatus(lockedIds, OrderProductStatus.IN_PROGRESS, OrderProductStatus.LATE_DELIVERY);
+        lateBySeller.forEach((sellerId, late) ->
+                sellerOrderCounterManager.transition(sellerId, OrderProductStatus.IN_PROGRESS, OrderProductStatus.LATE_DELIVERY, late));
+        return count;
+    }
+
+    private void enqueueIfLoaded(long orderProductId, LocalDateTime deadline) {
+        LocalDateTime horizon = loadingUntil;
+        if (horizon != null && !deadline.isAfter(horizon)) {
+            deadlines.add(Deadline.of(orderProductId, toMillis(deadline)));
+        }
+    }
+
+    private int countOverdue() {
+        int overdue = 0;
+        for (Deadline deadline : deadlines) {
+            if (deadline.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+                overdue++;
+            }
+        }
+        return overdue;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Deadline of an order product held in the delay queue.
+     *
+     * @param orderProductId the ID of the order product.
+     * @param deadlineMillis the epoch millis at which the order product becomes late.
+     * @param dueAtMillis    the epoch millis at which the transition is attempted, later than the deadline after a
+     *                       failure.
+     * @param attempts       the number of failed attempts.
+     */
+    private record Deadline(long orderProductId, long deadlineMillis, long dueAtMillis, int attempts) implements Delayed {
+
+        static Deadline of(long orderProductId, long deadlineMillis) {
+            return new Deadline(orderProductId, deadlineMillis, deadlineMillis, 0);
+        }
+
+        Deadline retry(long nowMillis) {
+            long delay = Math.min(FIRST_RETRY_DELAY_MILLIS << attempts, MAX_RETRY_DELAY_MILLIS);
+            return new Deadline(orderProductId, deadlineMillis, nowMillis + delay, attempts + 1);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((Deadline) other).dueAtMillis);
+        }
+    }
+}
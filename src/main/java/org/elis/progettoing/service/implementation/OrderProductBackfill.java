@@ -0,0 +1,77 @@
+package org.elis.progettoing.service.implementation;
+
+import org.elis.progettoing.repository.OrderProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Service class that fills the denormalized columns of the order products created before the columns existed: the
+ * {@code seller_id} column and the {@code review_exist} flag of the products already reviewed by the buyer.
+ * <p>
+ * Each backfill processes the rows in batches ordered by id, each batch in its own transaction, reading the next
+ * batch after the last id of the previous one. Only the rows still to be filled are selected, so the job can be
+ * interrupted at any time and resumes where it stopped on the next run.
+ * </p>
+ */
+@Service
+public class OrderProductBackfill {
+    private static final int BATCH_SIZE = 500;
+
+    private final OrderProductRepository orderProductRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructs an instance of {@code OrderProductBackfill}.
+     *
+     * @param orderProductRepository the repository for managing order product entities.
+     * @param transactionManager     the transaction manager used to commit each batch separately.
+     */
+    public OrderProductBackfill(OrderProductRepository orderProductRepository, PlatformTransactionManager transactionManager) {
+        this.orderProductRepository = orderProductRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Runs the backfills once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        // Copia il proprietario del prodotto nel venditore delle righe che non lo hanno
+        backfill(orderProductRepository::findIdsWithoutSeller, orderProductRepository::backfillSeller);
+        // Segna le righe il cui prodotto è già stato recensito dall'acquirente
+        backfill(orderProductRepository::findIdsWithUnflaggedReview, orderProductRepository::flagReviewed);
+    }
+
+    /**
+     * Applies an update to every row still to be filled, one batch at a time.
+     *
+     * @param findIdsAfter the query returning, in ascending order, the ids of the rows still to be filled that come
+     *                     after the given id.
+     * @param applyToIds   the update filling the rows with the given ids, returning the number of rows updated.
+     * @return the number of rows updated.
+     */
+    public long backfill(BiFunction<Long, Pageable, List<Long>> findIdsAfter, Function<List<Long>, Integer> applyToIds) {
+        long lastId = 0;
+        long updated = 0;
+
+        while (true) {
+            List<Long> ids = findIdsAfter.apply(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (ids.isEmpty()) {
+                return updated;
+            }
+
+            Integer batchUpdated = transactionTemplate.execute(status -> applyToIds.apply(ids));
+            updated += batchUpdated != null ? batchUpdated : 0;
+            lastId = ids.getLast();
+        }
+    }
+}
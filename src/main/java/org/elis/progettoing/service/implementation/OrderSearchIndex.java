@@ -0,0 +1,237 @@
+package org.elis.progettoing.service.implementation;
+
+import jakarta.persistence.EntityManager;
+import org.elis.progettoing.models.Order;
+import org.elis.progettoing.models.OrderProduct;
+import org.elis.progettoing.models.OrderSearchTrigram;
+import org.elis.progettoing.repository.OrderRepository;
+import org.elis.progettoing.repository.OrderSearchTrigramRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Service class that maintains the trigram index used to search the orders by text.
+ * <p>
+ * For every order the index stores the trigrams of its id, of the name, surname and email of the buyer and of the
+ * titles of the ordered products, lower-cased and without accents. Each value is padded with two trailing spaces, so
+ * that every substring shorter than a trigram is the prefix of an indexed trigram. A search text is resolved to the
+ * orders containing all its trigrams, by intersecting their posting lists, or, for texts shorter than a trigram, to
+ * the orders with a trigram starting with the text. The candidates are a superset of the matching orders: the caller
+ * still checks the text on them, but only on them.
+ * </p>
+ */
+@Service
+public class OrderSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final String PADDING = "  ";
+    private static final int BATCH_SIZE = 200;
+    private static final int MAX_CANDIDATES = 2000;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final OrderSearchTrigramRepository orderSearchTrigramRepository;
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructs an instance of {@code OrderSearchIndex}.
+     *
+     * @param orderSearchTrigramRepository the repository for managing the postings of the index.
+     * @param orderRepository              the repository for managing order entities.
+     * @param entityManager                the {@link EntityManager} used to persist the postings.
+     * @param transactionManager           the transaction manager used to index the orders in batches.
+     */
+    public OrderSearchIndex(OrderSearchTrigramRepository orderSearchTrigramRepository, OrderRepository orderRepository, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.orderSearchTrigramRepository = orderSearchTrigramRepository;
+        this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Indexes a newly created order. The order must already have its id.
+     *
+     * @param order the order to index, with its buyer and order products.
+     */
+    public void index(Order order) {
+        List<String> fields = new ArrayList<>();
+        fields.add(String.valueOf(order.getId()));
+
+        if (order.getBuyer() != null) {
+            fields.add(order.getBuyer().getName());
+            fields.add(order.getBuyer().getSurname());
+            fields.add(order.getBuyer().getEmail());
+        }
+
+        if (order.getOrderProducts() != null) {
+            for (OrderProduct orderProduct : order.getOrderProducts()) {
+                if (orderProduct.getProduct() != null) {
+                    fields.add(orderProduct.getProduct().getTitle());
+                }
+            }
+        }
+
+        persist(order.getId(), trigramsOf(fields));
+    }
+
+    /**
+     * Rewrites the postings of the given orders from their current data.
+     *
+     * @param orderIds the IDs of the orders to index again.
+     */
+    public void reindex(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        orderSearchTrigramRepository.deleteByOrderIds(orderIds);
+
+        // Una riga per prodotto dell'ordine: i campi del buyer si ripetono, i trigrammi vengono deduplicati
+        Map<Long, List<String>> fieldsByOrder = new LinkedHashMap<>();
+        for (Object[] row : orderRepository.findSearchFields(orderIds)) {
+            List<String> fields = fieldsByOrder.computeIfAbsent((Long) row[0], id -> new ArrayList<>(List.of(String.valueOf(id))));
+            for (int i = 1; i < row.length; i++) {
+                fields.add((String) row[i]);
+            }
+        }
+
+        List<OrderSearchTrigram> postings = new ArrayList<>();
+        fieldsByOrder.forEach((orderId, fields) -> postings.addAll(persist(orderId, trigramsOf(fields))));
+
+        // Libera il contesto di persistenza dalle posizioni appena scritte
+        entityManager.flush();
+        postings.forEach(entityManager::detach);
+    }
+
+    /**
+     * Rewrites the postings of all the orders of a buyer, in batches, each in a new transaction of its own, also when
+     * it is called inside another transaction. Used after the commit of a change to the name of the buyer.
+     *
+     * @param buyerId the ID of the buyer.
+     */
+    public void reindexBuyer(long buyerId) {
+        Long cursor = null;
+
+        while (true) {
+            Long lastId = cursor;
+            List<Long> orderIds = transactionTemplate.execute(status -> {
+                List<Long> batch = orderRepository.findBuyerOrderIds(buyerId, lastId, PageRequest.of(0, BATCH_SIZE));
+                reindex(batch);
+                return batch;
+            });
+
+            if (orderIds == null || orderIds.isEmpty()) {
+                return;
+            }
+
+            cursor = orderIds.getLast();
+        }
+    }
+
+    /**
+     * Resolves a search text to the IDs of the orders that may contain it.
+     *
+     * @param searchText the text to search.
+     * @return the candidate order IDs, or an empty {@link Optional} if the text is too short or too common for the
+     * index to narrow the search and every order has to be checked.
+     */
+    public Optional<List<Long>> findCandidateOrderIds(String searchText) {
+        String text = normalize(searchText);
+        if (text.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<Long> candidates;
+        if (text.codePointCount(0, text.length()) < GRAM_LENGTH) {
+            candidates = orderSearchTrigramRepository.findOrderIdsByTrigramPrefix(
+                    escapeLike(text) + "%", PageRequest.of(0, MAX_CANDIDATES + 1));
+        } else {
+            Set<String> trigrams = new HashSet<>();
+            addTrigrams(text, trigrams);
+            candidates = orderSearchTrigramRepository.findOrderIdsContainingAll(
+                    trigrams, trigrams.size(), PageRequest.of(0, MAX_CANDIDATES + 1));
+        }
+
+        return candidates.size() > MAX_CANDIDATES ? Optional.empty() : Optional.of(candidates);
+    }
+
+    /**
+     * Indexes, once the application has started, the orders created before the index existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        indexMissingOrders();
+    }
+
+    /**
+     * Indexes every order that has no postings, in batches ordered by id, each in its own transaction.
+     *
+     * @return the number of orders indexed.
+     */
+    public long indexMissingOrders() {
+        long lastId = 0;
+        long indexed = 0;
+
+        while (true) {
+            List<Long> orderIds = orderRepository.findIdsWithoutSearchTrigrams(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (orderIds.isEmpty()) {
+                return indexed;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> reindex(orderIds));
+            indexed += orderIds.size();
+            lastId = orderIds.getLast();
+        }
+    }
+
+    private List<OrderSearchTrigram> persist(long orderId, Set<String> trigrams) {
+        List<OrderSearchTrigram> postings = new ArrayList<>(trigrams.size());
+        for (String trigram : trigrams) {
+            OrderSearchTrigram posting = new OrderSearchTrigram(trigram, orderId);
+            entityManager.persist(posting);
+            postings.add(posting);
+        }
+        return postings;
+    }
+
+    private static Set<String> trigramsOf(List<String> fields) {
+        Set<String> trigrams = new HashSet<>();
+        for (String field : fields) {
+            String text = normalize(field);
+            if (!text.isEmpty()) {
+                addTrigrams(text + PADDING, trigrams);
+            }
+        }
+        return trigrams;
+    }
+
+    private static void addTrigrams(String text, Set<String> trigrams) {
+        int[] codePoints = text.codePoints().toArray();
+        for (int i = 0; i + GRAM_LENGTH <= codePoints.length; i++) {
+            trigrams.add(new String(codePoints, i, GRAM_LENGTH));
+        }
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        String decomposed = Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -4,16 +4,26 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import org.elis.progettoing.dto.request.order.OrderFacetRequest;
 import org.elis.progettoing.dto.request.order.OrderFilterRequest;
+import org.elis.progettoing.dto.request.order.OrderProductBulkStatusRequest;
 import org.elis.progettoing.dto.request.order.OrderRequestDTO;
+import org.elis.progettoing.dto.response.order.FacetedOrdersResponse;
 import org.elis.progettoing.dto.response.order.FilteredOrdersResponse;
+import org.elis.progettoing.dto.response.order.OrderDeadlineMetricsDTO;
+import org.elis.progettoing.dto.response.order.OrderFacetDTO;
 import org.elis.progettoing.dto.response.order.OrderProductResponseDTO;
+import org.elis.progettoing.dto.response.order.OrderProductTransitionResultDTO;
 import org.elis.progettoing.dto.response.order.OrderResponseDTO;
+import org.elis.progettoing.enumeration.ExportFormat;
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.enumeration.OrderProductStatus;
 import org.elis.progettoing.exception.entity.EntityEditException;
 import org.elis.progettoing.exception.entity.EntityNotFoundException;
+import org.elis.progettoing.exception.entity.InvalidEntityDataException;
 import org.elis.progettoing.mapper.definition.OrderMapper;
 import org.elis.progettoing.mapper.definition.OrderProductMapper;
 import org.elis.progettoing.models.Order;
@@ -26,10 +36,12 @@ import org.elis.progettoing.repository.PurchasedProductRepository;
 import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.service.definition.EmailService;
 import org.elis.progettoing.service.definition.OrderService;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -43,6 +55,10 @@ import java.util.stream.Collectors;
  */
 @Service
 public class OrderServiceImpl implements OrderService {
+    private static final String ALL_ORDERS_FACET = "ALL";
+    private static final int MAX_BULK_ORDER_PRODUCTS = 500;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final EntityManager entityManager;
     private final OrderMapper orderMapper;
     private final OrderRepository orderRepository;
@@ -51,6 +67,11 @@ public class OrderServiceImpl implements OrderService {
     private final OrderProductMapper orderProductMapper;
     private final ReviewRepository reviewRepository;
     private final EmailService emailService;
+    private final SellerOrderCounterManager sellerOrderCounterManager;
+    private final OrderDeadlineScheduler orderDeadlineScheduler;
+    private final SellerOrderExporter sellerOrderExporter;
+    private final OrderSearchIndex orderSearchIndex;
+    private final ModerationSignalStore moderationSignalStore;
 
     /**
      * Constructs an instance of {@code OrderServiceImpl}.
@@ -63,8 +84,13 @@ public class OrderServiceImpl implements OrderService {
      * @param orderProductMapper       the mapper for converting order product-related entities and DTOs.
      * @param reviewRepository         the repository for managing review entities.
      * @param emailService             the service for sending emails.
+     * @param sellerOrderCounterManager the manager of the per-seller order status counters.
+     * @param orderDeadlineScheduler   the scheduler that moves overdue order products to late delivery.
+     * @param sellerOrderExporter      the exporter that streams the orders received by a seller.
+     * @param orderSearchIndex         the trigram index used to search the orders by text.
+     * @param moderationSignalStore    the store of the purchase counters used by the ticket priorities.
      */
-    public OrderServiceImpl(EntityManager entityManager, OrderMapper orderMapper, OrderRepository orderRepository, PurchasedProductRepository purchasedProductRepository, OrderProductRepository orderProductRepository, OrderProductMapper orderProductMapper, ReviewRepository reviewRepository, EmailService emailService) {
+    public OrderServiceImpl(EntityManager entityManager, OrderMapper orderMapper, OrderRepository orderRepository, PurchasedProductRepository purchasedProductRepository, OrderProductRepository orderProductRepository, OrderProductMapper orderProductMapper, ReviewRepository reviewRepository, EmailService emailService, SellerOrderCounterManager sellerOrderCounterManager, OrderDeadlineScheduler orderDeadlineScheduler, SellerOrderExporter sellerOrderExporter, OrderSearchIndex orderSearchIndex, ModerationSignalStore moderationSignalStore) {
         this.entityManager = entityManager;
         this.orderMapper = orderMapper;
         this.orderRepository = orderRepository;
@@ -73,6 +99,11 @@ public class OrderServiceImpl implements OrderService {
         this.orderProductMapper = orderProductMapper;
         this.reviewRepository = reviewRepository;
         this.emailService = emailService;
+        this.sellerOrderCounterManager = sellerOrderCounterManager;
+        this.orderDeadlineScheduler = orderDeadlineScheduler;
+        this.sellerOrderExporter = sellerOrderExporter;
+        this.orderSearchIndex = orderSearchIndex;
+        this.moderationSignalStore = moderationSignalStore;
     }
 
     /**
@@ -108,14 +139,21 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalArgumentException("Formato JSON della descrizione non valido", e);
         }
 
+        // Prodotti già recensiti dall'acquirente, per inizializzare il flag delle nuove righe
+        Set<Long> productIds = purchasedProducts.stream()
+                .map(purchasedProduct -> purchasedProduct.getProduct().getId())
+                .collect(Collectors.toSet());
+        Set<Long> reviewedProductIds = reviewRepository.findReviewedProductIdsByUser(user.getId(), productIds);
+
         List<OrderProduct> orderProducts = new ArrayList<>();
         for (PurchasedProduct purchasedProduct : purchasedProducts) {
             OrderProduct orderProduct = new OrderProduct();
             orderProduct.setProduct(purchasedProduct.getProduct());
+            orderProduct.setSeller(purchasedProduct.getProduct().getUser());
             orderProduct.setSelectedPackage(purchasedProduct.getSelectedPackage());
             orderProduct.setOrder(order);
             orderProduct.setStatus(OrderProductStatus.PENDING);
-            orderProduct.setReviewExist(false);
+            orderProduct.setReviewExist(reviewedProductIds.contains(purchasedProduct.getProduct().getId()));
 
             // Associa la descrizione specifica al prodotto
             String productDescription = descriptions.getOrDefault(purchasedProduct.getId(), "");
@@ -132,277 +170,249 @@ public class OrderServiceImpl implements OrderService {
 
         order.setOrderProducts(orderProducts);
 
+        // Le righe dell'ordine vengono salvate a cascata con un unico inserimento a lotti
         try {
-            orderRepository.save(order);
+            orderRepository.saveAndFlush(order);
         } catch (Exception e) {
             throw new EntityEditException("ordine", "id", order.getId());
         }
 
+        orderSearchIndex.index(order);
+
+        // Aggiorna i contatori dei venditori coinvolti, una sola istruzione per venditore
+        Map<Long, Long> pendingBySeller = orderProducts.stream()
+                .filter(op -> op.getSeller() != null)
+                .collect(Collectors.groupingBy(op -> op.getSeller().getId(), Collectors.counting()));
+        pendingBySeller.forEach((seller, count) -> sellerOrderCounterManager.increment(seller, OrderProductStatus.PENDING, count));
+
         try {
             purchasedProductRepository.deletePurchasedProductsByBuyerId(user.getId());
         } catch (Exception e) {
             throw new EntityEditException("prodotti del carrello", "id", orderRequestDTO.getCartId());
         }
 
+        // Il carrello viene svuotato: i prodotti acquistati non contano più per le priorità dei ticket
+        purchasedProducts.stream()
+                .collect(Collectors.groupingBy(purchasedProduct -> purchasedProduct.getProduct().getId(), Collectors.counting()))
+                .forEach((productId, count) -> moderationSignalStore.increment(ModerationSignal.PRODUCT_PURCHASES, productId, -count));
+        moderationSignalStore.increment(ModerationSignal.BUYER_PURCHASES, user.getId(), -purchasedProducts.size());
+
         return orderMapper.orderToOrderResponseDTO(order);
     }
 
     /**
-     * Retrieves all orders made by the logged-in user.
+     * Retrieves a keyset-paginated page of the orders made by the logged-in user, newest first.
+     * <p>
+     * The ids of the page are selected first, then only those orders are loaded with their products. Whether each
+     * product has been reviewed is read from the order product itself, so no lookup on the reviews is needed.
+     * </p>
      *
+     * @param cursor the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size   the maximum number of orders to return.
      * @return a list of {@link OrderResponseDTO} containing the orders made by the user.
      */
     @Override
     @Transactional(readOnly = true)
-    public List<OrderResponseDTO> getOrderByUser() {
+    public List<OrderResponseDTO> getOrderByUser(Long cursor, int size) {
         UsernamePasswordAuthenticationToken authentication =
                 (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
 
         User user = (User) authentication.getPrincipal();
 
-        List<Order> orders = orderRepository.findByBuyer(user);
-        if (orders.isEmpty()) return Collections.emptyList();
+        validatePageSize(size);
 
-        Set<Long> productIds = orders.stream()
-                .flatMap(order -> order.getOrderProducts().stream())
-                .map(op -> op.getProduct().getId())
-                .collect(Collectors.toSet());
+        List<Long> orderIds = orderRepository.findBuyerOrderIds(user.getId(), cursor, PageRequest.of(0, size));
+        if (orderIds.isEmpty()) return Collections.emptyList();
 
-        Set<Long> reviewedProductIds = reviewRepository.findReviewedProductIdsByUser(user.getId(), productIds);
-
-        return orders.stream()
-                .sorted(Comparator.comparingLong(Order::getId).reversed())
-                .map(order -> {
-                    OrderResponseDTO dto = orderMapper.orderToOrderResponseDTO(order);
-                    dto.getOrderProducts().forEach(op ->
-                            op.setHasReview(reviewedProductIds.contains(op.getProductId()))
-                    );
-                    return dto;
-                })
-                .toList();
+        return orderMapper.orderListToOrderResponseList(orderRepository.findWithProductsByIdIn(orderIds));
     }
 
-
     /**
-     * Retrieves all orders received by seller.
+     * Retrieves a page of the orders received by seller.
      *
+     * @param cursor the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size   the maximum number of orders to return.
      * @return a list of {@link OrderResponseDTO} containing the orders received by seller.
      */
     @Override
-    public List<OrderResponseDTO> getReceivedOrdersBySeller() {
-        UsernamePasswordAuthenticationToken authentication =
-                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        User loggedSeller = (User) authentication.getPrincipal();
-
-        // Recupera tutti gli ordini.
-        // In alternativa, se esiste un metodo repository che già filtra sugli orderProduct, potresti usarlo.
-        List<Order> allOrders = orderRepository.findAll();
-
-        // Lista in cui andremo ad accumulare gli ordini che contengono almeno un OrderProduct per il seller loggato.
-        List<Order> ordersForSeller = new ArrayList<>();
-
-        for (Order order : allOrders) {
-            // Filtra la lista degli OrderProduct in base al seller del prodotto.
-            List<OrderProduct> filteredOrderProducts = order.getOrderProducts().stream()
-                    .filter(orderProduct -> orderProduct.getProduct().getUser().getId() == loggedSeller.getId())
-                    .toList();
-
-            if (!filteredOrderProducts.isEmpty()) {
-                // Se l'ordine contiene almeno un OrderProduct per il seller loggato,
-                // sostituisco la lista degli orderProducts con quella filtrata.
-                order.setOrderProducts(filteredOrderProducts);
-                ordersForSeller.add(order);
-            }
-        }
-
-        ordersForSeller.sort(Comparator.comparingLong(Order::getId).reversed());
-
-        // Se non ci sono ordini, restituisco una lista vuota.
-        if (ordersForSeller.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // Converte gli Order in OrderResponseDTO tramite il mapper.
-        return orderMapper.orderListToOrderResponseList(ordersForSeller);
+    @Transactional(readOnly = true)
+    public List<OrderResponseDTO> getReceivedOrdersBySeller(Long cursor, int size) {
+        return getSellerInbox(EnumSet.allOf(OrderProductStatus.class), cursor, size);
     }
 
     /**
-     * Retrieves all orders with status equal to PENDING received by seller.
+     * Retrieves a page of the orders with status equal to PENDING received by seller.
      *
+     * @param cursor the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size   the maximum number of orders to return.
      * @return a list of {@link OrderResponseDTO} containing the orders received by seller.
      */
     @Override
-    public List<OrderResponseDTO> getPendingOrdersBySeller() {
-        UsernamePasswordAuthenticationToken authentication =
-                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        User loggedSeller = (User) authentication.getPrincipal();
-
-        List<Order> allOrders = orderRepository.findAll();
-
-        List<Order> ordersForSeller = new ArrayList<>();
-
-        for (Order order : allOrders) {
-            List<OrderProduct> filteredOrderProducts = order.getOrderProducts().stream()
-                    .filter(op -> op.getProduct().getUser().getId() == loggedSeller.getId()
-                            && op.getStatus().equals(OrderProductStatus.PENDING))
-                    .toList();
-
-            if (!filteredOrderProducts.isEmpty()) {
-                order.setOrderProducts(filteredOrderProducts);
-                ordersForSeller.add(order);
-            }
-        }
-
-        ordersForSeller.sort(Comparator.comparingLong(Order::getId).reversed());
-
-        if (ordersForSeller.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        return orderMapper.orderListToOrderResponseList(ordersForSeller);
+    @Transactional(readOnly = true)
+    public List<OrderResponseDTO> getPendingOrdersBySeller(Long cursor, int size) {
+        return getSellerInbox(EnumSet.of(OrderProductStatus.PENDING), cursor, size);
     }
 
     /**
-     * Retrieves all orders with status equal to PENDING received by seller.
+     * Retrieves a page of the orders with status equal to DELIVERED received by seller.
      *
+     * @param cursor the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size   the maximum number of orders to return.
      * @return a list of {@link OrderResponseDTO} containing the orders received by seller.
      */
     @Override
-    public List<OrderResponseDTO> getDeliveredOrdersBySeller() {
-        UsernamePasswordAuthenticationToken authentication =
-                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        User loggedSeller = (User) authentication.getPrincipal();
-
-        List<Order> allOrders = orderRepository.findAll();
-
-        List<Order> ordersForSeller = new ArrayList<>();
-
-        for (Order order : allOrders) {
-            List<OrderProduct> filteredOrderProducts = order.getOrderProducts().stream()
-                    .filter(op -> op.getProduct().getUser().getId() == loggedSeller.getId()
-                            && op.getStatus().equals(OrderProductStatus.DELIVERED))
-                    .toList();
-
-            if (!filteredOrderProducts.isEmpty()) {
-                order.setOrderProducts(filteredOrderProducts);
-                ordersForSeller.add(order);
-            }
-        }
-
-        ordersForSeller.sort(Comparator.comparingLong(Order::getId).reversed());
-
-        if (ordersForSeller.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        return orderMapper.orderListToOrderResponseList(ordersForSeller);
+    @Transactional(readOnly = true)
+    public List<OrderResponseDTO> getDeliveredOrdersBySeller(Long cursor, int size) {
+        return getSellerInbox(EnumSet.of(OrderProductStatus.DELIVERED), cursor, size);
     }
 
     /**
-     * Retrieves all orders with status equal to IN_PROGRESS received by seller.
+     * Retrieves a page of the orders with status equal to IN_PROGRESS received by seller.
      *
+     * @param cursor the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size   the maximum number of orders to return.
      * @return a list of {@link OrderResponseDTO} containing the orders received by seller.
      */
     @Override
-    public List<OrderResponseDTO> getTakeOnOrdersBySeller() {
-        UsernamePasswordAuthenticationToken authentication =
-                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        User loggedSeller = (User) authentication.getPrincipal();
-
-        List<Order> allOrders = orderRepository.findAll();
-
-        List<Order> ordersForSeller = new ArrayList<>();
-
-        for (Order order : allOrders) {
-            List<OrderProduct> filteredOrderProducts = order.getOrderProducts().stream()
-                    .filter(op -> op.getProduct().getUser().getId() == loggedSeller.getId()
-                            && op.getStatus().equals(OrderProductStatus.IN_PROGRESS))
-                    .toList();
-
-            if (!filteredOrderProducts.isEmpty()) {
-                order.setOrderProducts(filteredOrderProducts);
-                ordersForSeller.add(order);
-            }
-        }
+    @Transactional(readOnly = true)
+    public List<OrderResponseDTO> getTakeOnOrdersBySeller(Long cursor, int size) {
+        return getSellerInbox(EnumSet.of(OrderProductStatus.IN_PROGRESS), cursor, size);
+    }
 
-        ordersForSeller.sort(Comparator.comparingLong(Order::getId).reversed());
+    /**
+     * Retrieves a page of the orders with status equal to REFUSED received by seller.
+     *
+     * @param cursor the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size   the maximum number of orders to return.
+     * @return a list of {@link OrderResponseDTO} containing the orders received by seller.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderResponseDTO> getRefusedOrdersBySeller(Long cursor, int size) {
+        return getSellerInbox(EnumSet.of(OrderProductStatus.REFUSED), cursor, size);
+    }
 
-        if (ordersForSeller.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * Retrieves a page of the orders with status equal to LATE_DELIVERY received by seller.
+     * The products of each order are sorted by estimated delivery date.
+     *
+     * @param cursor the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size   the maximum number of orders to return.
+     * @return a list of {@link OrderResponseDTO} containing the orders received by seller.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderResponseDTO> getDelayedOrdersBySeller(Long cursor, int size) {
+        List<OrderResponseDTO> orders = getSellerInbox(EnumSet.of(OrderProductStatus.LATE_DELIVERY), cursor, size);
+
+        for (OrderResponseDTO order : orders) {
+            order.setOrderProducts(order.getOrderProducts().stream()
+                    .sorted(Comparator.comparing(OrderProductResponseDTO::getEstimatedDeliveryDate,
+                            Comparator.nullsLast(Comparator.naturalOrder())))
+                    .toList());
         }
 
-        return orderMapper.orderListToOrderResponseList(ordersForSeller);
+        return orders;
     }
 
     /**
-     * Retrieves all orders with status equal to REFUSED received by seller.
+     * Retrieves a keyset-paginated page of the orders received by the logged seller, keeping in each order only
+     * the seller's products in one of the requested statuses.
+     * <p>
+     * The page is resolved in two range scans on the {@code (seller_id, status, order_id)} index: the first selects
+     * the ids of the matching orders, newest first, the second fetches only the seller's order products of those orders.
+     * </p>
      *
-     * @return a list of {@link OrderResponseDTO} containing the orders received by seller.
+     * @param statuses the statuses of the order products to include.
+     * @param cursor   the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size     the maximum number of orders to return.
+     * @return a list of {@link OrderResponseDTO} sorted by order id descending.
      */
-    @Override
-    public List<OrderResponseDTO> getRefusedOrdersBySeller() {
+    private List<OrderResponseDTO> getSellerInbox(Set<OrderProductStatus> statuses, Long cursor, int size) {
         UsernamePasswordAuthenticationToken authentication =
                 (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
         User loggedSeller = (User) authentication.getPrincipal();
 
-        List<Order> allOrders = orderRepository.findAll();
-
-        List<Order> ordersForSeller = new ArrayList<>();
-
-        for (Order order : allOrders) {
-            List<OrderProduct> filteredOrderProducts = order.getOrderProducts().stream()
-                    .filter(op -> op.getProduct().getUser().getId() == loggedSeller.getId()
-                            && op.getStatus().equals(OrderProductStatus.REFUSED))
-                    .toList();
-
-            if (!filteredOrderProducts.isEmpty()) {
-                order.setOrderProducts(filteredOrderProducts);
-                ordersForSeller.add(order);
-            }
-        }
+        validatePageSize(size);
 
-        ordersForSeller.sort(Comparator.comparingLong(Order::getId).reversed());
+        List<Long> orderIds = orderProductRepository.findSellerInboxOrderIds(
+                loggedSeller.getId(), statuses, cursor, PageRequest.of(0, size));
 
-        if (ordersForSeller.isEmpty()) {
+        if (orderIds.isEmpty()) {
             return Collections.emptyList();
         }
 
-        return orderMapper.orderListToOrderResponseList(ordersForSeller);
+        List<OrderProduct> lines = orderProductRepository.findSellerInboxLines(loggedSeller.getId(), statuses, orderIds);
+
+        return orderMapper.orderListToOrderResponseList(groupSellerLines(lines));
     }
 
     /**
-     * Retrieves all orders with status equal to LATE_DELIVERY received by seller.
+     * Groups the order products of a seller by order, keeping the order in which they were retrieved.
      *
-     * @return a list of {@link OrderResponseDTO} containing the orders received by seller.
+     * @param lines the order products of the seller, sorted by order.
+     * @return a list of detached {@link Order} containing only the given order products.
      */
-    @Override
-    public List<OrderResponseDTO> getDelayedOrdersBySeller() {
-        UsernamePasswordAuthenticationToken authentication =
-                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        User loggedSeller = (User) authentication.getPrincipal();
+    private List<Order> groupSellerLines(List<OrderProduct> lines) {
+        // Raggruppa le righe per ordine mantenendo l'ordinamento per id decrescente
+        Map<Long, List<OrderProduct>> linesByOrder = new LinkedHashMap<>();
+        for (OrderProduct line : lines) {
+            linesByOrder.computeIfAbsent(line.getOrder().getId(), id -> new ArrayList<>()).add(line);
+        }
 
-        List<Order> allOrders = orderRepository.findAll();
+        List<Order> ordersForSeller = new ArrayList<>(linesByOrder.size());
+        for (List<OrderProduct> orderLines : linesByOrder.values()) {
+            ordersForSeller.add(toSellerView(orderLines.getFirst().getOrder(), orderLines));
+        }
 
-        List<Order> ordersForSeller = new ArrayList<>();
+        return ordersForSeller;
+    }
 
-        for (Order order : allOrders) {
-            List<OrderProduct> filteredOrderProducts = order.getOrderProducts().stream()
-                    .sorted(Comparator.comparing(OrderProduct::getEstimatedDeliveryDate))
-                    .filter(op -> op.getProduct().getUser().getId() == loggedSeller.getId()
-                            && op.getStatus().equals(OrderProductStatus.LATE_DELIVERY))
-                    .toList();
-
-            if (!filteredOrderProducts.isEmpty()) {
-                order.setOrderProducts(filteredOrderProducts);
-                ordersForSeller.add(order);
-            }
+    /**
+     * Checks that the requested page size is valid.
+     *
+     * @param size the page size to check.
+     * @throws InvalidEntityDataException if the page size is not greater than zero or exceeds {@value #MAX_PAGE_SIZE}.
+     */
+    private void validatePageSize(int size) {
+        if (size <= 0) {
+            throw new InvalidEntityDataException("La dimensione della pagina deve essere maggiore di zero");
         }
 
-        if (ordersForSeller.isEmpty()) {
-            return Collections.emptyList();
+        if (size > MAX_PAGE_SIZE) {
+            throw new InvalidEntityDataException("La dimensione della pagina non può superare " + MAX_PAGE_SIZE);
         }
+    }
 
-        return orderMapper.orderListToOrderResponseList(ordersForSeller);
+    /**
+     * Builds a detached copy of an order containing only the given order products, so that the managed entity
+     * is never modified while filtering the products of another seller.
+     *
+     * @param order         the managed order.
+     * @param orderProducts the order products to keep.
+     * @return a detached {@link Order} with the filtered order products.
+     */
+    private Order toSellerView(Order order, List<OrderProduct> orderProducts) {
+        Order view = new Order();
+        view.setId(order.getId());
+        view.setOrderDate(order.getOrderDate());
+        view.setBuyer(order.getBuyer());
+        view.setTotalPrice(order.getTotalPrice());
+        view.setOrderProducts(orderProducts);
+        return view;
+    }
+
+    /**
+     * Moves an order product between the status counters of its seller. Order products without a seller are not counted.
+     *
+     * @param orderProduct the order product whose status changed.
+     * @param from         the previous status of the order product.
+     * @param to           the new status of the order product.
+     */
+    private void moveSellerCounter(OrderProduct orderProduct, OrderProductStatus from, OrderProductStatus to) {
+        if (orderProduct.getSeller() != null) {
+            sellerOrderCounterManager.transition(orderProduct.getSeller().getId(), from, to);
+        }
     }
 
     /**
@@ -412,6 +422,7 @@ public class OrderServiceImpl implements OrderService {
      * @return the updated {@link OrderResponseDTO}.
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public OrderResponseDTO acceptSingleOrderProduct(long orderProductId) {
         UsernamePasswordAuthenticationToken authentication =
                 (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
@@ -420,7 +431,8 @@ public class OrderServiceImpl implements OrderService {
         OrderProduct orderProduct = orderProductRepository.findById(orderProductId)
                 .orElseThrow(() -> new EntityNotFoundException("prodotto dell'ordine", "id", orderProductId));
 
-        if (orderProduct.getProduct().getUser().getId() != seller.getId()) {
+        // Il venditore registrato sulla riga resta valido anche se il prodotto è stato cancellato o riassegnato
+        if (orderProduct.getSeller() == null || orderProduct.getSeller().getId() != seller.getId()) {
             throw new IllegalArgumentException("Il venditore non è autorizzato a modificare questo prodotto dell'ordine");
         }
 
@@ -436,6 +448,9 @@ public class OrderServiceImpl implements OrderService {
             throw new EntityEditException("prodotto dell'ordine", "id", orderProduct.getId());
         }
 
+        moveSellerCounter(orderProduct, OrderProductStatus.PENDING, OrderProductStatus.IN_PROGRESS);
+        orderDeadlineScheduler.track(orderProduct.getId(), orderProduct.getEstimatedDeliveryDate());
+
         return orderMapper.orderToOrderResponseDTO(orderProduct.getOrder());
     }
 
@@ -446,6 +461,7 @@ public class OrderServiceImpl implements OrderService {
      * @return the updated {@link OrderResponseDTO}.
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public OrderResponseDTO refuseSingleOrderProduct(long orderProductId) {
         UsernamePasswordAuthenticationToken authentication =
                 (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
@@ -454,7 +470,8 @@ public class OrderServiceImpl implements OrderService {
         OrderProduct orderProduct = orderProductRepository.findById(orderProductId)
                 .orElseThrow(() -> new EntityNotFoundException("prodotto dell'ordine", "id", orderProductId));
 
-        if (orderProduct.getProduct().getUser().getId() != seller.getId()) {
+        // Il venditore registrato sulla riga resta valido anche se il prodotto è stato cancellato o riassegnato
+        if (orderProduct.getSeller() == null || orderProduct.getSeller().getId() != seller.getId()) {
             throw new IllegalArgumentException("Il venditore non è autorizzato a modificare questo prodotto dell'ordine");
         }
 
@@ -470,9 +487,83 @@ public class OrderServiceImpl implements OrderService {
             throw new EntityEditException("prodotto dell'ordine", "id", orderProduct.getId());
         }
 
+        moveSellerCounter(orderProduct, OrderProductStatus.PENDING, OrderProductStatus.REFUSED);
+
         return orderMapper.orderToOrderResponseDTO(orderProduct.getOrder());
     }
 
+    /**
+     * Accepts or refuses many order products of the logged seller at once.
+     * <p>
+     * The order products of the seller among the requested ones are locked with a single query and the pending ones
+     * are moved to the target status with a single guarded update, so that each order product is validated and
+     * changed at most once even with concurrent requests. The requested IDs that do not belong to the seller or are
+     * not pending are reported as not updated.
+     * </p>
+     *
+     * @param request the request containing the IDs of the order products and the target status.
+     * @return the outcome for each requested order product, in the order of the request.
+     * @throws InvalidEntityDataException if the target status is not accepted or refused, or the number of IDs is not
+     *                                    between one and the maximum allowed.
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<OrderProductTransitionResultDTO> updateOrderProductsStatus(OrderProductBulkStatusRequest request) {
+        UsernamePasswordAuthenticationToken authentication =
+                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        User seller = (User) authentication.getPrincipal();
+
+        OrderProductStatus target = request.getStatus();
+        if (target != OrderProductStatus.IN_PROGRESS && target != OrderProductStatus.REFUSED) {
+            throw new InvalidEntityDataException("Lo stato richiesto deve essere 'in corso' o 'rifiutato'");
+        }
+
+        List<Long> ids = request.getOrderProductIds() != null
+                ? request.getOrderProductIds().stream().filter(Objects::nonNull).distinct().toList()
+                : Collections.emptyList();
+        if (ids.isEmpty() || ids.size() > MAX_BULK_ORDER_PRODUCTS) {
+            throw new InvalidEntityDataException("Il numero di prodotti dell'ordine deve essere compreso tra 1 e " + MAX_BULK_ORDER_PRODUCTS);
+        }
+
+        // Blocca le righe del venditore, così l'aggiornamento cambia esattamente quelle in attesa lette qui
+        Map<Long, Object[]> sellerLines = new HashMap<>();
+        for (Object[] row : orderProductRepository.lockSellerLines(ids, seller.getId())) {
+            sellerLines.put((Long) row[0], row);
+        }
+
+        List<Long> pendingIds = new ArrayList<>();
+        for (Object[] row : sellerLines.values()) {
+            if (row[1] == OrderProductStatus.PENDING) {
+                pendingIds.add((Long) row[0]);
+            }
+        }
+
+        if (!pendingIds.isEmpty()) {
+            int updated = orderProductRepository.updateSellerLinesStatus(pendingIds, seller.getId(), OrderProductStatus.PENDING, target);
+            sellerOrderCounterManager.transition(seller.getId(), OrderProductStatus.PENDING, target, updated);
+
+            if (target == OrderProductStatus.IN_PROGRESS) {
+                for (Long id : pendingIds) {
+                    orderDeadlineScheduler.track(id, (LocalDateTime) sellerLines.get(id)[2]);
+                }
+            }
+        }
+
+        List<OrderProductTransitionResultDTO> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Object[] row = sellerLines.get(id);
+            if (row == null) {
+                results.add(new OrderProductTransitionResultDTO(id, false, null, "Prodotto dell'ordine non trovato tra quelli del venditore"));
+            } else if (row[1] == OrderProductStatus.PENDING) {
+                results.add(new OrderProductTransitionResultDTO(id, true, target, null));
+            } else {
+                results.add(new OrderProductTransitionResultDTO(id, false, (OrderProductStatus) row[1], "Lo stato del prodotto dell'ordine non è 'in attesa'"));
+            }
+        }
+
+        return results;
+    }
+
     /**
      * Retrieves an order product by ID.
      *
@@ -505,10 +596,9 @@ public class OrderServiceImpl implements OrderService {
         CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
         Root<Order> root = criteriaQuery.from(Order.class);
 
-        // Predicato per filtrare gli OrderProduct il cui prodotto appartenga all'utente loggato.
-        // NOTA: il percorso potrebbe variare in base al nome del campo nella tua entità Product.
+        // Predicato per filtrare gli OrderProduct venduti dall'utente loggato (colonna seller_id denormalizzata)
         Predicate sellerPredicate = criteriaBuilder.equal(
-                root.get("orderProducts").get("product").get("user").get("id"),
+                root.get("orderProducts").get("seller").get("id"),
                 user.getId()
         );
 
@@ -529,11 +619,11 @@ public class OrderServiceImpl implements OrderService {
         TypedQuery<Order> query = entityManager.createQuery(criteriaQuery);
         List<Order> orders = query.getResultList();
 
-        // Per ogni ordine, filtra la lista degli OrderProduct per mantenere soltanto quelli il cui prodotto appartenga all'utente loggato.
+        // Per ogni ordine, filtra la lista degli OrderProduct per mantenere soltanto quelli venduti dall'utente loggato.
         // In questo modo, nell'ordine rimarranno solo i prodotti relativi al seller loggato.
         for (Order order : orders) {
             List<OrderProduct> filteredOrderProducts = order.getOrderProducts().stream()
-                    .filter(op -> op.getProduct().getUser().getId() == user.getId())
+                    .filter(op -> op.getSeller() != null && op.getSeller().getId() == user.getId())
                     .collect(Collectors.toList());
             order.setOrderProducts(filteredOrderProducts);
         }
@@ -582,6 +672,176 @@ public class OrderServiceImpl implements OrderService {
         return filteredOrdersResponse;
     }
 
+    /**
+     * Retrieves the orders of the logged seller grouped by status, with a page of orders for each status.
+     * <p>
+     * A single grouped query returns the ids of the matching orders for each status of the seller's order products,
+     * from which the count of each bucket is derived. Only the orders of the requested pages are then loaded, in one
+     * query, so the response stays bounded regardless of the number of orders of the seller.
+     * </p>
+     *
+     * @param orderFacetRequest the request data containing the filter criteria, the bucket size and the cursors.
+     * @return the {@link FacetedOrdersResponse} containing a page of orders for each status.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public FacetedOrdersResponse getFacetedOrdersBySeller(OrderFacetRequest orderFacetRequest) {
+        UsernamePasswordAuthenticationToken authentication =
+                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) authentication.getPrincipal();
+
+        validatePageSize(orderFacetRequest.getSize());
+
+        // Id degli ordini del venditore per ogni stato, in ordine decrescente
+        Map<OrderProductStatus, List<Long>> idsByStatus = new EnumMap<>(OrderProductStatus.class);
+        Set<Long> allIds = new LinkedHashSet<>();
+        for (Tuple row : findSellerOrderIdsByStatus(orderFacetRequest, user.getId())) {
+            OrderProductStatus status = row.get(0, OrderProductStatus.class);
+            Long orderId = row.get(1, Long.class);
+            idsByStatus.computeIfAbsent(status, key -> new ArrayList<>()).add(orderId);
+            allIds.add(orderId);
+        }
+
+        Map<String, Long> cursors = orderFacetRequest.getCursors() != null ? orderFacetRequest.getCursors() : Map.of();
+        int size = orderFacetRequest.getSize();
+
+        List<Long> allPage = slice(new ArrayList<>(allIds), cursors.get(ALL_ORDERS_FACET), size);
+        Map<OrderProductStatus, List<Long>> pagesByStatus = new EnumMap<>(OrderProductStatus.class);
+        Set<Long> pageIds = new HashSet<>(allPage);
+        for (OrderProductStatus status : OrderProductStatus.values()) {
+            List<Long> page = slice(idsByStatus.getOrDefault(status, Collections.emptyList()), cursors.get(status.name()), size);
+            pagesByStatus.put(status, page);
+            pageIds.addAll(page);
+        }
+
+        // Carica in una sola query soltanto gli ordini delle pagine richieste
+        Map<Long, OrderResponseDTO> ordersById = new HashMap<>();
+        if (!pageIds.isEmpty()) {
+            List<OrderProduct> lines = orderProductRepository.findSellerInboxLines(
+                    user.getId(), EnumSet.allOf(OrderProductStatus.class), pageIds);
+            for (OrderResponseDTO order : orderMapper.orderListToOrderResponseList(groupSellerLines(lines))) {
+                ordersById.put(order.getId(), order);
+            }
+        }
+
+        FacetedOrdersResponse facetedOrdersResponse = new FacetedOrdersResponse();
+        facetedOrdersResponse.setAllOrders(buildFacet(new ArrayList<>(allIds), allPage, size, ordersById));
+        facetedOrdersResponse.setRefusedOrders(buildFacet(idsByStatus.get(OrderProductStatus.REFUSED), pagesByStatus.get(OrderProductStatus.REFUSED), size, ordersById));
+        facetedOrdersResponse.setDelayedOrders(buildFacet(idsByStatus.get(OrderProductStatus.LATE_DELIVERY), pagesByStatus.get(OrderProductStatus.LATE_DELIVERY), size, ordersById));
+        facetedOrdersResponse.setDeliveredOrders(buildFacet(idsByStatus.get(OrderProductStatus.DELIVERED), pagesByStatus.get(OrderProductStatus.DELIVERED), size, ordersById));
+        facetedOrdersResponse.setPendingOrders(buildFacet(idsByStatus.get(OrderProductStatus.PENDING), pagesByStatus.get(OrderProductStatus.PENDING), size, ordersById));
+        facetedOrdersResponse.setTakeOnOrders(buildFacet(idsByStatus.get(OrderProductStatus.IN_PROGRESS), pagesByStatus.get(OrderProductStatus.IN_PROGRESS), size, ordersById));
+
+        return facetedOrdersResponse;
+    }
+
+    /**
+     * Runs the grouped query returning a (status, order id) row for each status of the seller's order products
+     * in the orders matching the filter criteria, sorted by order id descending.
+     *
+     * @param orderFilterRequest the request data containing the filter criteria.
+     * @param sellerId           the id of the seller.
+     * @return the list of rows, each containing the {@link OrderProductStatus} and the order id.
+     */
+    protected List<Tuple> findSellerOrderIdsByStatus(OrderFilterRequest orderFilterRequest, long sellerId) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<Order> root = criteriaQuery.from(Order.class);
+        Join<Order, OrderProduct> sellerProductJoin = root.join("orderProducts");
+
+        List<Predicate> predicates = buildOrderPredicates(orderFilterRequest, criteriaBuilder, root);
+        predicates.add(criteriaBuilder.equal(sellerProductJoin.get("seller").get("id"), sellerId));
+
+        criteriaQuery.multiselect(sellerProductJoin.get("status"), root.get("id"))
+                .where(predicates.toArray(new Predicate[0]))
+                .groupBy(sellerProductJoin.get("status"), root.get("id"))
+                .orderBy(criteriaBuilder.desc(root.get("id")));
+
+        return entityManager.createQuery(criteriaQuery).getResultList();
+    }
+
+    /**
+     * Returns the page of ids following the cursor.
+     *
+     * @param ids    the ids sorted in descending order.
+     * @param cursor the last id of the previous page, or {@code null} for the first page.
+     * @param size   the maximum number of ids to return.
+     * @return the ids of the page.
+     */
+    private List<Long> slice(List<Long> ids, Long cursor, int size) {
+        List<Long> page = new ArrayList<>(Math.min(size, ids.size()));
+        for (Long id : ids) {
+            if (page.size() == size) {
+                break;
+            }
+            if (cursor == null || id < cursor) {
+                page.add(id);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Builds a status bucket from its ids and the loaded orders of its page.
+     *
+     * @param ids        all the ids of the bucket, sorted in descending order, or {@code null} if the bucket is empty.
+     * @param page       the ids of the requested page.
+     * @param size       the requested page size.
+     * @param ordersById the loaded orders, indexed by id.
+     * @return the {@link OrderFacetDTO} of the bucket.
+     */
+    private OrderFacetDTO buildFacet(List<Long> ids, List<Long> page, int size, Map<Long, OrderResponseDTO> ordersById) {
+        OrderFacetDTO facet = new OrderFacetDTO();
+        facet.setCount(ids != null ? ids.size() : 0);
+        facet.setOrders(page.stream().map(ordersById::get).filter(Objects::nonNull).toList());
+
+        boolean hasMore = ids != null && page.size() == size && !page.isEmpty() && ids.getLast() < page.getLast();
+        facet.setNextCursor(hasMore ? page.getLast() : null);
+        return facet;
+    }
+
+    /**
+     * Retrieves the number of order products received by the logged-in seller for every status.
+     *
+     * @return a map from each {@link OrderProductStatus} to the number of order products of the seller in it.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<OrderProductStatus, Long> getOrderStatusCountsBySeller() {
+        UsernamePasswordAuthenticationToken authentication =
+                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        User seller = (User) authentication.getPrincipal();
+
+        return sellerOrderCounterManager.getCounts(seller.getId());
+    }
+
+    /**
+     * Retrieves the metrics of the scheduler that moves overdue order products to late delivery.
+     *
+     * @return the {@link OrderDeadlineMetricsDTO} describing backlog and lag of the transitions.
+     */
+    @Override
+    public OrderDeadlineMetricsDTO getDeadlineMetrics() {
+        return orderDeadlineScheduler.getMetrics();
+    }
+
+    /**
+     * Exports all the orders received by the logged seller, one order product per row. The seller is resolved when
+     * the request is handled, while the rows are read and written only when the returned body is streamed.
+     *
+     * @param format the format of the export.
+     * @return the {@link StreamingResponseBody} writing the rows to the response.
+     */
+    @Override
+    public StreamingResponseBody exportOrdersBySeller(ExportFormat format) {
+        UsernamePasswordAuthenticationToken authentication =
+                (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        User seller = (User) authentication.getPrincipal();
+        long sellerId = seller.getId();
+
+        return outputStream -> sellerOrderExporter.export(sellerId, format, outputStream);
+    }
+
     /**
      * Delivers a response to the buyer for a specific order product.
      *
@@ -590,12 +850,14 @@ public class OrderServiceImpl implements OrderService {
      * @return the updated {@link OrderResponseDTO}.
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public OrderResponseDTO deliveryResponse(long orderProductId, String response) {
         OrderProduct orderProduct = orderProductRepository.findById(orderProductId)
                 .orElseThrow(() -> new EntityNotFoundException("prodotto dell'ordine", "id", orderProductId));
 
-        if (orderProduct.getStatus() != OrderProductStatus.IN_PROGRESS) {
-            throw new IllegalArgumentException("Lo stato del prodotto dell'ordine non è 'in corso'");
+        OrderProductStatus previousStatus = orderProduct.getStatus();
+        if (previousStatus != OrderProductStatus.IN_PROGRESS && previousStatus != OrderProductStatus.LATE_DELIVERY) {
+            throw new IllegalArgumentException("Lo stato del prodotto dell'ordine non è 'in corso' o 'in ritardo'");
         }
 
         orderProduct.setStatus(OrderProductStatus.DELIVERED);
@@ -608,6 +870,8 @@ public class OrderServiceImpl implements OrderService {
             throw new EntityEditException("prodotto dell'ordine", "id", orderProduct.getId());
         }
 
+        moveSellerCounter(orderProduct, previousStatus, OrderProductStatus.DELIVERED);
+
         return orderMapper.orderToOrderResponseDTO(orderProduct.getOrder());
     }
 
@@ -702,7 +966,17 @@ public class OrderServiceImpl implements OrderService {
             Predicate productTitleLike = criteriaBuilder.like(criteriaBuilder.lower(orderProductJoin.get("product").get("title")), searchPattern);
 
             // Combina tutte le condizioni di ricerca con un "OR"
-            predicates.add(criteriaBuilder.or(idLike, buyerNameLike, buyerSurnameLike, buyerEmailLike, productTitleLike));
+            Predicate textMatches = criteriaBuilder.or(idLike, buyerNameLike, buyerSurnameLike, buyerEmailLike, productTitleLike);
+
+            // Se l'indice a trigrammi restringe la ricerca, il testo viene verificato solo sugli ordini candidati
+            Optional<List<Long>> candidateIds = orderSearchIndex.findCandidateOrderIds(request.getSearchText());
+            if (candidateIds.isEmpty()) {
+                predicates.add(textMatches);
+            } else if (candidateIds.get().isEmpty()) {
+                predicates.add(criteriaBuilder.disjunction());
+            } else {
+                predicates.add(criteriaBuilder.and(root.get("id").in(candidateIds.get()), textMatches));
+            }
         }
     }
 
@@ -47,7 +47,6 @@ public class ProductServiceImpl implements ProductService {
     private final LocalStorageService localStorageService;
     private final EntityManager entityManager;
     private final ProductRepository productRepository;
-    private final PackageAttributeRepository packageAttributeRepository;
     private final ProductPackageRepository productPackageRepository;
     private final UserRepository userRepository;
     private final ProductMapper productMapper;
@@ -59,7 +58,6 @@ public class ProductServiceImpl implements ProductService {
      * Constructor for ProductServiceImpl.
      *
      * @param productRepository          the repository for accessing products.
-     * @param packageAttributeRepository the repository for accessing package attributes.
      * @param productPackageRepository   the repository for accessing product packages.
      * @param userRepository             the repository for accessing users.
      * @param productMapper              the mapper for conversion between entities and DTOs.
@@ -70,9 +68,8 @@ public class ProductServiceImpl implements ProductService {
      * @param localStorageService        the service for managing local storage.
      * @param entityManager              the EntityManager for interaction with the database.
      */
-    public ProductServiceImpl(ProductRepository productRepository, PackageAttributeRepository packageAttributeRepository, ProductPackageRepository productPackageRepository, UserRepository userRepository, ProductMapper productMapper, ProductPackageMapper productPackageMapper, TagRepository tagRepository, TagMapper tagMapper, TicketRepository ticketRepository, LocalStorageService localStorageService, EntityManager entityManager) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductPackageRepository productPackageRepository, UserRepository userRepository, ProductMapper productMapper, ProductPackageMapper productPackageMapper, TagRepository tagRepository, TagMapper tagMapper, TicketRepository ticketRepository, LocalStorageService localStorageService, EntityManager entityManager) {
         this.productRepository = productRepository;
-        this.packageAttributeRepository = packageAttributeRepository;
         this.productPackageRepository = productPackageRepository;
         this.userRepository = userRepository;
         this.productMapper = productMapper;
@@ -135,29 +132,13 @@ public class ProductServiceImpl implements ProductService {
                 .stream()
                 .map(packageRequestDto -> {
                     ProductPackage packageRequest = productPackageMapper.packageRequestDTOToProductPackage(packageRequestDto);
-
                     packageRequest.setProduct(product);
-                    packageRequest.setAttributes(List.of());
-
-                    try {
-                        productPackageRepository.save(packageRequest);
-                    } catch (Exception e) {
-                        throw new EntityCreationException("pacchetti del prodotto", "ID prodotto", product.getId());
-                    }
-
 
                     List<PackageAttribute> attributes = packageRequestDto.getAttributes().stream().map(attributeRequestDto -> {
                         PackageAttribute attributeRequest = new PackageAttribute();
                         attributeRequest.setKey(attributeRequestDto.getKey());
                         attributeRequest.setValue(attributeRequestDto.getValue());
                         attributeRequest.setProductPackage(packageRequest);
-
-                        try {
-                            packageAttributeRepository.save(attributeRequest);
-                        } catch (Exception e) {
-                            throw new EntityCreationException("attributi del pacchetto", "ID pacchetto", packageRequest.getId());
-                        }
-
                         return attributeRequest;
                     }).toList();
 
@@ -166,6 +147,13 @@ public class ProductServiceImpl implements ProductService {
                     return packageRequest;
                 }).toList();
 
+        // Gli attributi vengono salvati a cascata con i pacchetti: un inserimento a lotti per tabella
+        try {
+            productPackageRepository.saveAllAndFlush(packages);
+        } catch (Exception e) {
+            throw new EntityCreationException("pacchetti del prodotto", "ID prodotto", product.getId());
+        }
+
         product.setPackages(packages);
 
         return productMapper.productToResponseDTO(product);
@@ -10,6 +10,7 @@ import org.elis.progettoing.mapper.definition.ReviewMapper;
 import org.elis.progettoing.models.Review;
 import org.elis.progettoing.models.User;
 import org.elis.progettoing.models.product.Product;
+import org.elis.progettoing.repository.OrderProductRepository;
 import org.elis.progettoing.repository.ProductRepository;
 import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.repository.TicketRepository;
@@ -38,6 +39,8 @@ public class ReviewServiceImpl implements ReviewService {
     private final ProductRepository productRepository;
     private final LocalStorageService localStorageService;
     private final TicketRepository ticketRepository;
+    private final OrderProductRepository orderProductRepository;
+    private final ModerationSignalStore moderationSignalStore;
 
     /**
      * Constructor for ReviewServiceImpl
@@ -46,13 +49,17 @@ public class ReviewServiceImpl implements ReviewService {
      * @param reviewRepository    Repository per l'accesso alle recensioni
      * @param productRepository   Repository per l'accesso ai prodotti
      * @param localStorageService Servizio per la gestione del salvataggio delle immagini
+     * @param orderProductRepository Repository per l'aggiornamento del flag di recensione dei prodotti ordinati
+     * @param moderationSignalStore Archivio delle valutazioni usate per le priorità dei ticket
      */
-    public ReviewServiceImpl(ReviewMapper reviewMapper, ReviewRepository reviewRepository, ProductRepository productRepository, LocalStorageService localStorageService, TicketRepository ticketRepository) {
+    public ReviewServiceImpl(ReviewMapper reviewMapper, ReviewRepository reviewRepository, ProductRepository productRepository, LocalStorageService localStorageService, TicketRepository ticketRepository, OrderProductRepository orderProductRepository, ModerationSignalStore moderationSignalStore) {
         this.reviewMapper = reviewMapper;
         this.reviewRepository = reviewRepository;
         this.productRepository = productRepository;
         this.localStorageService = localStorageService;
         this.ticketRepository = ticketRepository;
+        this.orderProductRepository = orderProductRepository;
+        this.moderationSignalStore = moderationSignalStore;
     }
 
     /**
@@ -102,6 +109,11 @@ public class ReviewServiceImpl implements ReviewService {
             throw new EntityCreationException("recensione", "email utente", review.getUser().getEmail());
         }
 
+        moderationSignalStore.addRating(user.getId(), review.getDateCreation(), review.getTotalRating(), 1);
+
+        // Segna come recensiti i prodotti ordinati dall'utente
+        orderProductRepository.updateReviewExist(user.getId(), product.getId(), true);
+
         return reviewMapper.reviewToReviewResponseDTO(review);
     }
 
@@ -127,6 +139,11 @@ public class ReviewServiceImpl implements ReviewService {
             throw new EntityDeletionException("recensione", "ID", reviewId);
         }
 
+        if (review.getUser() != null) {
+            orderProductRepository.updateReviewExist(review.getUser().getId(), review.getProduct().getId(), false);
+            moderationSignalStore.addRating(review.getUser().getId(), review.getDateCreation(), -review.getTotalRating(), -1);
+        }
+
         return reviewMapper.reviewToReviewResponseDTO(review);
     }
 
@@ -153,6 +170,8 @@ public class ReviewServiceImpl implements ReviewService {
             throw new EntityNotFoundException("recensione", "ID utente", user.getId());
         }
 
+        double previousTotalRating = review.getTotalRating();
+
         reviewMapper.reviewRequestDTOToReview(reviewRequestDTO);
         review.setProduct(product);
         review.setTotalRating((review.getRatingQuality() + review.getRatingCommunication() + review.getRatingTimeliness() + review.getRatingCost()) / 4);
@@ -169,6 +188,8 @@ public class ReviewServiceImpl implements ReviewService {
             throw new EntityEditException("recensione", "ID", review.getId());
         }
 
+        moderationSignalStore.addRating(user.getId(), review.getDateCreation(), review.getTotalRating() - previousTotalRating, 0);
+
         return reviewMapper.reviewToReviewResponseDTO(review);
     }
 
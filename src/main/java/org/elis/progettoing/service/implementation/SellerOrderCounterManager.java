@@ -0,0 +1,198 @@
+package org.elis.progettoing.service.implementation;
+
+import org.elis.progettoing.enumeration.OrderProductStatus;
+import org.elis.progettoing.models.SellerOrderCounter;
+import org.elis.progettoing.models.SellerOrderCounterId;
+import org.elis.progettoing.repository.OrderProductRepository;
+import org.elis.progettoing.repository.SellerOrderCounterRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Service class that maintains the per-seller order status counters.
+ * <p>
+ * Status changes are applied with single UPDATE statements in the caller's transaction. The counters of a seller are
+ * created on first use in a separate transaction, seeded from the committed order products, so that the changes of
+ * the caller's transaction are counted exactly once. A nightly job rebuilds all the counters in batches of sellers.
+ * </p>
+ */
+@Service
+public class SellerOrderCounterManager {
+    private static final int BATCH_SIZE = 200;
+
+    private final SellerOrderCounterRepository sellerOrderCounterRepository;
+    private final OrderProductRepository orderProductRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate seedTransactionTemplate;
+
+    /**
+     * Constructs an instance of {@code SellerOrderCounterManager}.
+     *
+     * @param sellerOrderCounterRepository the repository for managing seller order counter entities.
+     * @param orderProductRepository       the repository for managing order product entities.
+     * @param transactionManager           the transaction manager used for seeding and reconciliation.
+     */
+    public SellerOrderCounterManager(SellerOrderCounterRepository sellerOrderCounterRepository, OrderProductRepository orderProductRepository, PlatformTransactionManager transactionManager) {
+        this.sellerOrderCounterRepository = sellerOrderCounterRepository;
+        this.orderProductRepository = orderProductRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.seedTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.seedTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Adds new order products of a seller to the counter of the given status.
+     *
+     * @param sellerId the ID of the seller of the order products.
+     * @param status   the status of the new order products.
+     * @param delta    the number of order products added.
+     */
+    public void increment(long sellerId, OrderProductStatus status, long delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        ensureCounters(sellerId);
+        sellerOrderCounterRepository.increment(sellerId, status, delta);
+    }
+
+    /**
+     * Moves one order product of a seller from a status to another.
+     *
+     * @param sellerId the ID of the seller of the order product.
+     * @param from     the previous status of the order product.
+     * @param to       the new status of the order product.
+     */
+    public void transition(long sellerId, OrderProductStatus from, OrderProductStatus to) {
+        transition(sellerId, from, to, 1);
+    }
+
+    /**
+     * Moves several order products of a seller from a status to another.
+     *
+     * @param sellerId the ID of the seller of the order products.
+     * @param from     the previous status of the order products.
+     * @param to       the new status of the order products.
+     * @param delta    the number of order products moved.
+     */
+    public void transition(long sellerId, OrderProductStatus from, OrderProductStatus to, long delta) {
+        if (from == to || delta == 0) {
+            return;
+        }
+
+        ensureCounters(sellerId);
+        sellerOrderCounterRepository.transition(sellerId, from, to, delta);
+    }
+
+    /**
+     * Retrieves the counters of a seller.
+     *
+     * @param sellerId the ID of the seller.
+     * @return the number of order products of the seller for every status, zero for the statuses never counted.
+     */
+    public Map<OrderProductStatus, Long> getCounts(long sellerId) {
+        Map<OrderProductStatus, Long> counts = emptyCounts();
+        for (SellerOrderCounter counter : sellerOrderCounterRepository.findByIdSellerId(sellerId)) {
+            counts.put(counter.getId().getStatus(), counter.getCount());
+        }
+        return counts;
+    }
+
+    /**
+     * Rebuilds every night the counters of all the sellers from their order products.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Rebuilds the counters of all the sellers that have order products, one batch of sellers per transaction.
+     *
+     * @return the number of sellers reconciled.
+     */
+    public long reconcile() {
+        long lastId = 0;
+        long reconciled = 0;
+
+        while (true) {
+            List<Long> sellerIds = orderProductRepository.findSellerIdsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (sellerIds.isEmpty()) {
+                return reconciled;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> rebuild(sellerIds));
+            reconciled += sellerIds.size();
+            lastId = sellerIds.getLast();
+        }
+    }
+
+    /**
+     * Creates the counters of a seller in a separate transaction if they do not exist yet. The check is a plain read,
+     * so that the caller's transaction holds no lock that the separate transaction would wait for. If another
+     * transaction created the counters first the existing ones are kept.
+     *
+     * @param sellerId the ID of the seller.
+     */
+    private void ensureCounters(long sellerId) {
+        if (sellerOrderCounterRepository.existsByIdSellerId(sellerId)) {
+            return;
+        }
+
+        try {
+            seedTransactionTemplate.executeWithoutResult(status -> rebuild(List.of(sellerId)));
+        } catch (DataIntegrityViolationException e) {
+            // I contatori sono stati creati da un'altra transazione
+        }
+    }
+
+    /**
+     * Overwrites the counters of the given sellers with the counts of their order products. The existing counters are
+     * locked first, so that concurrent increments wait for the rebuilt values instead of being lost.
+     *
+     * @param sellerIds the IDs of the sellers.
+     */
+    private void rebuild(Collection<Long> sellerIds) {
+        Map<SellerOrderCounterId, SellerOrderCounter> existing = new HashMap<>();
+        for (SellerOrderCounter counter : sellerOrderCounterRepository.lockBySellerIds(sellerIds)) {
+            existing.put(counter.getId(), counter);
+        }
+
+        Map<Long, Map<OrderProductStatus, Long>> countsBySeller = new HashMap<>();
+        for (Long sellerId : sellerIds) {
+            countsBySeller.put(sellerId, emptyCounts());
+        }
+        for (Object[] row : orderProductRepository.countBySellerAndStatus(sellerIds)) {
+            countsBySeller.get((Long) row[0]).put((OrderProductStatus) row[1], (Long) row[2]);
+        }
+
+        List<SellerOrderCounter> counters = new ArrayList<>();
+        countsBySeller.forEach((sellerId, counts) -> counts.forEach((status, count) -> {
+            SellerOrderCounter counter = existing.get(new SellerOrderCounterId(sellerId, status));
+            if (counter == null) {
+                counter = new SellerOrderCounter(sellerId, status, count);
+            } else {
+                counter.setCount(count);
+            }
+            counters.add(counter);
+        }));
+
+        sellerOrderCounterRepository.saveAll(counters);
+        sellerOrderCounterRepository.flush();
+    }
+
+    private static Map<OrderProductStatus, Long> emptyCounts() {
+        Map<OrderProductStatus, Long> counts = new EnumMap<>(OrderProductStatus.class);
+        for (OrderProductStatus status : OrderProductStatus.values()) {
+            counts.put(status, 0L);
+        }
+        return counts;
+    }
+}
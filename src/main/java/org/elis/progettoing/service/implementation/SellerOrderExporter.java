@@ -0,0 +1,124 @@
+package org.elis.progettoing.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.elis.progettoing.dto.response.order.OrderExportRowDTO;
+import org.elis.progettoing.enumeration.ExportFormat;
+import org.elis.progettoing.repository.OrderProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service class that writes the orders received by a seller to an output stream, one order product per row.
+ * <p>
+ * The rows are read through a database cursor with a fixed fetch size and written as soon as they are read, so the
+ * memory used does not depend on the number of exported orders. The rows are projected directly into
+ * {@link OrderExportRowDTO}, without loading the entity graph, and the output and the persistence context are flushed
+ * and cleared every {@value #FLUSH_EVERY_ROWS} rows.
+ * </p>
+ */
+@Service
+public class SellerOrderExporter {
+    private static final String CSV_HEADER = "orderId,orderDate,buyerNickname,orderProductId,productId,productTitle,packageType,packagePrice,status,estimatedDeliveryDate";
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final OrderProductRepository orderProductRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs an instance of {@code SellerOrderExporter}.
+     *
+     * @param orderProductRepository the repository for managing order product entities.
+     * @param entityManager          the {@link EntityManager} cleared while the rows are written.
+     * @param objectMapper           the mapper used to write the NDJSON rows.
+     */
+    public SellerOrderExporter(OrderProductRepository orderProductRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.orderProductRepository = orderProductRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes all the order products received by a seller, sorted by order, in the requested format.
+     *
+     * @param sellerId     the ID of the seller.
+     * @param format       the format of the export.
+     * @param outputStream the stream the rows are written to; it is flushed but not closed.
+     * @return the number of exported rows.
+     * @throws IOException if the rows cannot be written.
+     */
+    @Transactional(readOnly = true)
+    public long export(long sellerId, ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        try (Stream<OrderExportRowDTO> stream = orderProductRepository.streamSellerExportRows(sellerId)) {
+            Iterator<OrderExportRowDTO> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                writeRow(writer, format, iterator.next());
+                rows++;
+
+                if (rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+
+        writer.flush();
+        return rows;
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, OrderExportRowDTO row) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(row));
+        } else {
+            writer.write(String.join(",",
+                    String.valueOf(row.getOrderId()),
+                    csvValue(row.getOrderDate()),
+                    csvValue(row.getBuyerNickname()),
+                    String.valueOf(row.getOrderProductId()),
+                    String.valueOf(row.getProductId()),
+                    csvValue(row.getProductTitle()),
+                    csvValue(row.getPackageType()),
+                    String.valueOf(row.getPackagePrice()),
+                    csvValue(row.getStatus()),
+                    csvValue(row.getEstimatedDeliveryDate())));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Formats a value as a CSV field, quoting it when it contains separators, quotes or line breaks. Text starting
+     * with a formula character is prefixed with an apostrophe, so that spreadsheets do not evaluate it.
+     *
+     * @param value the value to format, possibly {@code null}.
+     * @return the CSV field.
+     */
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,154 @@
+package org.elis.progettoing.service.implementation;
+
+import org.elis.progettoing.models.Ticket;
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
+import org.elis.progettoing.utils.customConcurrency.CoalescingPass;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Service class that rescores the open tickets at the instant they cross an age boundary.
+ * <p>
+ * The age of a ticket changes its priority only when it turns one, three and six days old, so there is no need to
+ * rescore every open ticket periodically. A single timer waits for the next boundary of any open ticket, found on the
+ * index of the creation date, and triggers a pass that rescores only the tickets whose boundary passed since the
+ * previous pass. Each pass schedules the timer for the following boundary, and a new ticket brings the timer forward
+ * when its first boundary comes earlier. The first pass after the startup rescores every open ticket, and an hourly
+ * sweep runs the same pass in case a timer was lost.
+ * </p>
+ */
+@Service
+public class TicketAgingScheduler {
+    private final TicketPriorityAssigner ticketPriorityAssigner;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    private final CoalescingPass rescorePass = new CoalescingPass(this::rescore);
+    private LocalDateTime rescoredUntil;
+
+    private final Object timerLock = new Object();
+    private ScheduledFuture<?> timer;
+    private LocalDateTime timerDate;
+
+    /**
+     * Constructs an instance of {@code TicketAgingScheduler}.
+     *
+     * @param ticketPriorityAssigner the service that rescores the tickets.
+     * @param taskScheduler          the scheduler that runs the timer.
+     * @param transactionManager     the transaction manager used to apply each pass.
+     */
+    public TicketAgingScheduler(TicketPriorityAssigner ticketPriorityAssigner, TaskScheduler taskScheduler, PlatformTransactionManager transactionManager) {
+        this.ticketPriorityAssigner = ticketPriorityAssigner;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Rescores every open ticket and schedules the first boundary once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rescoreDue();
+    }
+
+    /**
+     * Starts tracking a ticket that has just been created, bringing the timer forward if its first boundary comes
+     * before the scheduled one. When called inside a transaction the timer is changed only after the commit.
+     *
+     * @param ticket the ticket to track.
+     */
+    public void track(Ticket ticket) {
+        LocalDateTime boundary = TicketPriorityAssigner.firstAgeBoundary(ticket.getCreationDate());
+
+        AfterCommit.run(() -> schedule(boundary));
+    }
+
+    /**
+     * Runs every hour the pass in case the timer was lost or failed.
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void sweep() {
+        rescoreDue();
+    }
+
+    /**
+     * Rescores the open tickets whose boundary passed since the previous pass, or every open ticket on the first
+     * pass, and schedules the timer for the next boundary. Requests arriving while a pass is running are merged into
+     * a single following pass.
+     */
+    public void rescoreDue() {
+        rescorePass.request();
+    }
+
+    /**
+     * Returns the instant of the next scheduled pass.
+     *
+     * @return the instant of the next boundary, or {@code null} if no timer is scheduled.
+     */
+    public LocalDateTime getNextBoundary() {
+        synchronized (timerLock) {
+            return timer == null ? null : timerDate;
+        }
+    }
+
+    private void rescore() {
+        cancelTimer();
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = rescoredUntil;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (from == null) {
+                ticketPriorityAssigner.updateOpenTicketPriorities();
+            } else {
+                ticketPriorityAssigner.updateAgedOpenTicketPriorities(from, now);
+            }
+        });
+        rescoredUntil = now;
+
+        LocalDateTime next = ticketPriorityAssigner.findNextAgeBoundary(now);
+        if (next != null) {
+            schedule(next);
+        }
+    }
+
+    private void schedule(LocalDateTime boundary) {
+        synchronized (timerLock) {
+            // Il timer già programmato per un confine precedente copre anche questo
+            if (timer != null && !timerDate.isAfter(boundary)) {
+                return;
+            }
+
+            if (timer != null) {
+                timer.cancel(false);
+            }
+
+            timer = taskScheduler.schedule(this::rescoreDue, toInstant(boundary));
+            timerDate = boundary;
+        }
+    }
+
+    private void cancelTimer() {
+        synchronized (timerLock) {
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+                timerDate = null;
+            }
+        }
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
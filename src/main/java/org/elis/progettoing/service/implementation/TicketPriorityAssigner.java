@@ -1,12 +1,13 @@
 package org.elis.progettoing.service.implementation;
 
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.enumeration.PriorityFlag;
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.enumeration.TicketType;
 import org.elis.progettoing.models.Review;
 import org.elis.progettoing.models.Ticket;
 import org.elis.progettoing.models.User;
 import org.elis.progettoing.models.product.Product;
-import org.elis.progettoing.models.product.PurchasedProduct;
 import org.elis.progettoing.repository.PurchasedProductRepository;
 import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.repository.TicketRepository;
@@ -14,7 +15,13 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service class that assigns a priority to a given ticket based on various criteria.
@@ -26,6 +33,8 @@ public class TicketPriorityAssigner {
     private final ReviewRepository reviewRepository;
     private final TicketRepository ticketRepository;
     private final PurchasedProductRepository purchasedProductRepository;
+    private final ModerationSignalStore moderationSignalStore;
+    private final Signals storedSignals;
 
     private static final int LOW_REPUTATION_SCORE = 10;
     private static final int MEDIUM_REPUTATION_SCORE = 5;
@@ -39,6 +48,13 @@ public class TicketPriorityAssigner {
     private static final int MODERATE_TICKET_SCORE = 10;
     private static final int OLD_TICKET_SCORE = 5;
 
+    private static final int URGENT_TICKET_DAYS = 1;
+    private static final int RECENT_TICKET_DAYS = 2;
+    private static final int MODERATE_TICKET_DAYS = 5;
+
+    // Età in giorni a cui cambiano i punteggi di età e di combinazione di un ticket
+    private static final int[] AGE_BOUNDARY_DAYS = {URGENT_TICKET_DAYS, RECENT_TICKET_DAYS + 1, MODERATE_TICKET_DAYS + 1};
+
     private static final int OPEN_TICKETS_THRESHOLD = 3;
     private static final int OPEN_TICKETS_SCORE = 8;
 
@@ -51,51 +67,263 @@ public class TicketPriorityAssigner {
     private static final double LOW_RATING_THRESHOLD = 2.5;
     private static final int NEGATIVE_REVIEW_SCORE = 20;
 
+    private static final int UPDATE_BATCH_SIZE = 500;
+
     /**
      * Constructs a TicketPriorityAssigner service to assign priorities to tickets.
      *
      * @param ticketRepository           the repository for tickets
      * @param purchasedProductRepository the repository for purchased products
+     * @param reviewRepository           the repository for reviews
+     * @param moderationSignalStore      the store of the counters read to assign the priority of a single ticket
      */
-    public TicketPriorityAssigner(TicketRepository ticketRepository, PurchasedProductRepository purchasedProductRepository, ReviewRepository reviewRepository) {
+    public TicketPriorityAssigner(TicketRepository ticketRepository, PurchasedProductRepository purchasedProductRepository, ReviewRepository reviewRepository, ModerationSignalStore moderationSignalStore) {
         this.ticketRepository = ticketRepository;
         this.purchasedProductRepository = purchasedProductRepository;
         this.reviewRepository = reviewRepository;
+        this.moderationSignalStore = moderationSignalStore;
+        this.storedSignals = new Signals() {
+            @Override
+            public long count(ModerationSignal signal, long targetId) {
+                return moderationSignalStore.getCount(signal, targetId);
+            }
+
+            @Override
+            public double averageRating(long userId) {
+                return moderationSignalStore.getAverageRating(userId);
+            }
+        };
     }
 
     /**
      * Assigns a priority flag to the given ticket based on various factors like ticket type,
      * severity, age, state, and additional scores calculated based on user behavior, product popularity, etc.
+     * The counters are read from the {@link ModerationSignalStore}, so no query is needed once they are cached.
      *
      * @param ticket the ticket to assign a priority to
      * @return the priority flag (HIGH, MEDIUM, LOW)
      */
     public PriorityFlag assignPriorityToTicket(Ticket ticket) {
+        return assignPriorityToTicket(ticket, ticket.getState());
+    }
+
+    /**
+     * Assigns a priority flag to the given ticket as if it were in the given state, so that the priority of a
+     * transition can be computed before the state of the ticket is changed.
+     *
+     * @param ticket the ticket to assign a priority to
+     * @param state  the state the ticket is moving to
+     * @return the priority flag (HIGH, MEDIUM, LOW)
+     */
+    public PriorityFlag assignPriorityToTicket(Ticket ticket, TicketState state) {
+        LocalDateTime now = LocalDateTime.now();
+
+        return determinePriority(ticket.getType(), state, ticket.getCreationDate(), calculateSeverityScore(ticket), now);
+    }
+
+    /**
+     * Recomputes the priority of every open ticket, that is every ticket neither accepted nor refused.
+     * <p>
+     * Instead of querying the counters of each ticket, the counters of all the reported products, users and reviews
+     * are loaded at once with a few grouped queries and every ticket is scored in memory with the same criteria of
+     * {@link #assignPriorityToTicket(Ticket)}. Only the priorities that changed are written back, with one update per
+     * priority level.
+     * </p>
+     *
+     * @return the number of tickets whose priority changed
+     */
+    public int updateOpenTicketPriorities() {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> tickets = ticketRepository.findOpenTicketPriorityRows();
+        if (tickets.isEmpty()) {
+            return 0;
+        }
+
+        Map<ModerationSignal, Aggregate> counts = new EnumMap<>(ModerationSignal.class);
+        counts.put(ModerationSignal.PRODUCT_REPORTS, Aggregate.of(ticketRepository.countTicketsByReportedProductOfOpenTickets()));
+        counts.put(ModerationSignal.USER_REPORTS, Aggregate.of(ticketRepository.countTicketsByReportedUserOfOpenTickets()));
+        counts.put(ModerationSignal.REVIEW_REPORTS, Aggregate.of(ticketRepository.countTicketsByReportedReviewOfOpenTickets()));
+        counts.put(ModerationSignal.PRODUCT_PURCHASES, Aggregate.of(purchasedProductRepository.countPurchasesOfProductsReportedInOpenTickets()));
+        counts.put(ModerationSignal.BUYER_PURCHASES, Aggregate.of(purchasedProductRepository.countPurchasesOfBuyersReportedInOpenTickets()));
+        Aggregate ratingsByAuthor = Aggregate.of(reviewRepository.getAverageRatingsOfAuthorsReportedInOpenTickets(now.minusDays(30)));
+
+        return rescore(tickets, new AggregatedSignals(counts, ratingsByAuthor), now);
+    }
+
+    /**
+     * Recomputes the priority of the open tickets that crossed an age boundary within the given interval.
+     * <p>
+     * The age of a ticket changes its score only when it turns one, three and six days old, so the tickets to rescore
+     * are those created one, three or six days before the interval: each of them is found with a range on the
+     * creation date. The counters are read from the {@link ModerationSignalStore}, as for a single ticket, since only
+     * a few tickets cross a boundary at a time.
+     * </p>
+     *
+     * @param from the start of the interval, exclusive
+     * @param to   the end of the interval, inclusive, used as the current date
+     * @return the number of tickets whose priority changed
+     */
+    public int updateAgedOpenTicketPriorities(LocalDateTime from, LocalDateTime to) {
+        List<Object[]> tickets = new ArrayList<>();
+        Set<Long> ticketIds = new HashSet<>();
+
+        for (int days : AGE_BOUNDARY_DAYS) {
+            for (Object[] row : ticketRepository.findOpenTicketPriorityRowsCreatedBetween(from.minusDays(days), to.minusDays(days))) {
+                // Se l'intervallo supera i due giorni lo stesso ticket può attraversare più soglie
+                if (ticketIds.add(((Number) row[0]).longValue())) {
+                    tickets.add(row);
+                }
+            }
+        }
+
+        return rescore(tickets, storedSignals, to);
+    }
+
+    /**
+     * Returns the first instant after the given date at which an open ticket crosses an age boundary.
+     *
+     * @param after the date after which the boundary is searched
+     * @return the instant of the next boundary, or {@code null} if no open ticket will cross one
+     */
+    public LocalDateTime findNextAgeBoundary(LocalDateTime after) {
+        LocalDateTime next = null;
+
+        for (int days : AGE_BOUNDARY_DAYS) {
+            LocalDateTime creationDate = ticketRepository.findFirstOpenTicketCreationDateAfter(after.minusDays(days));
+            if (creationDate != null && (next == null || creationDate.plusDays(days).isBefore(next))) {
+                next = creationDate.plusDays(days);
+            }
+        }
+
+        return next;
+    }
+
+    /**
+     * Returns the instant at which a ticket created at the given date crosses its first age boundary.
+     *
+     * @param creationDate the creation date of the ticket
+     * @return the instant of the first boundary
+     */
+    public static LocalDateTime firstAgeBoundary(LocalDateTime creationDate) {
+        return creationDate.plusDays(AGE_BOUNDARY_DAYS[0]);
+    }
+
+    /**
+     * Scores the given tickets and writes back the priorities that changed, with one update per priority level.
+     *
+     * @param tickets the rows of the tickets, as returned by {@link TicketRepository#findOpenTicketPriorityRows()}
+     * @param signals the counters of the reported entities
+     * @param now     the current date
+     * @return the number of tickets whose priority changed
+     */
+    private int rescore(List<Object[]> tickets, Signals signals, LocalDateTime now) {
+        Map<PriorityFlag, List<Long>> changed = new EnumMap<>(PriorityFlag.class);
+
+        for (Object[] row : tickets) {
+            TicketType type = (TicketType) row[1];
+
+            PriorityFlag priority = determinePriority(type, (TicketState) row[2], (LocalDateTime) row[3], calculateSeverityScore(type, row, signals), now);
+            if (priority != row[4]) { // Aggiorna solo se cambia la priorità
+                changed.computeIfAbsent(priority, flag -> new ArrayList<>()).add(((Number) row[0]).longValue());
+            }
+        }
+
+        int updated = 0;
+        for (Map.Entry<PriorityFlag, List<Long>> entry : changed.entrySet()) {
+            List<Long> ticketIds = entry.getValue();
+            for (int from = 0; from < ticketIds.size(); from += UPDATE_BATCH_SIZE) {
+                List<Long> batch = ticketIds.subList(from, Math.min(from + UPDATE_BATCH_SIZE, ticketIds.size()));
+                // I ticket accettati o rifiutati nel frattempo non vengono toccati
+                updated += ticketRepository.updatePriorityFlag(entry.getKey(), batch);
+            }
+        }
+
+        return updated;
+    }
+
+    /**
+     * Calculates the severity score of a ticket loaded as a row, with the same criteria of
+     * {@link #calculateSeverityScore(Ticket)}.
+     *
+     * @param type    the type of the ticket
+     * @param row     the row of the ticket
+     * @param signals the counters of the reported entities
+     * @return the severity score for the ticket
+     */
+    private static double calculateSeverityScore(TicketType type, Object[] row, Signals signals) {
+        double severityScore = 0.0;
+
+        if (type == TicketType.REPORT_PRODUCT && row[5] != null) {
+            long productId = ((Number) row[5]).longValue();
+            severityScore += calculateReputationScore(ranking(row[6]));
+            severityScore += calculateProductPopularityScore(signals.count(ModerationSignal.PRODUCT_PURCHASES, productId));
+            severityScore += calculateOpenTicketsScore(signals.count(ModerationSignal.PRODUCT_REPORTS, productId));
+        }
+
+        if (type == TicketType.REPORT_USER && row[7] != null) {
+            long userId = ((Number) row[7]).longValue();
+            long complaintCount = signals.count(ModerationSignal.USER_REPORTS, userId);
+            severityScore += calculateReputationScore(ranking(row[8]));
+            severityScore += calculateOpenTicketsScore(complaintCount);
+            severityScore += calculateTransactionFrequencyScore(signals.count(ModerationSignal.BUYER_PURCHASES, userId));
+            severityScore += calculateComplaintFrequencyScore(complaintCount);
+        }
+
+        if (type == TicketType.REPORT_REVIEWS && row[9] != null) {
+            severityScore += calculateReputationScore(ranking(row[11]));
+            severityScore += calculateOpenTicketsScore(signals.count(ModerationSignal.REVIEW_REPORTS, ((Number) row[9]).longValue()));
+            severityScore += calculateNegativeReviewScore(row[10] == null ? 0 : signals.averageRating(((Number) row[10]).longValue()));
+        }
+
+        return severityScore;
+    }
+
+    /**
+     * Combines the scores of a ticket into its priority level.
+     *
+     * @param type          the type of the ticket
+     * @param state         the state of the ticket
+     * @param creationDate  the creation date of the ticket
+     * @param severityScore the severity score of the reported entity
+     * @param now           the current date
+     * @return the priority flag (HIGH, MEDIUM, LOW)
+     */
+    private PriorityFlag determinePriority(TicketType type, TicketState state, LocalDateTime creationDate, double severityScore, LocalDateTime now) {
         double priorityScore = 0.0;
 
-        priorityScore += calculateBasePriorityScore(ticket);
-        priorityScore += calculateSeverityScore(ticket);
-        priorityScore += calculateAgeScore(ticket);
-        priorityScore += calculateStateScore(ticket);
-        priorityScore += calculateCombinationScore(ticket);
+        priorityScore += calculateBasePriorityScore(type);
+        priorityScore += severityScore;
+        priorityScore += calculateAgeScore(creationDate, now);
+        priorityScore += calculateStateScore(state);
+        priorityScore += calculateCombinationScore(type, creationDate, now);
 
         // Penalizzazione specifica per i "SELLER_REQUEST"
-        if (ticket.getType() == TicketType.SELLER_REQUEST) {
+        if (type == TicketType.SELLER_REQUEST) {
             priorityScore -= 10; // Penalizzazione extra
         }
 
         return determinePriorityLevel(priorityScore);
     }
 
+    /**
+     * Reads a ranking loaded by a query, treating a missing user as a user without ranking.
+     *
+     * @param ranking the ranking, or {@code null}
+     * @return the ranking as a double
+     */
+    private static double ranking(Object ranking) {
+        return ranking == null ? 0 : ((Number) ranking).doubleValue();
+    }
 
     /**
      * Calculates the base priority score based on the ticket type.
      *
-     * @param ticket the ticket to calculate the base priority score for
+     * @param type the type of the ticket to calculate the base priority score for
      * @return the base priority score based on ticket type
      */
-    private int calculateBasePriorityScore(Ticket ticket) {
-        return switch (ticket.getType()) {
+    private static int calculateBasePriorityScore(TicketType type) {
+        return switch (type) {
             case SELLER_REQUEST -> 20;
             case REPORT_REVIEWS -> 25;
             case REPORT_USER -> 30;
@@ -143,20 +371,25 @@ public class TicketPriorityAssigner {
      * @return the product's severity score
      */
     private double calculateProductSeverityScore(Product product) {
-        int score = 0;
-
-        List<PurchasedProduct> purchasedProducts = purchasedProductRepository.findByProduct(product);
-        int productOrderCount = purchasedProducts.size();
+        return calculateProductPopularityScore(moderationSignalStore.getCount(ModerationSignal.PRODUCT_PURCHASES, product.getId()));
+    }
 
+    /**
+     * Calculates the product popularity score based on the number of times the product was purchased.
+     *
+     * @param productOrderCount the number of purchases of the product
+     * @return the product popularity score
+     */
+    private static int calculateProductPopularityScore(long productOrderCount) {
         if (productOrderCount > 100) {
-            score += PRODUCT_POPULARITY_HIGH;
+            return PRODUCT_POPULARITY_HIGH;
         } else if (productOrderCount > 50) {  // Modifica qui
-            score += PRODUCT_POPULARITY_MEDIUM;
+            return PRODUCT_POPULARITY_MEDIUM;
         } else if (productOrderCount > 0) {
-            score += PRODUCT_POPULARITY_LOW;
+            return PRODUCT_POPULARITY_LOW;
         }
 
-        return score;
+        return 0;
     }
 
     /**
@@ -166,9 +399,19 @@ public class TicketPriorityAssigner {
      * @return the user reputation score
      */
     private double calculateUserReputationScore(User user) {
-        if (user.getRanking() < 1) {
+        return calculateReputationScore(user.getRanking());
+    }
+
+    /**
+     * Calculates the reputation score based on a ranking.
+     *
+     * @param ranking the ranking of the user
+     * @return the reputation score
+     */
+    private static int calculateReputationScore(double ranking) {
+        if (ranking < 1) {
             return LOW_REPUTATION_SCORE;
-        } else if (user.getRanking() < 3) {
+        } else if (ranking < 3) {
             return MEDIUM_REPUTATION_SCORE;
         } else {
             return HIGH_REPUTATION_SCORE;
@@ -182,8 +425,7 @@ public class TicketPriorityAssigner {
      * @return the open tickets score for the user
      */
     private int calculateOpenTicketsForUser(User user) {
-        long openTicketsCount = ticketRepository.countByReportedUser(user);
-        return openTicketsCount > OPEN_TICKETS_THRESHOLD ? OPEN_TICKETS_SCORE : 0;
+        return calculateOpenTicketsScore(moderationSignalStore.getCount(ModerationSignal.USER_REPORTS, user.getId()));
     }
 
     /**
@@ -193,8 +435,7 @@ public class TicketPriorityAssigner {
      * @return the open tickets score for the review
      */
     private int calculateOpenTicketsForReview(Review review) {
-        long openTicketsCount = ticketRepository.countByReportedReview(review);
-        return openTicketsCount > OPEN_TICKETS_THRESHOLD ? OPEN_TICKETS_SCORE : 0;
+        return calculateOpenTicketsScore(moderationSignalStore.getCount(ModerationSignal.REVIEW_REPORTS, review.getId()));
     }
 
     /**
@@ -204,22 +445,32 @@ public class TicketPriorityAssigner {
      * @return the open tickets score for the product
      */
     private int calculateOpenTicketsForProduct(Product product) {
-        long openTicketsCount = ticketRepository.countByReportedProduct(product);
+        return calculateOpenTicketsScore(moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, product.getId()));
+    }
+
+    /**
+     * Returns the open tickets score if the number of tickets exceeds the threshold.
+     *
+     * @param openTicketsCount the number of tickets reporting the same entity
+     * @return the open tickets score
+     */
+    private static int calculateOpenTicketsScore(long openTicketsCount) {
         return openTicketsCount > OPEN_TICKETS_THRESHOLD ? OPEN_TICKETS_SCORE : 0;
     }
 
     /**
      * Calculates the age score based on the ticket creation date.
      *
-     * @param ticket the ticket to calculate the age score for
+     * @param creationDate the creation date of the ticket
+     * @param now          the current date
      * @return the age score for the ticket
      */
-    private int calculateAgeScore(Ticket ticket) {
-        long daysOld = ChronoUnit.DAYS.between(ticket.getCreationDate(), LocalDateTime.now());
+    private static int calculateAgeScore(LocalDateTime creationDate, LocalDateTime now) {
+        long daysOld = ChronoUnit.DAYS.between(creationDate, now);
 
-        if (daysOld <= 2) {
+        if (daysOld <= RECENT_TICKET_DAYS) {
             return RECENT_TICKET_SCORE;
-        } else if (daysOld <= 5) {
+        } else if (daysOld <= MODERATE_TICKET_DAYS) {
             return MODERATE_TICKET_SCORE;
         } else {
             return OLD_TICKET_SCORE;
@@ -229,24 +480,26 @@ public class TicketPriorityAssigner {
     /**
      * Calculates the score based on the current state of the ticket.
      *
-     * @param ticket the ticket to calculate the state score for
+     * @param state the state of the ticket
      * @return the state score for the ticket
      */
-    private int calculateStateScore(Ticket ticket) {
-        return "In attesa".equals(ticket.getState()) || "In lavorazione".equals(ticket.getState()) ? STATE_PENDING_SCORE : 0;
+    private static int calculateStateScore(TicketState state) {
+        return state == TicketState.PENDING || state == TicketState.TAKEN_ON ? STATE_PENDING_SCORE : 0;
     }
 
     /**
      * Calculates an additional score for a seller request ticket if it is recent (created within the last 24 hours).
      *
-     * @param ticket the ticket to calculate the combination score for
+     * @param type         the type of the ticket
+     * @param creationDate the creation date of the ticket
+     * @param now          the current date
      * @return the combination score for the ticket
      */
-    private int calculateCombinationScore(Ticket ticket) {
-        if (ticket.getType() == TicketType.SELLER_REQUEST) {
+    private static int calculateCombinationScore(TicketType type, LocalDateTime creationDate, LocalDateTime now) {
+        if (type == TicketType.SELLER_REQUEST) {
             return 0;
         }
-        return ticket.getCreationDate().isAfter(LocalDateTime.now().minusDays(1)) ? URGENT_SELLER_REQUEST_SCORE : 0;
+        return creationDate.isAfter(now.minusDays(URGENT_TICKET_DAYS)) ? URGENT_SELLER_REQUEST_SCORE : 0;
     }
 
     /**
@@ -256,7 +509,16 @@ public class TicketPriorityAssigner {
      * @return the transaction frequency score for the user
      */
     private int calculateTransactionFrequencyScore(User user) {
-        long transactionCount = purchasedProductRepository.countByBuyer(user);
+        return calculateTransactionFrequencyScore(moderationSignalStore.getCount(ModerationSignal.BUYER_PURCHASES, user.getId()));
+    }
+
+    /**
+     * Returns the transaction frequency score if the number of purchases exceeds the threshold.
+     *
+     * @param transactionCount the number of purchases of the user
+     * @return the transaction frequency score
+     */
+    private static int calculateTransactionFrequencyScore(long transactionCount) {
         return transactionCount > 50 ? HIGH_TRANSACTION_FREQUENCY_SCORE : 0;
     }
 
@@ -267,7 +529,16 @@ public class TicketPriorityAssigner {
      * @return the complaint frequency score for the user
      */
     private int calculateComplaintFrequencyScore(User user) {
-        long complaintCount = ticketRepository.countByReportedUser(user);
+        return calculateComplaintFrequencyScore(moderationSignalStore.getCount(ModerationSignal.USER_REPORTS, user.getId()));
+    }
+
+    /**
+     * Returns the complaint frequency score if the number of complaints exceeds the threshold.
+     *
+     * @param complaintCount the number of tickets reporting the user
+     * @return the complaint frequency score
+     */
+    private static int calculateComplaintFrequencyScore(long complaintCount) {
         return complaintCount > 10 ? HIGH_COMPLAINT_FREQUENCY_SCORE : 0;
     }
 
@@ -278,7 +549,16 @@ public class TicketPriorityAssigner {
      * @return the negative review score for the user
      */
     private int calculateNegativeReviewScore(long userId) {
-        double avgRating = reviewRepository.getAverageRatingForSeller(userId, LocalDateTime.now().minusDays(30));
+        return calculateNegativeReviewScore(moderationSignalStore.getAverageRating(userId));
+    }
+
+    /**
+     * Returns the negative review score if the average rating is below the threshold.
+     *
+     * @param avgRating the average rating of the reviews of the last 30 days
+     * @return the negative review score
+     */
+    private static int calculateNegativeReviewScore(double avgRating) {
         return avgRating < LOW_RATING_THRESHOLD ? NEGATIVE_REVIEW_SCORE : 0;
     }
 
@@ -288,7 +568,7 @@ public class TicketPriorityAssigner {
      * @param priorityScore the total priority score
      * @return the determined priority level (HIGH, MEDIUM, LOW)
      */
-    private PriorityFlag determinePriorityLevel(double priorityScore) {
+    private static PriorityFlag determinePriorityLevel(double priorityScore) {
         if (priorityScore >= 80) {
             return PriorityFlag.HIGH;
         } else if (priorityScore >= 50) {
@@ -297,4 +577,62 @@ public class TicketPriorityAssigner {
             return PriorityFlag.LOW;
         }
     }
+
+    /**
+     * The counters of the reported entities read to score a ticket.
+     */
+    private interface Signals {
+        long count(ModerationSignal signal, long targetId);
+
+        double averageRating(long userId);
+    }
+
+    /**
+     * Counters loaded at once by the grouped queries.
+     */
+    private record AggregatedSignals(Map<ModerationSignal, Aggregate> counts, Aggregate ratings) implements Signals {
+        @Override
+        public long count(ModerationSignal signal, long targetId) {
+            return (long) counts.get(signal).get(targetId);
+        }
+
+        @Override
+        public double averageRating(long userId) {
+            return ratings.get(userId);
+        }
+    }
+
+    /**
+     * Values grouped by entity id, as returned by a grouped query ordered by id.
+     */
+    private static final class Aggregate {
+        private final long[] ids;
+        private final double[] values;
+
+        private Aggregate(long[] ids, double[] values) {
+            this.ids = ids;
+            this.values = values;
+        }
+
+        static Aggregate of(List<Object[]> rows) {
+            long[] ids = new long[rows.size()];
+            double[] values = new double[rows.size()];
+
+            for (int i = 0; i < ids.length; i++) {
+                Object[] row = rows.get(i);
+                ids[i] = ((Number) row[0]).longValue();
+                values[i] = row[1] == null ? 0 : ((Number) row[1]).doubleValue();
+            }
+
+            return new Aggregate(ids, values);
+        }
+
+        /**
+         * Returns the value of an entity, or 0 when the query returned no row for it.
+         */
+        double get(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index < 0 ? 0 : values[index];
+        }
+    }
 }
@@ -11,8 +11,10 @@ import org.elis.progettoing.dto.request.ticket.TicketFilterRequest;
 import org.elis.progettoing.dto.request.ticket.TicketRequestDTO;
 import org.elis.progettoing.dto.response.ticket.FilteredTicketsResponse;
 import org.elis.progettoing.dto.response.ticket.TicketResponseDTO;
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.enumeration.PriorityFlag;
 import org.elis.progettoing.enumeration.Role;
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.enumeration.TicketType;
 import org.elis.progettoing.exception.EmailSendingException;
 import org.elis.progettoing.exception.TicketActionException;
@@ -46,6 +48,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Implementazione del servizio per la gestione dei ticket.
@@ -67,6 +70,9 @@ public class TicketServiceImpl implements TicketService {
     private final LocalStorageService localStorageService;
 
     private final EntityManager entityManager;
+    private final ModerationSignalStore moderationSignalStore;
+    private final TicketAgingScheduler ticketAgingScheduler;
+    private final TicketWorkQueue ticketWorkQueue;
 
     /**
      * Costruttore del servizio TicketServiceImpl.
@@ -81,10 +87,13 @@ public class TicketServiceImpl implements TicketService {
      * @param productRepository      il repository dei prodotti.
      * @param ticketMapper           il mapper per la conversione dei ticket.
      * @param reviewService          il servizio per la gestione delle recensioni.
+     * @param moderationSignalStore  l'archivio dei contatori delle segnalazioni.
+     * @param ticketAgingScheduler   il servizio che aggiorna la priorità dei ticket al cambio della loro età.
+     * @param ticketWorkQueue        la coda che assegna i ticket in attesa ai moderatori.
      */
     public TicketServiceImpl(TicketPriorityAssigner ticketPriorityAssigner, UserRepository userRepository, TicketRepository ticketRepository, EmailServiceImpl emailService,
                              UserServiceImpl userService, ProductServiceImpl productService,
-                             ReviewRepository reviewRepository, ProductRepository productRepository, TicketMapper ticketMapper, ReviewService reviewService, LocalStorageService localStorageService, EntityManager entityManager) {
+                             ReviewRepository reviewRepository, ProductRepository productRepository, TicketMapper ticketMapper, ReviewService reviewService, LocalStorageService localStorageService, EntityManager entityManager, ModerationSignalStore moderationSignalStore, TicketAgingScheduler ticketAgingScheduler, TicketWorkQueue ticketWorkQueue) {
         this.ticketPriorityAssigner = ticketPriorityAssigner;
         this.userRepository = userRepository;
         this.ticketRepository = ticketRepository;
@@ -97,6 +106,9 @@ public class TicketServiceImpl implements TicketService {
         this.reviewService = reviewService;
         this.localStorageService = localStorageService;
         this.entityManager = entityManager;
+        this.moderationSignalStore = moderationSignalStore;
+        this.ticketAgingScheduler = ticketAgingScheduler;
+        this.ticketWorkQueue = ticketWorkQueue;
     }
 
     /**
@@ -140,7 +152,7 @@ public class TicketServiceImpl implements TicketService {
         ticket.setTicketRequester(user);
 
         PendingState pendingState = new PendingState(emailService);
-        ticket.setState(pendingState.getStatusMessage());
+        ticket.setState(TicketState.PENDING);
 
         PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(ticket);
         ticket.setPriorityFlag(priority);
@@ -152,6 +164,8 @@ public class TicketServiceImpl implements TicketService {
             throw new InvalidEntityDataException(TICKET, "user id", ticket.getTicketRequester().getId(), "L'utente ha già una richiesta di venditore in sospeso.");
         }
 
+        ticketAgingScheduler.track(ticket);
+
         return ticketMapper.ticketToTicketDTO(ticket);
     }
 
@@ -246,7 +260,7 @@ public class TicketServiceImpl implements TicketService {
         }
 
         PendingState pendingState = new PendingState(emailService);
-        ticket.setState(pendingState.getStatusMessage());
+        ticket.setState(TicketState.PENDING);
 
         PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(ticket);
         ticket.setPriorityFlag(priority);
@@ -258,6 +272,18 @@ public class TicketServiceImpl implements TicketService {
             throw new InvalidEntityDataException(TICKET, "ID utente", ticket.getTicketRequester().getId(), "L'utente ha già una segnalazione in sospeso.");
         }
 
+        ticketAgingScheduler.track(ticket);
+
+        // Conta la segnalazione per le priorità dei prossimi ticket sulla stessa entità
+        switch (ticketType) {
+            case REPORT_REVIEWS -> moderationSignalStore.increment(ModerationSignal.REVIEW_REPORTS, ticket.getReportedReview().getId(), 1);
+            case REPORT_USER -> moderationSignalStore.increment(ModerationSignal.USER_REPORTS, ticket.getReportedUser().getId(), 1);
+            case REPORT_PRODUCT -> moderationSignalStore.increment(ModerationSignal.PRODUCT_REPORTS, ticket.getReportedProduct().getId(), 1);
+            default -> {
+                // Le richieste per diventare venditore non sono segnalazioni
+            }
+        }
+
         return ticketMapper.ticketToTicketDTO(ticket);
     }
 
@@ -325,7 +351,7 @@ public class TicketServiceImpl implements TicketService {
      * @param id l'ID del ticket da accettare.
      * @return la risposta contenente i dettagli del ticket accettato.
      * @throws EntityNotFoundException se il ticket con l'ID fornito non esiste.
-     * @throws TicketActionException   se il ticket non può essere accettato.
+     * @throws TicketActionException   se il ticket non può essere accettato o non è in carico al moderatore autenticato.
      * @throws EmailSendingException   se si verifica un errore durante l'invio dell'email di notifica.
      * @throws EntityEditException     se si verifica un errore durante la modifica del ticket.
      */
@@ -335,19 +361,12 @@ public class TicketServiceImpl implements TicketService {
         Ticket ticket = ticketRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(TICKET, "ID", id));
 
-        if (ticket.getStateTicket() instanceof AcceptedState) {
-            throw new TicketActionException(id, "accettare", ticket.getState());
+        if (ticket.getState() != TicketState.TAKEN_ON) {
+            throw new TicketActionException(id, "accettare", statusMessageOf(ticket));
         }
 
-        if (!"In lavorazione".equals(ticket.getState())) {
-            throw new TicketActionException(id, "accettare", ticket.getState());
-        }
-
-        AcceptedState acceptedState = new AcceptedState(emailService, userService, productService, reviewService);
-        ticket.setState(acceptedState.getStatusMessage());
-
-        PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(ticket);
-        ticket.setPriorityFlag(priority);
+        PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(ticket, TicketState.ACCEPTED);
+        resolve(id, ticket, authenticatedUser(), TicketState.ACCEPTED, priority, "accettare");
 
         if (ticket.getType() == TicketType.SELLER_REQUEST) {
             User user = ticket.getTicketRequester();
@@ -363,13 +382,8 @@ public class TicketServiceImpl implements TicketService {
             }
         }
 
-        try {
-            ticketRepository.save(ticket);
-        } catch (Exception e) {
-            throw new EntityEditException(TICKET, "id", id);
-        }
-
         // Tenta di inviare l'email, ignorando qualsiasi eccezione
+        AcceptedState acceptedState = new AcceptedState(emailService, userService, productService, reviewService);
         try {
             acceptedState.handle(ticket, responseDescriptionEmail);
         } catch (Exception e) {
@@ -387,7 +401,7 @@ public class TicketServiceImpl implements TicketService {
      * @param id l'ID del ticket da rifiutare.
      * @return la risposta contenente i dettagli del ticket rifiutato.
      * @throws EntityNotFoundException se il ticket con l'ID fornito non esiste.
-     * @throws TicketActionException   se il ticket non può essere rifiutato.
+     * @throws TicketActionException   se il ticket non può essere rifiutato o non è in carico al moderatore autenticato.
      * @throws EmailSendingException   se si verifica un errore durante l'invio dell'email di notifica.
      * @throws EntityEditException     se si verifica un errore durante la modifica del ticket.
      */
@@ -397,30 +411,16 @@ public class TicketServiceImpl implements TicketService {
         Ticket ticket = ticketRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(TICKET, "id", id));
 
-        if (ticket.getStateTicket() instanceof RefuseState) {
-            throw new TicketActionException(id, "rifiutare", ticket.getState());
+        if (ticket.getState() != TicketState.TAKEN_ON) {
+            throw new TicketActionException(id, "rifiutare", statusMessageOf(ticket));
         }
 
-        if (!"In lavorazione".equals(ticket.getState())) {
-            throw new TicketActionException(id, "rifiutare", ticket.getState());
-        }
-
-        // Imposta il nuovo stato come rifiutato
-        RefuseState refuseState = new RefuseState(emailService);
-        ticket.setState(refuseState.getStatusMessage());
-
-        // Assegna una priorità
-        PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(ticket);
-        ticket.setPriorityFlag(priority);
-
-        try {
-            // Salva il ticket aggiornato
-            ticket = ticketRepository.save(ticket);
-        } catch (Exception e) {
-            throw new EntityEditException(TICKET, "id", id);
-        }
+        // Assegna la priorità e imposta il nuovo stato come rifiutato
+        PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(ticket, TicketState.REFUSED);
+        resolve(id, ticket, authenticatedUser(), TicketState.REFUSED, priority, "rifiutare");
 
         // Tenta di inviare l'email, ignorando qualsiasi eccezione
+        RefuseState refuseState = new RefuseState(emailService);
         try {
             refuseState.handle(ticket, responseDescriptionEmail);
         } catch (Exception e) {
@@ -432,7 +432,8 @@ public class TicketServiceImpl implements TicketService {
     }
 
     /**
-     * Prende in carico un ticket.
+     * Prende in carico un ticket, assegnandolo al moderatore autenticato con un lease che scade dopo
+     * {@link TicketWorkQueue#LEASE_DURATION}, come per i ticket assegnati dalla coda.
      *
      * @param id l'ID del ticket da prendere in carico.
      * @return la risposta contenente i dettagli del ticket preso in carico.
@@ -447,28 +448,53 @@ public class TicketServiceImpl implements TicketService {
         Ticket ticket = ticketRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(TICKET, "id", id));
 
-        if (ticket.getStateTicket() instanceof TakeOnState) {
-            throw new TicketActionException(id, "prendere in carico", ticket.getState());
+        if (ticket.getState() != TicketState.PENDING) {
+            throw new TicketActionException(id, "prendere in carico", statusMessageOf(ticket));
         }
 
-        if (!"In attesa".equals(ticket.getState())) {
-            throw new TicketActionException(id, "prendere in carico", ticket.getState());
+        boolean claimed;
+        try {
+            claimed = ticketWorkQueue.claim(ticket, authenticatedUser());
+        } catch (Exception e) {
+            throw new EntityEditException(TICKET, "id", id);
         }
 
+        if (!claimed) {
+            throw new TicketActionException(id, "prendere in carico");
+        }
+
+        // Tenta di inviare l'email, ignorando qualsiasi eccezione
         TakeOnState takeOnState = new TakeOnState(emailService);
-        ticket.setState(takeOnState.getStatusMessage());
+        try {
+            takeOnState.handle(ticket, null);
+        } catch (Exception e) {
+            // Ignora l'eccezione senza log o gestione ulteriore
+        }
 
-        PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(ticket);
-        ticket.setPriorityFlag(priority);
+        return ticketMapper.ticketToTicketDTO(ticket);
+    }
 
+    /**
+     * Assegna al moderatore autenticato il ticket in attesa con la priorità più alta e la data di creazione più
+     * vecchia. Il ticket viene preso in carico con un lease che scade dopo {@link TicketWorkQueue#LEASE_DURATION}, al
+     * termine del quale torna in attesa se non è stato accettato, rifiutato o rinnovato.
+     *
+     * @return la risposta contenente i dettagli del ticket assegnato, o {@code null} se non ci sono ticket in attesa.
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class, noRollbackFor = EmailSendingException.class)
+    public TicketResponseDTO claimNextTicket() {
+        User moderator = authenticatedUser();
 
-        try {
-            ticket = ticketRepository.save(ticket);
-        } catch (Exception e) {
-            throw new EntityEditException(TICKET, "id", id);
+        Optional<Ticket> claimed = ticketWorkQueue.claimNext(moderator);
+        if (claimed.isEmpty()) {
+            return null;
         }
 
+        Ticket ticket = claimed.get();
+
         // Tenta di inviare l'email, ignorando qualsiasi eccezione
+        TakeOnState takeOnState = new TakeOnState(emailService);
         try {
             takeOnState.handle(ticket, null);
         } catch (Exception e) {
@@ -478,6 +504,81 @@ public class TicketServiceImpl implements TicketService {
         return ticketMapper.ticketToTicketDTO(ticket);
     }
 
+    /**
+     * Rinnova il lease di un ticket assegnato al moderatore autenticato.
+     *
+     * @param id l'ID del ticket.
+     * @return la risposta contenente i dettagli del ticket con il nuovo lease.
+     * @throws EntityNotFoundException se il ticket con l'ID fornito non esiste.
+     * @throws TicketActionException   se il ticket non è assegnato al moderatore o il suo lease è scaduto.
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public TicketResponseDTO renewTicketLease(long id) {
+        User moderator = authenticatedUser();
+
+        Ticket ticket = ticketRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(TICKET, "id", id));
+
+        LocalDateTime leaseExpiresAt = ticketWorkQueue.renewLease(id, moderator);
+        if (leaseExpiresAt == null) {
+            throw new TicketActionException(id, "rinnovare la presa in carico", statusMessageOf(ticket));
+        }
+
+        entityManager.detach(ticket);
+        ticket.setLeaseExpiresAt(leaseExpiresAt);
+        return ticketMapper.ticketToTicketDTO(ticket);
+    }
+
+    /**
+     * Accetta o rifiuta un ticket con un unico UPDATE condizionato allo stato in lavorazione e al lease del moderatore,
+     * senza bloccare la riga. Se il lease è scaduto o il ticket è passato a un altro moderatore nessuna riga viene
+     * aggiornata e l'azione viene rifiutata.
+     *
+     * @param id        l'ID del ticket.
+     * @param ticket    il ticket letto.
+     * @param moderator il moderatore che esegue l'azione.
+     * @param to        il nuovo stato del ticket.
+     * @param priority  la priorità del ticket nel nuovo stato.
+     * @param action    l'azione eseguita, riportata nell'errore.
+     * @throws TicketActionException se il ticket non è in carico al moderatore o il suo stato è cambiato dopo la lettura.
+     * @throws EntityEditException   se si verifica un errore durante la modifica del ticket.
+     */
+    private void resolve(long id, Ticket ticket, User moderator, TicketState to, PriorityFlag priority, String action) {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (ticket.getModerator() == null || ticket.getModerator().getId() != moderator.getId()
+                || (ticket.getLeaseExpiresAt() != null && !ticket.getLeaseExpiresAt().isAfter(now))) {
+            throw new TicketActionException(id, action, moderator.getId());
+        }
+
+        int updated;
+        try {
+            updated = ticketRepository.resolve(id, moderator.getId(), now, to, priority);
+        } catch (Exception e) {
+            throw new EntityEditException(TICKET, "id", id);
+        }
+
+        if (updated == 0) {
+            throw new TicketActionException(id, action);
+        }
+
+        // Lo stato è già stato scritto: il ticket letto non deve essere salvato di nuovo al commit
+        entityManager.detach(ticket);
+        ticket.setState(to);
+        ticket.setPriorityFlag(priority);
+        ticket.setLeaseExpiresAt(null);
+    }
+
+    private static User authenticatedUser() {
+        UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        return (User) authentication.getPrincipal();
+    }
+
+    private static String statusMessageOf(Ticket ticket) {
+        return ticket.getState() == null ? null : ticket.getState().getStatusMessage();
+    }
+
     @Override
     public List<TicketResponseDTO> getResolvedTickets() {
         List<Ticket> resolvedTickets = ticketRepository.findByStateAcceptedOrRefused();
@@ -527,15 +628,19 @@ public class TicketServiceImpl implements TicketService {
         List<TicketResponseDTO> ticketDTOs = ticketMapper.ticketsToTicketDTOs(tickets);
 
         // Dividi i ticket in base allo stato
-        List<TicketResponseDTO> pendingTickets = ticketDTOs.stream()
-                .filter(ticket -> "In attesa".equals(ticket.getState()))
-                .toList();
-        List<TicketResponseDTO> resolvedTickets = ticketDTOs.stream()
-                .filter(ticket -> "Accettato".equals(ticket.getState()) || "Rifiutato".equals(ticket.getState()))
-                .toList();
-        List<TicketResponseDTO> takeOnTickets = ticketDTOs.stream()
-                .filter(ticket -> "In lavorazione".equals(ticket.getState()))
-                .toList();
+        List<TicketResponseDTO> pendingTickets = new ArrayList<>();
+        List<TicketResponseDTO> resolvedTickets = new ArrayList<>();
+        List<TicketResponseDTO> takeOnTickets = new ArrayList<>();
+        for (int i = 0; i < tickets.size(); i++) {
+            TicketState state = tickets.get(i).getState();
+            if (state == TicketState.PENDING) {
+                pendingTickets.add(ticketDTOs.get(i));
+            } else if (state == TicketState.ACCEPTED || state == TicketState.REFUSED) {
+                resolvedTickets.add(ticketDTOs.get(i));
+            } else if (state == TicketState.TAKEN_ON) {
+                takeOnTickets.add(ticketDTOs.get(i));
+            }
+        }
 
         // Crea la risposta finale con tutti i gruppi di ticket
         FilteredTicketsResponse response = new FilteredTicketsResponse();
@@ -623,16 +728,14 @@ public class TicketServiceImpl implements TicketService {
         }
     }
 
-    @Scheduled(cron = "0 0 * * * *")
+    /**
+     * Recomputes every night the priority of all the open tickets, after the counters of the reports have been
+     * reconciled. The changes due to the age of the tickets are applied as they happen by the
+     * {@link TicketAgingScheduler}, so this pass only catches up with the counters of the reported entities.
+     */
+    @Scheduled(cron = "0 30 4 * * *")
     @Transactional
     public void updatePriorities() {
-        List<Ticket> tickets = ticketRepository.findAllOpenTickets(); // Trova solo i ticket aperti
-        for (Ticket ticket : tickets) {
-            PriorityFlag newPriority = ticketPriorityAssigner.assignPriorityToTicket(ticket);
-            if (!ticket.getPriorityFlag().equals(newPriority)) { // Aggiorna solo se cambia la priorità
-                ticket.setPriorityFlag(newPriority);
-                ticketRepository.save(ticket);
-            }
-        }
+        ticketPriorityAssigner.updateOpenTicketPriorities();
     }
 }
@@ -0,0 +1,155 @@
+package org.elis.progettoing.service.implementation;
+
+import jakarta.persistence.EntityManager;
+import org.elis.progettoing.enumeration.PriorityFlag;
+import org.elis.progettoing.enumeration.TicketState;
+import org.elis.progettoing.models.Ticket;
+import org.elis.progettoing.models.User;
+import org.elis.progettoing.repository.TicketRepository;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service class that hands out the pending tickets to the moderators one at a time.
+ * <p>
+ * A moderator claims the pending ticket with the highest priority and the oldest creation date, and holds it with a
+ * lease that expires after {@link #LEASE_DURATION} unless it is renewed. The claim walks the index on the state, the
+ * priority and the creation date one priority level at a time. On databases that support it the candidate is read
+ * with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so concurrent moderators lock different rows instead of waiting on
+ * the same one. On the other databases, such as H2, a window of candidates is read without locks and each one is
+ * claimed with an update conditioned on the pending state, moving to the next candidate when another moderator got
+ * there first. Only the moderator holding an unexpired lease can accept or refuse the ticket, and the tickets whose
+ * lease expired are put back in the queue every minute.
+ * </p>
+ */
+@Service
+public class TicketWorkQueue {
+    public static final Duration LEASE_DURATION = Duration.ofMinutes(30);
+
+    private static final PriorityFlag[] PRIORITY_ORDER = {PriorityFlag.HIGH, PriorityFlag.MEDIUM, PriorityFlag.LOW};
+    private static final int CANDIDATE_WINDOW = 10;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final TicketRepository ticketRepository;
+    private final TicketPriorityAssigner ticketPriorityAssigner;
+    private final EntityManager entityManager;
+    private final boolean skipLocked;
+
+    /**
+     * Constructs an instance of {@code TicketWorkQueue}.
+     *
+     * @param ticketRepository       the repository of the tickets.
+     * @param ticketPriorityAssigner the service that computes the priority of a ticket in its new state.
+     * @param entityManager          the entity manager, also used to find out whether the database can skip the
+     *                               locked rows.
+     */
+    public TicketWorkQueue(TicketRepository ticketRepository, TicketPriorityAssigner ticketPriorityAssigner, EntityManager entityManager) {
+        this.ticketRepository = ticketRepository;
+        this.ticketPriorityAssigner = ticketPriorityAssigner;
+        this.entityManager = entityManager;
+        this.skipLocked = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().supportsSkipLocked();
+    }
+
+    /**
+     * Claims for the given moderator the pending ticket with the highest priority and the oldest creation date. The
+     * ticket is taken on and leased to the moderator until {@link #LEASE_DURATION} from now.
+     *
+     * @param moderator the moderator claiming the ticket.
+     * @return the claimed ticket, or an empty optional if there are no pending tickets.
+     */
+    public Optional<Ticket> claimNext(User moderator) {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (PriorityFlag priority : PRIORITY_ORDER) {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                List<Ticket> candidates = skipLocked
+                        ? ticketRepository.lockNextPendingTickets(priority, PageRequest.of(0, 1))
+                        : ticketRepository.findNextPendingTickets(priority, PageRequest.of(0, CANDIDATE_WINDOW));
+
+                if (candidates.isEmpty()) {
+                    break;
+                }
+
+                for (Ticket candidate : candidates) {
+                    if (claim(candidate, moderator, now)) {
+                        return Optional.of(candidate);
+                    }
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Extends by {@link #LEASE_DURATION} from now the lease of a ticket held by the given moderator.
+     *
+     * @param ticketId  the ID of the ticket.
+     * @param moderator the moderator holding the ticket.
+     * @return the new expiry of the lease, or {@code null} if the moderator no longer holds the ticket.
+     */
+    public LocalDateTime renewLease(long ticketId, User moderator) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseExpiresAt = now.plus(LEASE_DURATION);
+
+        return ticketRepository.renewLease(ticketId, moderator.getId(), now, leaseExpiresAt) == 0 ? null : leaseExpiresAt;
+    }
+
+    /**
+     * Puts back in the queue every minute the tickets whose lease expired before they were accepted or refused, and
+     * the tickets taken on by nobody, such as the ones of a deleted moderator.
+     *
+     * @return the number of tickets put back in the queue.
+     */
+    @Scheduled(cron = "0 * * * * *")
+    @Transactional
+    public int releaseExpiredLeases() {
+        int released = 0;
+
+        for (Ticket ticket : ticketRepository.findExpiredLeases(LocalDateTime.now())) {
+            PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(ticket, TicketState.PENDING);
+
+            // Un lease rinnovato nel frattempo non corrisponde più e il ticket resta al moderatore
+            released += ticketRepository.releaseLease(ticket.getId(), ticket.getLeaseExpiresAt(), priority);
+        }
+
+        return released;
+    }
+
+    /**
+     * Claims a given pending ticket for the given moderator, leasing it until {@link #LEASE_DURATION} from now.
+     *
+     * @param ticket    the pending ticket to claim.
+     * @param moderator the moderator claiming the ticket.
+     * @return {@code true} if the ticket was claimed, {@code false} if it was no longer pending.
+     */
+    public boolean claim(Ticket ticket, User moderator) {
+        return claim(ticket, moderator, LocalDateTime.now());
+    }
+
+    private boolean claim(Ticket candidate, User moderator, LocalDateTime now) {
+        PriorityFlag priority = ticketPriorityAssigner.assignPriorityToTicket(candidate, TicketState.TAKEN_ON);
+        LocalDateTime leaseExpiresAt = now.plus(LEASE_DURATION);
+
+        if (ticketRepository.claim(candidate.getId(), moderator, leaseExpiresAt, priority) == 0) {
+            return false;
+        }
+
+        // Il ticket è già stato aggiornato: il candidato letto non deve essere salvato di nuovo al commit
+        entityManager.detach(candidate);
+        candidate.setState(TicketState.TAKEN_ON);
+        candidate.setPriorityFlag(priority);
+        candidate.setModerator(moderator);
+        candidate.setLeaseExpiresAt(leaseExpiresAt);
+        return true;
+    }
+}
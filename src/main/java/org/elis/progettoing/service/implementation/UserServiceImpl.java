@@ -14,11 +14,13 @@ import org.elis.progettoing.exception.entity.EntityEditException;
 import org.elis.progettoing.exception.entity.EntityNotFoundException;
 import org.elis.progettoing.mapper.definition.UserMapper;
 import org.elis.progettoing.models.User;
+import org.elis.progettoing.repository.OrderProductRepository;
 import org.elis.progettoing.repository.ProductRepository;
 import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.repository.TicketRepository;
 import org.elis.progettoing.repository.UserRepository;
 import org.elis.progettoing.service.definition.UserService;
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
 import org.hibernate.Hibernate;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -28,6 +30,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -40,17 +43,21 @@ public class UserServiceImpl implements UserService {
     private final TicketRepository ticketRepository;
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
+    private final OrderProductRepository orderProductRepository;
 
     private final EntityManager entityManager;
+    private final OrderSearchIndex orderSearchIndex;
 
-    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, LocalStorageService localStorageService, TicketRepository ticketRepository, ReviewRepository reviewRepository, ProductRepository productRepository, EntityManager entityManager) {
+    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, LocalStorageService localStorageService, TicketRepository ticketRepository, ReviewRepository reviewRepository, ProductRepository productRepository, OrderProductRepository orderProductRepository, EntityManager entityManager, OrderSearchIndex orderSearchIndex) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.localStorageService = localStorageService;
         this.ticketRepository = ticketRepository;
         this.reviewRepository = reviewRepository;
         this.productRepository = productRepository;
+        this.orderProductRepository = orderProductRepository;
         this.entityManager = entityManager;
+        this.orderSearchIndex = orderSearchIndex;
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -66,6 +73,8 @@ public class UserServiceImpl implements UserService {
         }
 
         userToUpdate = existingUser.get();
+        boolean renamed = !Objects.equals(userToUpdate.getName(), userRequestDTO.getName())
+                || !Objects.equals(userToUpdate.getSurname(), userRequestDTO.getSurname());
         userToUpdate.setName(userRequestDTO.getName());
         userToUpdate.setSurname(userRequestDTO.getSurname());
         userToUpdate.setBirthDate(userRequestDTO.getBirthDate());
@@ -87,6 +96,12 @@ public class UserServiceImpl implements UserService {
             throw new EntityEditException(USER_NAME, "ID", userToUpdate.getId());
         }
 
+        // Il nome del buyer fa parte del testo di ricerca dei suoi ordini: l'indice si aggiorna dopo il commit
+        if (renamed) {
+            long buyerId = userToUpdate.getId();
+            AfterCommit.run(() -> orderSearchIndex.reindexBuyer(buyerId));
+        }
+
         return userMapper.userToUserResponseDTO(userToUpdate);
     }
 
@@ -146,11 +161,13 @@ public class UserServiceImpl implements UserService {
             localStorageService.deleteImage(userToRemove.getUrlUserPhoto());
         }
 
-        // Unset the user from all tickets, reviews and products
+        // Unset the user from all tickets, reviews, products and sold order products
         ticketRepository.unsetReportedUser(userId);
         ticketRepository.unsetRequesterId(userId);
+        ticketRepository.unsetModerator(userId);
         reviewRepository.unsetUser(userId);
         productRepository.unsetUser(userId);
+        orderProductRepository.unsetSeller(userId);
 
         try {
             userRepository.delete(userToRemove);
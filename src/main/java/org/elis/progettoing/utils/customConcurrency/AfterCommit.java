@@ -0,0 +1,35 @@
+package org.elis.progettoing.utils.customConcurrency;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utility class that defers an action until the commit of the current transaction.
+ * <p>
+ * The in-memory state kept next to the database, such as caches, timers and pushed events, must change only once
+ * the change that caused it is visible to the other transactions, and must not change at all if it is rolled back.
+ * </p>
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs an action after the commit of the current transaction, or at once when no transaction is active.
+     *
+     * @param action the action to run.
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
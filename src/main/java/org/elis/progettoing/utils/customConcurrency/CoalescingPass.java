@@ -0,0 +1,44 @@
+package org.elis.progettoing.utils.customConcurrency;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pass over the database that runs on one thread at a time, used by the schedulers whose timers and sweeps can
+ * fire together.
+ * <p>
+ * A request arriving while the pass is running does not wait for it: it is remembered, and the thread running the
+ * pass runs it once more when it finishes. Any number of requests arriving during a pass are merged into that single
+ * following pass, which sees every change made before them.
+ * </p>
+ */
+public final class CoalescingPass {
+    private final Runnable pass;
+    private final ReentrantLock passLock = new ReentrantLock();
+    private final AtomicBoolean passRequested = new AtomicBoolean();
+
+    /**
+     * Constructs an instance of {@code CoalescingPass}.
+     *
+     * @param pass the pass to run.
+     */
+    public CoalescingPass(Runnable pass) {
+        this.pass = pass;
+    }
+
+    /**
+     * Runs the pass, or lets the thread already running it run it once more.
+     */
+    public void request() {
+        passRequested.set(true);
+
+        while (passRequested.get() && passLock.tryLock()) {
+            try {
+                passRequested.set(false);
+                pass.run();
+            } finally {
+                passLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.elis.progettoing.utils.customConverter;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.elis.progettoing.enumeration.TicketState;
+
+/**
+ * A custom JPA AttributeConverter that stores a {@link TicketState} as its status message, so that the states
+ * already saved in the database keep their values.
+ */
+@Converter
+public class TicketStateConverter implements AttributeConverter<TicketState, String> {
+
+    /**
+     * Converts a ticket state to its status message for database storage.
+     *
+     * @param attribute The ticket state to convert. Can be null.
+     * @return The status message of the state, or null if the input is null.
+     */
+    @Override
+    public String convertToDatabaseColumn(TicketState attribute) {
+        return attribute == null ? null : attribute.getStatusMessage();
+    }
+
+    /**
+     * Converts a status message from the database back to a ticket state.
+     *
+     * @param dbData The status message from the database. Can be null.
+     * @return The ticket state with the given status message, or null if the input is null.
+     */
+    @Override
+    public TicketState convertToEntityAttribute(String dbData) {
+        return dbData == null ? null : TicketState.fromStatusMessage(dbData);
+    }
+}
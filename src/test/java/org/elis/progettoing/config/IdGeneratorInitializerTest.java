@@ -0,0 +1,36 @@
+package org.elis.progettoing.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdGeneratorInitializerTest {
+
+    @Test
+    void alignGenerators_withoutGeneratorRow_insertsItPastTheHighestId() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COALESCE(MAX(id), 0)"), eq(Long.class))).thenReturn(0L);
+        when(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM orders", Long.class)).thenReturn(120L);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Integer.class), anyString())).thenReturn(0);
+
+        new IdGeneratorInitializer(jdbcTemplate).alignGenerators();
+
+        verify(jdbcTemplate).update("INSERT INTO id_generator (entity_name, next_val) VALUES (?, ?)", "orders", 171L);
+        verify(jdbcTemplate, times(IdGeneratorInitializer.GENERATED_TABLES.size()))
+                .update(startsWith("INSERT INTO id_generator"), anyString(), anyLong());
+    }
+
+    @Test
+    void alignGenerators_withGeneratorRow_onlyMovesItForward() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COALESCE(MAX(id), 0)"), eq(Long.class))).thenReturn(10L);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Integer.class), anyString())).thenReturn(1);
+
+        new IdGeneratorInitializer(jdbcTemplate).alignGenerators();
+
+        verify(jdbcTemplate).update("UPDATE id_generator SET next_val = ? WHERE entity_name = ? AND next_val < ?", 61L, "purchased_product", 61L);
+        verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(Object[].class));
+    }
+}
@@ -1,8 +1,11 @@
 package org.elis.progettoing.controllers;
 
 import org.elis.progettoing.dto.request.auction.AuctionRequestDTO;
+import org.elis.progettoing.dto.response.auction.AuctionDashboardItemDTO;
 import org.elis.progettoing.dto.response.auction.AuctionDetailsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionListingCacheMetricsDTO;
 import org.elis.progettoing.dto.response.auction.AuctionSummaryDTO;
+import org.elis.progettoing.dto.response.auction.OwnerAuctionDashboardDTO;
 import org.elis.progettoing.service.definition.AuctionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -244,6 +247,35 @@ class AuctionControllerTest {
                 .andExpect(jsonPath("$[0]").exists());
     }
 
+    @Test
+    void getOwnerAuctionDashboard_ReturnsGroupedAuctions() throws Exception {
+        AuctionDashboardItemDTO item = new AuctionDashboardItemDTO();
+        item.setId(1L);
+        OwnerAuctionDashboardDTO dashboard = new OwnerAuctionDashboardDTO();
+        dashboard.setOpenAuctions(List.of(item));
+        dashboard.setPendingAuctions(List.of());
+        dashboard.setClosedAuctions(List.of());
+        when(auctionService.getOwnerAuctionDashboard()).thenReturn(dashboard);
+
+        mockMvc.perform(get("/api/auction/dashboard"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openAuctions[0].id").value(1L))
+                .andExpect(jsonPath("$.pendingAuctions").isEmpty());
+    }
+
+    @Test
+    void getListingCacheMetrics_ReturnsMetrics() throws Exception {
+        AuctionListingCacheMetricsDTO metrics = new AuctionListingCacheMetricsDTO();
+        metrics.setHits(3);
+        metrics.setHitRatio(0.75);
+        when(auctionService.getListingCacheMetrics()).thenReturn(metrics);
+
+        mockMvc.perform(get("/api/auction/cacheMetrics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.hitRatio").value(0.75));
+    }
+
     @Test
     void getAuctionSubscriptionByAuctionId_ReturnsTrue_WhenUserIsSubscribed() throws Exception {
         when(auctionService.getAuctionSubscriptionByAuctionId(1L)).thenReturn(true);
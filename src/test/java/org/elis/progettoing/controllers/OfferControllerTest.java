@@ -1,6 +1,7 @@
 package org.elis.progettoing.controllers;
 
 import org.elis.progettoing.dto.request.auction.OfferRequestDTO;
+import org.elis.progettoing.dto.response.auction.OfferRankDTO;
 import org.elis.progettoing.dto.response.auction.OfferResponseDTO;
 import org.elis.progettoing.service.definition.OfferService;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.when;
@@ -106,7 +108,7 @@ class OfferControllerTest {
 
     @Test
     void testGetOffersByAuctionId() throws Exception {
-        when(offerService.getAllOffersByAuction(1L))
+        when(offerService.getAllOffersByAuction(1L, 0, null))
                 .thenReturn(Collections.singletonList(offerResponseDTO));
 
         mockMvc.perform(get("/api/offer/getOffersByAuctionId")
@@ -118,6 +120,19 @@ class OfferControllerTest {
                 .andExpect(jsonPath("$[0].price").value(100.0));
     }
 
+    @Test
+    void testGetOffersByAuctionIdWithPage() throws Exception {
+        when(offerService.getAllOffersByAuction(1L, 10, 5))
+                .thenReturn(Collections.singletonList(offerResponseDTO));
+
+        mockMvc.perform(get("/api/offer/getOffersByAuctionId")
+                        .param("auctionId", "1")
+                        .param("offset", "10")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
     @Test
     void testGetOfferByUser() throws Exception {
         when(offerService.getOfferByUser(1L))
@@ -131,4 +146,29 @@ class OfferControllerTest {
                 .andExpect(jsonPath("$.deliveryTimeProposed").value(5L))
                 .andExpect(jsonPath("$.price").value(100.0));
     }
+
+    @Test
+    void testGetTopOffers() throws Exception {
+        when(offerService.getTopOffers(1L, 3))
+                .thenReturn(List.of(new OfferRankDTO(1L, 2L, 100.0, 5L, 0.8, 1)));
+
+        mockMvc.perform(get("/api/offer/getTopOffers")
+                        .param("auctionId", "1")
+                        .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].offerId").value(1L))
+                .andExpect(jsonPath("$[0].rank").value(1));
+    }
+
+    @Test
+    void testGetOfferRankByUser() throws Exception {
+        when(offerService.getOfferRankByUser(1L))
+                .thenReturn(new OfferRankDTO(1L, 2L, 100.0, 5L, 0.8, 4));
+
+        mockMvc.perform(get("/api/offer/getOfferRankByUser")
+                        .param("auctionId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sellerId").value(2L))
+                .andExpect(jsonPath("$.rank").value(4));
+    }
 }
@@ -1,11 +1,19 @@
 package org.elis.progettoing.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elis.progettoing.dto.request.order.OrderFacetRequest;
 import org.elis.progettoing.dto.request.order.OrderFilterRequest;
+import org.elis.progettoing.dto.request.order.OrderProductBulkStatusRequest;
 import org.elis.progettoing.dto.request.order.OrderRequestDTO;
+import org.elis.progettoing.dto.response.order.FacetedOrdersResponse;
 import org.elis.progettoing.dto.response.order.FilteredOrdersResponse;
+import org.elis.progettoing.dto.response.order.OrderDeadlineMetricsDTO;
+import org.elis.progettoing.dto.response.order.OrderFacetDTO;
 import org.elis.progettoing.dto.response.order.OrderProductResponseDTO;
+import org.elis.progettoing.dto.response.order.OrderProductTransitionResultDTO;
 import org.elis.progettoing.dto.response.order.OrderResponseDTO;
+import org.elis.progettoing.enumeration.ExportFormat;
+import org.elis.progettoing.enumeration.OrderProductStatus;
 import org.elis.progettoing.service.definition.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,16 +24,25 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -79,7 +96,7 @@ class OrderControllerTest {
         orderResponseDTO.setOrderProducts(Collections.emptyList());
         orderResponseDTO.setTotalPrice(5000L);
 
-        when(orderService.getOrderByUser()).thenReturn(List.of(orderResponseDTO));
+        when(orderService.getOrderByUser(null, 20)).thenReturn(List.of(orderResponseDTO));
 
         mockMvc.perform(get("/api/order/getOrderByUser")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -111,7 +128,7 @@ class OrderControllerTest {
     @Test
     void getReceivedOrdersBySeller_ReturnsOrderList() throws Exception {
         List<OrderResponseDTO> orders = List.of(new OrderResponseDTO(), new OrderResponseDTO());
-        when(orderService.getReceivedOrdersBySeller()).thenReturn(orders);
+        when(orderService.getReceivedOrdersBySeller(null, 20)).thenReturn(orders);
 
         mockMvc.perform(get("/api/order/getReceivedOrdersBySeller"))
                 .andExpect(status().isOk())
@@ -120,17 +137,31 @@ class OrderControllerTest {
 
     @Test
     void getReceivedOrdersBySeller_ReturnsEmptyList() throws Exception {
-        when(orderService.getReceivedOrdersBySeller()).thenReturn(Collections.emptyList());
+        when(orderService.getReceivedOrdersBySeller(null, 20)).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/order/getReceivedOrdersBySeller"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    @Test
+    void getReceivedOrdersBySeller_WithCursor_ReturnsNextPage() throws Exception {
+        OrderResponseDTO order = new OrderResponseDTO();
+        order.setId(7L);
+        when(orderService.getReceivedOrdersBySeller(10L, 5)).thenReturn(List.of(order));
+
+        mockMvc.perform(get("/api/order/getReceivedOrdersBySeller")
+                        .param("cursor", "10")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(7L));
+    }
+
     @Test
     void getDelayedOrdersBySeller_ReturnsOrderList() throws Exception {
         List<OrderResponseDTO> orders = List.of(new OrderResponseDTO(), new OrderResponseDTO());
-        when(orderService.getDelayedOrdersBySeller()).thenReturn(orders);
+        when(orderService.getDelayedOrdersBySeller(null, 20)).thenReturn(orders);
 
         mockMvc.perform(get("/api/order/getDelayedOrdersBySeller"))
                 .andExpect(status().isOk())
@@ -140,7 +171,7 @@ class OrderControllerTest {
     @Test
     void getDeliveredOrdersBySeller_ReturnsOrderList() throws Exception {
         List<OrderResponseDTO> orders = List.of(new OrderResponseDTO(), new OrderResponseDTO());
-        when(orderService.getDeliveredOrdersBySeller()).thenReturn(orders);
+        when(orderService.getDeliveredOrdersBySeller(null, 20)).thenReturn(orders);
 
         mockMvc.perform(get("/api/order/getDeliveredOrdersBySeller"))
                 .andExpect(status().isOk())
@@ -150,7 +181,7 @@ class OrderControllerTest {
     @Test
     void getRefusedOrdersBySeller_ReturnsOrderList() throws Exception {
         List<OrderResponseDTO> orders = List.of(new OrderResponseDTO(), new OrderResponseDTO());
-        when(orderService.getRefusedOrdersBySeller()).thenReturn(orders);
+        when(orderService.getRefusedOrdersBySeller(null, 20)).thenReturn(orders);
 
         mockMvc.perform(get("/api/order/getRefusedOrdersBySeller"))
                 .andExpect(status().isOk())
@@ -160,7 +191,7 @@ class OrderControllerTest {
     @Test
     void getTakeOnOrdersBySeller_ReturnsOrderList() throws Exception {
         List<OrderResponseDTO> orders = List.of(new OrderResponseDTO(), new OrderResponseDTO());
-        when(orderService.getTakeOnOrdersBySeller()).thenReturn(orders);
+        when(orderService.getTakeOnOrdersBySeller(null, 20)).thenReturn(orders);
 
         mockMvc.perform(get("/api/order/getTakeOnOrdersBySeller"))
                 .andExpect(status().isOk())
@@ -170,7 +201,7 @@ class OrderControllerTest {
     @Test
     void getPendingOrdersBySeller_ReturnsOrderList() throws Exception {
         List<OrderResponseDTO> orders = List.of(new OrderResponseDTO(), new OrderResponseDTO());
-        when(orderService.getPendingOrdersBySeller()).thenReturn(orders);
+        when(orderService.getPendingOrdersBySeller(null, 20)).thenReturn(orders);
 
         mockMvc.perform(get("/api/order/getPendingOrdersBySeller"))
                 .andExpect(status().isOk())
@@ -188,6 +219,24 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.length()").value(7));
     }
 
+    @Test
+    void updateOrderProductsStatus_ReturnsResultForEachOrderProduct() throws Exception {
+        OrderProductBulkStatusRequest request = new OrderProductBulkStatusRequest();
+        request.setOrderProductIds(List.of(1L, 2L));
+        request.setStatus(OrderProductStatus.IN_PROGRESS);
+        when(orderService.updateOrderProductsStatus(request)).thenReturn(List.of(
+                new OrderProductTransitionResultDTO(1L, true, OrderProductStatus.IN_PROGRESS, null),
+                new OrderProductTransitionResultDTO(2L, false, null, "Prodotto dell'ordine non trovato tra quelli del venditore")));
+
+        mockMvc.perform(post("/api/order/updateOrderProductsStatus")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].updated").value(true))
+                .andExpect(jsonPath("$[1].updated").value(false));
+    }
+
     @Test
     void refuseSingleOrderProduct_ReturnsOrderResponse() throws Exception {
         OrderResponseDTO orderResponse = new OrderResponseDTO();
@@ -234,4 +283,70 @@ class OrderControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(6));
     }
+
+    @Test
+    void getFacetedOrdersBySeller_ReturnsFacets() throws Exception {
+        OrderFacetRequest facetRequest = new OrderFacetRequest();
+        facetRequest.setSize(5);
+        OrderFacetDTO pending = new OrderFacetDTO();
+        pending.setCount(12);
+        pending.setOrders(List.of(new OrderResponseDTO()));
+        pending.setNextCursor(40L);
+        FacetedOrdersResponse response = new FacetedOrdersResponse();
+        response.setPendingOrders(pending);
+
+        when(orderService.getFacetedOrdersBySeller(facetRequest)).thenReturn(response);
+
+        mockMvc.perform(post("/api/order/getFacetedOrdersBySeller")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(facetRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pendingOrders.count").value(12))
+                .andExpect(jsonPath("$.pendingOrders.orders.length()").value(1))
+                .andExpect(jsonPath("$.pendingOrders.nextCursor").value(40L));
+    }
+
+    @Test
+    void getOrderStatusCountsBySeller_ReturnsCounts() throws Exception {
+        Map<OrderProductStatus, Long> counts = new EnumMap<>(OrderProductStatus.class);
+        counts.put(OrderProductStatus.PENDING, 3L);
+        counts.put(OrderProductStatus.DELIVERED, 7L);
+
+        when(orderService.getOrderStatusCountsBySeller()).thenReturn(counts);
+
+        mockMvc.perform(get("/api/order/getOrderStatusCountsBySeller"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.PENDING").value(3))
+                .andExpect(jsonPath("$.DELIVERED").value(7));
+    }
+
+    @Test
+    void getDeadlineMetrics_ReturnsMetrics() throws Exception {
+        OrderDeadlineMetricsDTO metrics = new OrderDeadlineMetricsDTO();
+        metrics.setQueuedDeadlines(4);
+        metrics.setLastLagMillis(120);
+
+        when(orderService.getDeadlineMetrics()).thenReturn(metrics);
+
+        mockMvc.perform(get("/api/order/deadlineMetrics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queuedDeadlines").value(4))
+                .andExpect(jsonPath("$.lastLagMillis").value(120));
+    }
+
+    @Test
+    void exportOrdersBySeller_StreamsRowsAsAttachment() throws Exception {
+        StreamingResponseBody body = outputStream -> outputStream.write("{\"orderId\":1}\n".getBytes(StandardCharsets.UTF_8));
+        when(orderService.exportOrdersBySeller(ExportFormat.NDJSON)).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/api/order/exportOrdersBySeller").param("format", "NDJSON"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.ndjson\""))
+                .andExpect(content().string("{\"orderId\":1}\n"));
+    }
 }
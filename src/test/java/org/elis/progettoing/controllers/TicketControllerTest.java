@@ -293,6 +293,47 @@ class TicketControllerTest {
         verify(ticketService).takeOnTicket(1L);
     }
 
+    @Test
+    void testClaimNextTicket() throws Exception {
+        TicketResponseDTO ticketResponseDTO = new TicketResponseDTO();
+        ticketResponseDTO.setId(1L);
+        ticketResponseDTO.setState("In lavorazione");
+        ticketResponseDTO.setModeratorId(2L);
+
+        when(ticketService.claimNextTicket()).thenReturn(ticketResponseDTO);
+
+        mockMvc.perform(post("/api/ticket/claimNextTicket"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.moderatorId").value(2L));
+
+        verify(ticketService).claimNextTicket();
+    }
+
+    @Test
+    void testClaimNextTicket_WhenNoTicketIsPending() throws Exception {
+        when(ticketService.claimNextTicket()).thenReturn(null);
+
+        mockMvc.perform(post("/api/ticket/claimNextTicket"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void testRenewTicketLease() throws Exception {
+        TicketResponseDTO ticketResponseDTO = new TicketResponseDTO();
+        ticketResponseDTO.setId(1L);
+        ticketResponseDTO.setLeaseExpiresAt("2024-01-01T10:30:00");
+
+        when(ticketService.renewTicketLease(1L)).thenReturn(ticketResponseDTO);
+
+        mockMvc.perform(post("/api/ticket/renewTicketLease")
+                        .param("id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.leaseExpiresAt").value("2024-01-01T10:30:00"));
+
+        verify(ticketService).renewTicketLease(1L);
+    }
+
     @Test
     void testGetResolvedTickets() throws Exception {
         // Prepara la risposta mock
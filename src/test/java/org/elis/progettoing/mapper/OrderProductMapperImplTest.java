@@ -73,6 +73,7 @@ class OrderProductMapperImplTest {
         orderProduct.setStatus(OrderProductStatus.PENDING);
         orderProduct.setEstimatedDeliveryDate(LocalDateTime.now());
         orderProduct.setDescription("Description");
+        orderProduct.setReviewExist(true);
 
         OrderProductResponseDTO responseDTO = orderProductMapper.orderProductToOrderProductResponseDTO(orderProduct);
 
@@ -87,6 +88,7 @@ class OrderProductMapperImplTest {
         assertEquals(orderProduct.getEstimatedDeliveryDate().withNano(0), responseDTO.getEstimatedDeliveryDate().withNano(0));
         assertEquals("photo_url", responseDTO.getProductImagePhoto());
         assertEquals("Description", responseDTO.getDescriptionForSeller());
+        assertTrue(responseDTO.isHasReview());
     }
 
     @Test
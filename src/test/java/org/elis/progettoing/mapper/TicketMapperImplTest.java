@@ -3,6 +3,7 @@ package org.elis.progettoing.mapper;
 import org.elis.progettoing.dto.request.ticket.DemandSellerRequestDTO;
 import org.elis.progettoing.dto.request.ticket.TicketRequestDTO;
 import org.elis.progettoing.dto.response.ticket.TicketResponseDTO;
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.enumeration.TicketType;
 import org.elis.progettoing.mapper.implementation.TicketMapperImpl;
 import org.elis.progettoing.models.Ticket;
@@ -42,7 +43,7 @@ class TicketMapperImplTest {
         ticket.setTitle("Ticket title example");
         ticket.setDescription("Ticket description example");
         ticket.setTicketRequester(new User());
-        ticket.setState("OPEN");
+        ticket.setState(TicketState.PENDING);
         ticket.setType(TicketType.REPORT_PRODUCT);
 
         // Initialize TicketResponseDTO
@@ -50,7 +51,7 @@ class TicketMapperImplTest {
         ticketResponseDTO.setId(1L);
         ticketResponseDTO.setTitle("Ticket title example");
         ticketResponseDTO.setDescription("Ticket description example");
-        ticketResponseDTO.setState("OPEN");
+        ticketResponseDTO.setState("In attesa");
         ticketResponseDTO.setType("REPORT_PRODUCT");
 
         demandSellerRequestDTO = new DemandSellerRequestDTO();
@@ -87,7 +88,7 @@ class TicketMapperImplTest {
         assertNotNull(result);
         assertEquals("Ticket title example", result.getTitle());
         assertEquals("Ticket description example", result.getDescription());
-        assertEquals("OPEN", result.getState());
+        assertEquals("In attesa", result.getState());
         assertEquals("REPORT_PRODUCT", result.getType());
     }
 
@@ -134,7 +135,7 @@ class TicketMapperImplTest {
         ticket2.setTitle("Second Ticket");
         ticket2.setDescription("Second Description");
         ticket2.setTicketRequester(new User());
-        ticket2.setState("CLOSED");
+        ticket2.setState(TicketState.ACCEPTED);
         ticket2.setType(TicketType.REPORT_USER);
 
         // When
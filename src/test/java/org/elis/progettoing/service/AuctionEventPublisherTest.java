@@ -0,0 +1,187 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.controllers.AuctionController;
+import org.elis.progettoing.dto.response.auction.OfferResponseDTO;
+import org.elis.progettoing.enumeration.AuctionStatus;
+import org.elis.progettoing.service.definition.AuctionService;
+import org.elis.progettoing.service.implementation.AuctionEventPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class AuctionEventPublisherTest {
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private AuctionService auctionService;
+
+    private AuctionEventPublisher auctionEventPublisher;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        auctionEventPublisher = new AuctionEventPublisher(taskScheduler, Runnable::run);
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuctionController(auctionService)).build();
+        when(auctionService.streamAuctionEvents(anyLong()))
+                .thenAnswer(invocation -> auctionEventPublisher.subscribe(invocation.getArgument(0), AuctionStatus.OPEN));
+    }
+
+    @Test
+    void subscribe_sendsTheCurrentStatusFirst() throws Exception {
+        MvcResult stream = openStream(1L);
+
+        String content = stream.getResponse().getContentAsString();
+        assertTrue(content.startsWith("event:STATUS_CHANGED"));
+        assertTrue(content.contains("\"status\":\"OPEN\""));
+        assertEquals(1, auctionEventPublisher.getOpenStreams());
+    }
+
+    @Test
+    void burstOfEvents_isSentOnceWithTheLatestStateOfEachOffer() throws Exception {
+        MvcResult stream = openStream(1L);
+
+        auctionEventPublisher.offerCreated(offer(7L, 100.0));
+        auctionEventPublisher.offerUpdated(offer(7L, 90.0));
+        auctionEventPublisher.offerCreated(offer(8L, 50.0));
+        auctionEventPublisher.offerDeleted(1L, 8L);
+        auctionEventPublisher.statusChanged(1L, AuctionStatus.CLOSED);
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(1)).schedule(flush.capture(), any(Instant.class));
+        flush.getValue().run();
+
+        String content = stream.getResponse().getContentAsString();
+        assertEquals(1, occurrences(content, "event:OFFER_CREATED"));
+        assertTrue(content.contains("\"price\":90.0"));
+        assertFalse(content.contains("\"price\":100.0"));
+        assertFalse(content.contains("\"offerId\":8"));
+        assertFalse(content.contains("OFFER_DELETED"));
+        assertTrue(content.contains("\"status\":\"CLOSED\""));
+    }
+
+    @Test
+    void eventsAfterAFlush_startANewBurst() throws Exception {
+        openStream(1L);
+
+        auctionEventPublisher.offerCreated(offer(7L, 100.0));
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(flush.capture(), any(Instant.class));
+        flush.getValue().run();
+
+        auctionEventPublisher.offerUpdated(offer(7L, 90.0));
+
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void eventsOfAnAuctionWithoutStreams_areDiscarded() throws Exception {
+        openStream(1L);
+
+        auctionEventPublisher.winnerAssigned(2L, 5L);
+
+        verifyNoInteractions(taskScheduler);
+    }
+
+    @Test
+    void close_completesAndRemovesTheStreams() throws Exception {
+        openStream(1L);
+        openStream(1L);
+
+        auctionEventPublisher.close(1L);
+        auctionEventPublisher.statusChanged(1L, AuctionStatus.CLOSED);
+
+        assertEquals(0, auctionEventPublisher.getOpenStreams());
+        verifyNoInteractions(taskScheduler);
+    }
+
+    @Test
+    void flushAndHeartbeat_leaveTheWritesToTheSenderExecutor() throws Exception {
+        List<Runnable> writes = new ArrayList<>();
+        auctionEventPublisher = new AuctionEventPublisher(taskScheduler, writes::add);
+        MvcResult stream = openStream(1L);
+        writes.remove(0).run();
+
+        auctionEventPublisher.offerCreated(offer(7L, 100.0));
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(flush.capture(), any(Instant.class));
+        flush.getValue().run();
+        auctionEventPublisher.heartbeat();
+
+        assertFalse(stream.getResponse().getContentAsString().contains("OFFER_CREATED"));
+        assertEquals(1, writes.size());
+
+        writes.remove(0).run();
+
+        String content = stream.getResponse().getContentAsString();
+        assertTrue(content.indexOf("event:OFFER_CREATED") < content.indexOf(":ping"));
+    }
+
+    @Test
+    void clientFallingTooFarBehind_isDisconnected() throws Exception {
+        List<Runnable> writes = new ArrayList<>();
+        auctionEventPublisher = new AuctionEventPublisher(taskScheduler, writes::add);
+        openStream(1L);
+
+        for (int i = 0; i < 16; i++) {
+            auctionEventPublisher.heartbeat();
+        }
+
+        assertEquals(0, auctionEventPublisher.getOpenStreams());
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    void saturatedSenderExecutor_disconnectsTheClient() throws Exception {
+        auctionEventPublisher = new AuctionEventPublisher(taskScheduler, task -> {
+            throw new RejectedExecutionException();
+        });
+
+        openStream(1L);
+
+        assertEquals(0, auctionEventPublisher.getOpenStreams());
+    }
+
+    private MvcResult openStream(long auctionId) throws Exception {
+        return mockMvc.perform(get("/api/auction/events").param("auctionId", String.valueOf(auctionId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static OfferResponseDTO offer(long offerId, double price) {
+        OfferResponseDTO offer = new OfferResponseDTO();
+        offer.setId(offerId);
+        offer.setAuctionId(1L);
+        offer.setPrice(price);
+        return offer;
+    }
+
+    private static int occurrences(String content, String text) {
+        int count = 0;
+        for (int index = content.indexOf(text); index >= 0; index = content.indexOf(text, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
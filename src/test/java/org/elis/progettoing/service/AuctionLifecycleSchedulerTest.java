@@ -0,0 +1,207 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.enumeration.AuctionNotificationType;
+import org.elis.progettoing.enumeration.AuctionStatus;
+import org.elis.progettoing.models.auction.Auction;
+import org.elis.progettoing.repository.AuctionRepository;
+import org.elis.progettoing.service.implementation.AuctionEventPublisher;
+import org.elis.progettoing.service.implementation.AuctionLifecycleScheduler;
+import org.elis.progettoing.service.implementation.AuctionListingCache;
+import org.elis.progettoing.service.implementation.AuctionNotificationDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuctionLifecycleSchedulerTest {
+
+    @Mock
+    private AuctionRepository auctionRepository;
+
+    @Mock
+    private AuctionNotificationDispatcher auctionNotificationDispatcher;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AuctionEventPublisher auctionEventPublisher;
+
+    @Mock
+    private ScheduledFuture<Object> timer;
+
+    @Mock
+    private AuctionListingCache auctionListingCache;
+
+    private AuctionLifecycleScheduler auctionLifecycleScheduler;
+
+    private final LocalDateTime start = LocalDateTime.now().plusHours(1);
+    private final LocalDateTime end = LocalDateTime.now().plusHours(5);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenReturn((ScheduledFuture) timer);
+        auctionLifecycleScheduler = new AuctionLifecycleScheduler(auctionRepository, auctionNotificationDispatcher, taskScheduler, transactionManager, auctionEventPublisher, auctionListingCache);
+    }
+
+    @Test
+    void track_pendingAuction_schedulesTheOpeningAtTheStartDate() {
+        auctionLifecycleScheduler.track(auction(AuctionStatus.PENDING));
+
+        verify(taskScheduler).schedule(any(Runnable.class), eq(toInstant(start)));
+        assertEquals(1, auctionLifecycleScheduler.getTrackedAuctions());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void track_updatedAuction_replacesThePreviousTimer() {
+        ScheduledFuture<Object> closingTimer = mock(ScheduledFuture.class);
+        when(taskScheduler.schedule(any(Runnable.class), eq(toInstant(end)))).thenReturn((ScheduledFuture) closingTimer);
+
+        auctionLifecycleScheduler.track(auction(AuctionStatus.PENDING));
+        auctionLifecycleScheduler.track(auction(AuctionStatus.OPEN));
+
+        verify(taskScheduler).schedule(any(Runnable.class), eq(toInstant(end)));
+        verify(timer).cancel(false);
+        assertEquals(1, auctionLifecycleScheduler.getTrackedAuctions());
+    }
+
+    @Test
+    void untrack_cancelsTheTimer() {
+        auctionLifecycleScheduler.track(auction(AuctionStatus.OPEN));
+
+        auctionLifecycleScheduler.untrack(1L);
+
+        verify(timer).cancel(false);
+        assertEquals(0, auctionLifecycleScheduler.getTrackedAuctions());
+    }
+
+    @Test
+    void advanceDue_opensAndClosesTheDueAuctionsWithOneUpdatePerBatch() {
+        List<Object[]> dueToOpen = new ArrayList<>();
+        dueToOpen.add(new Object[]{1L, end});
+        dueToOpen.add(new Object[]{2L, end});
+        when(auctionRepository.lockDueToOpen(any(), any(Pageable.class))).thenReturn(dueToOpen);
+        when(auctionRepository.lockDueToClose(any(), any(Pageable.class))).thenReturn(List.of(3L));
+
+        auctionLifecycleScheduler.advanceDue();
+
+        verify(auctionRepository).updateStatus(List.of(1L, 2L), AuctionStatus.PENDING, AuctionStatus.OPEN);
+        verify(auctionRepository).updateStatus(List.of(3L), AuctionStatus.OPEN, AuctionStatus.CLOSED);
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), eq(toInstant(end)));
+        verify(auctionNotificationDispatcher, timeout(1000)).dispatch(List.of(1L, 2L), AuctionNotificationType.OPENED);
+        verify(auctionNotificationDispatcher, timeout(1000)).dispatch(List.of(3L), AuctionNotificationType.CLOSED);
+        verify(auctionEventPublisher).statusChanged(1L, AuctionStatus.OPEN);
+        verify(auctionEventPublisher).statusChanged(2L, AuctionStatus.OPEN);
+        verify(auctionEventPublisher).statusChanged(3L, AuctionStatus.CLOSED);
+        verify(auctionListingCache, times(2)).invalidate();
+        assertEquals(2, auctionLifecycleScheduler.getTrackedAuctions());
+    }
+
+    @Test
+    void advanceDue_withNothingDue_doesNotUpdateOrNotify() {
+        when(auctionRepository.lockDueToOpen(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(auctionRepository.lockDueToClose(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        auctionLifecycleScheduler.advanceDue();
+
+        verify(auctionRepository, never()).updateStatus(anyCollection(), any(), any());
+        verifyNoInteractions(auctionNotificationDispatcher);
+        verifyNoInteractions(auctionListingCache);
+    }
+
+    @Test
+    void timer_runsTheSetBasedPass() {
+        when(auctionRepository.lockDueToOpen(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(auctionRepository.lockDueToClose(any(), any(Pageable.class))).thenReturn(List.of(1L));
+        auctionLifecycleScheduler.track(auction(AuctionStatus.OPEN));
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(captor.capture(), eq(toInstant(end)));
+        captor.getValue().run();
+
+        verify(auctionRepository).updateStatus(List.of(1L), AuctionStatus.OPEN, AuctionStatus.CLOSED);
+        assertEquals(0, auctionLifecycleScheduler.getTrackedAuctions());
+    }
+
+    @Test
+    void onApplicationReady_schedulesEveryPendingAndOpenAuction() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, AuctionStatus.PENDING, start, end});
+        rows.add(new Object[]{2L, AuctionStatus.OPEN, start, end});
+        when(auctionRepository.findLifecycleDatesAfter(eq(0L), any(Pageable.class))).thenReturn(rows);
+
+        auctionLifecycleScheduler.onApplicationReady();
+
+        ArgumentCaptor<Instant> captor = ArgumentCaptor.forClass(Instant.class);
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), captor.capture());
+        assertEquals(List.of(toInstant(start), toInstant(end)), captor.getAllValues());
+        assertEquals(2, auctionLifecycleScheduler.getTrackedAuctions());
+    }
+
+    @Test
+    void sweep_appliesTheDueTransitionsAndLoadsTheUntrackedAuctions() {
+        when(auctionRepository.lockDueToOpen(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(auctionRepository.lockDueToClose(any(), any(Pageable.class))).thenReturn(List.of(4L));
+        when(auctionRepository.findLifecycleDatesAfter(eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(auctionRepository.findOpenEndingBetween(any(), any(), eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        auctionLifecycleScheduler.sweep();
+
+        verify(auctionRepository).updateStatus(List.of(4L), AuctionStatus.OPEN, AuctionStatus.CLOSED);
+        verify(auctionRepository).findLifecycleDatesAfter(eq(0L), any(Pageable.class));
+        verify(auctionNotificationDispatcher, timeout(1000)).retryFailed();
+    }
+
+    @Test
+    void sweep_notifiesTheAuctionsEndingWithinTheHour() {
+        when(auctionRepository.lockDueToOpen(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(auctionRepository.lockDueToClose(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(auctionRepository.findLifecycleDatesAfter(eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(auctionRepository.findOpenEndingBetween(any(), any(), eq(0L), any(Pageable.class))).thenReturn(List.of(5L, 6L));
+
+        auctionLifecycleScheduler.sweep();
+
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> to = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(auctionRepository).findOpenEndingBetween(from.capture(), to.capture(), eq(0L), any(Pageable.class));
+        assertEquals(from.getValue().plusHours(1), to.getValue());
+        verify(auctionNotificationDispatcher, timeout(1000)).dispatch(List.of(5L, 6L), AuctionNotificationType.ENDING_SOON);
+    }
+
+    private Auction auction(AuctionStatus status) {
+        Auction auction = new Auction();
+        auction.setId(1L);
+        auction.setStatus(status);
+        auction.setStartAuctionDate(start);
+        auction.setEndAuctionDate(end);
+        return auction;
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
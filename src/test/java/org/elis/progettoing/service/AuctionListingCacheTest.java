@@ -0,0 +1,149 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.dto.response.auction.AuctionDetailsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionListingCacheMetricsDTO;
+import org.elis.progettoing.dto.response.auction.AuctionSummaryDTO;
+import org.elis.progettoing.enumeration.AuctionStatus;
+import org.elis.progettoing.mapper.definition.AuctionMapper;
+import org.elis.progettoing.models.auction.Auction;
+import org.elis.progettoing.repository.AuctionRepository;
+import org.elis.progettoing.service.implementation.AuctionListingCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuctionListingCacheTest {
+
+    @Mock
+    private AuctionRepository auctionRepository;
+
+    @Mock
+    private AuctionMapper auctionMapper;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AuctionListingCache auctionListingCache;
+
+    private final Auction openAuction = new Auction();
+    private final Auction pendingAuction = new Auction();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        openAuction.setId(1L);
+        pendingAuction.setId(2L);
+        when(auctionRepository.findByStatus(AuctionStatus.OPEN)).thenReturn(List.of(openAuction));
+        when(auctionRepository.findByStatus(AuctionStatus.PENDING)).thenReturn(List.of(pendingAuction));
+        when(auctionMapper.auctionToAuctionSummaryDTO(any(Auction.class))).thenAnswer(invocation -> summary(invocation.getArgument(0)));
+        when(auctionMapper.auctionToAuctionResponseDTO(any(Auction.class))).thenAnswer(invocation -> details(invocation.getArgument(0)));
+
+        auctionListingCache = new AuctionListingCache(auctionRepository, auctionMapper, taskScheduler, transactionManager);
+    }
+
+    @Test
+    void reads_areServedFromOneSnapshot() {
+        List<AuctionSummaryDTO> open = auctionListingCache.getOpenSummaries();
+        List<AuctionSummaryDTO> pending = auctionListingCache.getPendingSummaries();
+        List<AuctionDetailsDTO> openDetails = auctionListingCache.getOpenDetails();
+        List<AuctionDetailsDTO> pendingDetails = auctionListingCache.getPendingDetails();
+
+        assertEquals(1L, open.get(0).getId());
+        assertEquals(2L, pending.get(0).getId());
+        assertEquals(1L, openDetails.get(0).getId());
+        assertEquals(2L, pendingDetails.get(0).getId());
+        assertThrows(UnsupportedOperationException.class, () -> open.add(new AuctionSummaryDTO()));
+        verify(auctionRepository, times(1)).findByStatus(AuctionStatus.OPEN);
+        verify(auctionRepository, times(1)).findByStatus(AuctionStatus.PENDING);
+
+        AuctionListingCacheMetricsDTO metrics = auctionListingCache.getMetrics();
+        assertEquals(3, metrics.getHits());
+        assertEquals(1, metrics.getMisses());
+        assertEquals(0.75, metrics.getHitRatio());
+        assertEquals(1, metrics.getRebuilds());
+        assertEquals(1, metrics.getOpenAuctions());
+        assertEquals(1, metrics.getPendingAuctions());
+        assertFalse(metrics.isStale());
+        assertNotNull(metrics.getBuiltAt());
+    }
+
+    @Test
+    void invalidate_schedulesOneRebuildForABurstOfChanges() {
+        auctionListingCache.getOpenSummaries();
+
+        auctionListingCache.invalidate();
+        auctionListingCache.invalidate();
+
+        ArgumentCaptor<Runnable> rebuild = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(1)).schedule(rebuild.capture(), any(Instant.class));
+        assertTrue(auctionListingCache.getMetrics().isStale());
+
+        rebuild.getValue().run();
+        auctionListingCache.getOpenSummaries();
+
+        verify(auctionRepository, times(2)).findByStatus(AuctionStatus.OPEN);
+        assertEquals(1, auctionListingCache.getMetrics().getHits());
+        assertFalse(auctionListingCache.getMetrics().isStale());
+
+        auctionListingCache.invalidate();
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void invalidate_beforeTheScheduledRebuild_makesTheNextReadReload() {
+        auctionListingCache.getOpenSummaries();
+        Auction created = new Auction();
+        created.setId(3L);
+        when(auctionRepository.findByStatus(AuctionStatus.OPEN)).thenReturn(List.of(openAuction, created));
+
+        auctionListingCache.invalidate();
+
+        assertEquals(2, auctionListingCache.getOpenSummaries().size());
+        assertEquals(2, auctionListingCache.getMetrics().getMisses());
+    }
+
+    @Test
+    void snapshotBuiltDuringAChange_isNotServed() {
+        when(auctionRepository.findByStatus(AuctionStatus.OPEN)).thenAnswer(invocation -> {
+            auctionListingCache.invalidate();
+            return List.of(openAuction);
+        }).thenReturn(List.of(openAuction));
+
+        auctionListingCache.getOpenSummaries();
+        auctionListingCache.getOpenSummaries();
+        auctionListingCache.getOpenSummaries();
+
+        verify(auctionRepository, times(2)).findByStatus(AuctionStatus.OPEN);
+        assertEquals(1, auctionListingCache.getMetrics().getHits());
+        assertEquals(2, auctionListingCache.getMetrics().getMisses());
+    }
+
+    private static AuctionSummaryDTO summary(Auction auction) {
+        AuctionSummaryDTO summary = new AuctionSummaryDTO();
+        summary.setId(auction.getId());
+        return summary;
+    }
+
+    private static AuctionDetailsDTO details(Auction auction) {
+        AuctionDetailsDTO details = new AuctionDetailsDTO();
+        details.setId(auction.getId());
+        return details;
+    }
+}
@@ -0,0 +1,230 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.enumeration.AuctionNotificationType;
+import org.elis.progettoing.exception.EmailSendingException;
+import org.elis.progettoing.models.Email;
+import org.elis.progettoing.repository.AuctionNotificationRepository;
+import org.elis.progettoing.repository.AuctionRepository;
+import org.elis.progettoing.service.implementation.AuctionNotificationDispatcher;
+import org.elis.progettoing.service.implementation.AuctionNotificationDispatcher.DispatchReport;
+import org.elis.progettoing.service.implementation.MailSenderServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuctionNotificationDispatcherTest {
+
+    @Mock
+    private AuctionNotificationRepository auctionNotificationRepository;
+
+    @Mock
+    private AuctionRepository auctionRepository;
+
+    @Mock
+    private MailSenderServiceImpl mailSender;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AuctionNotificationDispatcher auctionNotificationDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        List<Object[]> titles = new ArrayList<>();
+        titles.add(new Object[]{1L, "Logo"});
+        when(auctionRepository.findTitlesByIds(anyCollection())).thenReturn(titles);
+        auctionNotificationDispatcher = new AuctionNotificationDispatcher(auctionNotificationRepository, auctionRepository, mailSender, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        auctionNotificationDispatcher.shutdown();
+    }
+
+    @Test
+    void dispatch_sendsOnlyToTheRecipientsClaimedByThisDispatch() {
+        when(auctionNotificationRepository.claimForSubscribers(eq(List.of(1L)), eq(AuctionNotificationType.CLOSED), anyString(), any(), any()))
+                .thenReturn(1);
+        when(auctionNotificationRepository.findRecipientsAfter(anyString(), eq(0L), eq(0L), any(Pageable.class)))
+                .thenReturn(rows(recipient(1L, 3L)));
+
+        DispatchReport report = auctionNotificationDispatcher.dispatch(List.of(1L), AuctionNotificationType.CLOSED);
+
+        assertEquals(1, report.sent());
+        assertEquals(0, report.failed());
+        ArgumentCaptor<String> claimed = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> loaded = ArgumentCaptor.forClass(String.class);
+        verify(auctionNotificationRepository).claimForSubscribers(anyCollection(), any(), claimed.capture(), any(), any());
+        verify(auctionNotificationRepository).findRecipientsAfter(loaded.capture(), anyLong(), anyLong(), any(Pageable.class));
+        assertEquals(claimed.getValue(), loaded.getValue());
+        ArgumentCaptor<LocalDateTime> leaseUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(auctionNotificationRepository).claimForSubscribers(anyCollection(), any(), anyString(), any(), leaseUntil.capture());
+        assertTrue(leaseUntil.getValue().isAfter(LocalDateTime.now()));
+        verify(auctionNotificationRepository).markSent(claimed.getValue(), 0L, 0L, 1L, 3L);
+
+        ArgumentCaptor<Email> email = ArgumentCaptor.forClass(Email.class);
+        verify(mailSender).send(email.capture());
+        assertEquals("user3@example.com", email.getValue().getRecipient());
+        assertEquals("L'asta \"Logo\" è stata chiusa!", email.getValue().getSubject());
+    }
+
+    @Test
+    void dispatch_pagesTheRecipientsFromTheLastOneRead() {
+        List<Object[]> firstPage = new ArrayList<>();
+        for (long userId = 1; userId <= 200; userId++) {
+            firstPage.add(recipient(1L, userId));
+        }
+        when(auctionNotificationRepository.claimForSubscribers(anyCollection(), any(), anyString(), any(), any())).thenReturn(201);
+        when(auctionNotificationRepository.findRecipientsAfter(anyString(), eq(0L), eq(0L), any(Pageable.class))).thenReturn(firstPage);
+        when(auctionNotificationRepository.findRecipientsAfter(anyString(), eq(1L), eq(200L), any(Pageable.class)))
+                .thenReturn(rows(recipient(1L, 201L)));
+
+        DispatchReport report = auctionNotificationDispatcher.dispatch(List.of(1L), AuctionNotificationType.OPENED);
+
+        assertEquals(2, report.batches().size());
+        assertEquals(200, report.batches().get(0).sent());
+        assertEquals(1, report.batches().get(1).sent());
+        verify(mailSender, times(201)).send(any(Email.class));
+        verify(auctionNotificationRepository).markSent(anyString(), eq(0L), eq(0L), eq(1L), eq(200L));
+        verify(auctionNotificationRepository).markSent(anyString(), eq(1L), eq(200L), eq(1L), eq(201L));
+    }
+
+    @Test
+    void dispatch_whenTheNodeStopsBeforeSending_leavesTheClaimedRowsToTheRetry() {
+        when(auctionNotificationRepository.claimForSubscribers(anyCollection(), any(), anyString(), any(), any())).thenReturn(1);
+        when(auctionNotificationRepository.findRecipientsAfter(anyString(), eq(0L), eq(0L), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("arresto"));
+
+        List<Long> auctionIds = List.of(1L);
+        assertThrows(IllegalStateException.class, () -> auctionNotificationDispatcher.dispatch(auctionIds, AuctionNotificationType.CLOSED));
+
+        // Le righe reclamate non vengono mai segnate come inviate: il loro lease scade e retryFailed le riprende
+        verify(auctionNotificationRepository, never()).markSent(anyString(), anyLong(), anyLong(), anyLong(), anyLong());
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void dispatch_whenAnEmailFails_marksItsLedgerRowForRetryAndReportsIt() {
+        when(auctionNotificationRepository.claimForSubscribers(anyCollection(), any(), anyString(), any(), any())).thenReturn(2);
+        when(auctionNotificationRepository.findRecipientsAfter(anyString(), eq(0L), eq(0L), any(Pageable.class)))
+                .thenReturn(rows(recipient(1L, 3L), recipient(1L, 4L)));
+        doThrow(new EmailSendingException("errore")).when(mailSender)
+                .send(argThat(email -> email.getRecipient().equals("user4@example.com")));
+
+        DispatchReport report = auctionNotificationDispatcher.dispatch(List.of(1L), AuctionNotificationType.ENDING_SOON);
+
+        assertEquals(1, report.sent());
+        assertEquals(1, report.failed());
+        ArgumentCaptor<LocalDateTime> retryAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(auctionNotificationRepository).markFailed(anyString(), eq(1L), eq(List.of(4L)), retryAt.capture());
+        assertTrue(retryAt.getValue().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void retryFailed_sendsTheDueRowsTheirOwnNotification() {
+        when(auctionNotificationRepository.claimRetries(any(), anyString(), any(), any(), eq(5))).thenReturn(0);
+        when(auctionNotificationRepository.claimRetries(eq(AuctionNotificationType.RESULT), anyString(), any(), any(), eq(5))).thenReturn(2);
+        when(auctionNotificationRepository.findAuctionIdsByDispatchId(anyString())).thenReturn(List.of(1L));
+        List<Object[]> winners = new ArrayList<>();
+        winners.add(new Object[]{1L, 3L});
+        when(auctionRepository.findWinnerIdsByIds(List.of(1L))).thenReturn(winners);
+        when(auctionNotificationRepository.findRecipientsAfter(anyString(), eq(0L), eq(0L), any(Pageable.class)))
+                .thenReturn(rows(recipient(1L, 2L), recipient(1L, 3L)));
+
+        DispatchReport report = auctionNotificationDispatcher.retryFailed();
+
+        assertEquals(2, report.sent());
+        ArgumentCaptor<String> dispatchId = ArgumentCaptor.forClass(String.class);
+        verify(auctionNotificationRepository).claimRetries(eq(AuctionNotificationType.RESULT), dispatchId.capture(), any(), any(), eq(5));
+        verify(auctionNotificationRepository).findRecipientsAfter(eq(dispatchId.getValue()), eq(0L), eq(0L), any(Pageable.class));
+        ArgumentCaptor<Email> emails = ArgumentCaptor.forClass(Email.class);
+        verify(mailSender, times(2)).send(emails.capture());
+        assertEquals("L'asta \"Logo\" è stata chiusa!", emails.getAllValues().get(0).getSubject());
+        assertEquals("Congratulazioni! Hai vinto l'asta \"Logo\"!", emails.getAllValues().get(1).getSubject());
+        verify(auctionNotificationRepository, never()).claimForSubscribers(anyCollection(), any(), anyString(), any(), any());
+    }
+
+    @Test
+    void dispatch_whenEveryoneWasAlreadyNotified_sendsNothing() {
+        when(auctionNotificationRepository.claimForSubscribers(anyCollection(), any(), anyString(), any(), any())).thenReturn(0);
+
+        DispatchReport report = auctionNotificationDispatcher.dispatch(List.of(1L), AuctionNotificationType.OPENED);
+
+        assertTrue(report.batches().isEmpty());
+        verify(auctionNotificationRepository, never()).findRecipientsAfter(anyString(), anyLong(), anyLong(), any(Pageable.class));
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void dispatch_withoutAuctions_doesNotTouchTheLedger() {
+        DispatchReport report = auctionNotificationDispatcher.dispatch(Collections.emptyList(), AuctionNotificationType.ENDING_SOON);
+
+        assertEquals(0, report.sent());
+        verifyNoInteractions(auctionNotificationRepository, mailSender);
+    }
+
+    @Test
+    void dispatch_whenAnotherDispatchClaimsConcurrently_retriesOnce() {
+        when(auctionNotificationRepository.claimForSubscribers(anyCollection(), any(), anyString(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate"))
+                .thenReturn(1);
+        when(auctionNotificationRepository.findRecipientsAfter(anyString(), eq(0L), eq(0L), any(Pageable.class)))
+                .thenReturn(rows(recipient(1L, 3L)));
+
+        DispatchReport report = auctionNotificationDispatcher.dispatch(List.of(1L), AuctionNotificationType.ENDING_SOON);
+
+        assertEquals(1, report.sent());
+        verify(auctionNotificationRepository, times(2)).claimForSubscribers(anyCollection(), any(), anyString(), any(), any());
+    }
+
+    @Test
+    void dispatch_withResultType_throwsIllegalArgumentException() {
+        List<Long> auctionIds = List.of(1L);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> auctionNotificationDispatcher.dispatch(auctionIds, AuctionNotificationType.RESULT));
+        verifyNoInteractions(auctionNotificationRepository);
+    }
+
+    @Test
+    void dispatchResult_congratulatesTheWinnerAndInformsTheOthers() {
+        when(auctionNotificationRepository.claimForSubscribers(eq(List.of(1L)), eq(AuctionNotificationType.RESULT), anyString(), any(), any()))
+                .thenReturn(2);
+        when(auctionNotificationRepository.findRecipientsAfter(anyString(), eq(0L), eq(0L), any(Pageable.class)))
+                .thenReturn(rows(recipient(1L, 2L), recipient(1L, 3L)));
+
+        DispatchReport report = auctionNotificationDispatcher.dispatchResult(1L, 2L);
+
+        assertEquals(2, report.sent());
+        ArgumentCaptor<Email> emails = ArgumentCaptor.forClass(Email.class);
+        verify(mailSender, times(2)).send(emails.capture());
+        assertEquals("Congratulazioni! Hai vinto l'asta \"Logo\"!", emails.getAllValues().get(0).getSubject());
+        assertEquals("L'asta \"Logo\" è stata chiusa!", emails.getAllValues().get(1).getSubject());
+    }
+
+    private static Object[] recipient(long auctionId, long userId) {
+        return new Object[]{auctionId, userId, "user" + userId + "@example.com", "Nome", "Cognome"};
+    }
+
+    private static List<Object[]> rows(Object[]... recipients) {
+        return new ArrayList<>(List.of(recipients));
+    }
+}
@@ -1,8 +1,10 @@
 package org.elis.progettoing.service;
 
 import org.elis.progettoing.dto.request.auction.AuctionRequestDTO;
+import org.elis.progettoing.dto.response.auction.AuctionDashboardItemDTO;
 import org.elis.progettoing.dto.response.auction.AuctionDetailsDTO;
 import org.elis.progettoing.dto.response.auction.AuctionSummaryDTO;
+import org.elis.progettoing.dto.response.auction.OwnerAuctionDashboardDTO;
 import org.elis.progettoing.dto.response.user.UserResponseDTO;
 import org.elis.progettoing.enumeration.AuctionStatus;
 import org.elis.progettoing.exception.auction.AuctionException;
@@ -20,19 +22,24 @@ import org.elis.progettoing.models.category.MacroCategory;
 import org.elis.progettoing.models.category.SubCategory;
 import org.elis.progettoing.pattern.observerPattern.AuctionManager;
 import org.elis.progettoing.repository.*;
+import org.elis.progettoing.service.implementation.AuctionEventPublisher;
+import org.elis.progettoing.service.implementation.AuctionLifecycleScheduler;
+import org.elis.progettoing.service.implementation.AuctionListingCache;
 import org.elis.progettoing.service.implementation.AuctionServiceImpl;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -73,13 +80,29 @@ class AuctionServiceTest {
     @Mock
     private AuctionManager auctionManager;
 
-    @InjectMocks
+    @Mock
+    private AuctionLifecycleScheduler auctionLifecycleScheduler;
+
+    @Mock
+    private AuctionEventPublisher auctionEventPublisher;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private AuctionServiceImpl auctionService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
+        // Gli elenchi delle aste aperte e in attesa passano da una cache reale costruita sui mock
+        AuctionListingCache auctionListingCache = new AuctionListingCache(auctionRepository, auctionMapper, taskScheduler, transactionManager);
+        auctionService = new AuctionServiceImpl(auctionRepository, auctionManager, auctionSubscriptionRepository, auctionMapper,
+                userRepository, auctionLifecycleScheduler, auctionEventPublisher, auctionListingCache);
+
         // Setup security context
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(mock(UsernamePasswordAuthenticationToken.class));
@@ -110,6 +133,7 @@ class AuctionServiceTest {
 
         assertNotNull(result);
         verify(auctionRepository, times(1)).save(mockAuction);
+        verify(auctionLifecycleScheduler).track(mockAuction);
     }
 
     @Test
@@ -143,6 +167,7 @@ class AuctionServiceTest {
         // Verifica i risultati
         assertTrue(result);
         verify(auctionRepository, times(1)).delete(mockAuction);
+        verify(auctionLifecycleScheduler).untrack(1L);
     }
 
     @Test
@@ -210,104 +235,6 @@ class AuctionServiceTest {
         assertThrows(EntityDeletionException.class, () -> auctionService.deleteAuction(1L));
     }
 
-    @Test
-    void updateSingleAuctionStatus_shouldUpdateToOpen_whenPendingAndStartDateHasPassed() {
-        // Arrange
-        Auction auction = new Auction();
-        auction.setId(1L);
-        auction.setStatus(AuctionStatus.PENDING);
-        auction.setStartAuctionDate(LocalDateTime.now().minusMinutes(10));
-        auction.setEndAuctionDate(LocalDateTime.now().plusMinutes(10));
-        when(auctionRepository.save(auction)).thenReturn(auction);
-
-        // Act
-        auctionService.updateSingleAuctionStatus(auction);
-
-        // Assert
-        assertEquals(AuctionStatus.OPEN, auction.getStatus());
-        verify(auctionRepository, times(1)).save(auction);
-        verify(auctionManager, times(1)).notifyAuctionOpening(auction);
-        verify(auctionManager, never()).notifyAuctionClosed(auction);
-        verify(auctionManager, never()).notifyAuctionEndingSoon(auction);
-    }
-
-    @Test
-    void updateSingleAuctionStatus_shouldUpdateToClosed_whenOpenAndEndDateHasPassed() {
-        // Arrange
-        Auction auction = new Auction();
-        auction.setId(1L);
-        auction.setStatus(AuctionStatus.OPEN);
-        auction.setEndAuctionDate(LocalDateTime.now().minusMinutes(10)); // End date is in the past
-
-        when(auctionRepository.save(auction)).thenReturn(auction);
-
-        // Act
-        auctionService.updateSingleAuctionStatus(auction);
-
-        // Assert
-        assertEquals(AuctionStatus.CLOSED, auction.getStatus());
-        verify(auctionRepository, times(1)).save(auction);
-        verify(auctionManager, times(1)).notifyAuctionClosed(auction);
-        verify(auctionManager, never()).notifyAuctionOpening(auction);
-        verify(auctionManager, never()).notifyAuctionEndingSoon(auction);
-    }
-
-    @Test
-    void updateSingleAuctionStatus_shouldSendEndingSoonNotification_whenOpenAndEndDateIsApproaching() {
-        // Arrange
-        Auction auction = new Auction();
-        auction.setId(1L);
-        auction.setStatus(AuctionStatus.OPEN);
-        auction.setEndAuctionDate(LocalDateTime.now().plusMinutes(30)); // Less than 1 hour to close
-
-        // Act
-        auctionService.updateSingleAuctionStatus(auction);
-
-        // Assert
-        verify(auctionManager, times(1)).notifyAuctionEndingSoon(auction);
-        verify(auctionRepository, never()).save(auction);
-        verify(auctionManager, never()).notifyAuctionOpening(auction);
-        verify(auctionManager, never()).notifyAuctionClosed(auction);
-    }
-
-    @Test
-    void updateSingleAuctionStatus_shouldNotUpdateOrNotify_whenNoConditionsAreMet() {
-        // Arrange
-        Auction auction = new Auction();
-        auction.setId(1L);
-        auction.setStatus(AuctionStatus.PENDING);
-        auction.setStartAuctionDate(LocalDateTime.now().plusMinutes(10)); // Start date is in the future
-
-        // Act
-        auctionService.updateSingleAuctionStatus(auction);
-
-        // Assert
-        verify(auctionRepository, never()).save(auction);
-        verify(auctionManager, never()).notifyAuctionOpening(auction);
-        verify(auctionManager, never()).notifyAuctionClosed(auction);
-        verify(auctionManager, never()).notifyAuctionEndingSoon(auction);
-    }
-
-    @Test
-    void updateSingleAuctionStatus_shouldThrowAuctionException_whenErrorOccurs() {
-        // Arrange
-        Auction auction = new Auction();
-        auction.setId(1L);
-        auction.setStatus(AuctionStatus.PENDING);
-        auction.setStartAuctionDate(LocalDateTime.now().minusMinutes(10)); // Start date is in the past
-
-        when(auctionRepository.save(auction)).thenThrow(new RuntimeException("Database error"));
-
-        // Act & Assert
-        AuctionException exception = assertThrows(AuctionException.class, () -> auctionService.updateSingleAuctionStatus(auction));
-
-        assertTrue(exception.getMessage().contains("Errore durante l'aggiornamento dell'asta con ID: 1"));
-        verify(auctionRepository, times(1)).save(auction);
-        verify(auctionManager, never()).notifyAuctionOpening(auction);
-        verify(auctionManager, never()).notifyAuctionClosed(auction);
-        verify(auctionManager, never()).notifyAuctionEndingSoon(auction);
-    }
-
     @Test
     void getAuctionDetails_shouldReturnAuctionDetails_whenAuctionExists() {
         // Arrange: prepariamo un'asta simulata
@@ -585,6 +512,7 @@ class AuctionServiceTest {
         // Verifiche puntuali
         verify(auctionMapper).auctionRequestDTOToAuction(request);
         verify(auctionRepository).save(mappedAuction); // Verifica salvataggio dell'oggetto mappato
+        verify(auctionLifecycleScheduler).track(mappedAuction);
         verify(auctionMapper).auctionToAuctionResponseDTO(mappedAuction);
 
         // Verifica integrità dati
@@ -1136,6 +1064,28 @@ class AuctionServiceTest {
         assertTrue(result);
         verify(auctionRepository).save(mockAuction);
         verify(auctionManager).notifyAuctionWinner(mockAuction, mockWinner);
+        verify(auctionEventPublisher).winnerAssigned(auctionId, winnerId);
+    }
+
+    @Test
+    void streamAuctionEvents_WhenAuctionExists_SubscribesWithTheCurrentStatus() {
+        Auction mockAuction = new Auction();
+        mockAuction.setId(1L);
+        mockAuction.setStatus(AuctionStatus.OPEN);
+        SseEmitter emitter = new SseEmitter();
+
+        when(auctionRepository.findById(1L)).thenReturn(Optional.of(mockAuction));
+        when(auctionEventPublisher.subscribe(1L, AuctionStatus.OPEN)).thenReturn(emitter);
+
+        assertSame(emitter, auctionService.streamAuctionEvents(1L));
+    }
+
+    @Test
+    void streamAuctionEvents_WhenAuctionNotFound_ThrowsEntityNotFoundException() {
+        when(auctionRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> auctionService.streamAuctionEvents(1L));
+        verifyNoInteractions(auctionEventPublisher);
     }
 
     @Test
@@ -1297,6 +1247,41 @@ class AuctionServiceTest {
         verify(auctionMapper).auctionToAuctionSummaryDTO(auction);
     }
 
+    // Test per getOwnerAuctionDashboard
+    @Test
+    void getOwnerAuctionDashboard_GroupsRowsByStatusKeepingTheirOrder() {
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        LocalDateTime end = LocalDateTime.now().plusDays(1);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{3L, "Logo", "Logo aziendale", AuctionStatus.OPEN, start, end});
+        rows.add(new Object[]{1L, "Sito", "Sito vetrina", AuctionStatus.CLOSED, start, end});
+        rows.add(new Object[]{2L, "App", "App mobile", AuctionStatus.OPEN, start, end.plusDays(1)});
+
+        when(auctionRepository.findDashboardRowsByOwnerId(mockUser.getId())).thenReturn(rows);
+
+        OwnerAuctionDashboardDTO result = auctionService.getOwnerAuctionDashboard();
+
+        assertEquals(List.of(3L, 2L), result.getOpenAuctions().stream().map(AuctionDashboardItemDTO::getId).toList());
+        assertEquals("OPEN", result.getOpenAuctions().get(0).getState());
+        assertEquals(end, result.getOpenAuctions().get(0).getEndAuctionDate());
+        assertEquals(1, result.getClosedAuctions().size());
+        assertEquals("Sito vetrina", result.getClosedAuctions().get(0).getDescription());
+        assertTrue(result.getPendingAuctions().isEmpty());
+        verify(auctionRepository, never()).findByStatusAndWinnerIsNullAndOwner(any(), any());
+        verifyNoInteractions(auctionMapper);
+    }
+
+    @Test
+    void getOwnerAuctionDashboard_NoAuctions_ReturnsEmptyGroups() {
+        when(auctionRepository.findDashboardRowsByOwnerId(mockUser.getId())).thenReturn(Collections.emptyList());
+
+        OwnerAuctionDashboardDTO result = auctionService.getOwnerAuctionDashboard();
+
+        assertTrue(result.getOpenAuctions().isEmpty());
+        assertTrue(result.getPendingAuctions().isEmpty());
+        assertTrue(result.getClosedAuctions().isEmpty());
+    }
+
     // Test per getAuctionSubscriptionByAuctionId
     @Test
     void getAuctionSubscriptionByAuctionId_AuctionExistsAndSubscribed_ReturnsTrue() {
@@ -0,0 +1,78 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.models.Offer;
+import org.elis.progettoing.models.User;
+
+import java.util.List;
+
+/**
+ * Literal copy of the offer scoring that {@code OfferServiceImpl} ran on each {@link Offer} before the scoring engine
+ * existed, kept as the reference the engine is compared against in the tests and in the benchmark.
+ */
+final class BaselineOfferScoring {
+
+    private BaselineOfferScoring() {
+    }
+
+    static void scoreOffers(List<Offer> offers, long auctionDeliveryTime) {
+        // Calcola il prezzo medio delle offerte.
+        double averagePrice = offers.stream()
+                .mapToDouble(Offer::getPrice)
+                .average()
+                .orElse(0.0);
+
+        // Calcola e assegna il punteggio a ciascuna offerta.
+        offers.forEach(offer -> {
+            double score = calculateTotalScore(offer, offer.getSeller(), averagePrice, auctionDeliveryTime);
+            offer.setScore(score);
+        });
+    }
+
+    static double calculateTotalScore(Offer offer, User seller, double averagePrice, long auctionDeliveryTime) {
+        double priceScore = calculatePriceScore(offer.getPrice(), averagePrice);
+
+        double deliveryTimeScore = calculateDeliveryTimeScore(offer, auctionDeliveryTime);
+
+        double userRankingScore = seller.getRanking() / 5.0;
+
+        return (priceScore * 0.4) + (deliveryTimeScore * 0.4) + (userRankingScore * 0.2);
+    }
+
+    private static double calculatePriceScore(double offerPrice, double averagePrice) {
+        if (offerPrice <= 0) return 0; // Evita divisioni per 0 o prezzi invalidi
+
+        double priceRatio = offerPrice / averagePrice;
+
+        if (priceRatio < 1) {
+            return 1 - Math.pow(priceRatio, 2);
+        } else {
+            return 1 / (1 + Math.pow(priceRatio - 1, 2));
+        }
+    }
+
+    private static double calculateDeliveryTimeScore(Offer offer, long auctionDeliveryDays) {
+        long offerDeliveryDays = offer.getDeliveryTimeProposed();
+
+        long daysToDeliver = Math.abs(auctionDeliveryDays - offerDeliveryDays);
+
+        if (auctionDeliveryDays <= 0 || offerDeliveryDays <= 0) {
+            return 0;
+        }
+
+        double c = 15.0;
+        double minimumScore = 0.1;
+
+        return 1 / (1 + Math.pow(daysToDeliver / c, 2)) + minimumScore;
+    }
+
+    static Offer offer(double price, long deliveryTime, double sellerRanking) {
+        User seller = new User();
+        seller.setRanking(sellerRanking);
+
+        Offer offer = new Offer();
+        offer.setPrice(price);
+        offer.setDeliveryTimeProposed(deliveryTime);
+        offer.setSeller(seller);
+        return offer;
+    }
+}
@@ -3,6 +3,7 @@ package org.elis.progettoing.service;
 import org.elis.progettoing.dto.request.product.PurchasedProductRequestDTO;
 import org.elis.progettoing.dto.response.cart.CartResponseDTO;
 import org.elis.progettoing.dto.response.cart.PurchasedProductResponseDTO;
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.exception.PurchasedProductException;
 import org.elis.progettoing.exception.entity.EntityAlreadyExistsException;
 import org.elis.progettoing.exception.entity.EntityCreationException;
@@ -20,6 +21,7 @@ import org.elis.progettoing.repository.ProductPackageRepository;
 import org.elis.progettoing.repository.ProductRepository;
 import org.elis.progettoing.repository.PurchasedProductRepository;
 import org.elis.progettoing.service.implementation.CartServiceImpl;
+import org.elis.progettoing.service.implementation.ModerationSignalStore;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -57,6 +59,9 @@ class CartServiceTest {
     @Mock
     private PurchasedProductMapper purchasedProductMapper;
 
+    @Mock
+    private ModerationSignalStore moderationSignalStore;
+
     @InjectMocks
     private CartServiceImpl cartService;
 
@@ -162,6 +167,8 @@ class CartServiceTest {
 
         assertEquals(mockResponse, result);
         verify(purchasedProductRepository, times(1)).save(purchasedProduct);
+        verify(moderationSignalStore).increment(ModerationSignal.PRODUCT_PURCHASES, 1L, 1);
+        verify(moderationSignalStore).increment(ModerationSignal.BUYER_PURCHASES, 1L, 1);
     }
 
     @Test
@@ -246,6 +253,7 @@ class CartServiceTest {
     void removePurchasedProduct_ShouldRemoveProductFromCart_WhenProductExists() {
         PurchasedProduct purchasedProduct = new PurchasedProduct();
         purchasedProduct.setId(1L);
+        purchasedProduct.setProduct(mockProduct);
         // Usa una lista modificabile
         mockCart.setPurchasedProducts(new ArrayList<>(Collections.singletonList(purchasedProduct)));
 
@@ -255,6 +263,8 @@ class CartServiceTest {
 
         assertTrue(result);
         verify(cartRepository, times(1)).save(mockCart);
+        verify(moderationSignalStore).increment(ModerationSignal.PRODUCT_PURCHASES, 1L, -1);
+        verify(moderationSignalStore).increment(ModerationSignal.BUYER_PURCHASES, 1L, -1);
     }
 
     @Test
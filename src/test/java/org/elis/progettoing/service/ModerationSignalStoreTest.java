@@ -0,0 +1,241 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.enumeration.ModerationSignal;
+import org.elis.progettoing.models.ModerationCounter;
+import org.elis.progettoing.models.ModerationCounterId;
+import org.elis.progettoing.models.ReviewRatingBucket;
+import org.elis.progettoing.models.ReviewRatingBucketId;
+import org.elis.progettoing.repository.ModerationCounterRepository;
+import org.elis.progettoing.repository.PurchasedProductRepository;
+import org.elis.progettoing.repository.ReviewRatingBucketRepository;
+import org.elis.progettoing.repository.ReviewRepository;
+import org.elis.progettoing.repository.TicketRepository;
+import org.elis.progettoing.service.implementation.ModerationSignalStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ModerationSignalStoreTest {
+
+    @Mock
+    private ModerationCounterRepository moderationCounterRepository;
+
+    @Mock
+    private ReviewRatingBucketRepository reviewRatingBucketRepository;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private PurchasedProductRepository purchasedProductRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ModerationSignalStore moderationSignalStore;
+
+    private final ModerationCounterId productReports = new ModerationCounterId(ModerationSignal.PRODUCT_REPORTS, 5L);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        moderationSignalStore = new ModerationSignalStore(moderationCounterRepository, reviewRatingBucketRepository,
+                ticketRepository, purchasedProductRepository, reviewRepository, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void increment_withoutCounter_seedsItFromTheCommittedRowsFirst() {
+        when(moderationCounterRepository.existsById(productReports)).thenReturn(false);
+        when(ticketRepository.countByReportedProductId(5L)).thenReturn(2L);
+
+        moderationSignalStore.increment(ModerationSignal.PRODUCT_REPORTS, 5L, 1);
+
+        ArgumentCaptor<ModerationCounter> seeded = ArgumentCaptor.forClass(ModerationCounter.class);
+        var inOrder = inOrder(moderationCounterRepository);
+        inOrder.verify(moderationCounterRepository).saveAndFlush(seeded.capture());
+        inOrder.verify(moderationCounterRepository).increment(ModerationSignal.PRODUCT_REPORTS, 5L, 1);
+        assertEquals(productReports, seeded.getValue().getId());
+        assertEquals(2L, seeded.getValue().getCount());
+    }
+
+    @Test
+    void increment_withCounter_onlyUpdatesIt() {
+        when(moderationCounterRepository.existsById(productReports)).thenReturn(true);
+
+        moderationSignalStore.increment(ModerationSignal.PRODUCT_REPORTS, 5L, -1);
+
+        verify(moderationCounterRepository).increment(ModerationSignal.PRODUCT_REPORTS, 5L, -1);
+        verify(moderationCounterRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(ticketRepository);
+    }
+
+    @Test
+    void getCount_isServedFromTheCacheUntilACommittedChange() {
+        when(moderationCounterRepository.existsById(productReports)).thenReturn(true);
+        when(moderationCounterRepository.findById(productReports))
+                .thenReturn(Optional.of(new ModerationCounter(ModerationSignal.PRODUCT_REPORTS, 5L, 3L)))
+                .thenReturn(Optional.of(new ModerationCounter(ModerationSignal.PRODUCT_REPORTS, 5L, 4L)));
+
+        assertEquals(3L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+        assertEquals(3L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        moderationSignalStore.increment(ModerationSignal.PRODUCT_REPORTS, 5L, 1);
+
+        // Prima del commit viene servito ancora il valore confermato
+        assertEquals(3L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(4L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+        verify(moderationCounterRepository, times(2)).findById(productReports);
+    }
+
+    @Test
+    void getCount_readInsideATransaction_isCachedOnlyAfterItsCommit() {
+        when(moderationCounterRepository.findById(productReports))
+                .thenReturn(Optional.of(new ModerationCounter(ModerationSignal.PRODUCT_REPORTS, 5L, 3L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(3L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+        assertEquals(3L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+        verify(moderationCounterRepository, times(2)).findById(productReports);
+        verify(transactionManager, never()).getTransaction(any());
+
+        // Dopo un rollback il valore letto non viene mantenuto, dopo un commit sì
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(3L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+        verify(moderationCounterRepository, times(3)).findById(productReports);
+    }
+
+    @Test
+    void getCount_withoutCounter_countsTheRows() {
+        when(moderationCounterRepository.findById(any())).thenReturn(Optional.empty());
+        when(purchasedProductRepository.countByBuyerId(9L)).thenReturn(51L);
+
+        assertEquals(51L, moderationSignalStore.getCount(ModerationSignal.BUYER_PURCHASES, 9L));
+        assertEquals(51L, moderationSignalStore.getCount(ModerationSignal.BUYER_PURCHASES, 9L));
+
+        verify(purchasedProductRepository, times(1)).countByBuyerId(9L);
+        verify(moderationCounterRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void getCount_loadedWhileAChangeIsCommitted_isNotCached() {
+        when(moderationCounterRepository.existsById(productReports)).thenReturn(true);
+        when(moderationCounterRepository.findById(productReports)).thenAnswer(invocation -> {
+            moderationSignalStore.increment(ModerationSignal.PRODUCT_REPORTS, 5L, 1);
+            return Optional.of(new ModerationCounter(ModerationSignal.PRODUCT_REPORTS, 5L, 3L));
+        }).thenReturn(Optional.of(new ModerationCounter(ModerationSignal.PRODUCT_REPORTS, 5L, 4L)));
+
+        assertEquals(3L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+        assertEquals(4L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+        assertEquals(4L, moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 5L));
+
+        verify(moderationCounterRepository, times(2)).findById(productReports);
+    }
+
+    @Test
+    void getAverageRating_averagesTheBucketsOfTheLastThirtyDays() {
+        LocalDate today = LocalDate.now();
+        when(reviewRatingBucketRepository.findByUserIdSince(1L, today.minusDays(29))).thenReturn(List.of(
+                new ReviewRatingBucket(1L, today.minusDays(29), 6.0, 2),
+                new ReviewRatingBucket(1L, today, 1.0, 1)));
+
+        assertEquals(7.0 / 3, moderationSignalStore.getAverageRating(1L));
+        assertEquals(7.0 / 3, moderationSignalStore.getAverageRating(1L));
+
+        verify(reviewRatingBucketRepository, times(1)).findByUserIdSince(anyLong(), any());
+    }
+
+    @Test
+    void getAverageRating_withoutReviews_returnsZero() {
+        when(reviewRatingBucketRepository.findByUserIdSince(anyLong(), any())).thenReturn(List.of());
+
+        assertEquals(0.0, moderationSignalStore.getAverageRating(1L));
+    }
+
+    @Test
+    void addRating_seedsTheBucketOfTheDayAndAddsTheDelta() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        when(reviewRatingBucketRepository.existsById(new ReviewRatingBucketId(1L, today))).thenReturn(false);
+        List<Object[]> sums = new ArrayList<>();
+        sums.add(new Object[]{4.5, 1L});
+        when(reviewRepository.sumRatingsOfUserBetween(1L, today.atStartOfDay(), today.plusDays(1).atStartOfDay())).thenReturn(sums);
+
+        moderationSignalStore.addRating(1L, now, 3.0, 1);
+
+        ArgumentCaptor<ReviewRatingBucket> seeded = ArgumentCaptor.forClass(ReviewRatingBucket.class);
+        verify(reviewRatingBucketRepository).saveAndFlush(seeded.capture());
+        assertEquals(4.5, seeded.getValue().getRatingSum());
+        assertEquals(1L, seeded.getValue().getRatingCount());
+        verify(reviewRatingBucketRepository).add(1L, today, 3.0, 1);
+    }
+
+    @Test
+    void addRating_outsideTheWindow_isIgnored() {
+        moderationSignalStore.addRating(1L, LocalDateTime.now().minusDays(30), 3.0, 1);
+        moderationSignalStore.addRating(1L, LocalDateTime.now(), 0, 0);
+
+        verifyNoInteractions(reviewRatingBucketRepository, reviewRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcile_overwritesTheCountersWithTheCountedRows() {
+        ModerationCounter stale = new ModerationCounter(ModerationSignal.PRODUCT_REPORTS, 1L, 7L);
+        ModerationCounter drifted = new ModerationCounter(ModerationSignal.PRODUCT_REPORTS, 2L, 7L);
+        when(moderationCounterRepository.lockBySignal(ModerationSignal.PRODUCT_REPORTS)).thenReturn(List.of(stale, drifted));
+        List<Object[]> counts = new ArrayList<>();
+        counts.add(new Object[]{2L, 3L});
+        counts.add(new Object[]{4L, 1L});
+        when(ticketRepository.countTicketsByReportedProduct()).thenReturn(counts);
+
+        moderationSignalStore.reconcile();
+
+        ArgumentCaptor<Collection<ModerationCounter>> saved = ArgumentCaptor.forClass(Collection.class);
+        verify(moderationCounterRepository, times(ModerationSignal.values().length)).saveAll(saved.capture());
+        Collection<ModerationCounter> productCounters = saved.getAllValues().get(ModerationSignal.PRODUCT_REPORTS.ordinal());
+        assertEquals(3, productCounters.size());
+        assertEquals(0L, stale.getCount());
+        assertEquals(3L, drifted.getCount());
+        assertEquals(1L, productCounters.stream().filter(c -> c.getId().getTargetId() == 4L).findFirst().orElseThrow().getCount());
+        verify(reviewRatingBucketRepository).deleteBefore(LocalDate.now().minusDays(29));
+    }
+}
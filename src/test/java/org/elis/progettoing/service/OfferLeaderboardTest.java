@@ -0,0 +1,204 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.dto.response.auction.OfferRankDTO;
+import org.elis.progettoing.exception.entity.EntityNotFoundException;
+import org.elis.progettoing.models.Offer;
+import org.elis.progettoing.models.User;
+import org.elis.progettoing.repository.AuctionRepository;
+import org.elis.progettoing.repository.OfferRepository;
+import org.elis.progettoing.service.implementation.OfferLeaderboard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OfferLeaderboardTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    private OfferRepository offerRepository;
+
+    @Mock
+    private AuctionRepository auctionRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private OfferLeaderboard offerLeaderboard;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(auctionRepository.findDeliveryDateById(1L)).thenReturn(Optional.of(10L));
+        offerLeaderboard = new OfferLeaderboard(offerRepository, auctionRepository, jdbcTemplate);
+    }
+
+    @Test
+    void getRanking_scoresOffersAgainstTheAveragePrice() {
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(1L, 10L, 80.0, 10L, 0.0, NOW, 0.0),
+                row(2L, 20L, 120.0, 10L, 0.0, NOW, 0.0)));
+
+        List<OfferRankDTO> ranking = offerLeaderboard.getRanking(1L);
+
+        assertEquals(2, ranking.size());
+        assertEquals(2L, ranking.get(0).getOfferId());
+        assertEquals(1, ranking.get(0).getRank());
+        assertEquals(0.4 / 1.04 + 0.44, ranking.get(0).getScore(), 1e-12);
+        assertEquals(1L, ranking.get(1).getOfferId());
+        assertEquals(2, ranking.get(1).getRank());
+        assertEquals(0.4 * (1 - 0.64) + 0.44, ranking.get(1).getScore(), 1e-12);
+    }
+
+    @Test
+    void getRanking_breaksTiesByOfferDate() {
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(1L, 10L, 100.0, 10L, 3.0, NOW.plusSeconds(5), 0.0),
+                row(2L, 20L, 100.0, 10L, 3.0, NOW, 0.0),
+                row(3L, 30L, 100.0, 10L, 3.0, NOW.plusNanos(1), 0.0)));
+
+        List<Long> ids = offerLeaderboard.getRanking(1L).stream().map(OfferRankDTO::getOfferId).toList();
+
+        assertEquals(List.of(2L, 3L, 1L), ids);
+    }
+
+    @Test
+    void offerSavedAndDeleted_matchAFreshLoadWithoutQueryingAgain() {
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(1L, 10L, 80.0, 7L, 4.0, NOW, 0.0),
+                row(2L, 20L, 120.0, 12L, 2.0, NOW.plusSeconds(1), 0.0),
+                row(3L, 30L, 95.0, 30L, 5.0, NOW.plusSeconds(2), 0.0)));
+        offerLeaderboard.getRanking(1L);
+
+        offerLeaderboard.offerSaved(1L, offer(4L, 40L, 60.0, 10L, 1.0, NOW.plusSeconds(3)));
+        offerLeaderboard.offerSaved(1L, offer(2L, 20L, 140.0, 9L, 2.0, NOW.plusSeconds(4)));
+        offerLeaderboard.offerDeleted(1L, 1L);
+        List<OfferRankDTO> incremental = offerLeaderboard.getRanking(1L);
+
+        OfferLeaderboard fresh = new OfferLeaderboard(offerRepository, auctionRepository, jdbcTemplate);
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(2L, 20L, 140.0, 9L, 2.0, NOW.plusSeconds(4), 0.0),
+                row(3L, 30L, 95.0, 30L, 5.0, NOW.plusSeconds(2), 0.0),
+                row(4L, 40L, 60.0, 10L, 1.0, NOW.plusSeconds(3), 0.0)));
+
+        assertEquals(fresh.getRanking(1L), incremental);
+        verify(offerRepository, times(2)).findRankingFieldsByAuctionId(1L);
+    }
+
+    @Test
+    void offerSaved_isIgnoredUntilTheRankingIsLoaded() {
+        offerLeaderboard.offerSaved(1L, offer(4L, 40L, 60.0, 10L, 1.0, NOW));
+
+        verifyNoInteractions(offerRepository);
+    }
+
+    @Test
+    void getTop_returnsOnlyTheBestOffers() {
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(1L, 10L, 80.0, 10L, 0.0, NOW, 0.0),
+                row(2L, 20L, 120.0, 10L, 0.0, NOW, 0.0),
+                row(3L, 30L, 100.0, 10L, 0.0, NOW, 0.0)));
+
+        List<OfferRankDTO> top = offerLeaderboard.getTop(1L, 1);
+
+        assertEquals(1, top.size());
+        assertEquals(3L, top.get(0).getOfferId());
+    }
+
+    @Test
+    void getPage_selectsTheSameOffersAsTheFullRanking() {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            rows.add(row(id, id, 50.0 + (id * 37) % 100, 1 + (id * 13) % 20, (id % 6), NOW.plusSeconds(id % 7), 0.0));
+        }
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows);
+        List<OfferRankDTO> page = offerLeaderboard.getPage(1L, 10, 15);
+
+        OfferLeaderboard sorted = new OfferLeaderboard(offerRepository, auctionRepository, jdbcTemplate);
+        List<OfferRankDTO> ranking = sorted.getRanking(1L);
+
+        assertEquals(ranking.subList(10, 25), page);
+        assertEquals(11, page.get(0).getRank());
+    }
+
+    @Test
+    void getPage_pastTheLastOffer_returnsAnEmptyList() {
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(1L, 10L, 80.0, 10L, 0.0, NOW, 0.0)));
+
+        assertTrue(offerLeaderboard.getPage(1L, 1, 10).isEmpty());
+    }
+
+    @Test
+    void getRankOfSeller_returnsThePositionOfTheSellerOffer() {
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(1L, 10L, 80.0, 10L, 0.0, NOW, 0.0),
+                row(2L, 20L, 120.0, 10L, 0.0, NOW, 0.0)));
+
+        assertEquals(2, offerLeaderboard.getRankOfSeller(1L, 10L).getRank());
+        assertNull(offerLeaderboard.getRankOfSeller(1L, 99L));
+    }
+
+    @Test
+    void getRanking_whenAuctionNotFound_throwsEntityNotFoundException() {
+        when(auctionRepository.findDeliveryDateById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> offerLeaderboard.getRanking(2L));
+        verify(offerRepository, never()).findRankingFieldsByAuctionId(2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void persistScores_writesOnlyTheScoresThatChanged() {
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(1L, 10L, 80.0, 10L, 0.0, NOW, 0.0),
+                row(2L, 20L, 120.0, 10L, 0.0, NOW, 0.0)));
+        List<OfferRankDTO> scored = new OfferLeaderboard(offerRepository, auctionRepository, jdbcTemplate).getRanking(1L);
+
+        when(offerRepository.findRankingFieldsByAuctionId(1L)).thenReturn(rows(
+                row(1L, 10L, 80.0, 10L, 0.0, NOW, 0.0),
+                row(2L, 20L, 120.0, 10L, 0.0, NOW, scored.get(0).getScore())));
+        offerLeaderboard.getRanking(1L);
+
+        offerLeaderboard.persistScores();
+        offerLeaderboard.persistScores();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE offer SET score = ? WHERE id = ?"), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertArrayEquals(new Object[]{scored.get(1).getScore(), 1L}, batch.getValue().get(0));
+    }
+
+    private static Offer offer(long id, long sellerId, double price, long deliveryTime, double ranking, LocalDateTime offerDate) {
+        User seller = new User();
+        seller.setId(sellerId);
+        seller.setRanking(ranking);
+
+        Offer offer = new Offer();
+        offer.setId(id);
+        offer.setSeller(seller);
+        offer.setPrice(price);
+        offer.setDeliveryTimeProposed(deliveryTime);
+        offer.setOfferDate(offerDate);
+        return offer;
+    }
+
+    private static Object[] row(long id, long sellerId, double price, long deliveryTime, double ranking, LocalDateTime offerDate, double score) {
+        return new Object[]{id, sellerId, price, deliveryTime, ranking, offerDate, score};
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
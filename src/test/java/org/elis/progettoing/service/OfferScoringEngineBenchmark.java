@@ -0,0 +1,87 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.models.Offer;
+import org.elis.progettoing.service.implementation.OfferScoringEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the scoring of a whole auction with {@link OfferScoringEngine#scoreAll} over primitive arrays,
+ * compared with the former scoring of each {@link Offer} entity, whose average price was computed with a stream. At
+ * the end of each trial the scores of the two paths are compared bit for bit. It is not run by the tests: start it
+ * from the {@link #main} method, or from the IDE, after compiling the test classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OfferScoringEngineBenchmark {
+    private static final long AUCTION_DELIVERY_TIME = 14L;
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<Offer> offers;
+    private double[] prices;
+    private long[] deliveryTimes;
+    private double[] sellerRankings;
+    private double[] scores;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        offers = new ArrayList<>(size);
+        prices = new double[size];
+        deliveryTimes = new long[size];
+        sellerRankings = new double[size];
+        scores = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            prices[i] = random.nextDouble() * 1_000;
+            deliveryTimes[i] = random.nextInt(60) + 1L;
+            sellerRankings[i] = random.nextDouble() * 5;
+            offers.add(BaselineOfferScoring.offer(prices[i], deliveryTimes[i], sellerRankings[i]));
+        }
+    }
+
+    @Benchmark
+    public double[] scoreAll() {
+        // Stessa media compensata dello stream sulle entità, perché i punteggi devono coincidere
+        double averagePrice = Arrays.stream(prices, 0, size).average().orElse(0.0);
+
+        OfferScoringEngine.scoreAll(prices, deliveryTimes, sellerRankings, size, averagePrice, AUCTION_DELIVERY_TIME, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public List<Offer> scoreEachOfferEntity() {
+        BaselineOfferScoring.scoreOffers(offers, AUCTION_DELIVERY_TIME);
+        return offers;
+    }
+
+    @TearDown
+    public void checkScores() {
+        scoreAll();
+        scoreEachOfferEntity();
+
+        for (int i = 0; i < size; i++) {
+            if (Double.doubleToRawLongBits(scores[i]) != Double.doubleToRawLongBits(offers.get(i).getScore())) {
+                throw new IllegalStateException("Punteggio diverso per l'offerta " + i + ": " + scores[i] + " invece di " + offers.get(i).getScore());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OfferScoringEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
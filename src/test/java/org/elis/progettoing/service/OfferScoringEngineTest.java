@@ -0,0 +1,86 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.models.Offer;
+import org.elis.progettoing.service.implementation.OfferScoringEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OfferScoringEngineTest {
+
+    @Test
+    void calculateTotalScore_matchesTheWeightedFormula() {
+        double expected = (0.4 / (1 + Math.pow(1.2 - 1, 2))) + ((1 / (1 + Math.pow(2 / 15.0, 2)) + 0.1) * 0.4) + (4.0 / 5.0 * 0.2);
+
+        assertEquals(expected, OfferScoringEngine.calculateTotalScore(120.0, 8L, 4.0, 100.0, 10L));
+    }
+
+    @Test
+    void calculateTotalScore_withoutPriceOrDelivery_scoresOnlyTheRanking() {
+        assertEquals(0.2, OfferScoringEngine.calculateTotalScore(0.0, 0L, 5.0, 100.0, 10L));
+        assertEquals(0.2, OfferScoringEngine.calculateTotalScore(-3.0, 5L, 5.0, 100.0, 0L));
+    }
+
+    @Test
+    void scoreAll_returnsTheExpectedScores() {
+        double[] prices = {80, 120, 0, 250};
+        long[] deliveryTimes = {8, 10, 0, 30};
+        double[] rankings = {4.0, 5.0, 3.0, 1.5};
+        double[] scores = new double[4];
+
+        OfferScoringEngine.scoreAll(prices, deliveryTimes, rankings, 4, 112.5, 10L, scores);
+        assertArrayEquals(new double[]{0.7907414954984097, 1.0382300884955753, 0.12, 0.40439603960396037}, scores);
+
+        OfferScoringEngine.scoreAll(prices, deliveryTimes, rankings, 4, 112.5, 0L, scores);
+        assertArrayEquals(new double[]{0.35772839506172843, 0.5982300884955752, 0.12, 0.22039603960396037}, scores);
+    }
+
+    @Test
+    void scoreAll_returnsExactlyTheScoresOfTheFormerPerOfferScoring() {
+        Random random = new Random(42);
+        int size = 5_000;
+        double[] prices = new double[size];
+        long[] deliveryTimes = new long[size];
+        double[] rankings = new double[size];
+        List<Offer> offers = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            prices[i] = i % 97 == 0 ? 0 : random.nextDouble() * 1_000 - (i % 89 == 0 ? 1_000 : 0);
+            deliveryTimes[i] = random.nextInt(60) - (i % 53 == 0 ? 60 : 0);
+            rankings[i] = random.nextInt(6) + random.nextDouble();
+            offers.add(BaselineOfferScoring.offer(prices[i], deliveryTimes[i], rankings[i]));
+        }
+
+        double averagePrice = Arrays.stream(prices).average().orElse(0.0);
+
+        for (long auctionDeliveryTime : new long[]{0L, 1L, 14L, 45L, 500L}) {
+            double[] scores = new double[size];
+
+            OfferScoringEngine.scoreAll(prices, deliveryTimes, rankings, size, averagePrice, auctionDeliveryTime, scores);
+            BaselineOfferScoring.scoreOffers(offers, auctionDeliveryTime);
+
+            for (int i = 0; i < size; i++) {
+                double expected = offers.get(i).getScore();
+                assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(scores[i]), "offerta " + i);
+                assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(OfferScoringEngine.calculateTotalScore(
+                        prices[i], deliveryTimes[i], rankings[i], averagePrice, auctionDeliveryTime)), "offerta " + i);
+            }
+        }
+    }
+
+    @Test
+    void scoreAll_scoresOnlyTheGivenSize() {
+        double[] scores = {-1, -1, -1};
+
+        OfferScoringEngine.scoreAll(new double[]{100, 100, 100}, new long[]{10, 10, 10}, new double[]{5, 5, 5}, 2, 100.0, 10L, scores);
+
+        assertEquals(-1, scores[2]);
+        assertEquals(1.04, scores[0]);
+    }
+}
@@ -1,6 +1,7 @@
 package org.elis.progettoing.service;
 
 import org.elis.progettoing.dto.request.auction.OfferRequestDTO;
+import org.elis.progettoing.dto.response.auction.OfferRankDTO;
 import org.elis.progettoing.dto.response.auction.OfferResponseDTO;
 import org.elis.progettoing.enumeration.AuctionStatus;
 import org.elis.progettoing.exception.auction.AuctionException;
@@ -9,6 +10,7 @@ import org.elis.progettoing.exception.entity.EntityAlreadyExistsException;
 import org.elis.progettoing.exception.entity.EntityCreationException;
 import org.elis.progettoing.exception.entity.EntityDeletionException;
 import org.elis.progettoing.exception.entity.EntityNotFoundException;
+import org.elis.progettoing.exception.entity.InvalidEntityDataException;
 import org.elis.progettoing.mapper.implementation.OfferMapperImpl;
 import org.elis.progettoing.models.Offer;
 import org.elis.progettoing.models.User;
@@ -16,6 +18,8 @@ import org.elis.progettoing.models.auction.Auction;
 import org.elis.progettoing.pattern.observerPattern.AuctionManager;
 import org.elis.progettoing.repository.AuctionRepository;
 import org.elis.progettoing.repository.OfferRepository;
+import org.elis.progettoing.service.implementation.AuctionEventPublisher;
+import org.elis.progettoing.service.implementation.OfferLeaderboard;
 import org.elis.progettoing.service.implementation.OfferServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +29,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +49,12 @@ class OfferServiceTest {
     @Mock
     private AuctionManager auctionManager;
 
+    @Mock
+    private AuctionEventPublisher auctionEventPublisher;
+
+    @Mock
+    private OfferLeaderboard offerLeaderboard;
+
     @InjectMocks
     private OfferServiceImpl offerService;
 
@@ -65,6 +76,8 @@ class OfferServiceTest {
 
         auction.setId(1L);
         auction.setStatus(AuctionStatus.OPEN);
+        auction.setStartAuctionDate(LocalDateTime.now().minusDays(1));
+        auction.setEndAuctionDate(LocalDateTime.now().plusDays(1));
         auction.setOwner(new User());
 
         offerRequestDTO.setAuctionId(1L);
@@ -86,11 +99,12 @@ class OfferServiceTest {
         offer2.setSeller(new User());
 
         authentication = new UsernamePasswordAuthenticationToken(user, null);
+        when(auctionRepository.findByIdForOffer(1L)).thenReturn(Optional.of(auction));
     }
 
     @Test
     void createOffer_WhenSaveFailed_ThrowEntityCreationException() {
-        when(auctionRepository.findById(1L)).thenReturn(Optional.of(auction));
+        when(auctionRepository.findByIdForOffer(1L)).thenReturn(Optional.of(auction));
         when(offerRepository.findBySellerIdAndAuctionId(1L, 1L)).thenReturn(null);
         when(offerMapper.offerRequestDTOToOffer(offerRequestDTO)).thenReturn(offer);
         when(offerRepository.save(any(Offer.class))).thenThrow(new RuntimeException());
@@ -103,14 +117,14 @@ class OfferServiceTest {
         auction.setOwner(user);
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        when(auctionRepository.findById(1L)).thenReturn(Optional.of(auction));
+        when(auctionRepository.findByIdForOffer(1L)).thenReturn(Optional.of(auction));
 
         assertThrows(AuctionOwnershipException.class, () -> offerService.createOffer(offerRequestDTO));
     }
 
     @Test
     void createOffer_WithValidRequest_CreatesAndReturnsOffer() {
-        when(auctionRepository.findById(1L)).thenReturn(Optional.of(auction));
+        when(auctionRepository.findByIdForOffer(1L)).thenReturn(Optional.of(auction));
         when(offerRepository.findBySellerIdAndAuctionId(1L, 1L)).thenReturn(null);
         when(offerMapper.offerRequestDTOToOffer(offerRequestDTO)).thenReturn(offer);
         when(offerRepository.save(any(Offer.class))).thenReturn(offer);
@@ -120,11 +134,13 @@ class OfferServiceTest {
 
         assertNotNull(result);
         verify(offerRepository).save(any(Offer.class));
+        verify(auctionEventPublisher).offerCreated(result);
+        verify(offerLeaderboard).offerSaved(1L, offer);
     }
 
     @Test
     void createOffer_AuctionNotFound_ThrowsEntityNotFoundException() {
-        when(auctionRepository.findById(1L)).thenReturn(Optional.empty());
+        when(auctionRepository.findByIdForOffer(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> offerService.createOffer(offerRequestDTO));
     }
@@ -133,16 +149,39 @@ class OfferServiceTest {
     void createOffer_AuctionNotOpen_ThrowsAuctionException() {
         auction.setStatus(AuctionStatus.PENDING);
 
-        when(auctionRepository.findById(1L)).thenReturn(Optional.of(auction));
+        when(auctionRepository.findByIdForOffer(1L)).thenReturn(Optional.of(auction));
 
         assertThrows(AuctionException.class, () -> offerService.createOffer(offerRequestDTO));
     }
 
+    @Test
+    void createOffer_AfterEndDateWhileStillOpen_ThrowsAuctionException() {
+        auction.setEndAuctionDate(LocalDateTime.now().minusSeconds(1));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        when(auctionRepository.findByIdForOffer(1L)).thenReturn(Optional.of(auction));
+
+        assertThrows(AuctionException.class, () -> offerService.createOffer(offerRequestDTO));
+        verify(offerRepository, never()).save(any(Offer.class));
+    }
+
+    @Test
+    void updateOffer_AuctionClosed_ThrowsAuctionException() {
+        auction.setStatus(AuctionStatus.CLOSED);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        when(offerRepository.findBySellerIdAndAuctionId(1L, 1L)).thenReturn(offer);
+
+        assertThrows(AuctionException.class, () -> offerService.updateOffer(offerRequestDTO));
+        verify(offerRepository, never()).save(any(Offer.class));
+        verify(auctionRepository, never()).findById(anyLong());
+    }
+
     @Test
     void createOffer_UserAlreadySubmittedOffer_ThrowsEntityAlreadyExistsException() {
         Offer existingOffer = new Offer();
 
-        when(auctionRepository.findById(1L)).thenReturn(Optional.of(auction));
+        when(auctionRepository.findByIdForOffer(1L)).thenReturn(Optional.of(auction));
         when(offerRepository.findBySellerIdAndAuctionId(1L, 1L)).thenReturn(existingOffer);
 
         assertThrows(EntityAlreadyExistsException.class, () -> offerService.createOffer(offerRequestDTO));
@@ -159,6 +198,7 @@ class OfferServiceTest {
 
         assertTrue(result);
         verify(offerRepository).delete(offer);
+        verify(auctionEventPublisher).offerDeleted(auctionId, offer.getId());
     }
 
     @Test
@@ -218,19 +258,66 @@ class OfferServiceTest {
     void getAllOffersByAuction_WithValidRequest_ReturnsSortedOffers() {
         long auctionId = 1L;
 
-        auction.setDeliveryDate(10L);
+        OfferResponseDTO first = new OfferResponseDTO();
+        OfferResponseDTO second = new OfferResponseDTO();
 
-        List<Offer> offers = List.of(offer1, offer2);
+        when(offerLeaderboard.getPage(auctionId, 0, Integer.MAX_VALUE)).thenReturn(List.of(
+                new OfferRankDTO(2L, 20L, 80.0, 5L, 0.9, 1),
+                new OfferRankDTO(1L, 10L, 120.0, 5L, 0.5, 2)));
+        when(offerRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(offer1, offer2));
+        when(offerMapper.offerToOfferResponseDTO(offer1)).thenReturn(second);
+        when(offerMapper.offerToOfferResponseDTO(offer2)).thenReturn(first);
 
-        when(auctionRepository.findById(auctionId)).thenReturn(Optional.of(auction));
-        when(offerRepository.findAllByAuctionId(auctionId)).thenReturn(offers);
-        when(offerMapper.offerToOfferResponseDTO(any(Offer.class))).thenReturn(new OfferResponseDTO());
+        List<OfferResponseDTO> result = offerService.getAllOffersByAuction(auctionId, 0, null);
 
-        List<OfferResponseDTO> result = offerService.getAllOffersByAuction(auctionId);
+        assertEquals(List.of(first, second), result);
+        assertEquals(0.9, offer2.getScore());
+        assertEquals(0.5, offer1.getScore());
+        verify(offerRepository, never()).findAllByAuctionId(auctionId);
+    }
 
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(offerRepository).findAllByAuctionId(auctionId);
+    @Test
+    void getAllOffersByAuction_WhenAuctionNotFound_ThrowsEntityNotFoundException() {
+        when(offerLeaderboard.getPage(1L, 0, 10)).thenThrow(new EntityNotFoundException("asta", "ID", 1L));
+
+        assertThrows(EntityNotFoundException.class, () -> offerService.getAllOffersByAuction(1L, 0, 10));
+        verify(offerRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void getAllOffersByAuction_WithPage_LoadsOnlyThePageOffers() {
+        when(offerLeaderboard.getPage(1L, 1, 1)).thenReturn(List.of(new OfferRankDTO(1L, 10L, 120.0, 5L, 0.5, 2)));
+        when(offerRepository.findAllById(List.of(1L))).thenReturn(List.of(offer1));
+        when(offerMapper.offerToOfferResponseDTO(offer1)).thenReturn(new OfferResponseDTO());
+
+        List<OfferResponseDTO> result = offerService.getAllOffersByAuction(1L, 1, 1);
+
+        assertEquals(1, result.size());
+        verify(offerMapper, never()).offerToOfferResponseDTO(offer2);
+    }
+
+    @Test
+    void getAllOffersByAuction_WithInvalidPage_ThrowsInvalidEntityDataException() {
+        assertThrows(InvalidEntityDataException.class, () -> offerService.getAllOffersByAuction(1L, -1, 10));
+        assertThrows(InvalidEntityDataException.class, () -> offerService.getAllOffersByAuction(1L, 0, 0));
+        verifyNoInteractions(offerLeaderboard);
+    }
+
+    @Test
+    void getTopOffers_ReturnsLeaderboardTop() {
+        List<OfferRankDTO> top = List.of(new OfferRankDTO(2L, 20L, 80.0, 5L, 0.9, 1));
+        when(offerLeaderboard.getTop(1L, 1)).thenReturn(top);
+
+        assertEquals(top, offerService.getTopOffers(1L, 1));
+    }
+
+    @Test
+    void getOfferRankByUser_ReturnsRankOfAuthenticatedSeller() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        OfferRankDTO rank = new OfferRankDTO(2L, 1L, 80.0, 5L, 0.9, 3);
+        when(offerLeaderboard.getRankOfSeller(1L, 1L)).thenReturn(rank);
+
+        assertEquals(rank, offerService.getOfferRankByUser(1L));
     }
 
     @Test
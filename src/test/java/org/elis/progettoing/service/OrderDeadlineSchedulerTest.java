@@ -0,0 +1,145 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.dto.response.order.OrderDeadlineMetricsDTO;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+import org.elis.progettoing.repository.OrderProductRepository;
+import org.elis.progettoing.service.implementation.OrderDeadlineScheduler;
+import org.elis.progettoing.service.implementation.SellerOrderCounterManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderDeadlineSchedulerTest {
+
+    @Mock
+    private OrderProductRepository orderProductRepository;
+
+    @Mock
+    private SellerOrderCounterManager sellerOrderCounterManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderDeadlineScheduler orderDeadlineScheduler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionStatus transactionStatus = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(orderProductRepository.findDeadlinesAfter(any(), any(), anyLong(), any(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        orderDeadlineScheduler = new OrderDeadlineScheduler(orderProductRepository, sellerOrderCounterManager, transactionManager);
+    }
+
+    @Test
+    void refill_thenFire_movesOverdueLinesToLateDelivery() {
+        List<Object[]> deadlines = new ArrayList<>();
+        deadlines.add(new Object[]{1L, LocalDateTime.now().minusMinutes(5)});
+        deadlines.add(new Object[]{2L, LocalDateTime.now().minusMinutes(1)});
+        deadlines.add(new Object[]{3L, LocalDateTime.now().plusMinutes(5)});
+        when(orderProductRepository.findDeadlinesAfter(eq(OrderProductStatus.IN_PROGRESS), any(), eq(0L), any(), any(Pageable.class)))
+                .thenReturn(deadlines);
+        List<Object[]> locked = new ArrayList<>();
+        locked.add(new Object[]{1L, 7L});
+        locked.add(new Object[]{2L, 7L});
+        when(orderProductRepository.lockOverdueLines(eq(Set.of(1L, 2L)), eq(OrderProductStatus.IN_PROGRESS), any())).thenReturn(locked);
+        when(orderProductRepository.updateStatus(List.of(1L, 2L), OrderProductStatus.IN_PROGRESS, OrderProductStatus.LATE_DELIVERY)).thenReturn(2);
+
+        orderDeadlineScheduler.refill();
+        orderDeadlineScheduler.fireDueDeadlines();
+
+        verify(sellerOrderCounterManager).transition(7L, OrderProductStatus.IN_PROGRESS, OrderProductStatus.LATE_DELIVERY, 2L);
+        OrderDeadlineMetricsDTO metrics = orderDeadlineScheduler.getMetrics();
+        assertEquals(1, metrics.getQueuedDeadlines());
+        assertEquals(0, metrics.getOverdueDeadlines());
+        assertEquals(2, metrics.getLateTransitions());
+        assertTrue(metrics.getMaxLagMillis() >= 5 * 60 * 1000);
+        assertNotNull(metrics.getLoadedUntil());
+    }
+
+    @Test
+    void refill_afterFirstLoad_readsOnlyTheNewSliceOfTheWindow() {
+        orderDeadlineScheduler.refill();
+        LocalDateTime loadedUntil = orderDeadlineScheduler.getMetrics().getLoadedUntil();
+
+        orderDeadlineScheduler.refill();
+
+        verify(orderProductRepository).findDeadlinesAfter(eq(OrderProductStatus.IN_PROGRESS), eq(loadedUntil), eq(Long.MAX_VALUE), any(), any(Pageable.class));
+    }
+
+    @Test
+    void fire_withLinesDeliveredInTheMeantime_updatesNothing() {
+        orderDeadlineScheduler.refill();
+        orderDeadlineScheduler.track(4L, LocalDateTime.now().minusSeconds(1));
+        when(orderProductRepository.lockOverdueLines(eq(Set.of(4L)), eq(OrderProductStatus.IN_PROGRESS), any())).thenReturn(Collections.emptyList());
+
+        orderDeadlineScheduler.fireDueDeadlines();
+
+        verify(orderProductRepository, never()).updateStatus(any(), any(), any());
+        verifyNoInteractions(sellerOrderCounterManager);
+        assertEquals(0, orderDeadlineScheduler.getMetrics().getQueuedDeadlines());
+    }
+
+    @Test
+    void track_beyondLoadedWindow_isLeftToTheNextRefill() {
+        orderDeadlineScheduler.refill();
+
+        orderDeadlineScheduler.track(5L, LocalDateTime.now().plusDays(2));
+
+        assertEquals(0, orderDeadlineScheduler.getMetrics().getQueuedDeadlines());
+    }
+
+    @Test
+    void fire_whenUpdateFails_requeuesTheDeadlinesWithADelay() {
+        orderDeadlineScheduler.refill();
+        orderDeadlineScheduler.track(6L, LocalDateTime.now().minusSeconds(1));
+        when(orderProductRepository.lockOverdueLines(any(), any(), any())).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> orderDeadlineScheduler.fireDueDeadlines());
+
+        // La scadenza resta in coda ma non viene ritentata al giro successivo
+        OrderDeadlineMetricsDTO metrics = orderDeadlineScheduler.getMetrics();
+        assertEquals(1, metrics.getQueuedDeadlines());
+        assertEquals(0, metrics.getOverdueDeadlines());
+        assertEquals(0, metrics.getAbandonedDeadlines());
+        orderDeadlineScheduler.fireDueDeadlines();
+        verify(orderProductRepository, times(1)).lockOverdueLines(any(), any(), any());
+    }
+
+    @Test
+    void fire_afterAFailedBatch_retriesEachLineAloneSoThatOneBadLineDoesNotBlockTheOthers() throws InterruptedException {
+        orderDeadlineScheduler.refill();
+        orderDeadlineScheduler.track(7L, LocalDateTime.now().minusSeconds(1));
+        orderDeadlineScheduler.track(8L, LocalDateTime.now().minusSeconds(1));
+        when(orderProductRepository.lockOverdueLines(argThat(ids -> ids != null && ids.contains(8L)), any(), any())).thenThrow(new RuntimeException("riga non valida"));
+        when(orderProductRepository.lockOverdueLines(eq(Set.of(7L)), any(), any())).thenReturn(List.<Object[]>of(new Object[]{7L, 3L}));
+        when(orderProductRepository.updateStatus(List.of(7L), OrderProductStatus.IN_PROGRESS, OrderProductStatus.LATE_DELIVERY)).thenReturn(1);
+
+        assertThrows(RuntimeException.class, () -> orderDeadlineScheduler.fireDueDeadlines());
+        Thread.sleep(1100);
+        assertThrows(RuntimeException.class, () -> orderDeadlineScheduler.fireDueDeadlines());
+
+        verify(orderProductRepository).updateStatus(List.of(7L), OrderProductStatus.IN_PROGRESS, OrderProductStatus.LATE_DELIVERY);
+        OrderDeadlineMetricsDTO metrics = orderDeadlineScheduler.getMetrics();
+        assertEquals(1, metrics.getLateTransitions());
+        assertEquals(1, metrics.getQueuedDeadlines());
+        assertEquals(0, metrics.getOverdueDeadlines());
+    }
+}
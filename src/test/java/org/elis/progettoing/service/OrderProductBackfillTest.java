@@ -0,0 +1,66 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.repository.OrderProductRepository;
+import org.elis.progettoing.service.implementation.OrderProductBackfill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderProductBackfillTest {
+
+    @Mock
+    private OrderProductRepository orderProductRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderProductBackfill orderProductBackfill;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionStatus transactionStatus = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        orderProductBackfill = new OrderProductBackfill(orderProductRepository, transactionManager);
+    }
+
+    @Test
+    void backfill_processesBatchesUntilNoRowsAreLeft() {
+        when(orderProductRepository.findIdsWithoutSeller(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L));
+        when(orderProductRepository.findIdsWithoutSeller(eq(3L), any(Pageable.class))).thenReturn(List.of(7L));
+        when(orderProductRepository.findIdsWithoutSeller(eq(7L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(orderProductRepository.backfillSeller(List.of(1L, 2L, 3L))).thenReturn(3);
+        when(orderProductRepository.backfillSeller(List.of(7L))).thenReturn(1);
+
+        long updated = orderProductBackfill.backfill(orderProductRepository::findIdsWithoutSeller, orderProductRepository::backfillSeller);
+
+        assertEquals(4, updated);
+        verify(orderProductRepository, times(2)).backfillSeller(anyList());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void onApplicationReady_runsTheSellerAndTheReviewBackfills() {
+        when(orderProductRepository.findIdsWithoutSeller(anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(orderProductRepository.findIdsWithUnflaggedReview(eq(0L), any(Pageable.class))).thenReturn(List.of(4L));
+        when(orderProductRepository.findIdsWithUnflaggedReview(eq(4L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        orderProductBackfill.onApplicationReady();
+
+        verify(orderProductRepository, never()).backfillSeller(anyList());
+        verify(orderProductRepository).flagReviewed(List.of(4L));
+    }
+}
@@ -0,0 +1,140 @@
+package org.elis.progettoing.service;
+
+import jakarta.persistence.EntityManager;
+import org.elis.progettoing.models.Order;
+import org.elis.progettoing.models.OrderProduct;
+import org.elis.progettoing.models.OrderSearchTrigram;
+import org.elis.progettoing.models.User;
+import org.elis.progettoing.models.product.Product;
+import org.elis.progettoing.repository.OrderRepository;
+import org.elis.progettoing.repository.OrderSearchTrigramRepository;
+import org.elis.progettoing.service.implementation.OrderSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderSearchIndexTest {
+
+    @Mock
+    private OrderSearchTrigramRepository orderSearchTrigramRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderSearchIndex orderSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        orderSearchIndex = new OrderSearchIndex(orderSearchTrigramRepository, orderRepository, entityManager, transactionManager);
+    }
+
+    @Test
+    void index_storesTheTrigramsOfEveryFieldWithoutCaseAndAccents() {
+        User buyer = new User();
+        buyer.setName("Nicolò");
+        buyer.setSurname("Re");
+        buyer.setEmail("n@x.it");
+        Product product = new Product();
+        product.setTitle("Logo");
+        OrderProduct orderProduct = new OrderProduct();
+        orderProduct.setProduct(product);
+        Order order = new Order();
+        order.setId(42L);
+        order.setBuyer(buyer);
+        order.setOrderProducts(List.of(orderProduct));
+
+        orderSearchIndex.index(order);
+
+        Set<String> trigrams = persistedTrigrams(42L);
+        assertTrue(trigrams.containsAll(List.of("42 ", "2  ", "nic", "col", "olo", "lo ", "re ", "e  ", "n@x", ".it", "log", "ogo")));
+        assertFalse(trigrams.contains("olò"));
+    }
+
+    @Test
+    void findCandidateOrderIds_intersectsThePostingListsOfTheQueryTrigrams() {
+        when(orderSearchTrigramRepository.findOrderIdsContainingAll(anyCollection(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(3L, 7L));
+
+        Optional<List<Long>> candidates = orderSearchIndex.findCandidateOrderIds("Rossì");
+
+        assertEquals(Optional.of(List.of(3L, 7L)), candidates);
+        verify(orderSearchTrigramRepository).findOrderIdsContainingAll(
+                eq(Set.of("ros", "oss", "ssi")), eq(3L), any(Pageable.class));
+    }
+
+    @Test
+    void findCandidateOrderIds_withShortText_looksUpTheTrigramPrefix() {
+        when(orderSearchTrigramRepository.findOrderIdsByTrigramPrefix(eq("5!%%"), any(Pageable.class)))
+                .thenReturn(List.of(5L));
+
+        assertEquals(Optional.of(List.of(5L)), orderSearchIndex.findCandidateOrderIds("5%"));
+    }
+
+    @Test
+    void findCandidateOrderIds_withTooManyCandidates_fallsBackToTheFullSearch() {
+        when(orderSearchTrigramRepository.findOrderIdsByTrigramPrefix(anyString(), any(Pageable.class)))
+                .thenReturn(LongStream.rangeClosed(1, 2001).boxed().toList());
+
+        assertTrue(orderSearchIndex.findCandidateOrderIds("a").isEmpty());
+    }
+
+    @Test
+    void reindexBuyer_rewritesThePostingsOfEveryOrderBatchByBatch() {
+        when(orderRepository.findBuyerOrderIds(eq(9L), isNull(), any(Pageable.class))).thenReturn(List.of(8L));
+        when(orderRepository.findBuyerOrderIds(eq(9L), eq(8L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{8L, "Anna", "Neri", "a@b.it", null});
+        when(orderRepository.findSearchFields(List.of(8L))).thenReturn(rows);
+
+        orderSearchIndex.reindexBuyer(9L);
+
+        verify(orderSearchTrigramRepository).deleteByOrderIds(List.of(8L));
+        assertTrue(persistedTrigrams(8L).containsAll(List.of("8  ", "ann", "ner", "a@b")));
+        verify(entityManager).flush();
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, times(2)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    void indexMissingOrders_indexesTheOrdersWithoutPostings() {
+        when(orderRepository.findIdsWithoutSearchTrigrams(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(orderRepository.findIdsWithoutSearchTrigrams(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(orderRepository.findSearchFields(List.of(1L, 2L))).thenReturn(Collections.emptyList());
+
+        assertEquals(2L, orderSearchIndex.indexMissingOrders());
+        verify(orderSearchTrigramRepository).deleteByOrderIds(List.of(1L, 2L));
+    }
+
+    private Set<String> persistedTrigrams(long orderId) {
+        ArgumentCaptor<OrderSearchTrigram> captor = ArgumentCaptor.forClass(OrderSearchTrigram.class);
+        verify(entityManager, atLeastOnce()).persist(captor.capture());
+        Set<String> trigrams = new HashSet<>();
+        for (OrderSearchTrigram posting : captor.getAllValues()) {
+            assertEquals(orderId, posting.getId().getOrderId());
+            trigrams.add(posting.getId().getTrigram());
+        }
+        return trigrams;
+    }
+}
@@ -3,17 +3,26 @@ package org.elis.progettoing.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import org.elis.progettoing.dto.request.order.OrderFacetRequest;
 import org.elis.progettoing.dto.request.order.OrderFilterRequest;
+import org.elis.progettoing.dto.request.order.OrderProductBulkStatusRequest;
 import org.elis.progettoing.dto.request.order.OrderRequestDTO;
+import org.elis.progettoing.dto.response.order.FacetedOrdersResponse;
 import org.elis.progettoing.dto.response.order.FilteredOrdersResponse;
+import org.elis.progettoing.dto.response.order.OrderDeadlineMetricsDTO;
 import org.elis.progettoing.dto.response.order.OrderProductResponseDTO;
+import org.elis.progettoing.dto.response.order.OrderProductTransitionResultDTO;
 import org.elis.progettoing.dto.response.order.OrderResponseDTO;
+import org.elis.progettoing.enumeration.ExportFormat;
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.enumeration.OrderProductStatus;
 import org.elis.progettoing.enumeration.Role;
 import org.elis.progettoing.exception.entity.EntityEditException;
 import org.elis.progettoing.exception.entity.EntityNotFoundException;
+import org.elis.progettoing.exception.entity.InvalidEntityDataException;
 import org.elis.progettoing.mapper.implementation.OrderMapperImpl;
 import org.elis.progettoing.mapper.implementation.OrderProductMapperImpl;
 import org.elis.progettoing.models.Order;
@@ -27,20 +36,29 @@ import org.elis.progettoing.repository.OrderRepository;
 import org.elis.progettoing.repository.PurchasedProductRepository;
 import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.service.implementation.EmailServiceImpl;
+import org.elis.progettoing.service.implementation.ModerationSignalStore;
+import org.elis.progettoing.service.implementation.OrderDeadlineScheduler;
 import org.elis.progettoing.service.implementation.OrderServiceImpl;
+import org.elis.progettoing.service.implementation.SellerOrderCounterManager;
+import org.elis.progettoing.service.implementation.OrderSearchIndex;
+import org.elis.progettoing.service.implementation.SellerOrderExporter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Method;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -73,6 +91,18 @@ class OrderServiceTest {
     @Mock
     private OrderProductMapperImpl orderProductMapper;
 
+    @Mock
+    private SellerOrderCounterManager sellerOrderCounterManager;
+
+    @Mock
+    private OrderDeadlineScheduler orderDeadlineScheduler;
+
+    @Mock
+    private SellerOrderExporter sellerOrderExporter;
+
+    @Mock
+    private OrderSearchIndex orderSearchIndex;
+
     @Mock
     private OrderFilterRequest orderFilterRequest;
 
@@ -91,6 +121,9 @@ class OrderServiceTest {
     @Mock
     private TypedQuery<Order> typedQuery;
 
+    @Mock
+    private ModerationSignalStore moderationSignalStore;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -146,7 +179,7 @@ class OrderServiceTest {
         when(orderMapper.orderRequestDTOToOrder(requestDTO)).thenReturn(order);
         when(purchasedProductRepository.findByCartId(requestDTO.getCartId())).thenReturn(purchasedProducts);
         when(objectMapper.readValue(requestDTO.getDescription(), Map.class)).thenReturn(descriptions);
-        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        when(orderRepository.saveAndFlush(any(Order.class))).thenReturn(order);
         when(orderMapper.orderToOrderResponseDTO(order)).thenReturn(new OrderResponseDTO());
 
         // Act
@@ -154,8 +187,57 @@ class OrderServiceTest {
 
         // Assert
         assertNotNull(responseDTO);
-        verify(orderRepository, times(1)).save(order);
+        verify(orderRepository, times(1)).saveAndFlush(order);
+        verify(orderSearchIndex).index(order);
         verify(purchasedProductRepository, times(1)).deletePurchasedProductsByBuyerId(user.getId());
+        verify(moderationSignalStore).increment(ModerationSignal.PRODUCT_PURCHASES, 0L, -2L);
+        verify(moderationSignalStore).increment(ModerationSignal.BUYER_PURCHASES, user.getId(), -2);
+    }
+
+    @Test
+    void createOrder_setsSellerOnOrderProducts() {
+        User seller = new User();
+        seller.setId(3L);
+        PurchasedProduct purchasedProduct = createPurchasedProduct(1L);
+        purchasedProduct.getProduct().setUser(seller);
+        OrderRequestDTO requestDTO = new OrderRequestDTO();
+        requestDTO.setCartId(1L);
+        requestDTO.setDescription("{\"1\":\"Description for product 1\"}");
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        when(orderMapper.orderRequestDTOToOrder(requestDTO)).thenReturn(order);
+        when(purchasedProductRepository.findByCartId(requestDTO.getCartId())).thenReturn(List.of(purchasedProduct));
+        when(orderMapper.orderToOrderResponseDTO(order)).thenReturn(new OrderResponseDTO());
+
+        orderService.createOrder(requestDTO);
+
+        assertEquals(1, order.getOrderProducts().size());
+        assertSame(seller, order.getOrderProducts().getFirst().getSeller());
+        verify(sellerOrderCounterManager).increment(3L, OrderProductStatus.PENDING, 1L);
+    }
+
+    @Test
+    void createOrder_flagsProductsAlreadyReviewedByBuyer() {
+        PurchasedProduct reviewed = createPurchasedProduct(1L);
+        reviewed.getProduct().setId(10L);
+        PurchasedProduct notReviewed = createPurchasedProduct(2L);
+        notReviewed.getProduct().setId(20L);
+        OrderRequestDTO requestDTO = new OrderRequestDTO();
+        requestDTO.setCartId(1L);
+        requestDTO.setDescription("{}");
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        when(orderMapper.orderRequestDTOToOrder(requestDTO)).thenReturn(order);
+        when(purchasedProductRepository.findByCartId(requestDTO.getCartId())).thenReturn(List.of(reviewed, notReviewed));
+        when(reviewRepository.findReviewedProductIdsByUser(user.getId(), Set.of(10L, 20L))).thenReturn(Set.of(10L));
+        when(orderMapper.orderToOrderResponseDTO(order)).thenReturn(new OrderResponseDTO());
+
+        orderService.createOrder(requestDTO);
+
+        assertTrue(order.getOrderProducts().get(0).isReviewExist());
+        assertFalse(order.getOrderProducts().get(1).isReviewExist());
     }
 
     @Test
@@ -173,12 +255,12 @@ class OrderServiceTest {
         when(orderMapper.orderRequestDTOToOrder(requestDTO)).thenReturn(order);
         when(purchasedProductRepository.findByCartId(requestDTO.getCartId())).thenReturn(purchasedProducts);
         when(objectMapper.readValue(requestDTO.getDescription(), Map.class)).thenReturn(descriptions);
-        doThrow(RuntimeException.class).when(orderRepository).save(any(Order.class));
+        doThrow(RuntimeException.class).when(orderRepository).saveAndFlush(any(Order.class));
 
         // Act & Assert
         EntityEditException exception = assertThrows(EntityEditException.class, () -> orderService.createOrder(requestDTO));
         assertEquals("Si è verificato un errore nell'aggiornamento dell'entità id con ordine = 1.", exception.getMessage());
-        verify(orderRepository, times(1)).save(order);
+        verify(orderRepository, times(1)).saveAndFlush(order);
     }
 
     private PurchasedProduct createPurchasedProduct(long id) {
@@ -196,17 +278,33 @@ class OrderServiceTest {
         when(authentication.getPrincipal()).thenReturn(user);
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        when(orderRepository.findByBuyer(user)).thenReturn(Collections.emptyList());
+        when(orderRepository.findBuyerOrderIds(eq(user.getId()), isNull(), any(Pageable.class))).thenReturn(Collections.emptyList());
 
-        List<OrderResponseDTO> result = orderService.getOrderByUser();
+        List<OrderResponseDTO> result = orderService.getOrderByUser(null, 20);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(orderRepository, times(1)).findByBuyer(any(User.class));
+        verify(orderRepository, never()).findWithProductsByIdIn(anyCollection());
         verify(orderMapper, times(0)).orderListToOrderResponseList(anyList());
     }
 
+    @Test
+    void getOrderByUser_withInvalidSize_throwsInvalidEntityDataException() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        assertThrows(InvalidEntityDataException.class, () -> orderService.getOrderByUser(null, 0));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void getOrderByUser_withSizeAboveTheLimit_throwsInvalidEntityDataException() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        assertThrows(InvalidEntityDataException.class, () -> orderService.getOrderByUser(null, 101));
+        verifyNoInteractions(orderRepository);
+    }
+
     @Test
     void getRefusedOrdersBySeller_withNoRefusedOrders_returnsEmptyList() {
         when(orderRepository.findAllBySellerAndProductStatus(user, OrderProductStatus.REFUSED)).thenReturn(Collections.emptyList());
@@ -214,7 +312,7 @@ class OrderServiceTest {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        List<OrderResponseDTO> result = orderService.getRefusedOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getRefusedOrdersBySeller(null, 20);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -226,7 +324,7 @@ class OrderServiceTest {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        List<OrderResponseDTO> result = orderService.getReceivedOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getReceivedOrdersBySeller(null, 20);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -239,7 +337,7 @@ class OrderServiceTest {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        List<OrderResponseDTO> result = orderService.getPendingOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getPendingOrdersBySeller(null, 20);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -252,7 +350,7 @@ class OrderServiceTest {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        List<OrderResponseDTO> result = orderService.getDeliveredOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getDeliveredOrdersBySeller(null, 20);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -265,7 +363,7 @@ class OrderServiceTest {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        List<OrderResponseDTO> result = orderService.getDelayedOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getDelayedOrdersBySeller(null, 20);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -278,65 +376,35 @@ class OrderServiceTest {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        List<OrderResponseDTO> result = orderService.getTakeOnOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getTakeOnOrdersBySeller(null, 20);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
 
     @Test
-    void getOrderByUser_ShouldSetHasReviewCorrectly() {
-        // Configurazione contesto di sicurezza
-        UsernamePasswordAuthenticationToken authentication = mock(UsernamePasswordAuthenticationToken.class);
-        SecurityContext securityContext = mock(SecurityContext.class);
-        SecurityContextHolder.setContext(securityContext);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getPrincipal()).thenReturn(user);
-
-        // Creazione di un prodotto e ordine di esempio
-        Product product = new Product();
-        product.setId(1L);
-
-        OrderProduct orderProduct = new OrderProduct();
-        orderProduct.setProduct(product);
-
-        Order order = new Order();
-        order.setOrderProducts(Collections.singletonList(orderProduct));
-
-        // Configurazione mock per orderRepository
-        when(orderRepository.findByBuyer(user)).thenReturn(Collections.singletonList(order));
-
-        // Estrae gli ID dei prodotti dall'ordine (simula la logica del servizio)
-        Set<Long> productIds = order.getOrderProducts().stream()
-                .map(op -> op.getProduct().getId())
-                .collect(Collectors.toSet());
-
-        // Configurazione mock per reviewRepository: il prodotto è stato recensito
-        Set<Long> reviewedProductIds = new HashSet<>(Collections.singleton(1L));
-        when(reviewRepository.findReviewedProductIdsByUser(user.getId(), productIds))
-                .thenReturn(reviewedProductIds);
-
-        // Configurazione OrderResponseDTO con OrderProductDTO
-        OrderResponseDTO mockDto = new OrderResponseDTO();
-        OrderProductResponseDTO opDto = new OrderProductResponseDTO();
-        opDto.setProductId(1L); // Deve corrispondere all'ID del prodotto nell'ordine
-        mockDto.setOrderProducts(Collections.singletonList(opDto));
-
-        when(orderMapper.orderToOrderResponseDTO(order)).thenReturn(mockDto);
-
-        // Esecuzione del metodo da testare
-        List<OrderResponseDTO> result = orderService.getOrderByUser();
-
-        // Verifiche
-        assertNotNull(result);
-        assertFalse(result.isEmpty());
-
-        // Verifica che 'hasReview' sia stato impostato correttamente
-        assertTrue(opDto.isHasReview()); // Verifica che sia true poiché l'ID 1L è nelle recensioni
+    void getOrderByUser_loadsOnlyThePageAfterTheCursorWithoutReviewLookup() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        verify(orderRepository).findByBuyer(user);
-        verify(reviewRepository).findReviewedProductIdsByUser(user.getId(), productIds);
-        verify(orderMapper).orderToOrderResponseDTO(order);
+        Order newer = new Order();
+        newer.setId(9L);
+        Order older = new Order();
+        older.setId(8L);
+        OrderResponseDTO newerDto = new OrderResponseDTO();
+        newerDto.setId(9L);
+        OrderResponseDTO olderDto = new OrderResponseDTO();
+        olderDto.setId(8L);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        when(orderRepository.findBuyerOrderIds(eq(user.getId()), eq(10L), pageable.capture())).thenReturn(List.of(9L, 8L));
+        when(orderRepository.findWithProductsByIdIn(List.of(9L, 8L))).thenReturn(List.of(newer, older));
+        when(orderMapper.orderListToOrderResponseList(List.of(newer, older))).thenReturn(List.of(newerDto, olderDto));
+
+        List<OrderResponseDTO> result = orderService.getOrderByUser(10L, 2);
+
+        assertEquals(List.of(9L, 8L), result.stream().map(OrderResponseDTO::getId).toList());
+        assertEquals(2, pageable.getValue().getPageSize());
+        verifyNoInteractions(reviewRepository);
     }
 
     @Test
@@ -349,6 +417,9 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setStatus(OrderProductStatus.IN_PROGRESS);
+        User seller = new User();
+        seller.setId(2L);
+        orderProduct.setSeller(seller);
         orderProduct.setOrder(order);
 
         when(orderProductRepository.findById(orderProductId)).thenReturn(Optional.of(orderProduct));
@@ -362,9 +433,80 @@ class OrderServiceTest {
         assertEquals(OrderProductStatus.DELIVERED, orderProduct.getStatus());
         verify(orderProductRepository, times(1)).save(orderProduct);
         verify(emailService, times(1)).sendDeliveryConfirmationEmail(buyer, orderProduct, response);
+        verify(sellerOrderCounterManager).transition(2L, OrderProductStatus.IN_PROGRESS, OrderProductStatus.DELIVERED);
         verify(orderMapper, times(1)).orderToOrderResponseDTO(order);
     }
 
+    @Test
+    void deliveryResponse_withLateDelivery_movesCounterFromLateDelivery() {
+        User seller = new User();
+        seller.setId(2L);
+        OrderProduct orderProduct = new OrderProduct();
+        orderProduct.setId(1L);
+        orderProduct.setStatus(OrderProductStatus.LATE_DELIVERY);
+        orderProduct.setSeller(seller);
+        orderProduct.setOrder(order);
+
+        when(orderProductRepository.findById(1L)).thenReturn(Optional.of(orderProduct));
+
+        orderService.deliveryResponse(1L, "Delivery confirmed");
+
+        assertEquals(OrderProductStatus.DELIVERED, orderProduct.getStatus());
+        verify(sellerOrderCounterManager).transition(2L, OrderProductStatus.LATE_DELIVERY, OrderProductStatus.DELIVERED);
+    }
+
+    @Test
+    void getDeadlineMetrics_returnsSchedulerMetrics() {
+        OrderDeadlineMetricsDTO metrics = new OrderDeadlineMetricsDTO();
+        metrics.setQueuedDeadlines(3);
+        when(orderDeadlineScheduler.getMetrics()).thenReturn(metrics);
+
+        assertSame(metrics, orderService.getDeadlineMetrics());
+    }
+
+    @Test
+    void deliveryResponse_withoutSeller_doesNotUpdateCounters() {
+        OrderProduct orderProduct = new OrderProduct();
+        orderProduct.setId(1L);
+        orderProduct.setStatus(OrderProductStatus.IN_PROGRESS);
+        orderProduct.setOrder(order);
+
+        when(orderProductRepository.findById(1L)).thenReturn(Optional.of(orderProduct));
+
+        orderService.deliveryResponse(1L, "Delivery confirmed");
+
+        verifyNoInteractions(sellerOrderCounterManager);
+    }
+
+    @Test
+    void getOrderStatusCountsBySeller_returnsCountersOfLoggedSeller() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        Map<OrderProductStatus, Long> counts = new EnumMap<>(OrderProductStatus.class);
+        counts.put(OrderProductStatus.PENDING, 4L);
+        when(sellerOrderCounterManager.getCounts(user.getId())).thenReturn(counts);
+
+        Map<OrderProductStatus, Long> result = orderService.getOrderStatusCountsBySeller();
+
+        assertEquals(4L, result.get(OrderProductStatus.PENDING));
+        verify(sellerOrderCounterManager).getCounts(user.getId());
+        verifyNoInteractions(orderProductRepository);
+    }
+
+    @Test
+    void exportOrdersBySeller_streamsRowsOfSellerResolvedAtRequestTime() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        StreamingResponseBody body = orderService.exportOrdersBySeller(ExportFormat.NDJSON);
+        SecurityContextHolder.clearContext();
+
+        verifyNoInteractions(sellerOrderExporter);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+
+        verify(sellerOrderExporter).export(user.getId(), ExportFormat.NDJSON, outputStream);
+    }
+
     @Test
     void deliveryResponse_ShouldThrowEntityNotFoundException_WhenOrderProductDoesNotExist() {
         long orderProductId = 1L;
@@ -419,6 +561,7 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setProduct(product);
+        orderProduct.setSeller(seller);
         orderProduct.setStatus(OrderProductStatus.PENDING);
 
         Order order = new Order();
@@ -441,9 +584,87 @@ class OrderServiceTest {
         assertNotNull(result);
         assertEquals(OrderProductStatus.IN_PROGRESS, orderProduct.getStatus());
         verify(orderProductRepository, times(1)).save(orderProduct);
+        verify(sellerOrderCounterManager).transition(1L, OrderProductStatus.PENDING, OrderProductStatus.IN_PROGRESS);
+        verify(orderDeadlineScheduler).track(orderProductId, orderProduct.getEstimatedDeliveryDate());
         verify(orderMapper, times(1)).orderToOrderResponseDTO(order);
     }
 
+    @Test
+    void updateOrderProductsStatus_movesOnlyThePendingLinesOfTheSeller() {
+        User seller = new User();
+        seller.setId(4L);
+        mockAuthenticatedUser(seller);
+
+        LocalDateTime deadline = LocalDateTime.now().plusDays(3);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, OrderProductStatus.PENDING, deadline});
+        rows.add(new Object[]{2L, OrderProductStatus.DELIVERED, deadline});
+        rows.add(new Object[]{3L, OrderProductStatus.PENDING, deadline});
+        when(orderProductRepository.lockSellerLines(List.of(1L, 2L, 3L, 9L), 4L)).thenReturn(rows);
+        when(orderProductRepository.updateSellerLinesStatus(anyCollection(), eq(4L), eq(OrderProductStatus.PENDING), eq(OrderProductStatus.IN_PROGRESS)))
+                .thenReturn(2);
+
+        OrderProductBulkStatusRequest request = new OrderProductBulkStatusRequest();
+        request.setOrderProductIds(List.of(1L, 2L, 3L, 9L, 1L));
+        request.setStatus(OrderProductStatus.IN_PROGRESS);
+
+        List<OrderProductTransitionResultDTO> results = orderService.updateOrderProductsStatus(request);
+
+        assertEquals(List.of(1L, 2L, 3L, 9L), results.stream().map(OrderProductTransitionResultDTO::getOrderProductId).toList());
+        assertEquals(List.of(true, false, true, false), results.stream().map(OrderProductTransitionResultDTO::isUpdated).toList());
+        assertEquals(OrderProductStatus.DELIVERED, results.get(1).getStatus());
+        assertNull(results.get(3).getStatus());
+        verify(orderProductRepository).updateSellerLinesStatus(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(1L, 3L))),
+                eq(4L), eq(OrderProductStatus.PENDING), eq(OrderProductStatus.IN_PROGRESS));
+        verify(sellerOrderCounterManager).transition(4L, OrderProductStatus.PENDING, OrderProductStatus.IN_PROGRESS, 2L);
+        verify(orderDeadlineScheduler).track(1L, deadline);
+        verify(orderDeadlineScheduler).track(3L, deadline);
+        verify(orderProductRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void updateOrderProductsStatus_withNothingPending_doesNotUpdate() {
+        User seller = new User();
+        seller.setId(4L);
+        mockAuthenticatedUser(seller);
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, OrderProductStatus.REFUSED, null});
+        when(orderProductRepository.lockSellerLines(List.of(1L), 4L)).thenReturn(rows);
+
+        OrderProductBulkStatusRequest request = new OrderProductBulkStatusRequest();
+        request.setOrderProductIds(List.of(1L));
+        request.setStatus(OrderProductStatus.REFUSED);
+
+        List<OrderProductTransitionResultDTO> results = orderService.updateOrderProductsStatus(request);
+
+        assertFalse(results.getFirst().isUpdated());
+        verify(orderProductRepository, never()).updateSellerLinesStatus(anyCollection(), anyLong(), any(), any());
+        verifyNoInteractions(sellerOrderCounterManager, orderDeadlineScheduler);
+    }
+
+    @Test
+    void updateOrderProductsStatus_withInvalidTargetStatus_throwsInvalidEntityDataException() {
+        mockAuthenticatedUser(new User());
+
+        OrderProductBulkStatusRequest request = new OrderProductBulkStatusRequest();
+        request.setOrderProductIds(List.of(1L));
+        request.setStatus(OrderProductStatus.DELIVERED);
+
+        assertThrows(InvalidEntityDataException.class, () -> orderService.updateOrderProductsStatus(request));
+        verifyNoInteractions(orderProductRepository);
+    }
+
+    @Test
+    void updateOrderProductsStatus_withoutIds_throwsInvalidEntityDataException() {
+        mockAuthenticatedUser(new User());
+
+        OrderProductBulkStatusRequest request = new OrderProductBulkStatusRequest();
+        request.setStatus(OrderProductStatus.IN_PROGRESS);
+
+        assertThrows(InvalidEntityDataException.class, () -> orderService.updateOrderProductsStatus(request));
+    }
+
     @Test
     void acceptSingleOrderProduct_shouldThrowEntityNotFoundException_whenOrderProductDoesNotExist() {
         // Arrange
@@ -470,6 +691,7 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setProduct(product);
+        orderProduct.setSeller(differentSeller);
         orderProduct.setStatus(OrderProductStatus.PENDING);
 
         when(orderProductRepository.findById(orderProductId)).thenReturn(Optional.of(orderProduct));
@@ -483,6 +705,38 @@ class OrderServiceTest {
         assertThrows(IllegalArgumentException.class, () -> orderService.acceptSingleOrderProduct(orderProductId));
     }
 
+    @Test
+    void acceptSingleOrderProduct_checksTheSellerOfTheLineAfterTheProductWasReassignedOrUnset() {
+        long orderProductId = 1L;
+        User seller = new User();
+        seller.setId(1L);
+        User newOwner = new User();
+        newOwner.setId(2L);
+
+        Product product = new Product();
+        product.setUser(newOwner);
+
+        OrderProduct orderProduct = new OrderProduct();
+        orderProduct.setId(orderProductId);
+        orderProduct.setProduct(product);
+        orderProduct.setSeller(seller);
+        orderProduct.setStatus(OrderProductStatus.PENDING);
+        orderProduct.setOrder(new Order());
+
+        when(orderProductRepository.findById(orderProductId)).thenReturn(Optional.of(orderProduct));
+        mockAuthenticatedUser(newOwner);
+
+        // Il nuovo proprietario del prodotto non può agire sulle righe del venditore originale
+        assertThrows(IllegalArgumentException.class, () -> orderService.acceptSingleOrderProduct(orderProductId));
+
+        // Il venditore originale può, anche dopo che il prodotto è stato scollegato
+        product.setUser(null);
+        mockAuthenticatedUser(seller);
+        orderService.acceptSingleOrderProduct(orderProductId);
+
+        assertEquals(OrderProductStatus.IN_PROGRESS, orderProduct.getStatus());
+    }
+
     @Test
     void acceptSingleOrderProduct_shouldThrowIllegalArgumentException_whenOrderProductStatusIsNotPending() {
         // Arrange
@@ -496,6 +750,7 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setProduct(product);
+        orderProduct.setSeller(seller);
         orderProduct.setStatus(OrderProductStatus.DELIVERED);
 
         when(orderProductRepository.findById(orderProductId)).thenReturn(Optional.of(orderProduct));
@@ -523,6 +778,7 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setProduct(product);
+        orderProduct.setSeller(seller);
         orderProduct.setStatus(OrderProductStatus.PENDING);
 
         when(orderProductRepository.findById(orderProductId)).thenReturn(Optional.of(orderProduct));
@@ -551,6 +807,7 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setProduct(product);
+        orderProduct.setSeller(seller);
         orderProduct.setStatus(OrderProductStatus.PENDING);
 
         Order order = new Order();
@@ -571,6 +828,7 @@ class OrderServiceTest {
         assertNotNull(result);
         assertEquals(OrderProductStatus.REFUSED, orderProduct.getStatus());
         verify(orderProductRepository, times(1)).save(orderProduct);
+        verify(sellerOrderCounterManager).transition(1L, OrderProductStatus.PENDING, OrderProductStatus.REFUSED);
         verify(orderMapper, times(1)).orderToOrderResponseDTO(order);
     }
 
@@ -597,6 +855,7 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setProduct(product);
+        orderProduct.setSeller(differentSeller);
         orderProduct.setStatus(OrderProductStatus.PENDING);
 
         when(orderProductRepository.findById(orderProductId)).thenReturn(Optional.of(orderProduct));
@@ -621,6 +880,7 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setProduct(product);
+        orderProduct.setSeller(seller);
         orderProduct.setStatus(OrderProductStatus.DELIVERED);
 
         when(orderProductRepository.findById(orderProductId)).thenReturn(Optional.of(orderProduct));
@@ -645,6 +905,7 @@ class OrderServiceTest {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setId(orderProductId);
         orderProduct.setProduct(product);
+        orderProduct.setSeller(seller);
         orderProduct.setStatus(OrderProductStatus.PENDING);
 
         when(orderProductRepository.findById(orderProductId)).thenReturn(Optional.of(orderProduct));
@@ -708,13 +969,11 @@ class OrderServiceTest {
 
         // Configurazione del percorso per il join: Order -> orderProducts -> product -> user -> id
         Path<Object> orderProductsPath = mock(Path.class);
-        Path<Object> productPath = mock(Path.class);
         Path<Object> userPath = mock(Path.class);
         Path<Object> userIdPath = mock(Path.class);
 
         when(root.get("orderProducts")).thenReturn(orderProductsPath);
-        when(orderProductsPath.get("product")).thenReturn(productPath);
-        when(productPath.get("user")).thenReturn(userPath);
+        when(orderProductsPath.get("seller")).thenReturn(userPath);
         when(userPath.get("id")).thenReturn(userIdPath);
 
         Predicate sellerPredicate = mock(Predicate.class);
@@ -739,6 +998,7 @@ class OrderServiceTest {
         OrderProduct orderProduct1 = new OrderProduct();
         orderProduct1.setStatus(OrderProductStatus.PENDING);
         orderProduct1.setProduct(dummyProduct1);
+        orderProduct1.setSeller(seller);
 
         Order order1 = new Order();
         order1.setId(10L);
@@ -752,6 +1012,7 @@ class OrderServiceTest {
         OrderProduct orderProduct2 = new OrderProduct();
         orderProduct2.setStatus(OrderProductStatus.DELIVERED);
         orderProduct2.setProduct(dummyProduct2);
+        orderProduct2.setSeller(seller);
 
         Order order2 = new Order();
         order2.setId(20L);
@@ -864,6 +1125,54 @@ class OrderServiceTest {
         assertEquals(1, predicates.size());
     }
 
+    @Test
+    void addSearchTextPredicate_withIndexCandidates_checksTheTextOnlyOnThem() throws Exception {
+        OrderFilterRequest request = new OrderFilterRequest();
+        request.setSearchText("mario");
+
+        CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
+        Root<Order> root = mock(Root.class, RETURNS_DEEP_STUBS);
+        Join<Order, OrderProduct> orderProductJoin = mock(Join.class, RETURNS_DEEP_STUBS);
+        Path<Object> idPath = mock(Path.class, RETURNS_DEEP_STUBS);
+        Predicate candidatePredicate = mock(Predicate.class);
+        Predicate restricted = mock(Predicate.class);
+
+        when(root.get("id")).thenReturn(idPath);
+        when(idPath.in(List.of(3L, 7L))).thenReturn(candidatePredicate);
+        when(criteriaBuilder.and(eq(candidatePredicate), any())).thenReturn(restricted);
+        when(orderSearchIndex.findCandidateOrderIds("mario")).thenReturn(Optional.of(List.of(3L, 7L)));
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        Method method = OrderServiceImpl.class.getDeclaredMethod("addSearchTextPredicate", OrderFilterRequest.class, CriteriaBuilder.class, Root.class, List.class, Join.class);
+        method.setAccessible(true);
+        method.invoke(orderService, request, criteriaBuilder, root, predicates, orderProductJoin);
+
+        assertEquals(List.of(restricted), predicates);
+    }
+
+    @Test
+    void addSearchTextPredicate_withoutIndexCandidates_matchesNothing() throws Exception {
+        OrderFilterRequest request = new OrderFilterRequest();
+        request.setSearchText("zzz");
+
+        CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
+        Root<Order> root = mock(Root.class, RETURNS_DEEP_STUBS);
+        Join<Order, OrderProduct> orderProductJoin = mock(Join.class, RETURNS_DEEP_STUBS);
+        Predicate nothing = mock(Predicate.class);
+
+        when(criteriaBuilder.disjunction()).thenReturn(nothing);
+        when(orderSearchIndex.findCandidateOrderIds("zzz")).thenReturn(Optional.of(Collections.emptyList()));
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        Method method = OrderServiceImpl.class.getDeclaredMethod("addSearchTextPredicate", OrderFilterRequest.class, CriteriaBuilder.class, Root.class, List.class, Join.class);
+        method.setAccessible(true);
+        method.invoke(orderService, request, criteriaBuilder, root, predicates, orderProductJoin);
+
+        assertEquals(List.of(nothing), predicates);
+    }
+
     @Test
     void addDateRangePredicate_shouldAddPredicates_whenDateRangeTypeIsProvided() throws Exception {
         OrderFilterRequest request = new OrderFilterRequest();
@@ -921,17 +1230,23 @@ class OrderServiceTest {
         Order order = new Order();
         order.setOrderProducts(List.of(orderProduct));
 
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+        order.setId(5L);
+        order.setBuyer(user);
+        orderProduct.setOrder(order);
+
+        when(orderProductRepository.findSellerInboxOrderIds(eq(1L), anySet(), isNull(), any(Pageable.class))).thenReturn(List.of(5L));
+        when(orderProductRepository.findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)))).thenReturn(List.of(orderProduct));
         UsernamePasswordAuthenticationToken authentication = mock(UsernamePasswordAuthenticationToken.class);
         SecurityContext securityContext = mock(SecurityContext.class);
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(seller);
 
-        List<OrderResponseDTO> result = orderService.getReceivedOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getReceivedOrdersBySeller(null, 20);
 
         assertNotNull(result);
-        verify(orderRepository, times(1)).findAll();
+        verify(orderRepository, never()).findAll();
+        verify(orderProductRepository, times(1)).findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)));
         verify(orderMapper, times(1)).orderListToOrderResponseList(anyList());
     }
 
@@ -947,17 +1262,23 @@ class OrderServiceTest {
         Order order = new Order();
         order.setOrderProducts(List.of(orderProduct));
 
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+        order.setId(5L);
+        order.setBuyer(user);
+        orderProduct.setOrder(order);
+
+        when(orderProductRepository.findSellerInboxOrderIds(eq(1L), anySet(), isNull(), any(Pageable.class))).thenReturn(List.of(5L));
+        when(orderProductRepository.findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)))).thenReturn(List.of(orderProduct));
         UsernamePasswordAuthenticationToken authentication = mock(UsernamePasswordAuthenticationToken.class);
         SecurityContext securityContext = mock(SecurityContext.class);
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(seller);
 
-        List<OrderResponseDTO> result = orderService.getPendingOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getPendingOrdersBySeller(null, 20);
 
         assertNotNull(result);
-        verify(orderRepository, times(1)).findAll();
+        verify(orderRepository, never()).findAll();
+        verify(orderProductRepository, times(1)).findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)));
         verify(orderMapper, times(1)).orderListToOrderResponseList(anyList());
     }
 
@@ -973,17 +1294,23 @@ class OrderServiceTest {
         Order order = new Order();
         order.setOrderProducts(List.of(orderProduct));
 
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+        order.setId(5L);
+        order.setBuyer(user);
+        orderProduct.setOrder(order);
+
+        when(orderProductRepository.findSellerInboxOrderIds(eq(1L), anySet(), isNull(), any(Pageable.class))).thenReturn(List.of(5L));
+        when(orderProductRepository.findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)))).thenReturn(List.of(orderProduct));
         UsernamePasswordAuthenticationToken authentication = mock(UsernamePasswordAuthenticationToken.class);
         SecurityContext securityContext = mock(SecurityContext.class);
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(seller);
 
-        List<OrderResponseDTO> result = orderService.getDelayedOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getDelayedOrdersBySeller(null, 20);
 
         assertNotNull(result);
-        verify(orderRepository, times(1)).findAll();
+        verify(orderRepository, never()).findAll();
+        verify(orderProductRepository, times(1)).findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)));
         verify(orderMapper, times(1)).orderListToOrderResponseList(anyList());
     }
 
@@ -999,17 +1326,23 @@ class OrderServiceTest {
         Order order = new Order();
         order.setOrderProducts(List.of(orderProduct));
 
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+        order.setId(5L);
+        order.setBuyer(user);
+        orderProduct.setOrder(order);
+
+        when(orderProductRepository.findSellerInboxOrderIds(eq(1L), anySet(), isNull(), any(Pageable.class))).thenReturn(List.of(5L));
+        when(orderProductRepository.findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)))).thenReturn(List.of(orderProduct));
         UsernamePasswordAuthenticationToken authentication = mock(UsernamePasswordAuthenticationToken.class);
         SecurityContext securityContext = mock(SecurityContext.class);
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(seller);
 
-        List<OrderResponseDTO> result = orderService.getDeliveredOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getDeliveredOrdersBySeller(null, 20);
 
         assertNotNull(result);
-        verify(orderRepository, times(1)).findAll();
+        verify(orderRepository, never()).findAll();
+        verify(orderProductRepository, times(1)).findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)));
         verify(orderMapper, times(1)).orderListToOrderResponseList(anyList());
     }
 
@@ -1025,17 +1358,23 @@ class OrderServiceTest {
         Order order = new Order();
         order.setOrderProducts(List.of(orderProduct));
 
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+        order.setId(5L);
+        order.setBuyer(user);
+        orderProduct.setOrder(order);
+
+        when(orderProductRepository.findSellerInboxOrderIds(eq(1L), anySet(), isNull(), any(Pageable.class))).thenReturn(List.of(5L));
+        when(orderProductRepository.findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)))).thenReturn(List.of(orderProduct));
         UsernamePasswordAuthenticationToken authentication = mock(UsernamePasswordAuthenticationToken.class);
         SecurityContext securityContext = mock(SecurityContext.class);
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(seller);
 
-        List<OrderResponseDTO> result = orderService.getTakeOnOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getTakeOnOrdersBySeller(null, 20);
 
         assertNotNull(result);
-        verify(orderRepository, times(1)).findAll();
+        verify(orderRepository, never()).findAll();
+        verify(orderProductRepository, times(1)).findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)));
         verify(orderMapper, times(1)).orderListToOrderResponseList(anyList());
     }
 
@@ -1051,19 +1390,196 @@ class OrderServiceTest {
         Order order = new Order();
         order.setOrderProducts(List.of(orderProduct));
 
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+        order.setId(5L);
+        order.setBuyer(user);
+        orderProduct.setOrder(order);
+
+        when(orderProductRepository.findSellerInboxOrderIds(eq(1L), anySet(), isNull(), any(Pageable.class))).thenReturn(List.of(5L));
+        when(orderProductRepository.findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)))).thenReturn(List.of(orderProduct));
         UsernamePasswordAuthenticationToken authentication = mock(UsernamePasswordAuthenticationToken.class);
         SecurityContext securityContext = mock(SecurityContext.class);
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(seller);
 
-        List<OrderResponseDTO> result = orderService.getRefusedOrdersBySeller();
+        List<OrderResponseDTO> result = orderService.getRefusedOrdersBySeller(null, 20);
 
         assertNotNull(result);
-        verify(orderRepository, times(1)).findAll();
+        verify(orderRepository, never()).findAll();
+        verify(orderProductRepository, times(1)).findSellerInboxLines(eq(1L), anySet(), eq(List.of(5L)));
+        verify(orderMapper, times(1)).orderListToOrderResponseList(anyList());
+    }
+
+    @Test
+    void getReceivedOrdersBySeller_withInvalidSize_throwsInvalidEntityDataException() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        assertThrows(InvalidEntityDataException.class, () -> orderService.getReceivedOrdersBySeller(null, 0));
+        verifyNoInteractions(orderProductRepository);
+    }
+
+    @Test
+    void getReceivedOrdersBySeller_withSizeAboveTheLimit_throwsInvalidEntityDataException() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        assertThrows(InvalidEntityDataException.class, () -> orderService.getReceivedOrdersBySeller(null, 101));
+        verifyNoInteractions(orderProductRepository);
+    }
+
+    @Test
+    void getReceivedOrdersBySeller_withCursor_groupsLinesByOrderDescending() {
+        User seller = new User();
+        seller.setId(1L);
+        Product product = new Product();
+        product.setUser(seller);
+
+        Order newer = new Order();
+        newer.setId(9L);
+        newer.setBuyer(user);
+        Order older = new Order();
+        older.setId(4L);
+        older.setBuyer(user);
+
+        OrderProduct first = new OrderProduct();
+        first.setProduct(product);
+        first.setOrder(newer);
+        OrderProduct second = new OrderProduct();
+        second.setProduct(product);
+        second.setOrder(newer);
+        OrderProduct third = new OrderProduct();
+        third.setProduct(product);
+        third.setOrder(older);
+
+        when(orderProductRepository.findSellerInboxOrderIds(eq(1L), anySet(), eq(10L), any(Pageable.class))).thenReturn(List.of(9L, 4L));
+        when(orderProductRepository.findSellerInboxLines(eq(1L), anySet(), eq(List.of(9L, 4L)))).thenReturn(List.of(first, second, third));
+        when(orderMapper.orderListToOrderResponseList(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            assertEquals(2, orders.size());
+            assertEquals(9L, orders.get(0).getId());
+            assertEquals(2, orders.get(0).getOrderProducts().size());
+            assertEquals(4L, orders.get(1).getId());
+            assertEquals(1, orders.get(1).getOrderProducts().size());
+            return Collections.emptyList();
+        });
+
+        UsernamePasswordAuthenticationToken authentication = mock(UsernamePasswordAuthenticationToken.class);
+        SecurityContext securityContext = mock(SecurityContext.class);
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(seller);
+
+        orderService.getReceivedOrdersBySeller(10L, 2);
+
         verify(orderMapper, times(1)).orderListToOrderResponseList(anyList());
+        assertNull(newer.getOrderProducts());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFacetedOrdersBySeller_returnsCountsAndIndependentPages() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        CriteriaQuery<Tuple> tupleQuery = mock(CriteriaQuery.class, RETURNS_SELF);
+        Root<Order> orderRoot = mock(Root.class, RETURNS_DEEP_STUBS);
+        TypedQuery<Tuple> typedTupleQuery = mock(TypedQuery.class);
+        when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
+        when(criteriaBuilder.createTupleQuery()).thenReturn(tupleQuery);
+        when(tupleQuery.from(Order.class)).thenReturn(orderRoot);
+        when(entityManager.createQuery(tupleQuery)).thenReturn(typedTupleQuery);
+        List<Tuple> rows = List.of(
+                facetRow(OrderProductStatus.PENDING, 9L),
+                facetRow(OrderProductStatus.DELIVERED, 9L),
+                facetRow(OrderProductStatus.PENDING, 5L),
+                facetRow(OrderProductStatus.REFUSED, 3L));
+        when(typedTupleQuery.getResultList()).thenReturn(rows);
+
+        when(orderProductRepository.findSellerInboxLines(eq(1L), anySet(), anyCollection())).thenReturn(List.of(
+                facetLine(9L), facetLine(3L)));
+        when(orderMapper.orderListToOrderResponseList(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            return orders.stream().map(o -> {
+                OrderResponseDTO dto = new OrderResponseDTO();
+                dto.setId(o.getId());
+                return dto;
+            }).toList();
+        });
+
+        OrderFacetRequest request = new OrderFacetRequest();
+        request.setSize(1);
+
+        FacetedOrdersResponse result = orderService.getFacetedOrdersBySeller(request);
+
+        assertEquals(3, result.getAllOrders().getCount());
+        assertEquals(9L, result.getAllOrders().getOrders().getFirst().getId());
+        assertEquals(9L, result.getAllOrders().getNextCursor());
+        assertEquals(2, result.getPendingOrders().getCount());
+        assertEquals(9L, result.getPendingOrders().getNextCursor());
+        assertEquals(1, result.getRefusedOrders().getCount());
+        assertEquals(3L, result.getRefusedOrders().getOrders().getFirst().getId());
+        assertNull(result.getRefusedOrders().getNextCursor());
+        assertEquals(0, result.getDelayedOrders().getCount());
+        assertTrue(result.getDelayedOrders().getOrders().isEmpty());
+        verify(orderProductRepository, times(1)).findSellerInboxLines(eq(1L), anySet(), eq(Set.of(9L, 3L)));
+    }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFacetedOrdersBySeller_withCursor_returnsFollowingPage() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        CriteriaQuery<Tuple> tupleQuery = mock(CriteriaQuery.class, RETURNS_SELF);
+        Root<Order> orderRoot = mock(Root.class, RETURNS_DEEP_STUBS);
+        TypedQuery<Tuple> typedTupleQuery = mock(TypedQuery.class);
+        when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
+        when(criteriaBuilder.createTupleQuery()).thenReturn(tupleQuery);
+        when(tupleQuery.from(Order.class)).thenReturn(orderRoot);
+        when(entityManager.createQuery(tupleQuery)).thenReturn(typedTupleQuery);
+        List<Tuple> rows = List.of(
+                facetRow(OrderProductStatus.PENDING, 9L),
+                facetRow(OrderProductStatus.PENDING, 5L));
+        when(typedTupleQuery.getResultList()).thenReturn(rows);
+        when(orderMapper.orderListToOrderResponseList(anyList())).thenReturn(Collections.emptyList());
+
+        OrderFacetRequest request = new OrderFacetRequest();
+        request.setSize(1);
+        request.setCursors(Map.of("PENDING", 9L, "ALL", 9L));
+
+        FacetedOrdersResponse result = orderService.getFacetedOrdersBySeller(request);
+
+        assertEquals(2, result.getPendingOrders().getCount());
+        assertNull(result.getPendingOrders().getNextCursor());
+        assertNull(result.getAllOrders().getNextCursor());
+        verify(orderProductRepository, times(1)).findSellerInboxLines(eq(1L), anySet(), eq(Set.of(5L)));
+    }
+
+    @Test
+    void getFacetedOrdersBySeller_withInvalidSize_throwsInvalidEntityDataException() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        OrderFacetRequest request = new OrderFacetRequest();
+        request.setSize(0);
+
+        assertThrows(InvalidEntityDataException.class, () -> orderService.getFacetedOrdersBySeller(request));
+        verifyNoInteractions(entityManager);
+    }
+
+    private void mockAuthenticatedUser(User authenticatedUser) {
+        SecurityContextHolder.setContext(new SecurityContextImpl(new UsernamePasswordAuthenticationToken(authenticatedUser, null)));
+    }
+
+    private Tuple facetRow(OrderProductStatus status, long orderId) {
+        Tuple row = mock(Tuple.class);
+        when(row.get(0, OrderProductStatus.class)).thenReturn(status);
+        when(row.get(1, Long.class)).thenReturn(orderId);
+        return row;
+    }
+
+    private OrderProduct facetLine(long orderId) {
+        Order facetOrder = new Order();
+        facetOrder.setId(orderId);
+        facetOrder.setBuyer(user);
+        OrderProduct line = new OrderProduct();
+        line.setOrder(facetOrder);
+        return line;
+    }
 }
@@ -71,9 +71,6 @@ class ProductServiceTest {
     @Mock
     private ProductPackageRepository productPackageRepository;
 
-    @Mock
-    private PackageAttributeRepository packageAttributeRepository;
-
     @Mock
     private TicketRepository ticketRepository;
 
@@ -204,20 +201,36 @@ class ProductServiceTest {
         ProductPackage productPackage = new ProductPackage();
         when(productPackageMapper.packageRequestDTOToProductPackage(any(ProductPackageRequestDTO.class)))
                 .thenReturn(productPackage);
-        when(productPackageRepository.save(any(ProductPackage.class))).thenReturn(productPackage);
-
-        PackageAttribute packageAttribute = new PackageAttribute();
-        when(packageAttributeRepository.save(any(PackageAttribute.class))).thenReturn(packageAttribute);
 
         ProductDetailsDTO result = productService.createProduct(productRequestDTO, images);
 
         verify(productRepository).save(any(Product.class));
-        verify(productPackageRepository, times(1)).save(any(ProductPackage.class));
-        verify(packageAttributeRepository, times(1)).save(any(PackageAttribute.class));
+        verify(productPackageRepository, times(1)).saveAllAndFlush(List.of(productPackage));
+        verify(productPackageRepository, never()).save(any(ProductPackage.class));
 
+        PackageAttribute packageAttribute = productPackage.getAttributes().getFirst();
+        assertEquals("color", packageAttribute.getKey());
+        assertSame(productPackage, packageAttribute.getProductPackage());
         assertNotNull(result);
     }
 
+    @Test
+    void testCreateProduct_PackageSaveFails_ThrowsEntityCreationException() {
+        ProductRequestDTO productRequestDTO = new ProductRequestDTO();
+        productRequestDTO.setTags(List.of());
+        ProductPackageRequestDTO packageRequestDTO = new ProductPackageRequestDTO();
+        packageRequestDTO.setAttributes(List.of());
+        productRequestDTO.setPackages(List.of(packageRequestDTO));
+
+        product = new Product();
+        when(productMapper.productRequestDTOToProduct(productRequestDTO)).thenReturn(product);
+        when(productPackageMapper.packageRequestDTOToProductPackage(any(ProductPackageRequestDTO.class)))
+                .thenReturn(new ProductPackage());
+        when(productPackageRepository.saveAllAndFlush(anyList())).thenThrow(new RuntimeException("Database error"));
+
+        assertThrows(EntityCreationException.class, () -> productService.createProduct(productRequestDTO, List.of()));
+    }
+
     @Test
     void testCreateProduct_TagNotFound_ThrowsInvalidEntityDataException() {
         ProductRequestDTO productRequestDTO = new ProductRequestDTO();
@@ -4,6 +4,7 @@ import org.elis.progettoing.dto.request.review.ReviewRequestDTO;
 import org.elis.progettoing.dto.response.review.ReviewResponseDTO;
 import org.elis.progettoing.dto.response.review.ReviewSummary;
 import org.elis.progettoing.dto.response.review.ReviewSummaryResponse;
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.exception.InvalidProductOwnerException;
 import org.elis.progettoing.exception.entity.*;
 import org.elis.progettoing.mapper.implementation.ReviewMapperImpl;
@@ -15,6 +16,7 @@ import org.elis.progettoing.repository.ProductRepository;
 import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.repository.TicketRepository;
 import org.elis.progettoing.service.implementation.LocalStorageService;
+import org.elis.progettoing.service.implementation.ModerationSignalStore;
 import org.elis.progettoing.service.implementation.ReviewServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -61,6 +63,9 @@ class ReviewServiceTest {
     @Mock
     private OrderProductRepository orderProductRepository;
 
+    @Mock
+    private ModerationSignalStore moderationSignalStore;
+
     @InjectMocks
     private ReviewServiceImpl reviewService;
 
@@ -138,6 +143,9 @@ class ReviewServiceTest {
         assertEquals(3, savedReview.getRatingCommunication());
         assertEquals(5, savedReview.getRatingTimeliness());
         assertEquals(4, savedReview.getRatingCost());
+
+        verify(orderProductRepository).updateReviewExist(1L, 100L, true);
+        verify(moderationSignalStore).addRating(1L, savedReview.getDateCreation(), savedReview.getTotalRating(), 1);
     }
 
     @Test
@@ -181,6 +189,7 @@ class ReviewServiceTest {
         assertThrows(EntityCreationException.class, () ->
                 reviewService.createReview(reviewRequestDTO, Collections.emptyList())
         );
+        verifyNoInteractions(orderProductRepository);
     }
 
     @Test
@@ -193,6 +202,19 @@ class ReviewServiceTest {
 
         assertNotNull(response);
         verify(reviewRepository).delete(review);
+        verify(orderProductRepository).updateReviewExist(1L, 100L, false);
+        verify(moderationSignalStore).addRating(1L, review.getDateCreation(), -4.0, -1);
+    }
+
+    @Test
+    void deleteReview_WithoutUser_DoesNotUpdateOrderProducts() {
+        review.setUser(null);
+        when(reviewRepository.findById(1L)).thenReturn(Optional.of(review));
+
+        reviewService.deleteReview(1L);
+
+        verify(reviewRepository).delete(review);
+        verifyNoInteractions(orderProductRepository);
     }
 
     @Test
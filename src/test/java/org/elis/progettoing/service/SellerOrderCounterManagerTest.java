@@ -0,0 +1,139 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.enumeration.OrderProductStatus;
+import org.elis.progettoing.models.SellerOrderCounter;
+import org.elis.progettoing.repository.OrderProductRepository;
+import org.elis.progettoing.repository.SellerOrderCounterRepository;
+import org.elis.progettoing.service.implementation.SellerOrderCounterManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SellerOrderCounterManagerTest {
+
+    @Mock
+    private SellerOrderCounterRepository sellerOrderCounterRepository;
+
+    @Mock
+    private OrderProductRepository orderProductRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SellerOrderCounterManager sellerOrderCounterManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionStatus transactionStatus = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        sellerOrderCounterManager = new SellerOrderCounterManager(sellerOrderCounterRepository, orderProductRepository, transactionManager);
+    }
+
+    @Test
+    void increment_withExistingCounters_updatesOnlyTheCounter() {
+        when(sellerOrderCounterRepository.existsByIdSellerId(5L)).thenReturn(true);
+
+        sellerOrderCounterManager.increment(5L, OrderProductStatus.PENDING, 2L);
+
+        verify(sellerOrderCounterRepository).increment(5L, OrderProductStatus.PENDING, 2L);
+        verify(sellerOrderCounterRepository, never()).saveAll(anyList());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void increment_withoutCounters_seedsThemFromOrderProductsFirst() {
+        when(sellerOrderCounterRepository.existsByIdSellerId(5L)).thenReturn(false);
+        when(sellerOrderCounterRepository.lockBySellerIds(List.of(5L))).thenReturn(Collections.emptyList());
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{5L, OrderProductStatus.DELIVERED, 3L});
+        when(orderProductRepository.countBySellerAndStatus(List.of(5L))).thenReturn(rows);
+
+        sellerOrderCounterManager.increment(5L, OrderProductStatus.PENDING, 1L);
+
+        ArgumentCaptor<List<SellerOrderCounter>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sellerOrderCounterRepository).saveAll(captor.capture());
+        assertEquals(OrderProductStatus.values().length, captor.getValue().size());
+        assertEquals(3L, countOf(captor.getValue(), OrderProductStatus.DELIVERED));
+        assertEquals(0L, countOf(captor.getValue(), OrderProductStatus.PENDING));
+        verify(sellerOrderCounterRepository).increment(5L, OrderProductStatus.PENDING, 1L);
+    }
+
+    @Test
+    void transition_whenCountersAreCreatedConcurrently_stillAppliesTheTransition() {
+        when(sellerOrderCounterRepository.existsByIdSellerId(5L)).thenReturn(false);
+        when(sellerOrderCounterRepository.lockBySellerIds(List.of(5L))).thenReturn(Collections.emptyList());
+        when(orderProductRepository.countBySellerAndStatus(List.of(5L))).thenReturn(Collections.emptyList());
+        doThrow(new DataIntegrityViolationException("duplicate")).when(sellerOrderCounterRepository).flush();
+
+        sellerOrderCounterManager.transition(5L, OrderProductStatus.PENDING, OrderProductStatus.IN_PROGRESS);
+
+        verify(sellerOrderCounterRepository).transition(5L, OrderProductStatus.PENDING, OrderProductStatus.IN_PROGRESS, 1L);
+    }
+
+    @Test
+    void transition_toSameStatus_doesNothing() {
+        sellerOrderCounterManager.transition(5L, OrderProductStatus.PENDING, OrderProductStatus.PENDING);
+
+        verifyNoInteractions(sellerOrderCounterRepository);
+    }
+
+    @Test
+    void getCounts_fillsMissingStatusesWithZero() {
+        when(sellerOrderCounterRepository.findByIdSellerId(5L))
+                .thenReturn(List.of(new SellerOrderCounter(5L, OrderProductStatus.REFUSED, 4L)));
+
+        Map<OrderProductStatus, Long> counts = sellerOrderCounterManager.getCounts(5L);
+
+        assertEquals(OrderProductStatus.values().length, counts.size());
+        assertEquals(4L, counts.get(OrderProductStatus.REFUSED));
+        assertEquals(0L, counts.get(OrderProductStatus.PENDING));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcile_rebuildsExistingCountersBatchByBatch() {
+        SellerOrderCounter stale = new SellerOrderCounter(2L, OrderProductStatus.PENDING, 9L);
+        when(orderProductRepository.findSellerIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(2L));
+        when(orderProductRepository.findSellerIdsAfter(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(sellerOrderCounterRepository.lockBySellerIds(List.of(2L))).thenReturn(List.of(stale));
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{2L, OrderProductStatus.PENDING, 1L});
+        when(orderProductRepository.countBySellerAndStatus(List.of(2L))).thenReturn(rows);
+
+        long reconciled = sellerOrderCounterManager.reconcile();
+
+        assertEquals(1, reconciled);
+        ArgumentCaptor<List<SellerOrderCounter>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sellerOrderCounterRepository).saveAll(captor.capture());
+        assertSame(stale, captor.getValue().stream()
+                .filter(counter -> counter.getId().getStatus() == OrderProductStatus.PENDING)
+                .findFirst().orElseThrow());
+        assertEquals(1L, stale.getCount());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    private static long countOf(List<SellerOrderCounter> counters, OrderProductStatus status) {
+        return counters.stream()
+                .filter(counter -> counter.getId().getStatus() == status)
+                .findFirst()
+                .orElseThrow()
+                .getCount();
+    }
+}
@@ -0,0 +1,95 @@
+package org.elis.progettoing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import org.elis.progettoing.dto.response.order.OrderExportRowDTO;
+import org.elis.progettoing.enumeration.ExportFormat;
+import org.elis.progettoing.enumeration.OrderProductStatus;
+import org.elis.progettoing.enumeration.PackageType;
+import org.elis.progettoing.repository.OrderProductRepository;
+import org.elis.progettoing.service.implementation.SellerOrderExporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SellerOrderExporterTest {
+
+    @Mock
+    private OrderProductRepository orderProductRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private SellerOrderExporter sellerOrderExporter;
+
+    private final LocalDateTime orderDate = LocalDateTime.of(2024, 5, 10, 12, 30);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        sellerOrderExporter = new SellerOrderExporter(orderProductRepository, entityManager, objectMapper);
+    }
+
+    @Test
+    void export_asCsv_writesHeaderAndEscapedRows() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(orderProductRepository.streamSellerExportRows(5L))
+                .thenReturn(Stream.of(row(1L, "Logo, \"vettoriale\""), row(2L, "=SUM(A1)")).onClose(() -> closed.set(true)));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        long rows = sellerOrderExporter.export(5L, ExportFormat.CSV, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("orderId,orderDate,buyerNickname"));
+        assertEquals("10,2024-05-10T12:30,mario,1,7,\"Logo, \"\"vettoriale\"\"\",BASIC,25.0,PENDING,", lines[1]);
+        assertTrue(lines[2].contains(",'=SUM(A1),"));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void export_asNdjson_writesOneObjectPerLine() throws Exception {
+        when(orderProductRepository.streamSellerExportRows(5L)).thenReturn(Stream.of(row(1L, "Logo"), row(2L, "Sito")));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        sellerOrderExporter.export(5L, ExportFormat.NDJSON, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"orderId\":10,\"orderDate\":\"2024-05-10T12:30:00\""));
+        assertTrue(lines[1].contains("\"productTitle\":\"Sito\""));
+    }
+
+    @Test
+    void export_clearsPersistenceContextPeriodically() throws Exception {
+        when(orderProductRepository.streamSellerExportRows(5L))
+                .thenReturn(LongStream.rangeClosed(1, 1200).mapToObj(id -> row(id, "Logo")));
+
+        long rows = sellerOrderExporter.export(5L, ExportFormat.CSV, new ByteArrayOutputStream());
+
+        assertEquals(1200, rows);
+        verify(entityManager, times(2)).clear();
+    }
+
+    private OrderExportRowDTO row(long orderProductId, String title) {
+        return new OrderExportRowDTO(10L, orderDate, "mario", orderProductId, 7L, title, PackageType.BASIC, 25.0,
+                OrderProductStatus.PENDING, null);
+    }
+}
@@ -0,0 +1,118 @@
+package org.elis.progettoing.service;
+
+import org.elis.progettoing.models.Ticket;
+import org.elis.progettoing.service.implementation.TicketAgingScheduler;
+import org.elis.progettoing.service.implementation.TicketPriorityAssigner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TicketAgingSchedulerTest {
+
+    @Mock
+    private TicketPriorityAssigner ticketPriorityAssigner;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ScheduledFuture<?> firstTimer;
+
+    @Mock
+    private ScheduledFuture<?> secondTimer;
+
+    private TicketAgingScheduler ticketAgingScheduler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        doReturn(firstTimer, secondTimer).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+
+        ticketAgingScheduler = new TicketAgingScheduler(ticketPriorityAssigner, taskScheduler, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void firstPass_rescoresEveryOpenTicketAndSchedulesTheNextBoundary() {
+        LocalDateTime next = LocalDateTime.now().plusHours(5);
+        when(ticketPriorityAssigner.findNextAgeBoundary(any())).thenReturn(next);
+
+        ticketAgingScheduler.rescoreDue();
+
+        verify(ticketPriorityAssigner).updateOpenTicketPriorities();
+        verify(ticketPriorityAssigner, never()).updateAgedOpenTicketPriorities(any(), any());
+        verify(taskScheduler).schedule(any(Runnable.class), eq(next.atZone(ZoneId.systemDefault()).toInstant()));
+        assertEquals(next, ticketAgingScheduler.getNextBoundary());
+    }
+
+    @Test
+    void followingPass_rescoresOnlyTheTicketsCrossedSinceThePreviousPass() {
+        ticketAgingScheduler.rescoreDue();
+        ticketAgingScheduler.rescoreDue();
+
+        ArgumentCaptor<LocalDateTime> passes = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(ticketPriorityAssigner, times(2)).findNextAgeBoundary(passes.capture());
+        verify(ticketPriorityAssigner, times(1)).updateOpenTicketPriorities();
+        verify(ticketPriorityAssigner).updateAgedOpenTicketPriorities(passes.getAllValues().get(0), passes.getAllValues().get(1));
+
+        // Senza ticket aperti non resta alcun timer
+        verifyNoInteractions(taskScheduler);
+        assertNull(ticketAgingScheduler.getNextBoundary());
+    }
+
+    @Test
+    void track_bringsTheTimerForwardOnlyForAnEarlierBoundaryAfterTheCommit() {
+        LocalDateTime now = LocalDateTime.now();
+        when(ticketPriorityAssigner.findNextAgeBoundary(any())).thenReturn(now.plusDays(2));
+        ticketAgingScheduler.rescoreDue();
+
+        Ticket created = new Ticket();
+        created.setCreationDate(now);
+        TransactionSynchronizationManager.initSynchronization();
+        ticketAgingScheduler.track(created);
+
+        assertEquals(now.plusDays(2), ticketAgingScheduler.getNextBoundary());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(now.plusDays(1), ticketAgingScheduler.getNextBoundary());
+        verify(firstTimer).cancel(false);
+
+        Ticket later = new Ticket();
+        later.setCreationDate(now.plusHours(1));
+        ticketAgingScheduler.track(later);
+
+        assertEquals(now.plusDays(1), ticketAgingScheduler.getNextBoundary());
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+        verify(secondTimer, never()).cancel(anyBoolean());
+    }
+}
@@ -1,19 +1,22 @@
 package org.elis.progettoing.service;
 
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.enumeration.PriorityFlag;
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.enumeration.TicketType;
 import org.elis.progettoing.models.Review;
 import org.elis.progettoing.models.Ticket;
 import org.elis.progettoing.models.User;
 import org.elis.progettoing.models.product.Product;
-import org.elis.progettoing.models.product.PurchasedProduct;
 import org.elis.progettoing.repository.PurchasedProductRepository;
 import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.repository.TicketRepository;
+import org.elis.progettoing.service.implementation.ModerationSignalStore;
 import org.elis.progettoing.service.implementation.TicketPriorityAssigner;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -21,11 +24,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 
 class TicketPriorityAssignerTest {
@@ -39,6 +44,9 @@ class TicketPriorityAssignerTest {
     @Mock
     private ReviewRepository reviewRepository;
 
+    @Mock
+    private ModerationSignalStore moderationSignalStore;
+
     @InjectMocks
     private TicketPriorityAssigner ticketPriorityAssigner;
 
@@ -49,6 +57,7 @@ class TicketPriorityAssignerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(ticketRepository.updatePriorityFlag(any(), anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(1).size());
         product = new Product();
         ticket = new Ticket();
         ticket.setType(TicketType.REPORT_PRODUCT);
@@ -67,7 +76,7 @@ class TicketPriorityAssignerTest {
         Ticket ticket = new Ticket();
         ticket.setType(TicketType.REPORT_PRODUCT);
         ticket.setCreationDate(LocalDateTime.now().minusDays(1)); // Recent ticket
-        ticket.setState("In attesa");
+        ticket.setState(TicketState.PENDING);
 
         // Mock the reported product
         Product product = new Product();
@@ -77,8 +86,8 @@ class TicketPriorityAssignerTest {
         ticket.setReportedProduct(product);
 
         // Mock repository responses
-        when(ticketRepository.countByReportedProduct(product)).thenReturn(10L); // Many reports
-        when(purchasedProductRepository.findByProduct(product)).thenReturn(createMockPurchases()); // Very popular product
+        when(moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, product.getId())).thenReturn(10L); // Many reports
+        when(moderationSignalStore.getCount(ModerationSignal.PRODUCT_PURCHASES, product.getId())).thenReturn(150L); // Very popular product
 
         // Act: Call the method
         PriorityFlag result = ticketPriorityAssigner.assignPriorityToTicket(ticket);
@@ -87,29 +96,20 @@ class TicketPriorityAssignerTest {
         assertEquals(PriorityFlag.HIGH, result);
     }
 
-    // Helper method to create a mock list of purchases
-    private List<PurchasedProduct> createMockPurchases() {
-        List<PurchasedProduct> purchases = new ArrayList<>();
-        for (int i = 0; i < 150; i++) {
-            purchases.add(new PurchasedProduct());
-        }
-        return purchases;
-    }
-
     @Test
     void testAssignPriorityToTicket_MediumPriority() {
         // Setup: Create a medium-priority ticket
         Ticket ticket = new Ticket();
         ticket.setType(TicketType.REPORT_USER);
         ticket.setCreationDate(LocalDateTime.now().minusDays(3));
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
 
         User reportedUser = new User();
         reportedUser.setRanking(2);
         ticket.setReportedUser(reportedUser);
 
         // Mock repository responses
-        when(ticketRepository.countByReportedUser(reportedUser)).thenReturn(5L);
+        when(moderationSignalStore.getCount(ModerationSignal.USER_REPORTS, reportedUser.getId())).thenReturn(5L);
 
         // Act: Call the method
         PriorityFlag result = ticketPriorityAssigner.assignPriorityToTicket(ticket);
@@ -124,7 +124,7 @@ class TicketPriorityAssignerTest {
         Ticket ticket = new Ticket();
         ticket.setType(TicketType.SELLER_REQUEST);
         ticket.setCreationDate(LocalDateTime.now().minusDays(7));
-        ticket.setState("Completato");
+        ticket.setState(TicketState.ACCEPTED);
 
         // Act: Call the method
         PriorityFlag result = ticketPriorityAssigner.assignPriorityToTicket(ticket);
@@ -139,7 +139,7 @@ class TicketPriorityAssignerTest {
         Ticket ticket = new Ticket();
         ticket.setType(TicketType.SELLER_REQUEST);
         ticket.setCreationDate(LocalDateTime.now().minusHours(12));
-        ticket.setState("In attesa");
+        ticket.setState(TicketState.PENDING);
 
         // Act: Call the method
         PriorityFlag result = ticketPriorityAssigner.assignPriorityToTicket(ticket);
@@ -154,7 +154,7 @@ class TicketPriorityAssignerTest {
         Ticket ticket = new Ticket();
         ticket.setType(TicketType.REPORT_REVIEWS);
         ticket.setCreationDate(LocalDateTime.now().minusDays(2));
-        ticket.setState("In attesa");
+        ticket.setState(TicketState.PENDING);
 
         Review review = new Review();
         User reviewUser = new User();
@@ -163,8 +163,8 @@ class TicketPriorityAssignerTest {
         ticket.setReportedReview(review);
 
         // Mock repository responses
-        when(ticketRepository.countByReportedReview(review)).thenReturn(3L);
-        when(reviewRepository.getAverageRatingForSeller(reviewUser.getId(), LocalDateTime.now().minusDays(30))).thenReturn(2.0);
+        when(moderationSignalStore.getCount(ModerationSignal.REVIEW_REPORTS, review.getId())).thenReturn(3L);
+        when(moderationSignalStore.getAverageRating(reviewUser.getId())).thenReturn(2.0);
 
         // Act: Call the method
         PriorityFlag result = ticketPriorityAssigner.assignPriorityToTicket(ticket);
@@ -179,8 +179,7 @@ class TicketPriorityAssignerTest {
         reviewUser.setRanking(1);
         product.setUser(reviewUser);
         // Simula il comportamento del repository per restituire un numero di ordini tra 51 e 100
-        List<PurchasedProduct> purchasedProducts = Arrays.asList(new PurchasedProduct(), new PurchasedProduct(), new PurchasedProduct());
-        when(purchasedProductRepository.findByProduct(product)).thenReturn(purchasedProducts);
+        when(moderationSignalStore.getCount(ModerationSignal.PRODUCT_PURCHASES, product.getId())).thenReturn(3L);
 
         // Assegna la priorità al ticket
         PriorityFlag priorityFlag = ticketPriorityAssigner.assignPriorityToTicket(ticket);
@@ -197,8 +196,7 @@ class TicketPriorityAssignerTest {
         reviewUser.setRanking(1);
         product.setUser(reviewUser);
         // Simula il comportamento del repository per restituire un numero di ordini inferiore a 50
-        List<PurchasedProduct> purchasedProducts = List.of(new PurchasedProduct());
-        when(purchasedProductRepository.findByProduct(product)).thenReturn(purchasedProducts);
+        when(moderationSignalStore.getCount(ModerationSignal.PRODUCT_PURCHASES, product.getId())).thenReturn(1L);
 
         // Assegna la priorità al ticket
         PriorityFlag priorityFlag = ticketPriorityAssigner.assignPriorityToTicket(ticket);
@@ -206,4 +204,154 @@ class TicketPriorityAssignerTest {
         // Verifica che il tipo di priorità sia corretto
         assertEquals(PriorityFlag.LOW, priorityFlag);  // La priorità dipende dal punteggio totale
     }
+
+    @Test
+    void testAssignPriorityToTicket_ReadsTheCountersWithoutQueries() {
+        ticket.setState(TicketState.PENDING);
+        User owner = new User();
+        owner.setRanking(4);
+        product.setId(7L);
+        product.setUser(owner);
+
+        ticketPriorityAssigner.assignPriorityToTicket(ticket);
+
+        verify(moderationSignalStore).getCount(ModerationSignal.PRODUCT_PURCHASES, 7L);
+        verify(moderationSignalStore).getCount(ModerationSignal.PRODUCT_REPORTS, 7L);
+        verifyNoInteractions(ticketRepository, purchasedProductRepository, reviewRepository);
+    }
+
+    @Test
+    void updateOpenTicketPriorities_writesBackOnlyTheChangedPriorities() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, TicketType.REPORT_PRODUCT, TicketState.PENDING, now.minusHours(12), PriorityFlag.LOW, 10L, 0.0, null, null, null, null, null});
+        rows.add(new Object[]{2L, TicketType.REPORT_USER, TicketState.TAKEN_ON, now.minusDays(3), PriorityFlag.MEDIUM, null, null, 20L, 2.0, null, null, null});
+        rows.add(new Object[]{3L, TicketType.REPORT_REVIEWS, TicketState.PENDING, now.minusDays(2), PriorityFlag.HIGH, null, null, null, null, 30L, 40L, 1.0});
+        when(ticketRepository.findOpenTicketPriorityRows()).thenReturn(rows);
+        when(ticketRepository.countTicketsByReportedProductOfOpenTickets()).thenReturn(List.<Object[]>of(new Object[]{10L, 10L}));
+        when(ticketRepository.countTicketsByReportedUserOfOpenTickets()).thenReturn(List.<Object[]>of(new Object[]{20L, 5L}));
+        when(ticketRepository.countTicketsByReportedReviewOfOpenTickets()).thenReturn(List.<Object[]>of(new Object[]{30L, 3L}));
+        when(purchasedProductRepository.countPurchasesOfProductsReportedInOpenTickets()).thenReturn(List.<Object[]>of(new Object[]{5L, 1L}, new Object[]{10L, 150L}));
+
+        int updated = ticketPriorityAssigner.updateOpenTicketPriorities();
+
+        assertEquals(2, updated);
+        verify(ticketRepository).updatePriorityFlag(PriorityFlag.HIGH, List.of(1L));
+        verify(ticketRepository).updatePriorityFlag(PriorityFlag.MEDIUM, List.of(3L));
+        verify(ticketRepository, never()).updatePriorityFlag(eq(PriorityFlag.LOW), anyList());
+        verifyNoInteractions(moderationSignalStore);
+    }
+
+    @Test
+    void updateOpenTicketPriorities_matchesTheSingleTicketScoring() {
+        LocalDateTime now = LocalDateTime.now();
+        User reportedUser = new User();
+        reportedUser.setId(20L);
+        reportedUser.setRanking(0.5);
+
+        Ticket single = new Ticket();
+        single.setType(TicketType.REPORT_USER);
+        single.setState(TicketState.PENDING);
+        single.setCreationDate(now.minusDays(4));
+        single.setReportedUser(reportedUser);
+        when(moderationSignalStore.getCount(ModerationSignal.USER_REPORTS, 20L)).thenReturn(12L);
+        when(moderationSignalStore.getCount(ModerationSignal.BUYER_PURCHASES, 20L)).thenReturn(60L);
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, TicketType.REPORT_USER, TicketState.PENDING, now.minusDays(4), PriorityFlag.LOW, null, null, 20L, 0.5, null, null, null});
+        when(ticketRepository.findOpenTicketPriorityRows()).thenReturn(rows);
+        when(ticketRepository.countTicketsByReportedUserOfOpenTickets()).thenReturn(List.<Object[]>of(new Object[]{20L, 12L}));
+        when(purchasedProductRepository.countPurchasesOfBuyersReportedInOpenTickets()).thenReturn(List.<Object[]>of(new Object[]{20L, 60L}));
+
+        ticketPriorityAssigner.updateOpenTicketPriorities();
+
+        PriorityFlag expected = ticketPriorityAssigner.assignPriorityToTicket(single);
+        assertEquals(PriorityFlag.HIGH, expected);
+        verify(ticketRepository).updatePriorityFlag(expected, List.of(1L));
+    }
+
+    @Test
+    void updateOpenTicketPriorities_splitsLargeUpdatesInBatches() {
+        LocalDateTime old = LocalDateTime.now().minusDays(30);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 501; id++) {
+            rows.add(new Object[]{id, TicketType.SELLER_REQUEST, TicketState.PENDING, old, PriorityFlag.HIGH, null, null, null, null, null, null, null});
+        }
+        when(ticketRepository.findOpenTicketPriorityRows()).thenReturn(rows);
+
+        assertEquals(501, ticketPriorityAssigner.updateOpenTicketPriorities());
+
+        ArgumentCaptor<List<Long>> batches = ArgumentCaptor.forClass(List.class);
+        verify(ticketRepository, times(2)).updatePriorityFlag(eq(PriorityFlag.LOW), batches.capture());
+        assertEquals(500, batches.getAllValues().get(0).size());
+        assertEquals(List.of(501L), batches.getAllValues().get(1));
+    }
+
+    @Test
+    void updateOpenTicketPriorities_doesNotCountTheTicketsClosedMeanwhile() {
+        LocalDateTime old = LocalDateTime.now().minusDays(30);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, TicketType.SELLER_REQUEST, TicketState.PENDING, old, PriorityFlag.HIGH, null, null, null, null, null, null, null});
+        when(ticketRepository.findOpenTicketPriorityRows()).thenReturn(rows);
+        when(ticketRepository.updatePriorityFlag(PriorityFlag.LOW, List.of(1L))).thenReturn(0);
+
+        assertEquals(0, ticketPriorityAssigner.updateOpenTicketPriorities());
+    }
+
+    @Test
+    void updateOpenTicketPriorities_withoutOpenTickets_loadsNoAggregates() {
+        assertEquals(0, ticketPriorityAssigner.updateOpenTicketPriorities());
+
+        verify(ticketRepository, never()).countTicketsByReportedUserOfOpenTickets();
+        verify(purchasedProductRepository, never()).countPurchasesOfProductsReportedInOpenTickets();
+        verify(ticketRepository, never()).updatePriorityFlag(any(), anyList());
+    }
+
+    @Test
+    void updateAgedOpenTicketPriorities_rescoresOnlyTheTicketsCrossingABoundaryWithTheStore() {
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusHours(1);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, TicketType.REPORT_PRODUCT, TicketState.PENDING, to.minusDays(3).minusMinutes(30), PriorityFlag.HIGH, 10L, 0.5, null, null, null, null, null});
+        when(ticketRepository.findOpenTicketPriorityRowsCreatedBetween(from.minusDays(3), to.minusDays(3))).thenReturn(rows);
+        when(moderationSignalStore.getCount(ModerationSignal.PRODUCT_PURCHASES, 10L)).thenReturn(150L);
+        when(moderationSignalStore.getCount(ModerationSignal.PRODUCT_REPORTS, 10L)).thenReturn(5L);
+
+        assertEquals(1, ticketPriorityAssigner.updateAgedOpenTicketPriorities(from, to));
+
+        // Compiuti i tre giorni il punteggio di età scende da 20 a 10 e la priorità da alta a media
+        verify(ticketRepository).updatePriorityFlag(PriorityFlag.MEDIUM, List.of(1L));
+        verify(ticketRepository).findOpenTicketPriorityRowsCreatedBetween(from.minusDays(1), to.minusDays(1));
+        verify(ticketRepository).findOpenTicketPriorityRowsCreatedBetween(from.minusDays(6), to.minusDays(6));
+        verify(ticketRepository, never()).findOpenTicketPriorityRows();
+        verify(ticketRepository, never()).countTicketsByReportedProductOfOpenTickets();
+        verifyNoInteractions(purchasedProductRepository, reviewRepository);
+    }
+
+    @Test
+    void updateAgedOpenTicketPriorities_withOverlappingWindows_rescoresEachTicketOnce() {
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusDays(3);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, TicketType.SELLER_REQUEST, TicketState.PENDING, to.minusDays(4), PriorityFlag.HIGH, null, null, null, null, null, null, null});
+        when(ticketRepository.findOpenTicketPriorityRowsCreatedBetween(any(), any())).thenReturn(rows);
+
+        assertEquals(1, ticketPriorityAssigner.updateAgedOpenTicketPriorities(from, to));
+
+        verify(ticketRepository).updatePriorityFlag(PriorityFlag.LOW, List.of(1L));
+    }
+
+    @Test
+    void findNextAgeBoundary_returnsTheEarliestBoundaryOfTheOpenTickets() {
+        LocalDateTime now = LocalDateTime.now();
+        when(ticketRepository.findFirstOpenTicketCreationDateAfter(now.minusDays(1))).thenReturn(now.minusHours(20));
+        when(ticketRepository.findFirstOpenTicketCreationDateAfter(now.minusDays(3))).thenReturn(now.minusDays(3).plusHours(2));
+
+        assertEquals(now.plusHours(2), ticketPriorityAssigner.findNextAgeBoundary(now));
+    }
+
+    @Test
+    void findNextAgeBoundary_withoutOpenTickets_returnsNull() {
+        assertEquals(null, ticketPriorityAssigner.findNextAgeBoundary(LocalDateTime.now()));
+    }
 }
@@ -11,8 +11,10 @@ import org.elis.progettoing.dto.request.ticket.TicketFilterRequest;
 import org.elis.progettoing.dto.request.ticket.TicketRequestDTO;
 import org.elis.progettoing.dto.response.ticket.FilteredTicketsResponse;
 import org.elis.progettoing.dto.response.ticket.TicketResponseDTO;
+import org.elis.progettoing.enumeration.ModerationSignal;
 import org.elis.progettoing.enumeration.PriorityFlag;
 import org.elis.progettoing.enumeration.Role;
+import org.elis.progettoing.enumeration.TicketState;
 import org.elis.progettoing.enumeration.TicketType;
 import org.elis.progettoing.exception.TicketActionException;
 import org.elis.progettoing.exception.entity.EntityEditException;
@@ -32,6 +34,7 @@ import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.repository.TicketRepository;
 import org.elis.progettoing.repository.UserRepository;
 import org.elis.progettoing.service.implementation.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -69,6 +72,15 @@ class TicketServiceTest {
     @Mock
     private TicketMapperImpl ticketMapper;
 
+    @Mock
+    private ModerationSignalStore moderationSignalStore;
+
+    @Mock
+    private TicketAgingScheduler ticketAgingScheduler;
+
+    @Mock
+    private TicketWorkQueue ticketWorkQueue;
+
     @InjectMocks
     private TicketServiceImpl ticketService;
 
@@ -129,25 +141,34 @@ class TicketServiceTest {
     @Mock
     private TicketFilterRequest ticketFilterRequest;
     private Ticket ticket1, ticket2;
+    private User moderator;
     private TicketResponseDTO ticketDTO1, ticketDTO2;
     private String description;
 
     @BeforeEach
     void setUp() {
+        // Il ticket in lavorazione è in carico al moderatore autenticato con un lease non scaduto
+        moderator = new User();
+        moderator.setId(9L);
+        moderator.setRole(Role.MODERATOR);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(moderator, null));
+
         ticket = new Ticket();
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
         ticket.setType(TicketType.SELLER_REQUEST);
+        ticket.setModerator(moderator);
+        ticket.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(10));
 
         user = new User();
         user.setRole(Role.BUYER);
 
         ticket1 = new Ticket();
-        ticket1.setState("In attesa");
+        ticket1.setState(TicketState.PENDING);
         ticket1.setTitle("Ticket 1");
         ticket1.setDescription("Description 1");
 
         ticket2 = new Ticket();
-        ticket2.setState("Accettato");
+        ticket2.setState(TicketState.ACCEPTED);
         ticket2.setTitle("Ticket 2");
         ticket2.setDescription("Description 2");
 
@@ -168,6 +189,11 @@ class TicketServiceTest {
         ticketResponseDTO = new TicketResponseDTO();
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void testRequestToBeSeller_Success() {
         user.setId(1L);
@@ -375,27 +401,28 @@ class TicketServiceTest {
     void testAcceptTicket_WhenTicketAlreadyAccepted() {
         // Arrange
         long ticketId = 1L;
-        AcceptedState acceptedState = new AcceptedState(emailService, userService, productService, reviewService);
-        ticket.setState(acceptedState.getStatusMessage()); // Stato già accettato
+        ticket.setState(TicketState.ACCEPTED); // Stato già accettato
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
 
         // Act & Assert
         TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.acceptTicket(ticketId, description));
         assertEquals("Errore nell'esecuzione dell'azione 'accettare' per il ticket con ID: 1. Stato attuale: 'Accettato'.", exception.getMessage());
         verify(ticketRepository, times(1)).findById(ticketId);
+        verify(ticketRepository, never()).resolve(anyLong(), anyLong(), any(), any(), any());
     }
 
     @Test
     void testAcceptTicket_WhenTicketStateIsNotInProgress() {
         // Arrange
         long ticketId = 1L;
-        ticket.setState("Closed"); // Stato non valido
+        ticket.setState(TicketState.PENDING); // Stato non valido
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
 
         // Act & Assert
         TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.acceptTicket(ticketId, description));
-        assertEquals("Errore nell'esecuzione dell'azione 'accettare' per il ticket con ID: 1. Stato attuale: 'Closed'.", exception.getMessage());
+        assertEquals("Errore nell'esecuzione dell'azione 'accettare' per il ticket con ID: 1. Stato attuale: 'In attesa'.", exception.getMessage());
         verify(ticketRepository, times(1)).findById(ticketId);
+        verify(ticketRepository, never()).resolve(anyLong(), anyLong(), any(), any(), any());
     }
 
     @Test
@@ -406,10 +433,11 @@ class TicketServiceTest {
 
         // Arrange
         long ticketId = 1L;
-        ticket.setState("In lavorazione"); // Stato valido per l'accettazione
+        ticket.setState(TicketState.TAKEN_ON); // Stato valido per l'accettazione
         ticket.setTicketRequester(user); // Associa l'utente al ticket
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket)).thenReturn(PriorityFlag.HIGH);
+        when(ticketPriorityAssigner.assignPriorityToTicket(ticket, TicketState.ACCEPTED)).thenReturn(PriorityFlag.HIGH);
+        when(ticketRepository.resolve(eq(ticketId), eq(9L), any(), eq(TicketState.ACCEPTED), eq(PriorityFlag.HIGH))).thenReturn(1);
         when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(ticketResponseDTO);
 
         // Act
@@ -418,11 +446,13 @@ class TicketServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(ticketResponseDTO, result);
-        assertEquals("Accettato", ticket.getState()); // Verifica che lo stato del ticket sia cambiato
+        assertEquals(TicketState.ACCEPTED, ticket.getState()); // Verifica che lo stato del ticket sia cambiato
         assertEquals(PriorityFlag.HIGH, ticket.getPriorityFlag()); // Verifica che la priorità sia stata assegnata
         verify(ticketRepository, times(1)).findById(ticketId); // Verifica che il metodo findById sia stato chiamato
-        verify(ticketRepository, times(1)).save(ticket); // Verifica che il ticket venga salvato
-        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket); // Verifica che la priorità venga assegnata
+        verify(ticketRepository, times(1)).resolve(eq(ticketId), eq(9L), any(), eq(TicketState.ACCEPTED), eq(PriorityFlag.HIGH)); // Verifica la transizione condizionata
+        verify(ticketRepository, never()).save(ticket); // Il ticket letto non viene salvato di nuovo
+        assertNull(ticket.getLeaseExpiresAt()); // Il lease termina con la decisione
+        verify(entityManager, times(1)).detach(ticket);
         verify(ticketMapper, times(1)).ticketToTicketDTO(ticket); // Verifica la mappatura
     }
 
@@ -430,10 +460,11 @@ class TicketServiceTest {
     void testAcceptTicket_WhenUserRoleNeedsUpdate() {
         // Arrange
         long ticketId = 1L;
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
         ticket.setTicketRequester(user);
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket)).thenReturn(PriorityFlag.HIGH);
+        when(ticketPriorityAssigner.assignPriorityToTicket(ticket, TicketState.ACCEPTED)).thenReturn(PriorityFlag.HIGH);
+        when(ticketRepository.resolve(eq(ticketId), eq(9L), any(), eq(TicketState.ACCEPTED), eq(PriorityFlag.HIGH))).thenReturn(1);
         when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(ticketResponseDTO);
         when(userRepository.save(user)).thenReturn(user);
 
@@ -448,15 +479,15 @@ class TicketServiceTest {
     }
 
     @Test
-    void testAcceptTicket_WhenTicketSaveFails() {
+    void testAcceptTicket_WhenTicketUpdateFails() {
         // Arrange
         long ticketId = 1L;
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
         ticket.setTicketRequester(user); // Associate the user with the ticket
 
         // Simulate the ticket repository behavior
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(ticket)).thenThrow(new RuntimeException("Database error"));
+        when(ticketRepository.resolve(anyLong(), anyLong(), any(), any(), any())).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         EntityEditException exception = assertThrows(EntityEditException.class, () -> ticketService.acceptTicket(ticketId, description));
@@ -465,14 +496,65 @@ class TicketServiceTest {
 
         // Verify interactions
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, times(1)).save(ticket); // Verify the save method is called
+        verify(userRepository, never()).save(any(User.class)); // Il ruolo non cambia se la transizione fallisce
+    }
+
+    @Test
+    void testAcceptTicket_WhenAnotherModeratorChangedTheState() {
+        // Arrange
+        long ticketId = 1L;
+        ticket.setState(TicketState.TAKEN_ON);
+        ticket.setTicketRequester(user);
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.resolve(anyLong(), anyLong(), any(), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.acceptTicket(ticketId, description));
+        assertEquals("Errore nell'esecuzione dell'azione 'accettare' per il ticket con ID: 1. Lo stato del ticket è stato cambiato da un altro moderatore.", exception.getMessage());
+
+        // Né il ruolo dell'utente né le email vengono toccati
+        assertEquals(TicketState.TAKEN_ON, ticket.getState());
+        verify(userRepository, never()).save(any(User.class));
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void testAcceptTicket_WhenTheTicketIsHeldByAnotherModerator() {
+        // Arrange
+        long ticketId = 1L;
+        User other = new User();
+        other.setId(10L);
+        ticket.setModerator(other);
+        ticket.setTicketRequester(user);
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+
+        // Act & Assert
+        TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.acceptTicket(ticketId, description));
+        assertEquals("Errore nell'esecuzione dell'azione 'accettare' per il ticket con ID: 1. Il ticket non è in carico al moderatore con ID: 9 o la presa in carico è scaduta.", exception.getMessage());
+        verify(ticketRepository, never()).resolve(anyLong(), anyLong(), any(), any(), any());
+        verify(userRepository, never()).save(any(User.class));
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void testRefuseTicket_WhenTheLeaseExpired() {
+        // Arrange
+        long ticketId = 1L;
+        ticket.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+
+        // Act & Assert
+        TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.refuseTicket(ticketId, description));
+        assertEquals("Errore nell'esecuzione dell'azione 'rifiutare' per il ticket con ID: 1. Il ticket non è in carico al moderatore con ID: 9 o la presa in carico è scaduta.", exception.getMessage());
+        verify(ticketRepository, never()).resolve(anyLong(), anyLong(), any(), any(), any());
+        verifyNoInteractions(emailService);
     }
 
     @Test
     void testAcceptTicket_WhenEmailSendingFails() {
         // Arrange
         long ticketId = 1L;
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
 
         // Crea un oggetto User simulato (mockato)
         user = new User();
@@ -480,8 +562,10 @@ class TicketServiceTest {
         ticket.setTicketRequester(user);  // Associa l'utente al ticket
 
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket)).thenReturn(PriorityFlag.HIGH);
+        when(ticketPriorityAssigner.assignPriorityToTicket(ticket, TicketState.ACCEPTED)).thenReturn(PriorityFlag.HIGH);
+        when(ticketRepository.resolve(eq(ticketId), eq(9L), any(), eq(TicketState.ACCEPTED), eq(PriorityFlag.HIGH))).thenReturn(1);
         when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(ticketResponseDTO);
+        doThrow(new RuntimeException("Email error")).when(emailService).sendTicketDecisionEmail(any(), anyBoolean(), any());
 
         // Act
         TicketResponseDTO result = ticketService.acceptTicket(ticketId, description);
@@ -490,8 +574,8 @@ class TicketServiceTest {
         assertNotNull(result);
         assertEquals(ticketResponseDTO, result);
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, times(1)).save(ticket);
-        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket);
+        verify(ticketRepository, times(1)).resolve(eq(ticketId), eq(9L), any(), eq(TicketState.ACCEPTED), eq(PriorityFlag.HIGH));
+        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket, TicketState.ACCEPTED);
         verify(ticketMapper, times(1)).ticketToTicketDTO(ticket);
     }
 
@@ -500,7 +584,7 @@ class TicketServiceTest {
         // Arrange
         long ticketId = 1L;
         ticket.setId(ticketId);
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
         ticket.setType(TicketType.SELLER_REQUEST); // Simula che sia un ticket di tipo SELLER_REQUEST
 
         user.setId(1L);
@@ -509,6 +593,7 @@ class TicketServiceTest {
 
         // Simula il comportamento del repository
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.resolve(anyLong(), anyLong(), any(), any(), any())).thenReturn(1);
 
         // Simula il comportamento del repository dell'utente fallendo nel salvataggio
         doThrow(new RuntimeException("Database error")).when(userRepository).save(any(User.class));
@@ -529,7 +614,7 @@ class TicketServiceTest {
         // Arrange
         long ticketId = 1L;
         ticket.setId(ticketId);
-        ticket.setState("Accepted");
+        ticket.setState(TicketState.ACCEPTED);
 
         // Simula lo stato del ticket come AcceptedState
         AcceptedState acceptedState = mock(AcceptedState.class);
@@ -542,7 +627,7 @@ class TicketServiceTest {
         TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.acceptTicket(ticketId, description));
 
         // Verifica che l'eccezione sia stata lanciata con il messaggio corretto
-        assertEquals("Errore nell'esecuzione dell'azione 'accettare' per il ticket con ID: 1. Stato attuale: 'Accepted'.", exception.getMessage());
+        assertEquals("Errore nell'esecuzione dell'azione 'accettare' per il ticket con ID: 1. Stato attuale: 'Accettato'.", exception.getMessage());
 
         // Verifica che il repository sia stato chiamato per trovare il ticket
         verify(ticketRepository, times(1)).findById(ticketId);
@@ -566,7 +651,7 @@ class TicketServiceTest {
         // Arrange
         long ticketId = 1L;
         ticket.setId(ticketId);
-        ticket.setState("Rifiutato");
+        ticket.setState(TicketState.REFUSED);
 
         RefuseState refuseState = new RefuseState(emailService);
         ticket.setStateTicket(refuseState);  // Imposta lo stato a RefuseState (già rifiutato)
@@ -585,33 +670,51 @@ class TicketServiceTest {
         // Arrange
         long ticketId = 1L;
         ticket.setId(ticketId);
-        ticket.setState("Closed"); // Stato non valido
+        ticket.setState(TicketState.PENDING); // Stato non valido
 
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
 
         // Act & Assert
         TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.refuseTicket(ticketId, description));
-        assertEquals("Errore nell'esecuzione dell'azione 'rifiutare' per il ticket con ID: 1. Stato attuale: 'Closed'.", exception.getMessage());
+        assertEquals("Errore nell'esecuzione dell'azione 'rifiutare' per il ticket con ID: 1. Stato attuale: 'In attesa'.", exception.getMessage());
 
         verify(ticketRepository, times(1)).findById(ticketId);
+        verify(ticketRepository, never()).resolve(anyLong(), anyLong(), any(), any(), any());
     }
 
     @Test
-    void testRefuseTicket_WhenTicketSaveFails() {
+    void testRefuseTicket_WhenTicketUpdateFails() {
         // Arrange
         long ticketId = 1L;
         ticket.setId(ticketId);
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
 
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        doThrow(new RuntimeException("Database error")).when(ticketRepository).save(any(Ticket.class));
+        doThrow(new RuntimeException("Database error")).when(ticketRepository).resolve(anyLong(), anyLong(), any(), any(), any());
 
         // Act & Assert
         EntityEditException exception = assertThrows(EntityEditException.class, () -> ticketService.refuseTicket(ticketId, description));
         assertEquals("Si è verificato un errore nell'aggiornamento dell'entità id con ticket = 1.", exception.getMessage());
 
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, times(1)).save(ticket); // Verifica che il tentativo di salvataggio fallisca
+        verify(ticketRepository, times(1)).resolve(anyLong(), anyLong(), any(), any(), any()); // Verifica che il tentativo di aggiornamento fallisca
+    }
+
+    @Test
+    void testRefuseTicket_WhenAnotherModeratorChangedTheState() {
+        // Arrange
+        long ticketId = 1L;
+        ticket.setId(ticketId);
+        ticket.setState(TicketState.TAKEN_ON);
+
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.resolve(anyLong(), anyLong(), any(), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.refuseTicket(ticketId, description));
+        assertEquals("Errore nell'esecuzione dell'azione 'rifiutare' per il ticket con ID: 1. Lo stato del ticket è stato cambiato da un altro moderatore.", exception.getMessage());
+
+        verifyNoInteractions(emailService);
     }
 
     @Test
@@ -625,7 +728,7 @@ class TicketServiceTest {
         user.setRole(Role.BUYER);
 
         ticket.setId(ticketId);
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
         ticket.setTitle("Ticket 1");
         ticket.setDescription("Description 1");
         ticket.setType(TicketType.SELLER_REQUEST);
@@ -640,8 +743,9 @@ class TicketServiceTest {
 
         // Stub del repository, priority assigner e mapper
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(ticket)).thenReturn(ticket); // Ritorna il ticket salvato
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket)).thenReturn(PriorityFlag.HIGH);
+        when(ticketRepository.resolve(eq(ticketId), eq(9L), any(), eq(TicketState.REFUSED), eq(PriorityFlag.HIGH))).thenReturn(1);
+        when(ticketPriorityAssigner.assignPriorityToTicket(ticket, TicketState.REFUSED)).thenReturn(PriorityFlag.HIGH);
+        doThrow(new RuntimeException("Email error")).when(emailService).sendTicketDecisionEmail(any(), anyBoolean(), any());
 
         // Stub del mapper con il ticket aggiornato
         doReturn(ticketResponseDTO).when(ticketMapper).ticketToTicketDTO(ticket);
@@ -652,10 +756,10 @@ class TicketServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(ticketResponseDTO, result);
-        assertEquals("Rifiutato", ticket.getState());
+        assertEquals(TicketState.REFUSED, ticket.getState());
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, times(1)).save(ticket);
-        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket);
+        verify(ticketRepository, times(1)).resolve(eq(ticketId), eq(9L), any(), eq(TicketState.REFUSED), eq(PriorityFlag.HIGH));
+        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket, TicketState.REFUSED);
         verify(ticketMapper, times(1)).ticketToTicketDTO(ticket);
     }
 
@@ -670,7 +774,7 @@ class TicketServiceTest {
         user.setRole(Role.BUYER);
 
         ticket.setId(ticketId);
-        ticket.setState("In lavorazione");
+        ticket.setState(TicketState.TAKEN_ON);
         ticket.setTitle("Ticket 1");
         ticket.setDescription("Description 1");
         ticket.setType(TicketType.SELLER_REQUEST);
@@ -685,8 +789,8 @@ class TicketServiceTest {
 
         // Stub del repository, priority assinger e mapper
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(ticket)).thenReturn(ticket); // Importante restituire l'oggetto salvato
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket)).thenReturn(PriorityFlag.HIGH);
+        when(ticketRepository.resolve(eq(ticketId), eq(9L), any(), eq(TicketState.REFUSED), eq(PriorityFlag.HIGH))).thenReturn(1);
+        when(ticketPriorityAssigner.assignPriorityToTicket(ticket, TicketState.REFUSED)).thenReturn(PriorityFlag.HIGH);
         when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(ticketResponseDTO);
 
         // Act
@@ -695,13 +799,14 @@ class TicketServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(ticketResponseDTO, result);
-        assertEquals("Rifiutato", ticket.getState());  // Verifica che lo stato del ticket sia cambiato in "Rifiutato"
+        assertEquals(TicketState.REFUSED, ticket.getState());  // Verifica che lo stato del ticket sia cambiato in "Rifiutato"
         assertEquals(PriorityFlag.HIGH, ticket.getPriorityFlag());  // Verifica che la priorità sia stata assegnata
 
         // Verifiche delle interazioni
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, times(1)).save(ticket);
-        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket);
+        verify(ticketRepository, times(1)).resolve(eq(ticketId), eq(9L), any(), eq(TicketState.REFUSED), eq(PriorityFlag.HIGH));
+        verify(ticketRepository, never()).save(ticket);
+        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket, TicketState.REFUSED);
         verify(ticketMapper, times(1)).ticketToTicketDTO(ticket);
     }
 
@@ -709,10 +814,10 @@ class TicketServiceTest {
     void testGetResolvedTickets() {
         // Arrange
         List<Ticket> resolvedTickets = new ArrayList<>();
-        ticket1.setState("Accepted");
+        ticket1.setState(TicketState.ACCEPTED);
         resolvedTickets.add(ticket1);
 
-        ticket2.setState("Refused");
+        ticket2.setState(TicketState.REFUSED);
         resolvedTickets.add(ticket2);
 
         // TicketResponseDTO simulato per ogni ticket
@@ -739,7 +844,7 @@ class TicketServiceTest {
     void testGetTakenOnTickets() {
         // Arrange
         List<Ticket> takenOnTickets = new ArrayList<>();
-        ticket1.setState("Taken On");
+        ticket1.setState(TicketState.TAKEN_ON);
         takenOnTickets.add(ticket1);
 
         // TicketResponseDTO simulato per il ticket
@@ -764,10 +869,10 @@ class TicketServiceTest {
     void testGetPendingTickets() {
         // Arrange
         List<Ticket> pendingTickets = new ArrayList<>();
-        ticket1.setState("Pending");
+        ticket1.setState(TicketState.PENDING);
         pendingTickets.add(ticket1);
 
-        ticket2.setState("Pending");
+        ticket2.setState(TicketState.PENDING);
         pendingTickets.add(ticket2);
 
         // TicketResponseDTO simulato per ogni ticket
@@ -796,12 +901,11 @@ class TicketServiceTest {
         long ticketId = 1L;
 
         // Mock del ticket
-        ticket.setState("In attesa");
+        ticket.setState(TicketState.PENDING);
 
         // Mock del repository e dei mapper
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(ticket)).thenReturn(ticket); // Corretto qui
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket)).thenReturn(PriorityFlag.HIGH);
+        when(ticketWorkQueue.claim(ticket, moderator)).thenReturn(true);
         when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(ticketResponseDTO);
 
         // Act
@@ -811,8 +915,9 @@ class TicketServiceTest {
         assertNotNull(result);
         assertEquals(ticketResponseDTO, result);
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, times(1)).save(ticket);
-        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket);
+        verify(ticketWorkQueue, times(1)).claim(ticket, moderator); // Il ticket viene assegnato al moderatore con un lease
+        verify(ticketRepository, never()).save(ticket);
+        verify(emailService, times(1)).sendTakeOnEmail(ticket);
         verify(ticketMapper, times(1)).ticketToTicketDTO(ticket);
     }
 
@@ -820,46 +925,135 @@ class TicketServiceTest {
     void testTakeOnTicket_WhenTicketAlreadyInTakeOnState() {
         // Arrange
         long ticketId = 1L;
-        ticket.setState("Pronto per essere preso in carico");
+        ticket.setState(TicketState.TAKEN_ON);
 
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
 
         // Act & Assert
         TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.takeOnTicket(ticketId));
-        assertEquals("Errore nell'esecuzione dell'azione 'prendere in carico' per il ticket con ID: 1. Stato attuale: 'Pronto per essere preso in carico'.", exception.getMessage());
+        assertEquals("Errore nell'esecuzione dell'azione 'prendere in carico' per il ticket con ID: 1. Stato attuale: 'In lavorazione'.", exception.getMessage());
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, never()).save(ticket); // Verifica che il salvataggio non sia avvenuto
+        verify(ticketWorkQueue, never()).claim(any(), any()); // Verifica che lo stato non sia stato cambiato
     }
 
     @Test
     void testTakeOnTicket_WhenTicketIsInInvalidState() {
         // Arrange
         long ticketId = 1L;
-        ticket.setState("Risolto");
+        ticket.setState(TicketState.ACCEPTED);
 
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
 
         // Act & Assert
         TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.takeOnTicket(ticketId));
-        assertEquals("Errore nell'esecuzione dell'azione 'prendere in carico' per il ticket con ID: 1. Stato attuale: 'Risolto'.", exception.getMessage());
+        assertEquals("Errore nell'esecuzione dell'azione 'prendere in carico' per il ticket con ID: 1. Stato attuale: 'Accettato'.", exception.getMessage());
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, never()).save(ticket); // Verifica che il salvataggio non sia avvenuto
+        verify(ticketWorkQueue, never()).claim(any(), any()); // Verifica che lo stato non sia stato cambiato
     }
 
     @Test
-    void testTakeOnTicket_WhenSaveFails() {
+    void testTakeOnTicket_WhenUpdateFails() {
         // Arrange
         long ticketId = 1L;
-        ticket.setState("In attesa");
+        ticket.setState(TicketState.PENDING);
 
         when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(ticket)).thenThrow(new RuntimeException("Database error"));
+        when(ticketWorkQueue.claim(any(), any())).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         EntityEditException exception = assertThrows(EntityEditException.class, () -> ticketService.takeOnTicket(ticketId));
         assertEquals("Si è verificato un errore nell'aggiornamento dell'entità id con ticket = 1.", exception.getMessage());
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, times(1)).save(ticket);
+        verify(ticketWorkQueue, times(1)).claim(any(), any());
+    }
+
+    @Test
+    void testTakeOnTicket_WhenAnotherModeratorTookItOnFirst() {
+        // Arrange
+        long ticketId = 1L;
+        ticket.setState(TicketState.PENDING);
+
+        // Entrambi i moderatori leggono il ticket in attesa, ma solo il primo UPDATE condizionato trova la riga
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketWorkQueue.claim(ticket, moderator)).thenReturn(true, false);
+
+        ticketService.takeOnTicket(ticketId);
+        ticket.setState(TicketState.PENDING);
+
+        // Act & Assert
+        TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.takeOnTicket(ticketId));
+        assertEquals("Errore nell'esecuzione dell'azione 'prendere in carico' per il ticket con ID: 1. Lo stato del ticket è stato cambiato da un altro moderatore.", exception.getMessage());
+        verify(emailService, times(1)).sendTakeOnEmail(ticket);
+    }
+
+    @Test
+    void testClaimNextTicket_Success() {
+        // Arrange
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(user);
+        when(ticketWorkQueue.claimNext(user)).thenReturn(Optional.of(ticket));
+        when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(ticketResponseDTO);
+
+        // Act
+        TicketResponseDTO result = ticketService.claimNextTicket();
+
+        // Assert
+        assertEquals(ticketResponseDTO, result);
+        verify(ticketWorkQueue, times(1)).claimNext(user);
+        verify(emailService, times(1)).sendTakeOnEmail(ticket);
+        verify(ticketRepository, never()).save(any());
+    }
+
+    @Test
+    void testClaimNextTicket_WhenNoTicketIsPending() {
+        // Arrange
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(user);
+        when(ticketWorkQueue.claimNext(user)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertNull(ticketService.claimNextTicket());
+        verifyNoInteractions(emailService, ticketMapper);
+    }
+
+    @Test
+    void testRenewTicketLease_Success() {
+        // Arrange
+        long ticketId = 1L;
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plusMinutes(30);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(user);
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketWorkQueue.renewLease(ticketId, user)).thenReturn(leaseExpiresAt);
+        when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(ticketResponseDTO);
+
+        // Act
+        TicketResponseDTO result = ticketService.renewTicketLease(ticketId);
+
+        // Assert
+        assertEquals(ticketResponseDTO, result);
+        assertEquals(leaseExpiresAt, ticket.getLeaseExpiresAt());
+        verify(entityManager, times(1)).detach(ticket);
+    }
+
+    @Test
+    void testRenewTicketLease_WhenTheLeaseIsNoLongerHeld() {
+        // Arrange
+        long ticketId = 1L;
+        ticket.setState(TicketState.PENDING);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(user);
+        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketWorkQueue.renewLease(ticketId, user)).thenReturn(null);
+
+        // Act & Assert
+        TicketActionException exception = assertThrows(TicketActionException.class, () -> ticketService.renewTicketLease(ticketId));
+        assertEquals("Errore nell'esecuzione dell'azione 'rinnovare la presa in carico' per il ticket con ID: 1. Stato attuale: 'In attesa'.", exception.getMessage());
+        verifyNoInteractions(ticketMapper);
     }
 
     @Test
@@ -879,7 +1073,7 @@ class TicketServiceTest {
 
         // Verifica che il ticket non sia stato salvato
         verify(ticketRepository, times(1)).findById(ticketId);
-        verify(ticketRepository, never()).save(ticket);
+        verify(ticketWorkQueue, never()).claim(any(), any());
     }
 
     @Test
@@ -1147,40 +1341,13 @@ class TicketServiceTest {
 
     @Test
     void testUpdatePriorities() {
-        // Arrange
-        ticket1.setId(1L);
-        ticket1.setPriorityFlag(PriorityFlag.LOW);
-
-        ticket2.setId(2L);
-        ticket2.setPriorityFlag(PriorityFlag.MEDIUM);
-
-        Ticket ticket3 = new Ticket();
-        ticket3.setId(3L);
-        ticket3.setPriorityFlag(PriorityFlag.HIGH);
-
-        // Lista di ticket simulata
-        List<Ticket> tickets = Arrays.asList(ticket1, ticket2, ticket3);
-
-        // Configura il comportamento del repository
-        when(ticketRepository.findAllOpenTickets()).thenReturn(tickets);
-
-        // Configura il comportamento del ticketPriorityAssigner
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket1)).thenReturn(PriorityFlag.MEDIUM);
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket2)).thenReturn(PriorityFlag.MEDIUM); // Nessun cambiamento
-        when(ticketPriorityAssigner.assignPriorityToTicket(ticket3)).thenReturn(PriorityFlag.LOW);
-
         // Act
         ticketService.updatePriorities();
 
-        // Assert
-        verify(ticketRepository, times(1)).save(ticket1); // Cambia da LOW a MEDIUM
-        verify(ticketRepository, times(0)).save(ticket2); // Nessun cambiamento
-        verify(ticketRepository, times(1)).save(ticket3); // Cambia da HIGH a LOW
-
-        // Verifica che il metodo assignPriorityToTicket sia chiamato per ogni ticket
-        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket1);
-        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket2);
-        verify(ticketPriorityAssigner, times(1)).assignPriorityToTicket(ticket3);
+        // Assert: il ricalcolo avviene in blocco, senza caricare e salvare i singoli ticket
+        verify(ticketPriorityAssigner, times(1)).updateOpenTicketPriorities();
+        verify(ticketPriorityAssigner, never()).assignPriorityToTicket(any());
+        verify(ticketRepository, never()).save(any());
     }
 
     @Test
@@ -1189,6 +1356,7 @@ class TicketServiceTest {
 
         // Arrange
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Modifica qui: Cambia `setReportedProductId` in `setReportedReviewId` e imposta 100L
         TicketRequestDTO ticketRequestDTO = new TicketRequestDTO();
@@ -1208,7 +1376,7 @@ class TicketServiceTest {
         mockTicketResponseDTO.setId(ticket.getId());
         mockTicketResponseDTO.setTitle(ticket.getTitle());
         mockTicketResponseDTO.setDescription(ticket.getDescription());
-        mockTicketResponseDTO.setState(ticket.getState());
+        mockTicketResponseDTO.setState(ticket.getState().getStatusMessage());
 
         when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(mockTicketResponseDTO);
 
@@ -1230,7 +1398,7 @@ class TicketServiceTest {
 
         // Controllo delle proprietà del ticket
         assertEquals(PriorityFlag.LOW, ticket.getPriorityFlag());
-        assertEquals(mockState.getStatusMessage(), ticket.getState());
+        assertEquals(mockState.getStatusMessage(), ticket.getState().getStatusMessage());
     }
 
     @Test
@@ -1245,6 +1413,7 @@ class TicketServiceTest {
         reportedUser.setEmail("reported@example.com");
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Imposta l'ID dell'utente segnalato
         TicketRequestDTO ticketRequestDTO = new TicketRequestDTO();
@@ -1261,7 +1430,7 @@ class TicketServiceTest {
         mockTicketResponseDTO.setId(ticket.getId());
         mockTicketResponseDTO.setTitle(ticket.getTitle());
         mockTicketResponseDTO.setDescription(ticket.getDescription());
-        mockTicketResponseDTO.setState(ticket.getState());
+        mockTicketResponseDTO.setState(ticket.getState().getStatusMessage());
 
         when(ticketMapper.ticketToTicketDTO(ticket)).thenReturn(mockTicketResponseDTO);
 
@@ -1283,7 +1452,7 @@ class TicketServiceTest {
 
         // Controllo delle proprietà del ticket
         assertEquals(PriorityFlag.LOW, ticket.getPriorityFlag());
-        assertEquals(mockState.getStatusMessage(), ticket.getState());
+        assertEquals(mockState.getStatusMessage(), ticket.getState().getStatusMessage());
     }
 
     @Test
@@ -1292,6 +1461,7 @@ class TicketServiceTest {
 
         // Arrange
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         TicketRequestDTO ticketRequestDTO = new TicketRequestDTO();
         ticketRequestDTO.setReportedProductId(300L);
@@ -1321,18 +1491,21 @@ class TicketServiceTest {
         verify(ticketRepository).findByTicketRequesterAndReportedProductId(any(User.class), eq(300L)); // Verifica con un matcher generico
         verify(ticketPriorityAssigner).assignPriorityToTicket(ticket);
         verify(ticketRepository).save(ticket);
+        verify(moderationSignalStore).increment(ModerationSignal.PRODUCT_REPORTS, 300L, 1);
+        verify(ticketAgingScheduler).track(ticket);
 
         // Verifica della chiamata a sendReportConfirmation
         verify(emailService).sendReportConfirmation(ticket);
 
         // Controllo delle proprietà del ticket
         assertEquals(PriorityFlag.LOW, ticket.getPriorityFlag());
-        assertEquals(mockState.getStatusMessage(), ticket.getState());
+        assertEquals(mockState.getStatusMessage(), ticket.getState().getStatusMessage());
     }
 
     @Test
     void testCreateReport_ReviewAlreadyReported() {
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Arrange
         TicketRequestDTO ticketRequestDTO = new TicketRequestDTO();
@@ -1363,6 +1536,7 @@ class TicketServiceTest {
         ticketRequestDTO.setReportedReviewId(100L); // ID recensione che non esiste
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Mock per il repository recensioni: la recensione non esiste
         when(reviewRepository.findById(100L)).thenReturn(Optional.empty());
@@ -1387,6 +1561,7 @@ class TicketServiceTest {
 
         // Simuliamo l'autenticazione dell'utente
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Mock del repository recensioni: la recensione esiste
         when(reviewRepository.findById(100L)).thenReturn(Optional.of(mockReview));
@@ -1412,6 +1587,7 @@ class TicketServiceTest {
 
         // Simuliamo l'autenticazione dell'utente
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Mock del repository utente: l'utente con l'ID 100 non esiste
         when(userRepository.findById(100L)).thenReturn(Optional.empty());
@@ -1437,6 +1613,7 @@ class TicketServiceTest {
 
         // Simuliamo l'autenticazione dell'utente
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Mock del repository per restituire l'utente segnalato
         when(userRepository.findById(100L)).thenReturn(Optional.of(mockReportedUser)); // L'utente segnalato esiste
@@ -1463,6 +1640,7 @@ class TicketServiceTest {
 
         // Simuliamo l'autenticazione dell'utente
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Mock per il repository prodotto, che restituisce Optional.empty() (prodotto non esistente)
         when(productRepository.findById(100L)).thenReturn(Optional.empty());
@@ -1528,6 +1706,7 @@ class TicketServiceTest {
 
         // Simuliamo l'autenticazione dell'utente
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Mock del repository per restituire il prodotto e la verifica se una segnalazione esiste già
         when(productRepository.findById(100L)).thenReturn(Optional.of(mockProduct)); // Il prodotto esiste
@@ -1554,7 +1733,9 @@ class TicketServiceTest {
         mockProduct.setId(100L);
 
         // Simuliamo l'autenticazione dell'utente
+        user.setId(1L);
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(authentication.getPrincipal()).thenReturn(user);
 
         // Mock del repository prodotto: il prodotto esiste
         when(productRepository.findById(100L)).thenReturn(Optional.of(mockProduct));
@@ -0,0 +1,163 @@
+package org.elis.progettoing.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.elis.progettoing.enumeration.PriorityFlag;
+import org.elis.progettoing.enumeration.TicketState;
+import org.elis.progettoing.models.Ticket;
+import org.elis.progettoing.models.User;
+import org.elis.progettoing.repository.TicketRepository;
+import org.elis.progettoing.service.implementation.TicketPriorityAssigner;
+import org.elis.progettoing.service.implementation.TicketWorkQueue;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TicketWorkQueueTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private TicketPriorityAssigner ticketPriorityAssigner;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    private final SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, withSettings().withoutAnnotations());
+
+    private final JdbcServices jdbcServices = mock(JdbcServices.class, withSettings().withoutAnnotations());
+
+    @Mock
+    private Dialect dialect;
+
+    private final User moderator = new User();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getJdbcServices()).thenReturn(jdbcServices);
+        when(jdbcServices.getDialect()).thenReturn(dialect);
+        when(ticketPriorityAssigner.assignPriorityToTicket(any(), any())).thenReturn(PriorityFlag.HIGH);
+
+        moderator.setId(7L);
+    }
+
+    @Test
+    void claimNext_withSkipLocked_claimsTheLockedHeadOfTheHighestPriority() {
+        when(dialect.supportsSkipLocked()).thenReturn(true);
+        Ticket head = pendingTicket(1L);
+        when(ticketRepository.lockNextPendingTickets(PriorityFlag.HIGH, PageRequest.of(0, 1))).thenReturn(List.of(head));
+        when(ticketRepository.claim(eq(1L), eq(moderator), any(), eq(PriorityFlag.HIGH))).thenReturn(1);
+
+        Optional<Ticket> claimed = workQueue().claimNext(moderator);
+
+        assertSame(head, claimed.orElseThrow());
+        assertEquals(TicketState.TAKEN_ON, head.getState());
+        assertEquals(moderator, head.getModerator());
+        assertTrue(head.getLeaseExpiresAt().isAfter(LocalDateTime.now().plus(TicketWorkQueue.LEASE_DURATION).minusMinutes(1)));
+        verify(entityManager).detach(head);
+        verify(ticketRepository, never()).findNextPendingTickets(any(), any());
+        verify(ticketRepository, never()).lockNextPendingTickets(eq(PriorityFlag.MEDIUM), any());
+    }
+
+    @Test
+    void claimNext_withoutSkipLocked_movesToTheNextCandidateWhenAnotherModeratorGotThereFirst() {
+        when(dialect.supportsSkipLocked()).thenReturn(false);
+        Ticket taken = pendingTicket(1L);
+        Ticket free = pendingTicket(2L);
+        when(ticketRepository.findNextPendingTickets(any(), any())).thenReturn(List.of());
+        when(ticketRepository.findNextPendingTickets(eq(PriorityFlag.MEDIUM), any())).thenReturn(List.of(taken, free));
+        when(ticketRepository.claim(eq(1L), any(), any(), any())).thenReturn(0);
+        when(ticketRepository.claim(eq(2L), any(), any(), any())).thenReturn(1);
+
+        Optional<Ticket> claimed = workQueue().claimNext(moderator);
+
+        assertSame(free, claimed.orElseThrow());
+        assertEquals(TicketState.PENDING, taken.getState());
+        verify(entityManager, never()).detach(taken);
+        verify(ticketRepository, never()).findNextPendingTickets(eq(PriorityFlag.LOW), any());
+        verify(ticketRepository, never()).lockNextPendingTickets(any(), any());
+    }
+
+    @Test
+    void claimNext_withEmptyQueue_returnsNothing() {
+        when(dialect.supportsSkipLocked()).thenReturn(true);
+        when(ticketRepository.lockNextPendingTickets(any(), any())).thenReturn(List.of());
+
+        assertTrue(workQueue().claimNext(moderator).isEmpty());
+
+        verify(ticketRepository, times(PriorityFlag.values().length)).lockNextPendingTickets(any(), any());
+        verify(ticketRepository, never()).claim(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void claim_ofATicketNoLongerPending_leavesItUntouched() {
+        Ticket ticket = pendingTicket(1L);
+        when(ticketRepository.claim(eq(1L), eq(moderator), any(), any())).thenReturn(0);
+
+        assertFalse(workQueue().claim(ticket, moderator));
+        assertNull(ticket.getModerator());
+        verify(entityManager, never()).detach(ticket);
+    }
+
+    @Test
+    void renewLease_returnsNullWhenTheModeratorNoLongerHoldsTheTicket() {
+        TicketWorkQueue workQueue = workQueue();
+        when(ticketRepository.renewLease(eq(1L), eq(7L), any(), any())).thenReturn(1);
+
+        assertNotNull(workQueue.renewLease(1L, moderator));
+        assertNull(workQueue.renewLease(2L, moderator));
+    }
+
+    @Test
+    void releaseExpiredLeases_putsBackOnlyTheLeasesThatWereNotRenewed() {
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(1);
+        Ticket abandoned = leasedTicket(1L, expired);
+        Ticket renewed = leasedTicket(2L, expired);
+        when(ticketRepository.findExpiredLeases(any())).thenReturn(List.of(abandoned, renewed));
+        when(ticketPriorityAssigner.assignPriorityToTicket(any(), eq(TicketState.PENDING))).thenReturn(PriorityFlag.MEDIUM);
+        when(ticketRepository.releaseLease(1L, expired, PriorityFlag.MEDIUM)).thenReturn(1);
+        when(ticketRepository.releaseLease(2L, expired, PriorityFlag.MEDIUM)).thenReturn(0);
+
+        assertEquals(1, workQueue().releaseExpiredLeases());
+        verify(ticketRepository, times(2)).releaseLease(anyLong(), eq(expired), eq(PriorityFlag.MEDIUM));
+    }
+
+    private TicketWorkQueue workQueue() {
+        return new TicketWorkQueue(ticketRepository, ticketPriorityAssigner, entityManager);
+    }
+
+    private static Ticket pendingTicket(long id) {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setState(TicketState.PENDING);
+        return ticket;
+    }
+
+    private static Ticket leasedTicket(long id, LocalDateTime leaseExpiresAt) {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setState(TicketState.TAKEN_ON);
+        ticket.setLeaseExpiresAt(leaseExpiresAt);
+        return ticket;
+    }
+}
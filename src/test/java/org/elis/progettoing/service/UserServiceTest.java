@@ -12,11 +12,13 @@ import org.elis.progettoing.exception.entity.EntityEditException;
 import org.elis.progettoing.exception.entity.EntityNotFoundException;
 import org.elis.progettoing.mapper.definition.UserMapper;
 import org.elis.progettoing.models.User;
+import org.elis.progettoing.repository.OrderProductRepository;
 import org.elis.progettoing.repository.ProductRepository;
 import org.elis.progettoing.repository.ReviewRepository;
 import org.elis.progettoing.repository.TicketRepository;
 import org.elis.progettoing.repository.UserRepository;
 import org.elis.progettoing.service.implementation.LocalStorageService;
+import org.elis.progettoing.service.implementation.OrderSearchIndex;
 import org.elis.progettoing.service.implementation.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +27,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
@@ -61,6 +65,9 @@ class UserServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private OrderProductRepository orderProductRepository;
+
     @Mock
     private EntityManager entityManager;
 
@@ -73,6 +80,9 @@ class UserServiceTest {
     @Mock
     private LocalStorageService localStorageService;
 
+    @Mock
+    private OrderSearchIndex orderSearchIndex;
+
     @Mock
     private Expression<String> lowerName;
 
@@ -179,6 +189,41 @@ class UserServiceTest {
         assertNotNull(response, "La risposta del servizio non dovrebbe essere nulla.");
         assertEquals(uploadedPhotoId, authenticatedUser.getUrlUserPhoto(), "L'ID della foto dell'utente dovrebbe essere stato aggiornato.");
         assertEquals("UpdatedName", authenticatedUser.getName(), "Il nome dell'utente dovrebbe essere aggiornato.");
+        verify(orderSearchIndex).reindexBuyer(1L);
+    }
+
+    @Test
+    void testUpdate_InsideTransaction_ShouldReindexOrdersOnlyAfterCommit() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(authenticatedUser));
+        when(userMapper.userToUserResponseDTO(any(User.class))).thenReturn(new UserResponseDTO());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.update(userRequestDTO, null);
+
+            verifyNoInteractions(orderSearchIndex);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(orderSearchIndex).reindexBuyer(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testUpdate_NameUnchanged_ShouldNotReindexOrders() {
+        authenticatedUser.setName("UpdatedName");
+        authenticatedUser.setSurname("UpdatedSurname");
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(authenticatedUser));
+        when(userMapper.userToUserResponseDTO(any(User.class))).thenReturn(new UserResponseDTO());
+
+        userService.update(userRequestDTO, null);
+
+        verify(userRepository).save(authenticatedUser);
+        verifyNoInteractions(orderSearchIndex);
     }
 
 
@@ -209,6 +254,7 @@ class UserServiceTest {
         verify(ticketRepository).unsetRequesterId(2L);
         verify(reviewRepository).unsetUser(2L);
         verify(productRepository).unsetUser(2L);
+        verify(orderProductRepository).unsetSeller(2L);
         verify(userRepository).delete(userToRemove);
 
         assertTrue(result);
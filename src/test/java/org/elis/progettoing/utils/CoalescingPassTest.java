@@ -0,0 +1,64 @@
+package org.elis.progettoing.utils;
+
+import org.elis.progettoing.utils.customConcurrency.AfterCommit;
+import org.elis.progettoing.utils.customConcurrency.CoalescingPass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingPassTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void requestsFromOtherThreadsDuringAPass_areMergedIntoOneFollowingPass() {
+        AtomicInteger runs = new AtomicInteger();
+        AtomicReference<CoalescingPass> pass = new AtomicReference<>();
+        pass.set(new CoalescingPass(() -> {
+            if (runs.incrementAndGet() == 1) {
+                Thread other = new Thread(() -> {
+                    pass.get().request();
+                    pass.get().request();
+                });
+                other.start();
+                assertDoesNotThrow(() -> other.join());
+            }
+        }));
+
+        pass.get().request();
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void afterCommit_withoutTransaction_runsAtOnce() {
+        AtomicInteger runs = new AtomicInteger();
+
+        AfterCommit.run(runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void afterCommit_insideATransaction_waitsForTheCommit() {
+        AtomicInteger runs = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        AfterCommit.run(runs::incrementAndGet);
+        assertEquals(0, runs.get());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, runs.get());
+    }
+}
@@ -0,0 +1,34 @@
+package org.elis.progettoing.utils;
+
+import org.elis.progettoing.enumeration.TicketState;
+import org.elis.progettoing.utils.customConverter.TicketStateConverter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketStateConverterTest {
+
+    private final TicketStateConverter ticketStateConverter = new TicketStateConverter();
+
+    @Test
+    void convertToDatabaseColumn_storesTheStatusMessage() {
+        assertEquals("In attesa", ticketStateConverter.convertToDatabaseColumn(TicketState.PENDING));
+        assertEquals("In lavorazione", ticketStateConverter.convertToDatabaseColumn(TicketState.TAKEN_ON));
+        assertEquals("Accettato", ticketStateConverter.convertToDatabaseColumn(TicketState.ACCEPTED));
+        assertEquals("Rifiutato", ticketStateConverter.convertToDatabaseColumn(TicketState.REFUSED));
+        assertNull(ticketStateConverter.convertToDatabaseColumn(null));
+    }
+
+    @Test
+    void convertToEntityAttribute_readsTheStoredStates() {
+        for (TicketState state : TicketState.values()) {
+            assertEquals(state, ticketStateConverter.convertToEntityAttribute(state.getStatusMessage()));
+        }
+        assertNull(ticketStateConverter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void convertToEntityAttribute_withUnknownState_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> ticketStateConverter.convertToEntityAttribute("Chiuso"));
+    }
+}